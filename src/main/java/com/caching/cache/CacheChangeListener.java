@@ -0,0 +1,52 @@
+package com.caching.cache;
+
+/**
+ * Receives the changes made to a {@link CoalescingCaffeineCache} on this instance: values loaded on a miss
+ * or a refresh, as reported by the loading code with their origin, and entries evicted or cleared.
+ * Values stored with {@code put} are not reported.
+ * Called on the thread making the change, so implementations must return quickly.
+ */
+public interface CacheChangeListener {
+
+    /**
+     * Listener ignoring every change.
+     */
+    CacheChangeListener NONE = new CacheChangeListener() {
+        @Override
+        public void loaded(String cacheName, Object key, Object value, ValueOrigin origin) {
+        }
+
+        @Override
+        public void evicted(String cacheName, Object key) {
+        }
+
+        @Override
+        public void cleared(String cacheName) {
+        }
+    };
+
+    /**
+     * Called when a value has been loaded into the cache.
+     *
+     * @param cacheName The cache name.
+     * @param key       The cache key.
+     * @param value     The loaded value.
+     * @param origin    Where the value came from.
+     */
+    void loaded(String cacheName, Object key, Object value, ValueOrigin origin);
+
+    /**
+     * Called when an entry has been evicted on request.
+     *
+     * @param cacheName The cache name.
+     * @param key       The cache key.
+     */
+    void evicted(String cacheName, Object key);
+
+    /**
+     * Called when all entries have been removed on request.
+     *
+     * @param cacheName The cache name.
+     */
+    void cleared(String cacheName);
+}
@@ -0,0 +1,136 @@
+package com.caching.cache;
+
+import com.github.benmanes.caffeine.cache.Interner;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.text.Normalizer;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Turns geocoding requests into canonical cache keys, so that spellings of the same query share one cache
+ * entry and one upstream call. Addresses are Unicode-normalized (NFKC), case-folded and have their whitespace
+ * and commas tidied, so " Bangalore ,India" and "BANGALORE, India" become "bangalore, india"; configured
+ * trailing parts such as the country are then dropped. Coordinates are rounded to a fixed number of decimals.
+ * Keys are interned, so the in-memory, stale, negative and disk caches all hold the same instance.
+ */
+public class CacheKeyCanonicalizer {
+
+    private final int coordinateDecimals;
+    private final Set<String> ignoredSuffixes;
+    private final Set<String> nonCacheable;
+    private final Interner<String> addresses = Interner.newWeakInterner();
+    private final Interner<List<String>> coordinates = Interner.newWeakInterner();
+
+    /**
+     * Creates a canonicalizer.
+     *
+     * @param coordinateDecimals Number of decimal places coordinates are rounded to.
+     * @param ignoredSuffixes    Trailing address parts dropped from keys, in any spelling.
+     * @param nonCacheable       Addresses never cached, in any spelling.
+     */
+    public CacheKeyCanonicalizer(int coordinateDecimals, Collection<String> ignoredSuffixes,
+                                 Collection<String> nonCacheable) {
+        this.coordinateDecimals = coordinateDecimals;
+        this.ignoredSuffixes = new HashSet<>();
+        for (String suffix : ignoredSuffixes) {
+            this.ignoredSuffixes.add(fold(suffix));
+        }
+        this.nonCacheable = new HashSet<>();
+        for (String address : nonCacheable) {
+            this.nonCacheable.add(address(address));
+        }
+    }
+
+    /**
+     * Returns the canonical key of an address.
+     *
+     * @param address The address as received.
+     * @return The interned canonical address.
+     */
+    public String address(String address) {
+        String key = fold(address);
+        // Drop ignored trailing parts, but never the whole address.
+        int end = key.length();
+        int comma = key.lastIndexOf(", ", end - 1);
+        while (comma > 0 && ignoredSuffixes.contains(key.substring(comma + 2, end))) {
+            end = comma;
+            comma = key.lastIndexOf(", ", end - 1);
+        }
+        return addresses.intern(end == key.length() ? key : key.substring(0, end));
+    }
+
+    /**
+     * Returns the canonical key of a coordinate pair. Values that are not plain decimal numbers are kept as sent
+     * (without surrounding whitespace), so the API answers them as before.
+     *
+     * @param latitude  The latitude as received.
+     * @param longitude The longitude as received.
+     * @return The interned canonical coordinates, latitude first.
+     */
+    public List<String> coordinates(String latitude, String longitude) {
+        return coordinates.intern(List.of(round(latitude), round(longitude)));
+    }
+
+    /**
+     * Tells whether results for the address may be cached.
+     *
+     * @param canonicalAddress A key returned by {@link #address(String)}.
+     * @return {@code false} for the configured non-cacheable addresses.
+     */
+    public boolean isCacheable(String canonicalAddress) {
+        return !nonCacheable.contains(canonicalAddress);
+    }
+
+    /**
+     * Normalizes the address to NFKC, folds its case and collapses whitespace, with commas always followed
+     * by a single space and empty parts removed. Other code matching addresses, such as the gazetteer, builds on
+     * this so that every tier agrees on which spellings are the same.
+     *
+     * @param address The address as received.
+     * @return The folded address, without ignored suffixes removed or interning.
+     */
+    public static String fold(String address) {
+        String normalized = Normalizer.isNormalized(address, Normalizer.Form.NFKC)
+                ? address : Normalizer.normalize(address, Normalizer.Form.NFKC);
+        // Upper then lower case also folds characters without a one-to-one lower case, such as the sharp s.
+        String folded = normalized.toUpperCase(Locale.ROOT).toLowerCase(Locale.ROOT);
+        StringBuilder key = new StringBuilder(folded.length());
+        char pending = 0;
+        for (int i = 0; i < folded.length(); i++) {
+            char c = folded.charAt(i);
+            if (c == ',') {
+                pending = ',';
+            } else if (Character.isWhitespace(c) || Character.isSpaceChar(c)) {
+                if (pending == 0) {
+                    pending = ' ';
+                }
+            } else {
+                if (pending != 0 && key.length() > 0) {
+                    key.append(pending == ',' ? ", " : " ");
+                }
+                pending = 0;
+                key.append(c);
+            }
+        }
+        return key.toString();
+    }
+
+    private String round(String value) {
+        String stripped = value.strip();
+        // Only plain decimals: rescaling a value such as "1e999999999" would build a huge number.
+        if (stripped.indexOf('e') >= 0 || stripped.indexOf('E') >= 0) {
+            return stripped;
+        }
+        try {
+            BigDecimal rounded = new BigDecimal(stripped).setScale(coordinateDecimals, RoundingMode.HALF_UP);
+            return rounded.signum() == 0 ? "0" : rounded.stripTrailingZeros().toPlainString();
+        } catch (NumberFormatException | ArithmeticException ex) {
+            return stripped;
+        }
+    }
+}
@@ -0,0 +1,312 @@
+package com.caching.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Spring {@link org.springframework.cache.Cache} backed by a Caffeine {@link AsyncCache}.
+ * Concurrent misses for the same key share a single in-flight load: the first caller runs the
+ * value loader, every other caller waits on the same future and receives the same value or the
+ * same exception. Failed loads are dropped from the cache by Caffeine, so the next request retries.
+ * Lookups go through Caffeine's own read path, so statistics, expiry and refresh-after-write apply as usual.
+ * Evictions and clears are reported to a {@link CacheChangeListener}, and so are loaded values once the loading
+ * code passes them to {@link #loaded}, with their origin; {@link #put}, {@link #evictUnreported} and
+ * {@link #clearUnreported} are not, so changes received from elsewhere can be applied without being reported
+ * back. Evictions and clears are also passed on to the caches holding copies of this cache's values, such as the
+ * on-disk tier and the stale values, so that an evicted entry is not read back from there by the next lookup.
+ */
+public class CoalescingCaffeineCache extends AbstractValueAdaptingCache {
+
+    private static final long IN_FLIGHT_NANOS = Long.MAX_VALUE >> 1;
+
+    private final String name;
+    private final AsyncCache<Object, Object> cache;
+    private final CacheChangeListener listener;
+    private final ValueLifetimes lifetimes;
+    private final List<Cache> copies;
+    private final LongAdder coalescedRequests = new LongAdder();
+
+    /**
+     * Creates a coalescing cache with the given name on top of the given Caffeine async cache.
+     *
+     * @param name  The name of the cache.
+     * @param cache The backing Caffeine async cache.
+     */
+    public CoalescingCaffeineCache(String name, AsyncCache<Object, Object> cache) {
+        this(name, cache, CacheChangeListener.NONE);
+    }
+
+    /**
+     * Creates a coalescing cache reporting its changes to the listener.
+     *
+     * @param name     The name of the cache.
+     * @param cache    The backing Caffeine async cache.
+     * @param listener Receives the values loaded into the cache and the entries evicted from it.
+     */
+    public CoalescingCaffeineCache(String name, AsyncCache<Object, Object> cache, CacheChangeListener listener) {
+        this(name, cache, listener, null);
+    }
+
+    /**
+     * Creates a coalescing cache reporting its changes to the listener, whose entries can be given less than a full
+     * lifetime.
+     *
+     * @param name      The name of the cache.
+     * @param cache     The backing Caffeine async cache.
+     * @param listener  Receives the values loaded into the cache and the entries evicted from it.
+     * @param lifetimes The expiry policy of the backing cache, or {@code null} if lifetimes cannot be adjusted.
+     */
+    public CoalescingCaffeineCache(String name, AsyncCache<Object, Object> cache, CacheChangeListener listener,
+                                   ValueLifetimes lifetimes) {
+        this(name, cache, listener, lifetimes, List.of());
+    }
+
+    /**
+     * Creates a coalescing cache like {@link #CoalescingCaffeineCache(String, AsyncCache, CacheChangeListener,
+     * ValueLifetimes)} whose evictions and clears are also applied to the given caches.
+     *
+     * @param name      The name of the cache.
+     * @param cache     The backing Caffeine async cache.
+     * @param listener  Receives the values loaded into the cache and the entries evicted from it.
+     * @param lifetimes The expiry policy of the backing cache, or {@code null} if lifetimes cannot be adjusted.
+     * @param copies    Caches holding copies of this cache's values under the same keys.
+     */
+    public CoalescingCaffeineCache(String name, AsyncCache<Object, Object> cache, CacheChangeListener listener,
+                                   ValueLifetimes lifetimes, List<Cache> copies) {
+        super(true);
+        this.name = name;
+        this.cache = cache;
+        this.listener = listener;
+        this.lifetimes = lifetimes;
+        this.copies = List.copyOf(copies);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public AsyncCache<Object, Object> getNativeCache() {
+        return cache;
+    }
+
+    /**
+     * Returns the number of requests that joined an in-flight load instead of starting their own.
+     *
+     * @return The number of coalesced requests since startup.
+     */
+    public long getCoalescedCount() {
+        return coalescedRequests.sum();
+    }
+
+    /**
+     * Returns how long the entry for the key has left before it expires.
+     *
+     * @param key The cache key.
+     * @return The remaining lifetime, or {@code null} if the key is not cached, its load has not been
+     *         recorded yet, or entries do not expire.
+     */
+    public Duration getTimeToLive(Object key) {
+        return cache.synchronous().policy().expireVariably()
+                .flatMap(expiry -> expiry.getExpiresAfter(key))
+                // Caffeine gives an entry a lifetime of centuries while its future is pending, and replaces it
+                // only after callers waiting on that future have run.
+                .filter(remaining -> remaining.toNanos() < IN_FLIGHT_NANOS)
+                .orElse(null);
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        CompletableFuture<Object> future = cache.getIfPresent(key);
+        if (future == null || !future.isDone() || future.isCompletedExceptionally()) {
+            return null;
+        }
+        return future.join();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        CompletableFuture<Object> loading = new CompletableFuture<>();
+        CompletableFuture<Object> existing = cache.get(key, (k, executor) -> loading);
+
+        if (existing != loading) {
+            if (!existing.isDone()) {
+                coalescedRequests.increment();
+            }
+            try {
+                return (T) fromStoreValue(existing.get());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new ValueRetrievalException(key, valueLoader, ex);
+            } catch (ExecutionException ex) {
+                throw new ValueRetrievalException(key, valueLoader, unwrap(ex.getCause()));
+            }
+        }
+
+        try {
+            Object value = toStoreValue(valueLoader.call());
+            loading.complete(value);
+            return (T) fromStoreValue(value);
+        } catch (Throwable ex) {
+            loading.completeExceptionally(ex);
+            throw new ValueRetrievalException(key, valueLoader, ex);
+        }
+    }
+
+    /**
+     * Asynchronous counterpart of {@link #get(Object, Callable)}. A cached value is returned as an already
+     * completed future, so hits complete on the calling thread. On a miss the loader is started once and
+     * every concurrent caller for the same key receives the same future.
+     *
+     * @param key    The cache key.
+     * @param loader Starts the load for the key.
+     * @param <T>    The value type.
+     * @return A future completing with the cached or loaded value.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> getAsync(Object key, Supplier<CompletableFuture<T>> loader) {
+        CompletableFuture<Object> loading = new CompletableFuture<>();
+        CompletableFuture<Object> existing = cache.get(key, (k, executor) -> loading);
+
+        if (existing != loading) {
+            if (!existing.isDone()) {
+                coalescedRequests.increment();
+            }
+            return existing.thenApply(value -> (T) fromStoreValue(value));
+        }
+
+        try {
+            loader.get().whenComplete((value, ex) -> {
+                if (ex == null) {
+                    loading.complete(toStoreValue(value));
+                } else {
+                    loading.completeExceptionally(unwrap(ex));
+                }
+            });
+        } catch (RuntimeException ex) {
+            loading.completeExceptionally(ex);
+        }
+        return loading.thenApply(value -> (T) fromStoreValue(value));
+    }
+
+    /**
+     * Lets the value about to be loaded or stored for the key expire when it would have if it had been loaded at the
+     * given time, for values read back from a slower tier that first stored them then.
+     *
+     * @param key      The cache key.
+     * @param value    The value about to be loaded or stored.
+     * @param loadedAt When the value was fetched.
+     * @return Whether any of its lifetime is left; if not, the value should not be stored. Always {@code true} when
+     *         lifetimes cannot be adjusted.
+     */
+    public boolean expireAsIfLoadedAt(Object key, Object value, Instant loadedAt) {
+        return lifetimes == null || lifetimes.expireAsIfStoredAt(key, value, loadedAt);
+    }
+
+    /**
+     * Lets the value about to be loaded or stored for the key expire after the given time, for values that should
+     * only be kept briefly. Does nothing when lifetimes cannot be adjusted.
+     *
+     * @param key      The cache key.
+     * @param value    The value about to be loaded or stored.
+     * @param lifetime How long the value may be kept, capped at the cache's own lifetime.
+     */
+    public void expireAfter(Object key, Object value, Duration lifetime) {
+        if (lifetimes != null) {
+            lifetimes.expireAfter(key, value, lifetime);
+        }
+    }
+
+    /**
+     * Reports a value loaded for the key to the listener. Called by the loading code, which knows where the value
+     * came from; values that must stay local, such as stale values served during an outage, are not reported.
+     *
+     * @param key    The cache key.
+     * @param value  The loaded value.
+     * @param origin Where the value came from.
+     */
+    public void loaded(Object key, Object value, ValueOrigin origin) {
+        listener.loaded(name, key, value, origin);
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        cache.put(key, CompletableFuture.completedFuture(toStoreValue(value)));
+    }
+
+    /**
+     * Stores the value unless the key is already cached or being loaded. Never waits for an in-flight load.
+     *
+     * @return The value already cached, or {@code null} if there was none. A load still in flight or one that
+     *         failed also gives {@code null}, without the given value being stored.
+     */
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        CompletableFuture<Object> existing =
+                cache.asMap().putIfAbsent(key, CompletableFuture.completedFuture(toStoreValue(value)));
+        if (existing == null || !existing.isDone() || existing.isCompletedExceptionally()) {
+            return null;
+        }
+        return toValueWrapper(existing.getNow(null));
+    }
+
+    /**
+     * Evicts the key from this cache and the caches holding copies of its values.
+     */
+    @Override
+    public void evict(Object key) {
+        evictUnreported(key);
+        listener.evicted(name, key);
+    }
+
+    /**
+     * Removes every entry from this cache and the caches holding copies of its values.
+     */
+    @Override
+    public void clear() {
+        clearUnreported();
+        listener.cleared(name);
+    }
+
+    /**
+     * Evicts the key like {@link #evict} without reporting it to the listener, for evictions received from
+     * elsewhere.
+     *
+     * @param key The cache key.
+     */
+    public void evictUnreported(Object key) {
+        // Copies first, so that a miss racing with the eviction cannot read the value back from them.
+        for (Cache copy : copies) {
+            copy.evict(key);
+        }
+        cache.synchronous().invalidate(key);
+    }
+
+    /**
+     * Removes every entry like {@link #clear} without reporting it to the listener, for clears received from
+     * elsewhere.
+     */
+    public void clearUnreported() {
+        for (Cache copy : copies) {
+            copy.clear();
+        }
+        cache.synchronous().invalidateAll();
+    }
+
+    private static Throwable unwrap(Throwable ex) {
+        return ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+    }
+}
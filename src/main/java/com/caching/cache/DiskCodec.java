@@ -0,0 +1,15 @@
+package com.caching.cache;
+
+/**
+ * Converts the keys and values of one cache to and from the bytes stored by {@link MappedDiskCache}.
+ */
+public interface DiskCodec {
+
+    byte[] encodeKey(Object key);
+
+    Object decodeKey(byte[] bytes);
+
+    byte[] encodeValue(Object value);
+
+    Object decodeValue(byte[] bytes);
+}
@@ -0,0 +1,77 @@
+package com.caching.cache;
+
+import com.caching.model.GeoAddress;
+import com.caching.model.GeoCoordinates;
+import com.github.benmanes.caffeine.cache.Weigher;
+
+import java.util.List;
+
+/**
+ * Caffeine weigher estimating the heap bytes an entry of the geocoding caches retains: the key, the value
+ * and the cache's own per-entry bookkeeping. Sizes assume a 64-bit JVM with compressed references and
+ * compact strings; they are estimates for budgeting, not exact measurements.
+ */
+public class EntryWeigher implements Weigher<Object, Object> {
+
+    /**
+     * Caffeine node with expiry, refresh and frequency fields, its hash table slot, and the future holding the
+     * value in an async cache.
+     */
+    static final int ENTRY_OVERHEAD = 128;
+
+    private static final int OBJECT_HEADER = 12;
+    private static final int ARRAY_HEADER = 16;
+    private static final int REFERENCE = 4;
+    private static final int UNKNOWN_OBJECT = 64;
+
+    @Override
+    public int weigh(Object key, Object value) {
+        return (int) Math.min(Integer.MAX_VALUE, ENTRY_OVERHEAD + sizeOf(key) + sizeOf(value));
+    }
+
+    /**
+     * Estimates the heap bytes retained by a cache key or value.
+     *
+     * @param object The key or value.
+     * @return The estimated size in bytes.
+     */
+    public static long sizeOf(Object object) {
+        if (object == null) {
+            return 0;
+        }
+        if (object instanceof String) {
+            return sizeOf((String) object);
+        }
+        if (object instanceof GeoCoordinates) {
+            return align(OBJECT_HEADER + 2 * Double.BYTES);
+        }
+        if (object instanceof GeoAddress) {
+            return align(OBJECT_HEADER + REFERENCE) + sizeOf(((GeoAddress) object).getAddress());
+        }
+        if (object instanceof List) {
+            List<?> list = (List<?>) object;
+            long size = align(OBJECT_HEADER + list.size() * REFERENCE);
+            for (Object element : list) {
+                size += sizeOf(element);
+            }
+            return size;
+        }
+        return UNKNOWN_OBJECT;
+    }
+
+    private static long sizeOf(String string) {
+        int bytesPerChar = 1;
+        for (int i = 0; i < string.length(); i++) {
+            if (string.charAt(i) > 0xFF) {
+                bytesPerChar = 2;
+                break;
+            }
+        }
+        // String object (header, hash, coder, value reference) plus its byte array
+        return align(OBJECT_HEADER + Integer.BYTES + 1 + REFERENCE) + align(ARRAY_HEADER + string.length() * bytesPerChar);
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+}
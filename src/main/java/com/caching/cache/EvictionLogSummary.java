@@ -0,0 +1,91 @@
+package com.caching.cache;
+
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts cache evictions and logs them as one summary line per cache and interval, instead of one line per
+ * evicted entry. Intervals without evictions are not logged, and counts still pending are logged on close.
+ */
+public class EvictionLogSummary implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(EvictionLogSummary.class);
+
+    private static final RemovalCause[] CAUSES = RemovalCause.values();
+
+    private final Map<String, LongAdder[]> evictions = new ConcurrentHashMap<>();
+    private final ScheduledThreadPoolExecutor timer;
+
+    /**
+     * Creates the summary and, for a positive interval, starts logging it.
+     *
+     * @param interval The time between summaries; zero or negative turns logging off.
+     */
+    public EvictionLogSummary(Duration interval) {
+        if (interval.isZero() || interval.isNegative()) {
+            timer = null;
+            return;
+        }
+        timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "geocoding-eviction-log");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long millis = interval.toMillis();
+        timer.scheduleAtFixedRate(this::log, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Counts an eviction.
+     *
+     * @param cacheName The cache the entry was evicted from.
+     * @param cause     Why it was evicted.
+     */
+    public void record(String cacheName, RemovalCause cause) {
+        if (timer != null) {
+            evictions.computeIfAbsent(cacheName, name -> newCounters())[cause.ordinal()].increment();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (timer != null) {
+            timer.shutdownNow();
+            log();
+        }
+    }
+
+    private void log() {
+        evictions.forEach((cacheName, counters) -> {
+            StringBuilder line = new StringBuilder("event=cache_evictions cache=").append(cacheName);
+            long total = 0;
+            for (RemovalCause cause : CAUSES) {
+                long count = counters[cause.ordinal()].sumThenReset();
+                if (count > 0) {
+                    line.append(' ').append(cause.name().toLowerCase(Locale.ROOT)).append('=').append(count);
+                    total += count;
+                }
+            }
+            if (total > 0) {
+                logger.info("{} total={}", line, total);
+            }
+        });
+    }
+
+    private static LongAdder[] newCounters() {
+        LongAdder[] counters = new LongAdder[CAUSES.length];
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] = new LongAdder();
+        }
+        return counters;
+    }
+}
@@ -0,0 +1,79 @@
+package com.caching.cache;
+
+import com.caching.model.GeoAddress;
+import com.caching.model.GeoCoordinates;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Binary encodings of the geocoding cache entries.
+ * Forward entries are an address key (UTF-8) with two doubles; reverse entries are a latitude and longitude
+ * key (UTF-8, separated by a unit separator) with an address label (UTF-8).
+ */
+public final class GeoCodingDiskCodecs {
+
+    private static final char KEY_SEPARATOR = '\u001F';
+
+    /**
+     * Codec for the "geocoding" cache: address to coordinates.
+     */
+    public static final DiskCodec FORWARD = new DiskCodec() {
+        @Override
+        public byte[] encodeKey(Object key) {
+            return ((String) key).getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public Object decodeKey(byte[] bytes) {
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public byte[] encodeValue(Object value) {
+            GeoCoordinates coordinates = (GeoCoordinates) value;
+            return ByteBuffer.allocate(2 * Double.BYTES)
+                    .putDouble(coordinates.getLatitude())
+                    .putDouble(coordinates.getLongitude())
+                    .array();
+        }
+
+        @Override
+        public Object decodeValue(byte[] bytes) {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            return new GeoCoordinates(buffer.getDouble(), buffer.getDouble());
+        }
+    };
+
+    /**
+     * Codec for the "reverse-geocoding" cache: latitude and longitude to address.
+     */
+    public static final DiskCodec REVERSE = new DiskCodec() {
+        @Override
+        public byte[] encodeKey(Object key) {
+            List<?> coordinates = (List<?>) key;
+            return (coordinates.get(0) + String.valueOf(KEY_SEPARATOR) + coordinates.get(1)).getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public Object decodeKey(byte[] bytes) {
+            String key = new String(bytes, StandardCharsets.UTF_8);
+            int separator = key.indexOf(KEY_SEPARATOR);
+            return List.of(key.substring(0, separator), key.substring(separator + 1));
+        }
+
+        @Override
+        public byte[] encodeValue(Object value) {
+            return ((GeoAddress) value).getAddress().getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public Object decodeValue(byte[] bytes) {
+            return new GeoAddress(new String(bytes, StandardCharsets.UTF_8));
+        }
+    };
+
+    private GeoCodingDiskCodecs() {
+    }
+}
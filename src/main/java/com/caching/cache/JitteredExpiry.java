@@ -0,0 +1,68 @@
+package com.caching.cache;
+
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Caffeine expiry policy giving every entry its own time-to-live, randomly spread around a base value.
+ * Entries written at the same moment therefore expire at different moments, which avoids the miss
+ * storm a fixed schedule causes. Each write or refresh starts a new jittered lifetime; reads extend it
+ * only when the policy expires entries after access.
+ */
+public class JitteredExpiry implements Expiry<Object, Object> {
+
+    private final long ttlNanos;
+    private final double jitter;
+    private final boolean extendOnRead;
+
+    /**
+     * Creates the expiry policy.
+     *
+     * @param ttl    The base time-to-live.
+     * @param jitter Maximum relative deviation from the base, between 0 and 1 (0.1 means plus or minus 10%).
+     */
+    public JitteredExpiry(Duration ttl, double jitter) {
+        this(ttl, jitter, false);
+    }
+
+    /**
+     * Creates the expiry policy.
+     *
+     * @param ttl          The base time-to-live.
+     * @param jitter       Maximum relative deviation from the base, between 0 and 1 (0.1 means plus or minus 10%).
+     * @param extendOnRead Whether each read starts a new lifetime, expiring entries after their last access.
+     */
+    public JitteredExpiry(Duration ttl, double jitter, boolean extendOnRead) {
+        if (jitter < 0 || jitter >= 1) {
+            throw new IllegalArgumentException("Jitter must be in [0, 1): " + jitter);
+        }
+        this.ttlNanos = ttl.toNanos();
+        this.jitter = jitter;
+        this.extendOnRead = extendOnRead;
+    }
+
+    @Override
+    public long expireAfterCreate(Object key, Object value, long currentTime) {
+        return jitteredTtl();
+    }
+
+    @Override
+    public long expireAfterUpdate(Object key, Object value, long currentTime, long currentDuration) {
+        return jitteredTtl();
+    }
+
+    @Override
+    public long expireAfterRead(Object key, Object value, long currentTime, long currentDuration) {
+        return extendOnRead ? jitteredTtl() : currentDuration;
+    }
+
+    private long jitteredTtl() {
+        if (jitter == 0) {
+            return ttlNanos;
+        }
+        double factor = 1 + jitter * (2 * ThreadLocalRandom.current().nextDouble() - 1);
+        return (long) (ttlNanos * factor);
+    }
+}
@@ -0,0 +1,551 @@
+package com.caching.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+
+/**
+ * Second-tier cache persisted in append-only, memory-mapped segment files, so cached results survive a restart.
+ * Every write appends a record to the active segment; a full segment is closed and a new one started, and once
+ * more than {@code maxSegments} exist the oldest is deleted. Only a key to record position index is kept on the
+ * heap; values are read from the mapped files on demand. On open, existing segments are scanned to rebuild the
+ * index, stopping at the first incomplete or corrupt record of a segment.
+ *
+ * <p>Segment layout: an 8 byte header (magic, version) followed by records of
+ * {@code [int length][long writtenAtMillis][short keyLength][key][int valueLength][value][int crc32]},
+ * where {@code length} counts the bytes after itself, a negative {@code valueLength} marks an eviction,
+ * and the CRC covers everything between {@code length} and itself.
+ */
+public class MappedDiskCache extends AbstractValueAdaptingCache implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(MappedDiskCache.class);
+
+    private static final int MAGIC = 0x47454F43; // "GEOC"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 8;
+    private static final int RECORD_OVERHEAD = Integer.BYTES + Long.BYTES + Short.BYTES + Integer.BYTES + Integer.BYTES;
+    private static final int TOMBSTONE = -1;
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String HOT_KEYS_SUFFIX = ".hot";
+
+    private final String name;
+    private final Path directory;
+    private final DiskCodec codec;
+    private final int segmentBytes;
+    private final int maxSegments;
+    private final long ttlMillis;
+    private final Clock clock;
+
+    private final ConcurrentNavigableMap<Integer, Segment> segments = new ConcurrentSkipListMap<>();
+    private final Map<Object, Long> index = new ConcurrentHashMap<>();
+    private Segment active;
+    private volatile boolean closed;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder puts = new LongAdder();
+
+    private MappedDiskCache(String name, Path directory, DiskCodec codec, int segmentBytes, int maxSegments,
+                            Duration ttl, Clock clock) {
+        super(false);
+        this.name = name;
+        this.directory = directory;
+        this.codec = codec;
+        this.segmentBytes = segmentBytes;
+        this.maxSegments = Math.max(1, maxSegments);
+        this.ttlMillis = ttl.toMillis();
+        this.clock = clock;
+    }
+
+    /**
+     * Opens the cache stored in the given directory, creating it if needed, and rebuilds its index.
+     *
+     * @param name         The name of the cache; also the prefix of its files.
+     * @param directory    The directory holding the segment files.
+     * @param codec        Converts keys and values to bytes.
+     * @param segmentBytes Size of each segment file.
+     * @param maxSegments  Number of segment files kept; the oldest is deleted when a new one is started.
+     * @param ttl          Age after which a stored entry is no longer returned.
+     * @return The opened cache.
+     * @throws IOException If the directory or a segment cannot be read or created.
+     */
+    public static MappedDiskCache open(String name, Path directory, DiskCodec codec, int segmentBytes,
+                                       int maxSegments, Duration ttl) throws IOException {
+        return open(name, directory, codec, segmentBytes, maxSegments, ttl, Clock.systemUTC());
+    }
+
+    /**
+     * Opens the cache like {@link #open(String, Path, DiskCodec, int, int, Duration)}, with the given clock
+     * stamping records and deciding their age.
+     */
+    static MappedDiskCache open(String name, Path directory, DiskCodec codec, int segmentBytes,
+                                int maxSegments, Duration ttl, Clock clock) throws IOException {
+        if (segmentBytes <= HEADER_BYTES + RECORD_OVERHEAD) {
+            throw new IllegalArgumentException("Segment size too small: " + segmentBytes);
+        }
+        Files.createDirectories(directory);
+        MappedDiskCache cache = new MappedDiskCache(name, directory, codec, segmentBytes, maxSegments, ttl, clock);
+        cache.load();
+        return cache;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return this;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        Entry entry = getEntry(key);
+        return entry == null ? null : entry.value;
+    }
+
+    /**
+     * Returns the value stored for the key together with the time it was written, so that a value read back can
+     * keep the age it already has.
+     *
+     * @param key The cache key.
+     * @return The stored entry, or {@code null} if the key is not stored or has expired.
+     */
+    public Entry getEntry(Object key) {
+        Entry entry = read(key);
+        if (entry == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return entry;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        Object value = lookup(key);
+        if (value != null) {
+            return (T) value;
+        }
+        try {
+            T loaded = valueLoader.call();
+            put(key, loaded);
+            return loaded;
+        } catch (Exception ex) {
+            throw new ValueRetrievalException(key, valueLoader, ex);
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        if (value == null) {
+            return;
+        }
+        append(key, codec.encodeKey(key), codec.encodeValue(value));
+        puts.increment();
+    }
+
+    @Override
+    public void evict(Object key) {
+        if (index.containsKey(key)) {
+            // Record the eviction so that it survives a restart.
+            append(key, codec.encodeKey(key), null);
+        }
+    }
+
+    @Override
+    public synchronized void clear() {
+        if (closed) {
+            return;
+        }
+        index.clear();
+        for (Integer id : new ArrayList<>(segments.keySet())) {
+            drop(id);
+        }
+        active = null;
+        try {
+            roll();
+        } catch (IOException ex) {
+            logger.warn("Could not start a new segment for disk cache {}: {}", name, ex.getMessage());
+        }
+    }
+
+    /**
+     * Returns the keys to load back into memory after a restart: the hottest keys recorded at the last shutdown,
+     * then the most recently written ones, skipping keys that are no longer stored or have expired.
+     *
+     * @param limit Maximum number of keys.
+     * @return The keys, most valuable first.
+     */
+    public List<Object> warmUpKeys(int limit) {
+        Set<Object> keys = new LinkedHashSet<>();
+        for (Object key : readHotKeys()) {
+            if (keys.size() >= limit) {
+                break;
+            }
+            if (index.containsKey(key)) {
+                keys.add(key);
+            }
+        }
+        if (keys.size() < limit) {
+            index.entrySet().stream()
+                    .sorted(Map.Entry.<Object, Long>comparingByValue().reversed())
+                    .map(Map.Entry::getKey)
+                    .filter(key -> !keys.contains(key))
+                    .limit(limit - keys.size())
+                    .forEach(keys::add);
+        }
+        return keys.stream().filter(key -> read(key) != null).collect(Collectors.toList());
+    }
+
+    /**
+     * Records which keys are hottest, so that they are the first loaded back into memory after a restart.
+     *
+     * @param keys The keys, hottest first.
+     */
+    public void saveHotKeys(Collection<?> keys) {
+        List<byte[]> encoded = keys.stream().map(codec::encodeKey).collect(Collectors.toList());
+        ByteBuffer buffer = ByteBuffer.allocate(2 * Integer.BYTES
+                + encoded.stream().mapToInt(key -> Short.BYTES + key.length).sum());
+        buffer.putInt(MAGIC).putInt(encoded.size());
+        for (byte[] key : encoded) {
+            buffer.putShort((short) key.length).put(key);
+        }
+        try {
+            Files.write(directory.resolve(name + HOT_KEYS_SUFFIX), buffer.array());
+        } catch (IOException ex) {
+            logger.warn("Could not save hot keys of disk cache {}: {}", name, ex.getMessage());
+        }
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getPutCount() {
+        return puts.sum();
+    }
+
+    public long getEntryCount() {
+        return index.size();
+    }
+
+    /**
+     * Returns the number of bytes written to the segment files, including superseded records.
+     *
+     * @return The bytes in use on disk.
+     */
+    public long getUsedBytes() {
+        return segments.values().stream().mapToLong(segment -> segment.writePosition).sum();
+    }
+
+    /**
+     * Flushes the active segment to disk and stops accepting writes.
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (active != null) {
+            active.buffer.force();
+        }
+        for (Segment segment : segments.values()) {
+            segment.close();
+        }
+    }
+
+    private Entry read(Object key) {
+        Long location = index.get(key);
+        if (location == null) {
+            return null;
+        }
+        Segment segment = segments.get(segmentId(location));
+        if (segment == null) {
+            index.remove(key, location);
+            return null;
+        }
+        ByteBuffer buffer = segment.buffer.duplicate();
+        buffer.position(offset(location) + Integer.BYTES);
+        long writtenAt = buffer.getLong();
+        int keyLength = buffer.getShort();
+        buffer.position(buffer.position() + keyLength);
+        int valueLength = buffer.getInt();
+        if (valueLength < 0 || clock.millis() - writtenAt > ttlMillis) {
+            return null;
+        }
+        byte[] value = new byte[valueLength];
+        buffer.get(value);
+        return new Entry(codec.decodeValue(value), Instant.ofEpochMilli(writtenAt));
+    }
+
+    private synchronized void append(Object key, byte[] keyBytes, byte[] valueBytes) {
+        if (closed) {
+            return;
+        }
+        int valueLength = valueBytes == null ? 0 : valueBytes.length;
+        int recordBytes = RECORD_OVERHEAD + keyBytes.length + valueLength;
+        if (keyBytes.length > Short.MAX_VALUE || recordBytes > segmentBytes - HEADER_BYTES) {
+            logger.debug("Entry for {} is too large for disk cache {}", key, name);
+            return;
+        }
+        try {
+            if (active == null || active.writePosition + recordBytes > active.buffer.limit()) {
+                roll();
+            }
+        } catch (IOException ex) {
+            logger.warn("Could not start a new segment for disk cache {}: {}", name, ex.getMessage());
+            return;
+        }
+
+        int offset = active.writePosition;
+        ByteBuffer buffer = active.buffer.duplicate();
+        buffer.position(offset);
+        buffer.putInt(recordBytes - Integer.BYTES)
+                .putLong(clock.millis())
+                .putShort((short) keyBytes.length)
+                .put(keyBytes)
+                .putInt(valueBytes == null ? TOMBSTONE : valueLength);
+        if (valueBytes != null) {
+            buffer.put(valueBytes);
+        }
+        buffer.putInt(crc(active.buffer, offset + Integer.BYTES, recordBytes - 2 * Integer.BYTES));
+        active.writePosition = offset + recordBytes;
+
+        if (valueBytes == null) {
+            index.remove(key);
+        } else {
+            index.put(key, location(active.id, offset));
+        }
+    }
+
+    private void load() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, name + "-*" + SEGMENT_SUFFIX)) {
+            stream.forEach(files::add);
+        }
+        files.sort(Comparator.comparingInt(this::segmentIdOf));
+
+        for (Path file : files) {
+            int id = segmentIdOf(file);
+            if (id <= 0) {
+                continue;
+            }
+            Segment segment = Segment.open(id, file, -1);
+            if (segment.buffer.limit() < HEADER_BYTES || segment.buffer.getInt(0) != MAGIC
+                    || segment.buffer.getInt(Integer.BYTES) != VERSION) {
+                logger.warn("Ignoring unreadable disk cache segment {}", file);
+                segment.close();
+                continue;
+            }
+            segment.writePosition = scan(segment);
+            segments.put(id, segment);
+            active = segment;
+        }
+        while (segments.size() > maxSegments) {
+            drop(segments.firstKey());
+        }
+        if (active == null) {
+            roll();
+        }
+        logger.info("Disk cache {} opened with {} entries in {} segments", name, index.size(), segments.size());
+    }
+
+    private int scan(Segment segment) {
+        ByteBuffer buffer = segment.buffer;
+        int position = HEADER_BYTES;
+        while (position + Integer.BYTES <= buffer.limit()) {
+            int length = buffer.getInt(position);
+            if (length < RECORD_OVERHEAD - Integer.BYTES || position + Integer.BYTES + length > buffer.limit()) {
+                break;
+            }
+            int crcPosition = position + length;
+            if (buffer.getInt(crcPosition) != crc(buffer, position + Integer.BYTES, length - Integer.BYTES)) {
+                break;
+            }
+            int keyLength = buffer.getShort(position + Integer.BYTES + Long.BYTES);
+            byte[] keyBytes = new byte[keyLength];
+            ByteBuffer view = buffer.duplicate();
+            view.position(position + Integer.BYTES + Long.BYTES + Short.BYTES);
+            view.get(keyBytes);
+            Object key = codec.decodeKey(keyBytes);
+            if (view.getInt() < 0) {
+                index.remove(key);
+            } else {
+                index.put(key, location(segment.id, position));
+            }
+            position += Integer.BYTES + length;
+        }
+        return position;
+    }
+
+    private void roll() throws IOException {
+        if (active != null) {
+            active.buffer.force();
+        }
+        int id = active == null ? (segments.isEmpty() ? 1 : segments.lastKey() + 1) : active.id + 1;
+        Segment segment = Segment.open(id, directory.resolve(name + "-" + id + SEGMENT_SUFFIX), segmentBytes);
+        segment.buffer.putInt(0, MAGIC).putInt(Integer.BYTES, VERSION);
+        segment.writePosition = HEADER_BYTES;
+        segments.put(id, segment);
+        active = segment;
+        while (segments.size() > maxSegments) {
+            drop(segments.firstKey());
+        }
+    }
+
+    private void drop(int id) {
+        Segment segment = segments.remove(id);
+        if (segment == null) {
+            return;
+        }
+        index.values().removeIf(location -> segmentId(location) == id);
+        segment.close();
+        try {
+            Files.deleteIfExists(segment.path);
+        } catch (IOException ex) {
+            logger.warn("Could not delete disk cache segment {}: {}", segment.path, ex.getMessage());
+        }
+    }
+
+    private List<Object> readHotKeys() {
+        Path file = directory.resolve(name + HOT_KEYS_SUFFIX);
+        List<Object> keys = new ArrayList<>();
+        try {
+            if (!Files.exists(file)) {
+                return keys;
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+            if (buffer.getInt() != MAGIC) {
+                return keys;
+            }
+            int count = buffer.getInt();
+            for (int i = 0; i < count; i++) {
+                byte[] key = new byte[buffer.getShort()];
+                buffer.get(key);
+                keys.add(codec.decodeKey(key));
+            }
+        } catch (IOException | RuntimeException ex) {
+            logger.warn("Could not read hot keys of disk cache {}: {}", name, ex.getMessage());
+        }
+        return keys;
+    }
+
+    private int segmentIdOf(Path file) {
+        String fileName = file.getFileName().toString();
+        try {
+            return Integer.parseInt(fileName.substring(name.length() + 1, fileName.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException ex) {
+            return -1;
+        }
+    }
+
+    private static int crc(ByteBuffer buffer, int offset, int length) {
+        ByteBuffer slice = buffer.duplicate();
+        slice.position(offset).limit(offset + length);
+        CRC32 crc = new CRC32();
+        crc.update(slice);
+        return (int) crc.getValue();
+    }
+
+    private static long location(int segmentId, int offset) {
+        return ((long) segmentId << 32) | (offset & 0xFFFFFFFFL);
+    }
+
+    private static int segmentId(long location) {
+        return (int) (location >>> 32);
+    }
+
+    private static int offset(long location) {
+        return (int) location;
+    }
+
+    /**
+     * A value read back from disk with the time it was written.
+     */
+    public static final class Entry {
+        private final Object value;
+        private final Instant writtenAt;
+
+        private Entry(Object value, Instant writtenAt) {
+            this.value = value;
+            this.writtenAt = writtenAt;
+        }
+
+        public Object getValue() {
+            return value;
+        }
+
+        public Instant getWrittenAt() {
+            return writtenAt;
+        }
+    }
+
+    private static final class Segment {
+        private final int id;
+        private final Path path;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private volatile int writePosition;
+
+        private Segment(int id, Path path, FileChannel channel, MappedByteBuffer buffer) {
+            this.id = id;
+            this.path = path;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+
+        /**
+         * Maps a segment file, creating it with the given size, or using its current size if {@code size} is negative.
+         */
+        private static Segment open(int id, Path path, int size) throws IOException {
+            FileChannel channel = FileChannel.open(path,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            long mappedSize = size < 0 ? Math.min(channel.size(), Integer.MAX_VALUE) : size;
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, mappedSize);
+            return new Segment(id, path, channel, buffer);
+        }
+
+        private void close() {
+            try {
+                channel.close();
+            } catch (IOException ex) {
+                logger.debug("Could not close disk cache segment {}: {}", path, ex.getMessage());
+            }
+        }
+    }
+}
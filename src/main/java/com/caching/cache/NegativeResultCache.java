@@ -0,0 +1,105 @@
+package com.caching.cache;
+
+import com.caching.exception.custom.GeoCodingException;
+import com.caching.exception.custom.GeoCodingResultNotFoundException;
+import com.caching.exception.custom.InvalidGeoCodingRequestException;
+import org.springframework.cache.Cache;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Remembers lookups that the upstream API answered with "no results" or rejected as invalid, so that
+ * repeating them is answered with the same error without another upstream call.
+ * Only those two outcomes are recorded, as {@link GeoCodingResultNotFoundException} and
+ * {@link InvalidGeoCodingRequestException}, which is thrown only for problems with the request itself.
+ * Timeouts, upstream errors, rejected access keys and unparseable responses are plain
+ * {@link GeoCodingException}s and are always retried.
+ * Entries live in their own Spring {@link Cache}, so they have their own size, TTL and statistics.
+ */
+public class NegativeResultCache {
+
+    private final Cache cache;
+
+    /**
+     * Creates a negative result cache on top of the given cache.
+     *
+     * @param cache The cache holding the recorded failures, keyed like the corresponding positive cache.
+     */
+    public NegativeResultCache(Cache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Returns the failure recorded for the key, as a fresh exception of the original type and message.
+     *
+     * @param key The cache key.
+     * @return The recorded failure, or {@code null} if the key has none.
+     */
+    public GeoCodingException getIfPresent(Object key) {
+        Failure failure = cache.get(key, Failure.class);
+        return failure == null ? null : failure.toException();
+    }
+
+    /**
+     * Records the failure for the key if it is a "no results" or invalid request failure; any other failure,
+     * including a plain {@link GeoCodingException}, is not recorded.
+     *
+     * @param key     The cache key.
+     * @param failure The failure thrown by the lookup.
+     */
+    public void put(Object key, Throwable failure) {
+        Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+                ? failure.getCause() : failure;
+        if (cause instanceof GeoCodingResultNotFoundException) {
+            cache.put(key, new Failure(true, cause.getMessage()));
+        } else if (cause instanceof InvalidGeoCodingRequestException) {
+            cache.put(key, new Failure(false, cause.getMessage()));
+        }
+    }
+
+    /**
+     * Records the failure of the given lookup, if it fails with a cacheable error.
+     *
+     * @param key    The cache key.
+     * @param lookup The pending lookup.
+     * @param <T>    The value type.
+     * @return The same lookup.
+     */
+    public <T> CompletableFuture<T> putOnFailure(Object key, CompletableFuture<T> lookup) {
+        return lookup.whenComplete((value, failure) -> {
+            if (failure != null) {
+                put(key, failure);
+            }
+        });
+    }
+
+    /**
+     * Removes the failure recorded for the key, so that the next lookup goes to the upstream API again.
+     *
+     * @param key The cache key.
+     * @return Whether a failure was recorded for the key.
+     */
+    public boolean evict(Object key) {
+        return cache.evictIfPresent(key);
+    }
+
+    private static final class Failure {
+        private final boolean notFound;
+        private final String message;
+
+        private Failure(boolean notFound, String message) {
+            this.notFound = notFound;
+            this.message = message;
+        }
+
+        private GeoCodingException toException() {
+            return notFound ? new GeoCodingResultNotFoundException(message) : new InvalidGeoCodingRequestException(message);
+        }
+
+        @Override
+        public String toString() {
+            return (notFound ? "not found: " : "invalid: ") + message;
+        }
+    }
+}
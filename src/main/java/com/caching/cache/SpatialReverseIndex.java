@@ -0,0 +1,230 @@
+package com.caching.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Grid-based nearest-neighbour index over already resolved reverse geocoding results.
+ * The world is split into square cells roughly one search radius wide; a lookup scans the cell
+ * containing the point and its neighbours and returns the closest resolved point within the radius.
+ * This lets "12.97" and "12.970", or two points a few metres apart, share one upstream result.
+ * Near the poles, where a radius spans more longitude cells than a lookup scans, each latitude band is kept
+ * as a single cell instead.
+ *
+ * @param <V> The type of value stored for each resolved point.
+ */
+public class SpatialReverseIndex<V> {
+
+    private static final double METERS_PER_DEGREE = 111_320.0;
+    private static final double EARTH_RADIUS_METERS = 6_371_008.8;
+    private static final int MAX_POINTS_PER_CELL = 32;
+    private static final int MAX_LONGITUDE_SPAN = 8;
+
+    private final boolean enabled;
+    private final double radiusMeters;
+    private final double cellDegrees;
+    private final long longitudeCells;
+    private final Cache<Long, Point<V>[]> cells;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder lookupNanos = new LongAdder();
+
+    /**
+     * Creates a spatial index.
+     *
+     * @param enabled      Whether lookups and inserts are performed at all.
+     * @param radiusMeters Maximum distance at which a resolved point may answer a lookup.
+     * @param maxCells     Maximum number of grid cells kept; the least valuable cells are evicted first.
+     * @param ttl          How long a cell is kept after it was last written.
+     */
+    public SpatialReverseIndex(boolean enabled, double radiusMeters, long maxCells, Duration ttl) {
+        this.enabled = enabled && radiusMeters > 0;
+        this.radiusMeters = radiusMeters;
+        this.cellDegrees = Math.max(radiusMeters, 1.0) / METERS_PER_DEGREE;
+        this.longitudeCells = (long) Math.ceil(360.0 / cellDegrees);
+        this.cells = Caffeine.newBuilder()
+                .maximumSize(maxCells)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    /**
+     * Finds the value of the closest resolved point within the configured radius.
+     *
+     * @param latitude  The latitude as received in the request.
+     * @param longitude The longitude as received in the request.
+     * @return The neighbour's value, or {@code null} if there is none or the coordinates are not numeric.
+     */
+    public V findNearest(String latitude, String longitude) {
+        double[] point = parse(latitude, longitude);
+        if (!enabled || point == null) {
+            return null;
+        }
+
+        long start = System.nanoTime();
+        V nearest = findNearest(point[0], point[1]);
+        lookupNanos.add(System.nanoTime() - start);
+        if (nearest != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return nearest;
+    }
+
+    /**
+     * Records a resolved point so that later lookups nearby can be answered from it.
+     *
+     * @param latitude  The latitude as received in the request.
+     * @param longitude The longitude as received in the request.
+     * @param value     The resolved value.
+     */
+    @SuppressWarnings("unchecked")
+    public void add(String latitude, String longitude, V value) {
+        double[] point = parse(latitude, longitude);
+        if (!enabled || point == null || value == null) {
+            return;
+        }
+
+        Point<V> added = new Point<>(point[0], point[1], value);
+        long latitudeIndex = latitudeIndex(point[0]);
+        long longitudeIndex = isPolar(latitudeIndex) ? 0 : longitudeIndex(point[1]);
+        cells.asMap().compute(cellKey(latitudeIndex, longitudeIndex), (key, existing) -> {
+            if (existing == null) {
+                return new Point[]{added};
+            }
+            // Cells are copy-on-write so lookups never see a partially updated array.
+            int keep = Math.min(existing.length, MAX_POINTS_PER_CELL - 1);
+            Point<V>[] updated = Arrays.copyOfRange(existing, existing.length - keep, existing.length + 1);
+            updated[keep] = added;
+            return updated;
+        });
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the total time spent in lookups.
+     *
+     * @return The accumulated lookup time in nanoseconds.
+     */
+    public long getTotalLookupNanos() {
+        return lookupNanos.sum();
+    }
+
+    /**
+     * Returns the fraction of lookups answered by a neighbour.
+     *
+     * @return The hit ratio, or 0 when no lookup has been made yet.
+     */
+    public double getHitRatio() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    public long getCellCount() {
+        return cells.estimatedSize();
+    }
+
+    private V findNearest(double latitude, double longitude) {
+        long latitudeIndex = latitudeIndex(latitude);
+        long longitudeIndex = longitudeIndex(longitude);
+        // Cells are square in degrees, so near the poles more longitude cells are needed to cover the radius.
+        double cosLatitude = Math.cos(Math.toRadians(latitude));
+        int longitudeSpan = cosLatitude <= 1.0 / MAX_LONGITUDE_SPAN
+                ? MAX_LONGITUDE_SPAN : (int) Math.ceil(1.0 / cosLatitude);
+
+        Point<V> nearest = null;
+        double nearestDistance = radiusMeters;
+        for (long dLat = -1; dLat <= 1; dLat++) {
+            boolean polar = isPolar(latitudeIndex + dLat);
+            for (long dLon = polar ? 0 : -longitudeSpan; dLon <= (polar ? 0 : longitudeSpan); dLon++) {
+                Point<V>[] candidates = cells.getIfPresent(cellKey(latitudeIndex + dLat,
+                        polar ? 0 : Math.floorMod(longitudeIndex + dLon, longitudeCells)));
+                if (candidates == null) {
+                    continue;
+                }
+                for (Point<V> candidate : candidates) {
+                    double distance = distanceMeters(latitude, longitude, candidate.latitude, candidate.longitude);
+                    if (distance <= nearestDistance) {
+                        nearest = candidate;
+                        nearestDistance = distance;
+                    }
+                }
+            }
+        }
+        return nearest == null ? null : nearest.value;
+    }
+
+    private long latitudeIndex(double latitude) {
+        return (long) Math.floor((latitude + 90.0) / cellDegrees);
+    }
+
+    /**
+     * Tells whether a latitude band lies so close to a pole that the longitude cells scanned by a lookup would not
+     * cover the radius anywhere in it.
+     */
+    private boolean isPolar(long latitudeIndex) {
+        double south = latitudeIndex * cellDegrees - 90.0;
+        double north = south + cellDegrees;
+        double closestToEquator = south <= 0 && north >= 0 ? 0 : Math.min(Math.abs(south), Math.abs(north));
+        return Math.cos(Math.toRadians(closestToEquator)) <= 1.0 / MAX_LONGITUDE_SPAN;
+    }
+
+    private long longitudeIndex(double longitude) {
+        return Math.floorMod((long) Math.floor((longitude + 180.0) / cellDegrees), longitudeCells);
+    }
+
+    private static long cellKey(long latitudeIndex, long longitudeIndex) {
+        return (latitudeIndex << 32) | (longitudeIndex & 0xFFFFFFFFL);
+    }
+
+    private static double distanceMeters(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+
+    private static double[] parse(String latitude, String longitude) {
+        try {
+            double lat = Double.parseDouble(latitude.trim());
+            double lon = Double.parseDouble(longitude.trim());
+            if (lat < -90 || lat > 90 || lon < -180 || lon > 180) {
+                return null;
+            }
+            return new double[]{lat, lon};
+        } catch (NumberFormatException | NullPointerException ex) {
+            return null;
+        }
+    }
+
+    private static final class Point<V> {
+        private final double latitude;
+        private final double longitude;
+        private final V value;
+
+        private Point(double latitude, double longitude, V value) {
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.value = value;
+        }
+    }
+}
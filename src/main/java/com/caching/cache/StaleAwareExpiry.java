@@ -0,0 +1,43 @@
+package com.caching.cache;
+
+import com.github.benmanes.caffeine.cache.Expiry;
+
+/**
+ * Caffeine expiry policy that gives stale values served from a {@link StaleValueCache} a short lifetime
+ * and leaves every other entry to the delegate policy.
+ */
+public class StaleAwareExpiry implements Expiry<Object, Object> {
+
+    private final Expiry<Object, Object> delegate;
+    private final StaleValueCache staleValues;
+    private final long servedTtlNanos;
+
+    /**
+     * Creates the expiry policy.
+     *
+     * @param delegate    The policy for freshly loaded values.
+     * @param staleValues The cache stale values are served from.
+     */
+    public StaleAwareExpiry(Expiry<Object, Object> delegate, StaleValueCache staleValues) {
+        this.delegate = delegate;
+        this.staleValues = staleValues;
+        this.servedTtlNanos = staleValues.getServedTtl().toNanos();
+    }
+
+    @Override
+    public long expireAfterCreate(Object key, Object value, long currentTime) {
+        return staleValues.isStale(key, value)
+                ? servedTtlNanos : delegate.expireAfterCreate(key, value, currentTime);
+    }
+
+    @Override
+    public long expireAfterUpdate(Object key, Object value, long currentTime, long currentDuration) {
+        return staleValues.isStale(key, value)
+                ? servedTtlNanos : delegate.expireAfterUpdate(key, value, currentTime, currentDuration);
+    }
+
+    @Override
+    public long expireAfterRead(Object key, Object value, long currentTime, long currentDuration) {
+        return delegate.expireAfterRead(key, value, currentTime, currentDuration);
+    }
+}
@@ -0,0 +1,45 @@
+package com.caching.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCache;
+
+import java.time.Duration;
+
+/**
+ * Keeps the last known value of entries that were evicted from a geocoding cache because they expired
+ * or did not fit, so they can still be served while the upstream API is unavailable.
+ * A stale value served this way is put back into the geocoding cache only for {@code servedTtl},
+ * after which the API is asked again.
+ */
+public class StaleValueCache extends CaffeineCache {
+
+    private final Duration servedTtl;
+
+    /**
+     * Creates a stale value cache.
+     *
+     * @param name      The name of the cache.
+     * @param cache     The backing Caffeine cache; its size and lifetime bound how much and how old stale data is kept.
+     * @param servedTtl How long a stale value stays in the geocoding cache after it was served.
+     */
+    public StaleValueCache(String name, Cache<Object, Object> cache, Duration servedTtl) {
+        super(name, cache, false);
+        this.servedTtl = servedTtl;
+    }
+
+    public Duration getServedTtl() {
+        return servedTtl;
+    }
+
+    /**
+     * Tells whether the value is the very instance kept here for the key, that is, a stale value
+     * that was served rather than a freshly loaded one. Does not count towards the cache statistics.
+     *
+     * @param key   The cache key.
+     * @param value The value about to be stored in the geocoding cache.
+     * @return Whether the value is a served stale value.
+     */
+    public boolean isStale(Object key, Object value) {
+        return value != null && getNativeCache().asMap().get(key) == value;
+    }
+}
@@ -0,0 +1,73 @@
+package com.caching.cache;
+
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.github.benmanes.caffeine.cache.stats.ConcurrentStatsCounter;
+import com.github.benmanes.caffeine.cache.stats.StatsCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caffeine stats counter that keeps the usual cumulative statistics and additionally records every
+ * load into a Micrometer timer, so load-time percentiles are available per cache.
+ */
+public class TimedStatsCounter implements StatsCounter {
+
+    private final StatsCounter delegate = new ConcurrentStatsCounter();
+    private final Timer loadSuccess;
+    private final Timer loadFailure;
+
+    /**
+     * Creates the stats counter.
+     *
+     * @param registry  The registry to publish load timers to.
+     * @param cacheName The cache name used as tag.
+     */
+    public TimedStatsCounter(MeterRegistry registry, String cacheName) {
+        this.loadSuccess = loadTimer(registry, cacheName, "success");
+        this.loadFailure = loadTimer(registry, cacheName, "failure");
+    }
+
+    @Override
+    public void recordHits(int count) {
+        delegate.recordHits(count);
+    }
+
+    @Override
+    public void recordMisses(int count) {
+        delegate.recordMisses(count);
+    }
+
+    @Override
+    public void recordLoadSuccess(long loadTime) {
+        delegate.recordLoadSuccess(loadTime);
+        loadSuccess.record(loadTime, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void recordLoadFailure(long loadTime) {
+        delegate.recordLoadFailure(loadTime);
+        loadFailure.record(loadTime, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void recordEviction(int weight, RemovalCause cause) {
+        delegate.recordEviction(weight, cause);
+    }
+
+    @Override
+    public CacheStats snapshot() {
+        return delegate.snapshot();
+    }
+
+    private static Timer loadTimer(MeterRegistry registry, String cacheName, String result) {
+        return Timer.builder("geocoding.cache.load")
+                .description("Time taken to load a missing or refreshed cache entry")
+                .tag("cache", cacheName)
+                .tag("result", result)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(registry);
+    }
+}
@@ -0,0 +1,99 @@
+package com.caching.cache;
+
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caffeine expiry policy letting the loading code shorten the lifetime of a value it is about to store, such as a
+ * value read back from the disk cache, which keeps only what is left of the lifetime it started when it was first
+ * fetched, or a guess that should only be kept briefly. An adjustment applies to the one value instance it was made
+ * for, and is used up when that value is stored; every other entry is left to the delegate policy.
+ */
+public class ValueLifetimes implements Expiry<Object, Object> {
+
+    private final Expiry<Object, Object> delegate;
+    private final long ttlNanos;
+    private final Map<Object, Adjustment> pending = new ConcurrentHashMap<>();
+
+    /**
+     * Creates the expiry policy.
+     *
+     * @param delegate The policy for values without an adjustment.
+     * @param ttl      The lifetime a freshly fetched value starts with.
+     */
+    public ValueLifetimes(Expiry<Object, Object> delegate, Duration ttl) {
+        this.delegate = delegate;
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    /**
+     * Lets the value about to be stored for the key expire when it would have if it had been stored at the given
+     * time, rather than a full lifetime from now.
+     *
+     * @param key      The cache key.
+     * @param value    The value about to be stored.
+     * @param storedAt When the value was fetched and first stored.
+     * @return Whether any of its lifetime is left; if not, nothing is recorded and the value should not be stored.
+     */
+    public boolean expireAsIfStoredAt(Object key, Object value, Instant storedAt) {
+        long remaining = ttlNanos - Duration.between(storedAt, Instant.now()).toNanos();
+        if (remaining <= 0) {
+            return false;
+        }
+        pending.put(key, new Adjustment(value, remaining));
+        return true;
+    }
+
+    /**
+     * Lets the value about to be stored for the key expire after the given time, rather than a full lifetime.
+     *
+     * @param key      The cache key.
+     * @param value    The value about to be stored.
+     * @param lifetime How long the value may be kept; never more than a full lifetime.
+     */
+    public void expireAfter(Object key, Object value, Duration lifetime) {
+        pending.put(key, new Adjustment(value, Math.min(lifetime.toNanos(), ttlNanos)));
+    }
+
+    @Override
+    public long expireAfterCreate(Object key, Object value, long currentTime) {
+        long adjusted = takeAdjustment(key, value);
+        return adjusted >= 0 ? adjusted : delegate.expireAfterCreate(key, value, currentTime);
+    }
+
+    @Override
+    public long expireAfterUpdate(Object key, Object value, long currentTime, long currentDuration) {
+        long adjusted = takeAdjustment(key, value);
+        return adjusted >= 0 ? adjusted : delegate.expireAfterUpdate(key, value, currentTime, currentDuration);
+    }
+
+    @Override
+    public long expireAfterRead(Object key, Object value, long currentTime, long currentDuration) {
+        return delegate.expireAfterRead(key, value, currentTime, currentDuration);
+    }
+
+    /**
+     * Returns and forgets the lifetime recorded for this very value, or -1 if there is none.
+     */
+    private long takeAdjustment(Object key, Object value) {
+        Adjustment adjustment = pending.get(key);
+        if (adjustment == null || adjustment.value != value || !pending.remove(key, adjustment)) {
+            return -1;
+        }
+        return adjustment.lifetimeNanos;
+    }
+
+    private static final class Adjustment {
+        private final Object value;
+        private final long lifetimeNanos;
+
+        private Adjustment(Object value, long lifetimeNanos) {
+            this.value = value;
+            this.lifetimeNanos = lifetimeNanos;
+        }
+    }
+}
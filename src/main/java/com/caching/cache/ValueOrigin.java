@@ -0,0 +1,23 @@
+package com.caching.cache;
+
+/**
+ * Where a value loaded into a geocoding cache came from. Only values from the upstream API are authoritative
+ * enough to be written to the disk cache or the spatial index by an instance that receives them from a peer.
+ */
+public enum ValueOrigin {
+
+    /**
+     * Fetched from the upstream API.
+     */
+    UPSTREAM,
+
+    /**
+     * Found in the local gazetteer.
+     */
+    GAZETTEER,
+
+    /**
+     * Taken from an already resolved point nearby.
+     */
+    NEARBY
+}
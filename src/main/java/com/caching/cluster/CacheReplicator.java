@@ -0,0 +1,263 @@
+package com.caching.cluster;
+
+import com.caching.cache.CacheChangeListener;
+import com.caching.cache.ValueOrigin;
+import com.caching.configuration.GeoCodingCacheProperties;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sends the changes made to this instance's geocoding caches to the other instances, so that one instance's
+ * upstream call warms every cache and invalidations reach all of them.
+ * Changes are queued without blocking the caller and sent in batches by a single daemon thread, which delivers
+ * each batch to all peers before taking the next. When peers are slower than changes arrive the bounded queue
+ * fills up and further changes are dropped, which costs the peers at most an upstream call of their own.
+ * A peer that cannot be reached is skipped for a while; a peer turning out to be this instance is skipped for good.
+ */
+public class CacheReplicator implements CacheChangeListener, AutoCloseable {
+
+    /**
+     * Path of the endpoint receiving batches.
+     */
+    public static final String SYNC_PATH = "/internal/cache/sync";
+
+    /**
+     * Header carrying the shared secret.
+     */
+    public static final String TOKEN_HEADER = "X-Cache-Sync-Token";
+
+    /**
+     * Response header carrying the identifier of the instance that received a batch.
+     */
+    public static final String NODE_HEADER = "X-Cache-Sync-Node";
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheReplicator.class);
+
+    private final boolean enabled;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final List<Peer> peers = new ArrayList<>();
+    private final String token;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final Duration requestTimeout;
+    private final long retryIntervalNanos;
+    private final BlockingQueue<CacheSyncMessage.Change> queue;
+    private final ObjectMapper objectMapper;
+    private final HttpClient httpClient;
+    private final Thread sender;
+
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    /**
+     * Creates the replicator and, if cluster mode is enabled, starts its sender thread.
+     *
+     * @param properties   The cluster settings.
+     * @param objectMapper Mapper used to write batches.
+     * @throws IllegalStateException If cluster mode is enabled without a token.
+     */
+    public CacheReplicator(GeoCodingCacheProperties.Cluster properties, ObjectMapper objectMapper) {
+        this.enabled = properties.isEnabled();
+        if (enabled && (properties.getToken() == null || properties.getToken().isEmpty())) {
+            // The sync endpoint shares the public port and writes to every cache tier, so it is never left open.
+            throw new IllegalStateException("geocoding.cache.cluster.token must be set when cluster mode is enabled");
+        }
+        for (URI peer : properties.getPeers()) {
+            String base = peer.toString();
+            base = base.endsWith("/") ? base.substring(0, base.length() - 1) : base;
+            peers.add(new Peer(URI.create(base + SYNC_PATH)));
+        }
+        this.token = properties.getToken();
+        this.batchSize = Math.max(1, properties.getBatchSize());
+        this.flushIntervalNanos = properties.getFlushInterval().toNanos();
+        this.requestTimeout = properties.getRequestTimeout();
+        this.retryIntervalNanos = properties.getRetryInterval().toNanos();
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, properties.getQueueCapacity()));
+        this.objectMapper = objectMapper;
+        if (enabled) {
+            httpClient = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(requestTimeout)
+                    .build();
+            sender = new Thread(this::sendLoop, "geocoding-cache-sync");
+            sender.setDaemon(true);
+            sender.start();
+            logger.info("Cache cluster mode enabled as node {} with peers {}", nodeId, properties.getPeers());
+        } else {
+            httpClient = null;
+            sender = null;
+        }
+    }
+
+    @Override
+    public void loaded(String cacheName, Object key, Object value, ValueOrigin origin) {
+        offer(new CacheSyncMessage.Change(CacheSyncMessage.Type.PUT, cacheName, key, value, origin));
+    }
+
+    @Override
+    public void evicted(String cacheName, Object key) {
+        offer(new CacheSyncMessage.Change(CacheSyncMessage.Type.EVICT, cacheName, key, null, null));
+    }
+
+    @Override
+    public void cleared(String cacheName) {
+        offer(new CacheSyncMessage.Change(CacheSyncMessage.Type.CLEAR, cacheName, null, null, null));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns the identifier of this instance, sent with every batch and returned on receipt.
+     *
+     * @return The node identifier, random per start.
+     */
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Returns the shared secret batches must carry.
+     *
+     * @return The token, or {@code null} if none is configured.
+     */
+    public String getToken() {
+        return token;
+    }
+
+    public long getSentCount() {
+        return sent.sum();
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    public long getFailureCount() {
+        return failures.sum();
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    @Override
+    public void close() {
+        if (sender != null) {
+            sender.interrupt();
+        }
+    }
+
+    private void offer(CacheSyncMessage.Change change) {
+        if (enabled && !queue.offer(change)) {
+            dropped.increment();
+        }
+    }
+
+    private void sendLoop() {
+        List<CacheSyncMessage.Change> batch = new ArrayList<>(batchSize);
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                batch.add(queue.take());
+                // Wait briefly for more changes, so that a burst of loads travels in a few requests.
+                long deadline = System.nanoTime() + flushIntervalNanos;
+                while (batch.size() < batchSize) {
+                    CacheSyncMessage.Change next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                    queue.drainTo(batch, batchSize - batch.size());
+                }
+                send(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void send(List<CacheSyncMessage.Change> batch) {
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(new CacheSyncMessage(nodeId, batch));
+        } catch (JsonProcessingException ex) {
+            logger.warn("Could not write cache sync batch: {}", ex.toString());
+            return;
+        }
+        long now = System.nanoTime();
+        List<CompletableFuture<Void>> deliveries = new ArrayList<>(peers.size());
+        for (Peer peer : peers) {
+            if (!peer.self && now - peer.retryAt >= 0) {
+                deliveries.add(deliver(peer, body, batch.size()));
+            }
+        }
+        // Each delivery times out on its own, so this waits at most one request timeout.
+        CompletableFuture.allOf(deliveries.toArray(new CompletableFuture[0])).join();
+    }
+
+    private CompletableFuture<Void> deliver(Peer peer, byte[] body, int changes) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(peer.uri)
+                .timeout(requestTimeout)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body));
+        if (token != null && !token.isEmpty()) {
+            request.header(TOKEN_HEADER, token);
+        }
+        return httpClient.sendAsync(request.build(), HttpResponse.BodyHandlers.discarding())
+                .handle((response, error) -> {
+                    if (response != null && nodeId.equals(response.headers().firstValue(NODE_HEADER).orElse(null))) {
+                        peer.self = true;
+                        logger.info("Cache sync peer {} is this instance; skipping it", peer.uri);
+                    } else if (response != null && response.statusCode() / 100 == 2) {
+                        sent.add(changes);
+                        if (peer.down) {
+                            peer.down = false;
+                            logger.info("Cache sync peer {} is reachable again", peer.uri);
+                        }
+                    } else {
+                        failures.increment();
+                        peer.retryAt = System.nanoTime() + retryIntervalNanos;
+                        if (!peer.down) {
+                            peer.down = true;
+                            logger.warn("Cache sync to {} failed, skipping it for {}: {}", peer.uri,
+                                    Duration.ofNanos(retryIntervalNanos),
+                                    error != null ? error.toString() : "HTTP " + response.statusCode());
+                        }
+                    }
+                    return null;
+                });
+    }
+
+    /**
+     * Delivery state of one peer, only changed by the sender thread and the callbacks it waits for.
+     */
+    private static final class Peer {
+        private final URI uri;
+        private volatile long retryAt = System.nanoTime();
+        private volatile boolean down;
+        private volatile boolean self;
+
+        private Peer(URI uri) {
+            this.uri = uri;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.caching.cluster;
+
+import com.caching.cache.ValueOrigin;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A batch of cache changes sent from one instance to another, as JSON.
+ * Keys are sent as they are cached: an address for "geocoding", a {@code [latitude, longitude]} array for
+ * "reverse-geocoding".
+ */
+public class CacheSyncMessage {
+
+    private String node;
+    private List<Change> changes = new ArrayList<>();
+
+    public CacheSyncMessage() {
+    }
+
+    public CacheSyncMessage(String node, List<Change> changes) {
+        this.node = node;
+        this.changes = changes;
+    }
+
+    public String getNode() {
+        return node;
+    }
+
+    public void setNode(String node) {
+        this.node = node;
+    }
+
+    public List<Change> getChanges() {
+        return changes;
+    }
+
+    public void setChanges(List<Change> changes) {
+        this.changes = changes;
+    }
+
+    /**
+     * What happened to an entry.
+     */
+    public enum Type {
+        PUT, EVICT, CLEAR
+    }
+
+    /**
+     * One change to one cache. {@code key} is absent for {@link Type#CLEAR}, {@code value} and {@code origin} are
+     * present only for {@link Type#PUT}.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class Change {
+
+        private Type type;
+        private String cache;
+        private Object key;
+        private Object value;
+        private ValueOrigin origin;
+
+        public Change() {
+        }
+
+        public Change(Type type, String cache, Object key, Object value, ValueOrigin origin) {
+            this.type = type;
+            this.cache = cache;
+            this.key = key;
+            this.value = value;
+            this.origin = origin;
+        }
+
+        public Type getType() {
+            return type;
+        }
+
+        public void setType(Type type) {
+            this.type = type;
+        }
+
+        public String getCache() {
+            return cache;
+        }
+
+        public void setCache(String cache) {
+            this.cache = cache;
+        }
+
+        public Object getKey() {
+            return key;
+        }
+
+        public void setKey(Object key) {
+            this.key = key;
+        }
+
+        public Object getValue() {
+            return value;
+        }
+
+        public void setValue(Object value) {
+            this.value = value;
+        }
+
+        public ValueOrigin getOrigin() {
+            return origin;
+        }
+
+        public void setOrigin(ValueOrigin origin) {
+            this.origin = origin;
+        }
+    }
+}
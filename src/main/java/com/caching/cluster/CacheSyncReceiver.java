@@ -0,0 +1,153 @@
+package com.caching.cluster;
+
+import com.caching.cache.CacheKeyCanonicalizer;
+import com.caching.cache.CoalescingCaffeineCache;
+import com.caching.cache.SpatialReverseIndex;
+import com.caching.cache.ValueOrigin;
+import com.caching.model.GeoAddress;
+import com.caching.model.GeoCoordinates;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Applies the cache changes received from other instances to this instance's geocoding caches.
+ * Keys are canonicalized again, so a peer with different key settings cannot plant entries under keys that
+ * lookups here would never use. Received values are stored in the in-memory cache, but not reported to the
+ * {@link CacheReplicator}, so they are not sent on. Only values the sender fetched from the upstream API are
+ * also written to disk and, for reverse geocoding, added to the spatial index; gazetteer and nearby answers stay
+ * out of both, as they do on the sender. Evictions and clears also apply to the on-disk and stale copies, so that
+ * an evicted entry is not read back from there. Changes to other caches, or with keys or values of
+ * the wrong shape, are skipped.
+ */
+public class CacheSyncReceiver {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheSyncReceiver.class);
+
+    private final CoalescingCaffeineCache geocodingCache;
+    private final CoalescingCaffeineCache reverseGeocodingCache;
+    private final Cache geocodingDisk;
+    private final Cache reverseGeocodingDisk;
+    private final SpatialReverseIndex<GeoAddress> spatialIndex;
+    private final CacheKeyCanonicalizer cacheKeys;
+    private final ObjectMapper objectMapper;
+
+    private final LongAdder applied = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * Creates the receiver.
+     *
+     * @param cacheManager The cache manager holding the geocoding caches.
+     * @param spatialIndex Index of resolved reverse geocoding results.
+     * @param cacheKeys    Turns received keys into canonical cache keys.
+     * @param objectMapper Mapper converting received values.
+     */
+    public CacheSyncReceiver(CacheManager cacheManager, SpatialReverseIndex<GeoAddress> spatialIndex,
+                             CacheKeyCanonicalizer cacheKeys, ObjectMapper objectMapper) {
+        this.geocodingCache = (CoalescingCaffeineCache) cacheManager.getCache("geocoding");
+        this.reverseGeocodingCache = (CoalescingCaffeineCache) cacheManager.getCache("reverse-geocoding");
+        this.geocodingDisk = cacheManager.getCache("geocoding-disk");
+        this.reverseGeocodingDisk = cacheManager.getCache("reverse-geocoding-disk");
+        this.spatialIndex = spatialIndex;
+        this.cacheKeys = cacheKeys;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Applies the changes of a batch in order.
+     *
+     * @param message The batch.
+     */
+    public void apply(CacheSyncMessage message) {
+        for (CacheSyncMessage.Change change : message.getChanges()) {
+            try {
+                if (apply(change)) {
+                    applied.increment();
+                } else {
+                    rejected.increment();
+                }
+            } catch (IllegalArgumentException | ClassCastException ex) {
+                rejected.increment();
+                logger.debug("Skipped cache change from node {}: {}", message.getNode(), ex.toString());
+            }
+        }
+    }
+
+    public long getAppliedCount() {
+        return applied.sum();
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    private boolean apply(CacheSyncMessage.Change change) {
+        if (change.getType() == null || change.getCache() == null) {
+            return false;
+        }
+        if ("geocoding".equals(change.getCache())) {
+            return applyGeocoding(change);
+        }
+        if ("reverse-geocoding".equals(change.getCache())) {
+            return applyReverseGeocoding(change);
+        }
+        return false;
+    }
+
+    private boolean applyGeocoding(CacheSyncMessage.Change change) {
+        if (change.getType() == CacheSyncMessage.Type.CLEAR) {
+            // Unreported, and so not sent back; the disk and stale copies are cleared as well.
+            geocodingCache.clearUnreported();
+            return true;
+        }
+        if (!(change.getKey() instanceof String)) {
+            return false;
+        }
+        String key = cacheKeys.address((String) change.getKey());
+        if (change.getType() == CacheSyncMessage.Type.EVICT) {
+            geocodingCache.evictUnreported(key);
+            return true;
+        }
+        if (!cacheKeys.isCacheable(key) || change.getValue() == null) {
+            return false;
+        }
+        GeoCoordinates value = objectMapper.convertValue(change.getValue(), GeoCoordinates.class);
+        geocodingCache.put(key, value);
+        if (change.getOrigin() == ValueOrigin.UPSTREAM) {
+            geocodingDisk.put(key, value);
+        }
+        return true;
+    }
+
+    private boolean applyReverseGeocoding(CacheSyncMessage.Change change) {
+        if (change.getType() == CacheSyncMessage.Type.CLEAR) {
+            reverseGeocodingCache.clearUnreported();
+            return true;
+        }
+        if (!(change.getKey() instanceof List) || ((List<?>) change.getKey()).size() != 2) {
+            return false;
+        }
+        List<?> coordinates = (List<?>) change.getKey();
+        List<String> key = cacheKeys.coordinates((String) coordinates.get(0), (String) coordinates.get(1));
+        if (change.getType() == CacheSyncMessage.Type.EVICT) {
+            reverseGeocodingCache.evictUnreported(key);
+            return true;
+        }
+        if (change.getValue() == null) {
+            return false;
+        }
+        GeoAddress value = objectMapper.convertValue(change.getValue(), GeoAddress.class);
+        reverseGeocodingCache.put(key, value);
+        if (change.getOrigin() == ValueOrigin.UPSTREAM) {
+            reverseGeocodingDisk.put(key, value);
+            spatialIndex.add(key.get(0), key.get(1), value);
+        }
+        return true;
+    }
+}
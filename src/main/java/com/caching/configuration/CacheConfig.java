@@ -1,43 +1,425 @@
 package com.caching.configuration;
 
 
+import com.caching.cache.CacheChangeListener;
+import com.caching.cache.CacheKeyCanonicalizer;
+import com.caching.cache.CoalescingCaffeineCache;
+import com.caching.cache.DiskCodec;
+import com.caching.cache.EntryWeigher;
+import com.caching.cache.EvictionLogSummary;
+import com.caching.cache.GeoCodingDiskCodecs;
+import com.caching.cache.JitteredExpiry;
+import com.caching.cache.MappedDiskCache;
+import com.caching.cache.SpatialReverseIndex;
+import com.caching.cache.StaleAwareExpiry;
+import com.caching.cache.StaleValueCache;
+import com.caching.cache.TimedStatsCounter;
+import com.caching.cache.ValueLifetimes;
+import com.caching.cluster.CacheReplicator;
+import com.caching.cluster.CacheSyncReceiver;
+import com.caching.model.GeoAddress;
+import com.caching.service.GeoCodingService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.AsyncCacheLoader;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Policy;
 import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.metrics.cache.CacheMeterBinderProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
-import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.support.NoOpCache;
+import org.springframework.cache.support.SimpleCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableScheduling;
 
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
 
 @Configuration
 @EnableCaching
 @EnableScheduling // Enable scheduled tasks
+@EnableConfigurationProperties(GeoCodingCacheProperties.class)
 public class CacheConfig {
     private static final Logger logger = LoggerFactory.getLogger(CacheConfig.class);
+
+    private final GeoCodingCacheProperties properties;
+    private final List<MappedDiskCache> diskCaches = new CopyOnWriteArrayList<>();
+
+    public CacheConfig(GeoCodingCacheProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Registers the "geocoding" and "reverse-geocoding" caches. Both are backed by Caffeine async caches
+     * so that concurrent misses for the same key share one in-flight upstream call. Entries that are
+     * still being read are reloaded in the background by {@link GeoCodingService}, through the same tiers as a miss
+     * except the on-disk ones, so they stay fresh without being evicted.
+     * Lookups that returned no results or were rejected are kept separately, for a much shorter time,
+     * in "geocoding-not-found" and "reverse-geocoding-not-found". Entries evicted from the geocoding caches
+     * move to "geocoding-stale" and "reverse-geocoding-stale", to be served while the API is unavailable.
+     * Every result loaded from the API is also written to "geocoding-disk" and "reverse-geocoding-disk",
+     * which persist on disk and are checked on a miss before the API is called; values read back from there
+     * only live in memory for what is left of the TTL they started when they were fetched, and fuzzy gazetteer
+     * matches only for {@code geocoding.gazetteer.fuzzy-ttl}. Evicting or clearing a geocoding cache, through
+     * {@code @CacheEvict} or the actuator caches endpoint, also evicts or clears its on-disk and stale copies.
+     * In cluster mode, values loaded into the geocoding caches, with their origin, and entries evicted from them
+     * are passed to the {@link CacheReplicator} to be sent to the other instances; stale values served during an
+     * outage and fuzzy gazetteer matches are not, as the other instances would keep them for a full lifetime.
+     *
+     * @param geoCodingService The service loading entries, also used to refresh them.
+     * @param replicator       Sends changes to the other instances in cluster mode.
+     * @param evictionLog      Counts evictions from the geocoding caches for the periodic summary.
+     * @param meterRegistry    The registry receiving cache load timings.
+     * @return The cache manager holding the geocoding caches.
+     */
     @Bean
-    public CacheManager cacheManager() {
-        CaffeineCacheManager cacheManager = new CaffeineCacheManager("geocoding", "reverse-geocoding");
-        cacheManager.setCaffeine(caffeineCacheBuilder());
+    public CacheManager cacheManager(ObjectProvider<GeoCodingService> geoCodingService, CacheReplicator replicator,
+                                     EvictionLogSummary evictionLog, MeterRegistry meterRegistry) {
+        StaleValueCache geocodingStale = staleValueCache("geocoding-stale");
+        StaleValueCache reverseGeocodingStale = staleValueCache("reverse-geocoding-stale");
+        CacheChangeListener changes = replicator.isEnabled() ? replicator : CacheChangeListener.NONE;
+
+        Cache geocodingDisk = diskCache("geocoding-disk", GeoCodingDiskCodecs.FORWARD);
+        Cache reverseGeocodingDisk = diskCache("reverse-geocoding-disk", GeoCodingDiskCodecs.REVERSE);
+
+        ValueLifetimes geocodingLifetimes = valueLifetimes("geocoding");
+        ValueLifetimes reverseGeocodingLifetimes = valueLifetimes("reverse-geocoding");
+
+        // Used by refresh-after-write only, through the same chain as misses; the service is looked up on first use
+        // because it needs the cache manager itself.
+        AsyncCacheLoader<Object, Object> geocodingLoader =
+                (key, executor) -> geoCodingService.getObject().loadGeocode((String) key, true);
+        AsyncCacheLoader<Object, Object> reverseGeocodingLoader =
+                (key, executor) -> geoCodingService.getObject().loadReverseGeocode(coordinates(key), true);
+
+        SimpleCacheManager cacheManager = new SimpleCacheManager();
+        cacheManager.setCaches(List.of(
+                new CoalescingCaffeineCache("geocoding",
+                        caffeineCacheBuilder("geocoding", meterRegistry, geocodingStale,
+                                geocodingLifetimes, evictionLog).buildAsync(geocodingLoader),
+                        changes, geocodingLifetimes, List.of(geocodingDisk, geocodingStale)),
+                new CoalescingCaffeineCache("reverse-geocoding",
+                        caffeineCacheBuilder("reverse-geocoding", meterRegistry, reverseGeocodingStale,
+                                reverseGeocodingLifetimes, evictionLog).buildAsync(reverseGeocodingLoader),
+                        changes, reverseGeocodingLifetimes, List.of(reverseGeocodingDisk, reverseGeocodingStale)),
+                negativeCache("geocoding-not-found"),
+                negativeCache("reverse-geocoding-not-found"),
+                geocodingStale,
+                reverseGeocodingStale,
+                geocodingDisk,
+                reverseGeocodingDisk
+        ));
         return cacheManager;
     }
 
+    /**
+     * Flushes the on-disk caches when the application shuts down.
+     */
+    @PreDestroy
+    public void closeDiskCaches() {
+        diskCaches.forEach(MappedDiskCache::close);
+    }
+
+    /**
+     * Logs the evictions from the geocoding caches as periodic counts, every
+     * {@code geocoding.cache.eviction-log-interval}.
+     *
+     * @return The summary, logging what is left when the context is stopped.
+     */
+    @Bean
+    public EvictionLogSummary evictionLogSummary() {
+        return new EvictionLogSummary(properties.getEvictionLogInterval());
+    }
+
+    /**
+     * Sends the changes made to the geocoding caches to the other instances when
+     * {@code geocoding.cache.cluster.enabled} is set; does nothing otherwise.
+     *
+     * @param objectMapper Mapper used to write batches.
+     * @return The replicator, stopped with the context.
+     */
+    @Bean
+    public CacheReplicator cacheReplicator(ObjectMapper objectMapper) {
+        return new CacheReplicator(properties.getCluster(), objectMapper);
+    }
+
+    /**
+     * Applies the changes received from the other instances to the geocoding caches.
+     *
+     * @param cacheManager The cache manager holding the geocoding caches.
+     * @param spatialIndex Index of resolved reverse geocoding results.
+     * @param cacheKeys    Turns received keys into canonical cache keys.
+     * @param objectMapper Mapper converting received values.
+     * @return The receiver.
+     */
+    @Bean
+    public CacheSyncReceiver cacheSyncReceiver(CacheManager cacheManager, SpatialReverseIndex<GeoAddress> spatialIndex,
+                                               CacheKeyCanonicalizer cacheKeys, ObjectMapper objectMapper) {
+        return new CacheSyncReceiver(cacheManager, spatialIndex, cacheKeys, objectMapper);
+    }
+
+    /**
+     * Publishes, in cluster mode, the changes sent to and received from the other instances, the changes
+     * dropped because peers could not keep up, failed deliveries and the length of the send queue.
+     *
+     * @param replicator The replicator.
+     * @param receiver   The receiver.
+     * @return The meter binder.
+     */
+    @Bean
+    public MeterBinder cacheClusterMetrics(CacheReplicator replicator, CacheSyncReceiver receiver) {
+        return registry -> {
+            if (!replicator.isEnabled()) {
+                return;
+            }
+            FunctionCounter.builder("geocoding.cache.cluster.changes", replicator, CacheReplicator::getSentCount)
+                    .description("Cache changes delivered to peers, counted once per peer")
+                    .tag("result", "sent")
+                    .register(registry);
+            FunctionCounter.builder("geocoding.cache.cluster.changes", replicator, CacheReplicator::getDroppedCount)
+                    .description("Cache changes dropped because the send queue was full")
+                    .tag("result", "dropped")
+                    .register(registry);
+            FunctionCounter.builder("geocoding.cache.cluster.changes", receiver, CacheSyncReceiver::getAppliedCount)
+                    .description("Cache changes received from peers and applied")
+                    .tag("result", "received")
+                    .register(registry);
+            FunctionCounter.builder("geocoding.cache.cluster.changes", receiver, CacheSyncReceiver::getRejectedCount)
+                    .description("Cache changes received from peers and skipped")
+                    .tag("result", "rejected")
+                    .register(registry);
+            FunctionCounter.builder("geocoding.cache.cluster.failures", replicator, CacheReplicator::getFailureCount)
+                    .description("Batches that could not be delivered to a peer")
+                    .register(registry);
+            Gauge.builder("geocoding.cache.cluster.queue", replicator, CacheReplicator::getQueueSize)
+                    .description("Cache changes waiting to be sent")
+                    .register(registry);
+        };
+    }
+
+    /**
+     * Index of resolved reverse geocoding results used to answer lookups for nearby coordinates
+     * that miss the exact-key cache.
+     *
+     * @param enabled      Whether nearby lookups are enabled.
+     * @param radiusMeters Maximum distance at which a resolved point may answer a lookup.
+     * @param maxCells     Maximum number of grid cells kept in memory.
+     * @param ttl          How long resolved points are kept.
+     * @return The spatial index.
+     */
+    @Bean
+    public SpatialReverseIndex<GeoAddress> reverseGeocodingSpatialIndex(
+            @Value("${geocoding.reverse.spatial.enabled:true}") boolean enabled,
+            @Value("${geocoding.reverse.spatial.radius-meters:25}") double radiusMeters,
+            @Value("${geocoding.reverse.spatial.max-cells:100000}") long maxCells,
+            @Value("${geocoding.reverse.spatial.ttl:6h}") Duration ttl) {
+        return new SpatialReverseIndex<>(enabled, radiusMeters, maxCells, ttl);
+    }
+
+    /**
+     * Turns requests into the canonical keys of the geocoding caches ({@code geocoding.cache.keys.*}).
+     *
+     * @return The canonicalizer.
+     */
+    @Bean
+    public CacheKeyCanonicalizer cacheKeyCanonicalizer() {
+        GeoCodingCacheProperties.Keys keys = properties.getKeys();
+        return new CacheKeyCanonicalizer(keys.getCoordinateDecimals(), keys.getIgnoredSuffixes(), keys.getNonCacheable());
+    }
+
+    /**
+     * Publishes Caffeine statistics (gets, puts, evictions, size, load counts) for the geocoding caches,
+     * plus the number of requests that joined an in-flight load and, for caches bounded by weight,
+     * the estimated heap size of their entries.
+     * Spring Boot applies this provider to every cache registered with the cache manager.
+     *
+     * @return The meter binder provider for coalescing caches.
+     */
+    @Bean
+    public CacheMeterBinderProvider<CoalescingCaffeineCache> coalescingCacheMeterBinderProvider() {
+        return (cache, tags) -> registry -> {
+            new CaffeineCacheMetrics<>(cache.getNativeCache().synchronous(), cache.getName(), tags).bindTo(registry);
+            FunctionCounter.builder("geocoding.cache.coalesced", cache, CoalescingCaffeineCache::getCoalescedCount)
+                    .description("Requests that joined an in-flight load instead of calling the API")
+                    .tags(tags)
+                    .tag("cache", cache.getName())
+                    .register(registry);
+            cache.getNativeCache().synchronous().policy().eviction()
+                    .filter(Policy.Eviction::isWeighted)
+                    .ifPresent(eviction -> Gauge.builder("geocoding.cache.weight", eviction,
+                                    weighted -> weighted.weightedSize().orElse(0))
+                            .description("Estimated heap size of the cached entries")
+                            .baseUnit("bytes")
+                            .tags(tags)
+                            .tag("cache", cache.getName())
+                            .register(registry));
+        };
+    }
+
+    /**
+     * Publishes hit/miss/put counts, entry count and bytes used of the on-disk caches.
+     *
+     * @return The meter binder provider for on-disk caches.
+     */
+    @Bean
+    public CacheMeterBinderProvider<MappedDiskCache> diskCacheMeterBinderProvider() {
+        return (cache, tags) -> registry -> {
+            FunctionCounter.builder("geocoding.cache.disk.gets", cache, MappedDiskCache::getHitCount)
+                    .description("Lookups answered from disk")
+                    .tags(tags)
+                    .tag("cache", cache.getName())
+                    .tag("result", "hit")
+                    .register(registry);
+            FunctionCounter.builder("geocoding.cache.disk.gets", cache, MappedDiskCache::getMissCount)
+                    .description("Lookups not found on disk")
+                    .tags(tags)
+                    .tag("cache", cache.getName())
+                    .tag("result", "miss")
+                    .register(registry);
+            FunctionCounter.builder("geocoding.cache.disk.puts", cache, MappedDiskCache::getPutCount)
+                    .description("Results written to disk")
+                    .tags(tags)
+                    .tag("cache", cache.getName())
+                    .register(registry);
+            Gauge.builder("geocoding.cache.disk.entries", cache, MappedDiskCache::getEntryCount)
+                    .description("Entries stored on disk")
+                    .tags(tags)
+                    .tag("cache", cache.getName())
+                    .register(registry);
+            Gauge.builder("geocoding.cache.disk.used", cache, MappedDiskCache::getUsedBytes)
+                    .description("Bytes written to the segment files, including superseded records")
+                    .baseUnit("bytes")
+                    .tags(tags)
+                    .tag("cache", cache.getName())
+                    .register(registry);
+        };
+    }
+
+    /**
+     * Publishes hit/miss counts, lookup time and size of the reverse geocoding spatial index.
+     *
+     * @param spatialIndex The spatial index.
+     * @return The meter binder.
+     */
     @Bean
-    public Caffeine<Object, Object> caffeineCacheBuilder() {
-        return Caffeine.newBuilder()
-                .maximumSize(50) // Maximum 50 entries in the cache
-                .expireAfterAccess(5, TimeUnit.MINUTES) // Expire entries 5 minutes after last access
-                .recordStats() // Track stats for eviction and access frequency
+    public MeterBinder reverseGeocodingSpatialIndexMetrics(SpatialReverseIndex<GeoAddress> spatialIndex) {
+        return registry -> {
+            FunctionCounter.builder("geocoding.reverse.spatial.lookups", spatialIndex, SpatialReverseIndex::getHitCount)
+                    .description("Reverse lookups answered by a nearby resolved point")
+                    .tag("result", "hit")
+                    .register(registry);
+            FunctionCounter.builder("geocoding.reverse.spatial.lookups", spatialIndex, SpatialReverseIndex::getMissCount)
+                    .description("Reverse lookups with no resolved point nearby")
+                    .tag("result", "miss")
+                    .register(registry);
+            FunctionTimer.builder("geocoding.reverse.spatial.lookup.time", spatialIndex,
+                            index -> index.getHitCount() + index.getMissCount(),
+                            SpatialReverseIndex::getTotalLookupNanos, TimeUnit.NANOSECONDS)
+                    .description("Time spent searching the spatial index")
+                    .register(registry);
+            Gauge.builder("geocoding.reverse.spatial.cells", spatialIndex, SpatialReverseIndex::getCellCount)
+                    .description("Grid cells currently holding resolved points")
+                    .register(registry);
+        };
+    }
+
+    private Cache negativeCache(String cacheName) {
+        GeoCodingCacheProperties.Negative negative = properties.getNegative();
+        if (!negative.isEnabled()) {
+            return new NoOpCache(cacheName);
+        }
+        return new CaffeineCache(cacheName, Caffeine.newBuilder()
+                .maximumSize(negative.getMaximumSize())
+                .expireAfterWrite(negative.getTtl()) // Short, fixed lifetime so fixed upstream data is picked up soon
+                .recordStats()
+                .build(), false);
+    }
+
+    private Cache diskCache(String cacheName, DiskCodec codec) {
+        GeoCodingCacheProperties.Disk disk = properties.getDisk();
+        if (!disk.isEnabled()) {
+            return new NoOpCache(cacheName);
+        }
+        try {
+            MappedDiskCache cache = MappedDiskCache.open(cacheName, disk.getDirectory(), codec,
+                    (int) Math.min(disk.getSegmentSize().toBytes(), Integer.MAX_VALUE), disk.getMaxSegments(), disk.getTtl());
+            diskCaches.add(cache);
+            return cache;
+        } catch (IOException | RuntimeException ex) {
+            // Run without the disk tier rather than fail to start.
+            logger.warn("Disk cache {} unavailable in {}: {}", cacheName, disk.getDirectory().toAbsolutePath(), ex.toString());
+            return new NoOpCache(cacheName);
+        }
+    }
+
+    private StaleValueCache staleValueCache(String cacheName) {
+        GeoCodingCacheProperties.Stale stale = properties.getStale();
+        return new StaleValueCache(cacheName, Caffeine.newBuilder()
+                .maximumSize(stale.getMaximumSize())
+                .expireAfterWrite(stale.getTtl())
+                .recordStats() // Hits are stale values served during an upstream outage
+                .build(), stale.getServedTtl());
+    }
+
+    /**
+     * Returns the per-entry expiry of the cache: a jittered TTL, which values read back from disk only get the rest of
+     * and fuzzy gazetteer matches only a short part of.
+     */
+    private ValueLifetimes valueLifetimes(String cacheName) {
+        GeoCodingCacheProperties.CacheSpec spec = properties.specFor(cacheName);
+        boolean extendOnRead = spec.getExpiry() == GeoCodingCacheProperties.ExpiryMode.AFTER_ACCESS;
+        return new ValueLifetimes(new JitteredExpiry(spec.getTtl(), spec.getTtlJitter(), extendOnRead), spec.getTtl());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<String> coordinates(Object key) {
+        return (List<String>) key;
+    }
+
+    private Caffeine<Object, Object> caffeineCacheBuilder(String cacheName, MeterRegistry meterRegistry,
+                                                          StaleValueCache staleValues, ValueLifetimes lifetimes,
+                                                          EvictionLogSummary evictionLog) {
+        boolean keepStale = properties.getStale().isEnabled();
+        GeoCodingCacheProperties.CacheSpec spec = properties.specFor(cacheName);
+        if (spec.getExpiry() == GeoCodingCacheProperties.ExpiryMode.AFTER_WRITE && spec.getRefreshAfter().toNanos()
+                >= spec.getTtl().toNanos() * (1 - spec.getTtlJitter())) {
+            logger.warn("refresh-after ({}) of cache {} is not below the shortest jittered TTL; "
+                    + "some entries will expire before they are refreshed", spec.getRefreshAfter(), cacheName);
+        }
+        Caffeine<Object, Object> builder = Caffeine.newBuilder();
+        if (spec.getMaximumWeight() != null) {
+            builder.maximumWeight(spec.getMaximumWeight().toBytes())
+                    .weigher(new EntryWeigher()); // Bound by estimated heap bytes rather than entry count
+        } else {
+            builder.maximumSize(spec.getMaximumSize());
+        }
+        return builder
+                .expireAfter(new StaleAwareExpiry(lifetimes, staleValues)) // Short for served stale values
+                .refreshAfterWrite(spec.getRefreshAfter()) // Reload entries still in use before they expire
+                .recordStats(() -> new TimedStatsCounter(meterRegistry, cacheName)) // Track stats and load-time percentiles
                 .evictionListener((key, value, cause) -> {
-                    if (cause == RemovalCause.SIZE) {
-                        logger.info("Evicted entry due to LFU (SIZE eviction): Key = {}, Value = {}", key, value);
-                    } else if (cause == RemovalCause.EXPIRED) {
-                        logger.info("Evicted entry due to EXPIRATION (expired after 5 minutes): Key = {}, Value = {}", key, value);
+                    if (keepStale && value != null && (cause == RemovalCause.SIZE || cause == RemovalCause.EXPIRED)) {
+                        staleValues.put(key, value);
                     }
+                    evictionLog.record(cacheName, cause);
                 });
     }
 }
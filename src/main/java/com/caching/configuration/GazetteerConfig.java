@@ -0,0 +1,105 @@
+package com.caching.configuration;
+
+import com.caching.gazetteer.Gazetteer;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Configures the local gazetteer and loads its file in the background once the application is ready,
+ * so that a large file does not delay startup; lookups go to the upstream API until it is loaded.
+ */
+@Configuration
+@EnableConfigurationProperties(GazetteerProperties.class)
+public class GazetteerConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(GazetteerConfig.class);
+
+    private final GazetteerProperties properties;
+
+    public GazetteerConfig(GazetteerProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * The gazetteer consulted by forward geocoding before the upstream API.
+     *
+     * @return The gazetteer, empty until its file is loaded.
+     */
+    @Bean
+    public Gazetteer gazetteer() {
+        boolean enabled = properties.isEnabled() && properties.getFile() != null;
+        if (properties.isEnabled() && !enabled) {
+            logger.warn("geocoding.gazetteer.enabled is set but geocoding.gazetteer.file is not; gazetteer disabled");
+        }
+        return new Gazetteer(enabled, properties.getMatchMode(), properties.getMinSimilarity(),
+                properties.getFuzzyTtl());
+    }
+
+    /**
+     * Starts loading the gazetteer file on a daemon thread.
+     *
+     * @param event The event signalling that the application is ready.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadGazetteer(ApplicationReadyEvent event) {
+        Gazetteer gazetteer = event.getApplicationContext().getBean(Gazetteer.class);
+        if (!gazetteer.isEnabled()) {
+            return;
+        }
+        Thread thread = new Thread(() -> {
+            try {
+                gazetteer.load(properties.getFile(), properties.getLoadThreads());
+            } catch (IOException | RuntimeException ex) {
+                logger.warn("Could not load gazetteer {}: {}", properties.getFile(), ex.toString());
+            }
+        }, "geocoding-gazetteer-load");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Publishes lookup counts by result, lookup time, coverage and size of the gazetteer.
+     *
+     * @param gazetteer The gazetteer.
+     * @return The meter binder.
+     */
+    @Bean
+    public MeterBinder gazetteerMetrics(Gazetteer gazetteer) {
+        return registry -> {
+            FunctionCounter.builder("geocoding.gazetteer.lookups", gazetteer, Gazetteer::getExactHitCount)
+                    .description("Forward lookups answered by an exact gazetteer match")
+                    .tag("result", "exact")
+                    .register(registry);
+            FunctionCounter.builder("geocoding.gazetteer.lookups", gazetteer, Gazetteer::getFuzzyHitCount)
+                    .description("Forward lookups answered by a fuzzy gazetteer match")
+                    .tag("result", "fuzzy")
+                    .register(registry);
+            FunctionCounter.builder("geocoding.gazetteer.lookups", gazetteer, Gazetteer::getMissCount)
+                    .description("Forward lookups not found in the gazetteer")
+                    .tag("result", "miss")
+                    .register(registry);
+            FunctionTimer.builder("geocoding.gazetteer.lookup.time", gazetteer,
+                            Gazetteer::getLookupCount, Gazetteer::getTotalLookupNanos, TimeUnit.NANOSECONDS)
+                    .description("Time spent matching addresses against the gazetteer")
+                    .register(registry);
+            Gauge.builder("geocoding.gazetteer.coverage", gazetteer, Gazetteer::getCoverage)
+                    .description("Share of forward lookups answered by the gazetteer")
+                    .register(registry);
+            Gauge.builder("geocoding.gazetteer.places", gazetteer, Gazetteer::getPlaceCount)
+                    .description("Places loaded into the gazetteer")
+                    .register(registry);
+        };
+    }
+}
@@ -0,0 +1,109 @@
+package com.caching.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Settings for the local gazetteer answering forward geocoding lookups, bound from {@code geocoding.gazetteer.*}.
+ */
+@ConfigurationProperties(prefix = "geocoding.gazetteer")
+public class GazetteerProperties {
+
+    /**
+     * Whether the gazetteer is loaded and consulted before the upstream API.
+     */
+    private boolean enabled = false;
+
+    /**
+     * File of places to load: CSV ({@code address,latitude,longitude}) when the name ends in {@code .csv},
+     * otherwise newline-delimited JSON objects with {@code address}, {@code latitude} and {@code longitude}.
+     */
+    private Path file;
+
+    /**
+     * How addresses are matched against the gazetteer.
+     */
+    private MatchMode matchMode = MatchMode.EXACT;
+
+    /**
+     * Minimum trigram similarity (Dice coefficient, 0 to 1) for a fuzzy match.
+     */
+    private double minSimilarity = 0.8;
+
+    /**
+     * How long a fuzzy match stays in the in-memory geocoding cache. Fuzzy matches may not be the place that was
+     * meant, so they are kept briefly and are not sent to the other instances in cluster mode.
+     */
+    private Duration fuzzyTtl = Duration.ofMinutes(10);
+
+    /**
+     * Number of threads parsing the file at startup.
+     */
+    private int loadThreads = Runtime.getRuntime().availableProcessors();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public void setFile(Path file) {
+        this.file = file;
+    }
+
+    public MatchMode getMatchMode() {
+        return matchMode;
+    }
+
+    public void setMatchMode(MatchMode matchMode) {
+        this.matchMode = matchMode;
+    }
+
+    public double getMinSimilarity() {
+        return minSimilarity;
+    }
+
+    public void setMinSimilarity(double minSimilarity) {
+        this.minSimilarity = minSimilarity;
+    }
+
+    public Duration getFuzzyTtl() {
+        return fuzzyTtl;
+    }
+
+    public void setFuzzyTtl(Duration fuzzyTtl) {
+        this.fuzzyTtl = fuzzyTtl;
+    }
+
+    public int getLoadThreads() {
+        return loadThreads;
+    }
+
+    public void setLoadThreads(int loadThreads) {
+        this.loadThreads = loadThreads;
+    }
+
+    /**
+     * How an address is matched against the gazetteer.
+     */
+    public enum MatchMode {
+
+        /**
+         * Only the exact normalized name matches.
+         */
+        EXACT,
+
+        /**
+         * The exact normalized name, or else the most similar name by trigram similarity.
+         */
+        FUZZY
+    }
+}
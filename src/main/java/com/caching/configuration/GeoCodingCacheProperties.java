@@ -0,0 +1,634 @@
+package com.caching.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Settings for the geocoding caches, bound from {@code geocoding.cache.*}.
+ * The top-level size, weight, lifetime and expiry settings apply to the "geocoding" and "reverse-geocoding"
+ * caches unless overridden for one of them under {@code geocoding.cache.caches.<name>.*}.
+ */
+@ConfigurationProperties(prefix = "geocoding.cache")
+public class GeoCodingCacheProperties {
+
+    /**
+     * Maximum number of entries per cache. Ignored when a maximum weight is set.
+     */
+    private long maximumSize = 10_000;
+
+    /**
+     * Maximum estimated heap size of the entries per cache. When set, replaces the maximum number of entries.
+     */
+    private DataSize maximumWeight;
+
+    /**
+     * Base lifetime of an entry after it was written or refreshed.
+     */
+    private Duration ttl = Duration.ofHours(6);
+
+    /**
+     * Relative random spread applied to each entry's lifetime (0.1 means plus or minus 10%).
+     */
+    private double ttlJitter = 0.1;
+
+    /**
+     * Age after which an entry that is still being read is reloaded in the background.
+     * The current value keeps being served while the reload runs.
+     */
+    private Duration refreshAfter = Duration.ofHours(5);
+
+    /**
+     * Whether the lifetime of an entry starts at its last write or its last read.
+     */
+    private ExpiryMode expiry = ExpiryMode.AFTER_WRITE;
+
+    /**
+     * Interval at which the number of entries evicted from the geocoding caches is logged, per cache and cause.
+     * Zero turns the summary off.
+     */
+    private Duration evictionLogInterval = Duration.ofMinutes(1);
+
+    /**
+     * Per-cache overrides of the settings above, keyed by cache name.
+     */
+    private final Map<String, CacheSpec> caches = new LinkedHashMap<>();
+
+    /**
+     * Settings for the caches of lookups that returned no results or were rejected as invalid.
+     */
+    private final Negative negative = new Negative();
+
+    /**
+     * Settings for the caches of evicted values served while the API is unavailable.
+     */
+    private final Stale stale = new Stale();
+
+    /**
+     * Settings for the on-disk second-tier caches.
+     */
+    private final Disk disk = new Disk();
+
+    /**
+     * Settings for turning requests into canonical cache keys.
+     */
+    private final Keys keys = new Keys();
+
+    /**
+     * Settings for sharing cache entries with other instances.
+     */
+    private final Cluster cluster = new Cluster();
+
+    public long getMaximumSize() {
+        return maximumSize;
+    }
+
+    public void setMaximumSize(long maximumSize) {
+        this.maximumSize = maximumSize;
+    }
+
+    public DataSize getMaximumWeight() {
+        return maximumWeight;
+    }
+
+    public void setMaximumWeight(DataSize maximumWeight) {
+        this.maximumWeight = maximumWeight;
+    }
+
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    public void setTtl(Duration ttl) {
+        this.ttl = ttl;
+    }
+
+    public double getTtlJitter() {
+        return ttlJitter;
+    }
+
+    public void setTtlJitter(double ttlJitter) {
+        this.ttlJitter = ttlJitter;
+    }
+
+    public Duration getRefreshAfter() {
+        return refreshAfter;
+    }
+
+    public void setRefreshAfter(Duration refreshAfter) {
+        this.refreshAfter = refreshAfter;
+    }
+
+    public ExpiryMode getExpiry() {
+        return expiry;
+    }
+
+    public void setExpiry(ExpiryMode expiry) {
+        this.expiry = expiry;
+    }
+
+    public Duration getEvictionLogInterval() {
+        return evictionLogInterval;
+    }
+
+    public void setEvictionLogInterval(Duration evictionLogInterval) {
+        this.evictionLogInterval = evictionLogInterval;
+    }
+
+    public Map<String, CacheSpec> getCaches() {
+        return caches;
+    }
+
+    /**
+     * Returns the settings of one cache, with every setting not overridden for it taken from the top level.
+     *
+     * @param cacheName The cache name.
+     * @return The effective settings, all non-null except the maximum weight.
+     */
+    public CacheSpec specFor(String cacheName) {
+        CacheSpec override = caches.getOrDefault(cacheName, new CacheSpec());
+        CacheSpec spec = new CacheSpec();
+        // A weight bound replaces a size bound, so an override of either one replaces both defaults.
+        boolean bounded = override.getMaximumSize() != null || override.getMaximumWeight() != null;
+        spec.setMaximumSize(bounded ? override.getMaximumSize() : Long.valueOf(maximumSize));
+        spec.setMaximumWeight(bounded ? override.getMaximumWeight() : maximumWeight);
+        spec.setTtl(override.getTtl() != null ? override.getTtl() : ttl);
+        spec.setTtlJitter(override.getTtlJitter() != null ? override.getTtlJitter() : Double.valueOf(ttlJitter));
+        spec.setRefreshAfter(override.getRefreshAfter() != null ? override.getRefreshAfter() : refreshAfter);
+        spec.setExpiry(override.getExpiry() != null ? override.getExpiry() : expiry);
+        return spec;
+    }
+
+    public Negative getNegative() {
+        return negative;
+    }
+
+    public Stale getStale() {
+        return stale;
+    }
+
+    public Disk getDisk() {
+        return disk;
+    }
+
+    public Keys getKeys() {
+        return keys;
+    }
+
+    public Cluster getCluster() {
+        return cluster;
+    }
+
+    /**
+     * When the lifetime of a cache entry starts.
+     */
+    public enum ExpiryMode {
+
+        /**
+         * At the last write or refresh; reads do not extend it.
+         */
+        AFTER_WRITE,
+
+        /**
+         * At the last read, write or refresh, so entries that keep being read stay cached.
+         */
+        AFTER_ACCESS
+    }
+
+    /**
+     * Settings of one cache, bound from {@code geocoding.cache.caches.<name>.*}.
+     * Settings left unset fall back to the top-level {@code geocoding.cache.*} values.
+     */
+    public static class CacheSpec {
+
+        /**
+         * Maximum number of entries.
+         */
+        private Long maximumSize;
+
+        /**
+         * Maximum estimated heap size of the entries.
+         */
+        private DataSize maximumWeight;
+
+        /**
+         * Base lifetime of an entry.
+         */
+        private Duration ttl;
+
+        /**
+         * Relative random spread applied to each entry's lifetime.
+         */
+        private Double ttlJitter;
+
+        /**
+         * Age after which an entry that is still being read is reloaded in the background.
+         */
+        private Duration refreshAfter;
+
+        /**
+         * Whether the lifetime of an entry starts at its last write or its last read.
+         */
+        private ExpiryMode expiry;
+
+        public Long getMaximumSize() {
+            return maximumSize;
+        }
+
+        public void setMaximumSize(Long maximumSize) {
+            this.maximumSize = maximumSize;
+        }
+
+        public DataSize getMaximumWeight() {
+            return maximumWeight;
+        }
+
+        public void setMaximumWeight(DataSize maximumWeight) {
+            this.maximumWeight = maximumWeight;
+        }
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+
+        public Double getTtlJitter() {
+            return ttlJitter;
+        }
+
+        public void setTtlJitter(Double ttlJitter) {
+            this.ttlJitter = ttlJitter;
+        }
+
+        public Duration getRefreshAfter() {
+            return refreshAfter;
+        }
+
+        public void setRefreshAfter(Duration refreshAfter) {
+            this.refreshAfter = refreshAfter;
+        }
+
+        public ExpiryMode getExpiry() {
+            return expiry;
+        }
+
+        public void setExpiry(ExpiryMode expiry) {
+            this.expiry = expiry;
+        }
+    }
+
+    /**
+     * Settings for the negative result caches, bound from {@code geocoding.cache.negative.*}.
+     */
+    public static class Negative {
+
+        /**
+         * Whether failed lookups are remembered at all.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Maximum number of failed lookups remembered per cache.
+         */
+        private long maximumSize = 1000;
+
+        /**
+         * How long a failed lookup is answered from the cache before the API is asked again.
+         */
+        private Duration ttl = Duration.ofMinutes(10);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getMaximumSize() {
+            return maximumSize;
+        }
+
+        public void setMaximumSize(long maximumSize) {
+            this.maximumSize = maximumSize;
+        }
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+    }
+
+    /**
+     * Settings for the stale value caches, bound from {@code geocoding.cache.stale.*}.
+     */
+    public static class Stale {
+
+        /**
+         * Whether evicted values are kept to be served while the API is unavailable.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Maximum number of evicted values kept per cache.
+         */
+        private long maximumSize = 10_000;
+
+        /**
+         * How long an evicted value is kept.
+         */
+        private Duration ttl = Duration.ofDays(7);
+
+        /**
+         * How long a served stale value stays cached before the API is asked again.
+         */
+        private Duration servedTtl = Duration.ofMinutes(1);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getMaximumSize() {
+            return maximumSize;
+        }
+
+        public void setMaximumSize(long maximumSize) {
+            this.maximumSize = maximumSize;
+        }
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+
+        public Duration getServedTtl() {
+            return servedTtl;
+        }
+
+        public void setServedTtl(Duration servedTtl) {
+            this.servedTtl = servedTtl;
+        }
+    }
+
+    /**
+     * Settings for the on-disk second-tier caches, bound from {@code geocoding.cache.disk.*}.
+     */
+    public static class Disk {
+
+        /**
+         * Whether results are also persisted on disk, to survive restarts.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Directory holding the segment files.
+         */
+        private Path directory = Paths.get("data", "cache");
+
+        /**
+         * Size of each segment file.
+         */
+        private DataSize segmentSize = DataSize.ofMegabytes(16);
+
+        /**
+         * Number of segment files kept per cache; the oldest is deleted when a new one is started.
+         */
+        private int maxSegments = 4;
+
+        /**
+         * Age after which a persisted result is no longer used.
+         */
+        private Duration ttl = Duration.ofHours(24);
+
+        /**
+         * Maximum number of entries per cache loaded back into memory at startup.
+         */
+        private int warmUpEntries = 1000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Path getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(Path directory) {
+            this.directory = directory;
+        }
+
+        public DataSize getSegmentSize() {
+            return segmentSize;
+        }
+
+        public void setSegmentSize(DataSize segmentSize) {
+            this.segmentSize = segmentSize;
+        }
+
+        public int getMaxSegments() {
+            return maxSegments;
+        }
+
+        public void setMaxSegments(int maxSegments) {
+            this.maxSegments = maxSegments;
+        }
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+
+        public int getWarmUpEntries() {
+            return warmUpEntries;
+        }
+
+        public void setWarmUpEntries(int warmUpEntries) {
+            this.warmUpEntries = warmUpEntries;
+        }
+    }
+
+    /**
+     * Settings for turning requests into canonical cache keys, bound from {@code geocoding.cache.keys.*}.
+     */
+    public static class Keys {
+
+        /**
+         * Number of decimal places coordinates are rounded to (5 is about one metre).
+         */
+        private int coordinateDecimals = 5;
+
+        /**
+         * Trailing address parts dropped from forward keys, e.g. the country every address is in.
+         */
+        private List<String> ignoredSuffixes = new ArrayList<>();
+
+        /**
+         * Addresses always sent to the API and never cached.
+         */
+        private List<String> nonCacheable = new ArrayList<>(List.of("goa"));
+
+        public int getCoordinateDecimals() {
+            return coordinateDecimals;
+        }
+
+        public void setCoordinateDecimals(int coordinateDecimals) {
+            this.coordinateDecimals = coordinateDecimals;
+        }
+
+        public List<String> getIgnoredSuffixes() {
+            return ignoredSuffixes;
+        }
+
+        public void setIgnoredSuffixes(List<String> ignoredSuffixes) {
+            this.ignoredSuffixes = ignoredSuffixes;
+        }
+
+        public List<String> getNonCacheable() {
+            return nonCacheable;
+        }
+
+        public void setNonCacheable(List<String> nonCacheable) {
+            this.nonCacheable = nonCacheable;
+        }
+    }
+
+    /**
+     * Settings for sharing loaded entries and invalidations with other instances of the service,
+     * bound from {@code geocoding.cache.cluster.*}.
+     */
+    public static class Cluster {
+
+        /**
+         * Whether entries and invalidations are exchanged with the peers.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Base URLs of the other instances, e.g. {@code http://10.0.0.2:8080}. The list may include this instance,
+         * which is recognized and skipped, so every instance can be given the same list.
+         */
+        private List<URI> peers = new ArrayList<>();
+
+        /**
+         * Shared secret sent with every batch and required on receipt. Must be set when cluster mode is enabled.
+         */
+        private String token;
+
+        /**
+         * Maximum number of changes sent in one batch.
+         */
+        private int batchSize = 256;
+
+        /**
+         * Longest a change waits for more changes to fill its batch.
+         */
+        private Duration flushInterval = Duration.ofMillis(50);
+
+        /**
+         * Maximum number of changes waiting to be sent; further changes are dropped while the queue is full.
+         */
+        private int queueCapacity = 10_000;
+
+        /**
+         * Maximum time to deliver a batch to a peer.
+         */
+        private Duration requestTimeout = Duration.ofSeconds(2);
+
+        /**
+         * How long a peer that could not be reached is skipped before it is tried again.
+         */
+        private Duration retryInterval = Duration.ofSeconds(5);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public List<URI> getPeers() {
+            return peers;
+        }
+
+        public void setPeers(List<URI> peers) {
+            this.peers = peers;
+        }
+
+        public String getToken() {
+            return token;
+        }
+
+        public void setToken(String token) {
+            this.token = token;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public Duration getFlushInterval() {
+            return flushInterval;
+        }
+
+        public void setFlushInterval(Duration flushInterval) {
+            this.flushInterval = flushInterval;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public Duration getRequestTimeout() {
+            return requestTimeout;
+        }
+
+        public void setRequestTimeout(Duration requestTimeout) {
+            this.requestTimeout = requestTimeout;
+        }
+
+        public Duration getRetryInterval() {
+            return retryInterval;
+        }
+
+        public void setRetryInterval(Duration retryInterval) {
+            this.retryInterval = retryInterval;
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package com.caching.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings protecting the PositionStack API and this service from each other,
+ * bound from {@code geocoding.resilience.*}.
+ */
+@ConfigurationProperties(prefix = "geocoding.resilience")
+public class ResilienceProperties {
+
+    private final RateLimit rateLimit = new RateLimit();
+    private final Bulkhead bulkhead = new Bulkhead();
+    private final CircuitBreaker circuitBreaker = new CircuitBreaker();
+    private final Hedging hedging = new Hedging();
+
+    public RateLimit getRateLimit() {
+        return rateLimit;
+    }
+
+    public Bulkhead getBulkhead() {
+        return bulkhead;
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public Hedging getHedging() {
+        return hedging;
+    }
+
+    /**
+     * Client-side token bucket matching the plan quota, bound from {@code geocoding.resilience.rate-limit.*}.
+     */
+    public static class RateLimit {
+
+        /**
+         * Whether upstream calls are rate limited.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Sustained number of upstream calls allowed per second.
+         */
+        private double permitsPerSecond = 20;
+
+        /**
+         * Number of calls that may be made at once after a quiet period.
+         */
+        private int burst = 40;
+
+        /**
+         * Longest a call waits for the next token before it is rejected.
+         */
+        private Duration maxWait = Duration.ofMillis(250);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public double getPermitsPerSecond() {
+            return permitsPerSecond;
+        }
+
+        public void setPermitsPerSecond(double permitsPerSecond) {
+            this.permitsPerSecond = permitsPerSecond;
+        }
+
+        public int getBurst() {
+            return burst;
+        }
+
+        public void setBurst(int burst) {
+            this.burst = burst;
+        }
+
+        public Duration getMaxWait() {
+            return maxWait;
+        }
+
+        public void setMaxWait(Duration maxWait) {
+            this.maxWait = maxWait;
+        }
+    }
+
+    /**
+     * Cap on concurrent upstream calls, bound from {@code geocoding.resilience.bulkhead.*}.
+     */
+    public static class Bulkhead {
+
+        /**
+         * Maximum number of upstream calls in flight; further calls are rejected immediately.
+         */
+        private int maxConcurrentCalls = 32;
+
+        public int getMaxConcurrentCalls() {
+            return maxConcurrentCalls;
+        }
+
+        public void setMaxConcurrentCalls(int maxConcurrentCalls) {
+            this.maxConcurrentCalls = maxConcurrentCalls;
+        }
+    }
+
+    /**
+     * Circuit breaker over recent upstream outcomes, bound from {@code geocoding.resilience.circuit-breaker.*}.
+     */
+    public static class CircuitBreaker {
+
+        /**
+         * Whether the circuit breaker is active.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Failure rate between 0 and 1 at which the breaker opens.
+         */
+        private double failureRateThreshold = 0.5;
+
+        /**
+         * Number of most recent calls the failure rate is computed over.
+         */
+        private int slidingWindowSize = 20;
+
+        /**
+         * Number of calls required before the failure rate is evaluated.
+         */
+        private int minimumCalls = 10;
+
+        /**
+         * How long the breaker rejects calls before letting trial calls through.
+         */
+        private Duration waitInOpenState = Duration.ofSeconds(30);
+
+        /**
+         * Number of trial calls that must succeed to close the breaker again.
+         */
+        private int permittedCallsInHalfOpenState = 3;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public double getFailureRateThreshold() {
+            return failureRateThreshold;
+        }
+
+        public void setFailureRateThreshold(double failureRateThreshold) {
+            this.failureRateThreshold = failureRateThreshold;
+        }
+
+        public int getSlidingWindowSize() {
+            return slidingWindowSize;
+        }
+
+        public void setSlidingWindowSize(int slidingWindowSize) {
+            this.slidingWindowSize = slidingWindowSize;
+        }
+
+        public int getMinimumCalls() {
+            return minimumCalls;
+        }
+
+        public void setMinimumCalls(int minimumCalls) {
+            this.minimumCalls = minimumCalls;
+        }
+
+        public Duration getWaitInOpenState() {
+            return waitInOpenState;
+        }
+
+        public void setWaitInOpenState(Duration waitInOpenState) {
+            this.waitInOpenState = waitInOpenState;
+        }
+
+        public int getPermittedCallsInHalfOpenState() {
+            return permittedCallsInHalfOpenState;
+        }
+
+        public void setPermittedCallsInHalfOpenState(int permittedCallsInHalfOpenState) {
+            this.permittedCallsInHalfOpenState = permittedCallsInHalfOpenState;
+        }
+    }
+
+    /**
+     * Hedged upstream requests, bound from {@code geocoding.resilience.hedging.*}. A call still unanswered
+     * after the hedge delay is sent again, to the next configured provider, and the first answer is used.
+     * Has no effect with a single provider.
+     */
+    public static class Hedging {
+
+        /**
+         * Whether slow or failed upstream calls are hedged.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Fixed delay before a call is hedged. When unset, the delay follows the given percentile of recent
+         * upstream latencies.
+         */
+        private Duration delay;
+
+        /**
+         * Percentile of recent upstream latencies, between 0 and 1, used as the hedge delay when no fixed
+         * delay is set.
+         */
+        private double percentile = 0.95;
+
+        /**
+         * Shortest adaptive hedge delay, so that a fast upstream is not hedged on noise.
+         */
+        private Duration minDelay = Duration.ofMillis(20);
+
+        /**
+         * Largest share of calls that may be hedged, capping the extra load sent upstream.
+         */
+        private double budget = 0.1;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getDelay() {
+            return delay;
+        }
+
+        public void setDelay(Duration delay) {
+            this.delay = delay;
+        }
+
+        public double getPercentile() {
+            return percentile;
+        }
+
+        public void setPercentile(double percentile) {
+            this.percentile = percentile;
+        }
+
+        public Duration getMinDelay() {
+            return minDelay;
+        }
+
+        public void setMinDelay(Duration minDelay) {
+            this.minDelay = minDelay;
+        }
+
+        public double getBudget() {
+            return budget;
+        }
+
+        public void setBudget(double budget) {
+            this.budget = budget;
+        }
+    }
+}
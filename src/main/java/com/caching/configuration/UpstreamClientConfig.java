@@ -0,0 +1,159 @@
+package com.caching.configuration;
+
+import com.caching.provider.GeoCodingProvider;
+import com.caching.provider.PositionStackProvider;
+import com.caching.repository.GeoCodingRepository;
+import com.caching.resilience.RequestHedger;
+import com.caching.resilience.UpstreamGuard;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.annotation.PreDestroy;
+import java.net.http.HttpClient;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Configures the pooled, non-blocking HTTP client used to call the PositionStack API, the providers
+ * calls are sent to, and the rate limiter, bulkhead, circuit breaker and hedging in front of them.
+ */
+@Configuration
+@EnableConfigurationProperties({UpstreamProperties.class, ResilienceProperties.class})
+public class UpstreamClientConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(UpstreamClientConfig.class);
+
+    // Deliberately not a bean: an Executor bean would replace Spring Boot's application task executor.
+    private ExecutorService upstreamExecutor;
+
+    /**
+     * Builds the JDK HTTP client shared by all upstream calls.
+     * Its connection pool is sized by JVM-wide settings, read by the JDK once per JVM and shared by every client:
+     * {@code -Djdk.httpclient.connectionPoolSize} and {@code -Djdk.httpclient.keepalive.timeout} (in seconds)
+     * must be given when the JVM is started, and the values in effect are logged here.
+     *
+     * @param properties The upstream client settings.
+     * @return The shared HTTP client.
+     */
+    @Bean
+    public HttpClient upstreamHttpClient(UpstreamProperties properties) {
+        logger.info("event=upstream_connection_pool pool_size={} keepalive_seconds={}",
+                System.getProperty("jdk.httpclient.connectionPoolSize", "unbounded"),
+                System.getProperty("jdk.httpclient.keepalive.timeout", "1200"));
+
+        AtomicInteger threadCount = new AtomicInteger();
+        upstreamExecutor = Executors.newFixedThreadPool(properties.getExecutorThreads(), runnable -> {
+            Thread thread = new Thread(runnable, "geocoding-upstream-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        return HttpClient.newBuilder()
+                .version(properties.isHttp2() ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+                .connectTimeout(properties.getConnectTimeout())
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .executor(upstreamExecutor)
+                .build();
+    }
+
+    /**
+     * Builds the hedger deciding when upstream calls are repeated against another provider.
+     *
+     * @param properties    The resilience settings.
+     * @param meterRegistry Registry receiving hedge counts and the current hedge delay.
+     * @return The request hedger, closed with the context.
+     */
+    @Bean
+    public RequestHedger requestHedger(ResilienceProperties properties, MeterRegistry meterRegistry) {
+        return new RequestHedger(properties.getHedging(), meterRegistry);
+    }
+
+    /**
+     * Builds the repository calling the configured providers, followed by any {@link GeoCodingProvider} beans.
+     *
+     * @param upstreamHttpClient The shared HTTP client.
+     * @param properties         The upstream client settings.
+     * @param customProviders    Provider beans defined by the application.
+     * @param resilience         The resilience settings applied to each provider.
+     * @param hedger             The request hedger.
+     * @param meterRegistry      Registry receiving upstream latency and error metrics.
+     * @return The repository.
+     */
+    @Bean
+    public GeoCodingRepository geoCodingRepository(HttpClient upstreamHttpClient, UpstreamProperties properties,
+                                                   ObjectProvider<GeoCodingProvider> customProviders,
+                                                   ResilienceProperties resilience, RequestHedger hedger,
+                                                   MeterRegistry meterRegistry) {
+        List<GeoCodingProvider> providers = configuredProviders(upstreamHttpClient, properties);
+        customProviders.orderedStream().forEach(providers::add);
+        return new GeoCodingRepository(providers, upstreamGuards(providers, resilience, meterRegistry), hedger,
+                meterRegistry);
+    }
+
+    /**
+     * Creates a separate guard for each provider, so that a provider whose circuit is open or whose quota is
+     * used up does not hold back calls to the others.
+     *
+     * @param providers     The providers, whose names must be unique.
+     * @param properties    The resilience settings applied to each provider.
+     * @param meterRegistry Registry receiving rejection counts and breaker state, tagged by provider.
+     * @return The guards by provider name, in provider order.
+     */
+    public static Map<String, UpstreamGuard> upstreamGuards(List<GeoCodingProvider> providers,
+                                                            ResilienceProperties properties,
+                                                            MeterRegistry meterRegistry) {
+        Map<String, UpstreamGuard> guards = new LinkedHashMap<>();
+        for (GeoCodingProvider provider : providers) {
+            String name = provider.getName();
+            if (guards.containsKey(name)) {
+                throw new IllegalStateException("Geocoding provider names must be unique, found " + name + " twice");
+            }
+            guards.put(name, new UpstreamGuard(name, properties, meterRegistry));
+        }
+        return guards;
+    }
+
+    /**
+     * Creates the providers listed under {@code geocoding.upstream.providers}, or a single provider for the
+     * top-level endpoint when none are listed.
+     *
+     * @param httpClient The HTTP client the providers share.
+     * @param properties The upstream client settings.
+     * @return A modifiable list of the providers, in configuration order.
+     */
+    public static List<GeoCodingProvider> configuredProviders(HttpClient httpClient, UpstreamProperties properties) {
+        List<GeoCodingProvider> providers = new ArrayList<>();
+        if (properties.getProviders().isEmpty()) {
+            providers.add(new PositionStackProvider("positionstack", properties.getGeocodingUrl(),
+                    properties.getReverseGeocodingUrl(), properties.getApiKey(), httpClient,
+                    properties.getRequestTimeout()));
+        }
+        for (UpstreamProperties.Provider provider : properties.getProviders()) {
+            providers.add(new PositionStackProvider(
+                    provider.getName() != null ? provider.getName() : "provider-" + providers.size(),
+                    provider.getGeocodingUrl() != null ? provider.getGeocodingUrl() : properties.getGeocodingUrl(),
+                    provider.getReverseGeocodingUrl() != null
+                            ? provider.getReverseGeocodingUrl() : properties.getReverseGeocodingUrl(),
+                    provider.getApiKey() != null ? provider.getApiKey() : properties.getApiKey(),
+                    httpClient, properties.getRequestTimeout()));
+        }
+        return providers;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (upstreamExecutor != null) {
+            upstreamExecutor.shutdown();
+        }
+    }
+}
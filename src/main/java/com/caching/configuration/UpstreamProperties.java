@@ -0,0 +1,182 @@
+package com.caching.configuration;
+
+import com.caching.utility.constant.GeoCodingEnum;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Settings for the HTTP client used to call the PositionStack API, bound from {@code geocoding.upstream.*}.
+ * The size of the connection pool and how long idle connections are kept are not among them: the JDK reads those
+ * once per JVM, from the {@code jdk.httpclient.connectionPoolSize} and {@code jdk.httpclient.keepalive.timeout}
+ * system properties, so they can only be given as {@code -D} flags when the JVM is started.
+ */
+@ConfigurationProperties(prefix = "geocoding.upstream")
+public class UpstreamProperties {
+
+    /**
+     * Forward geocoding endpoint.
+     */
+    private String geocodingUrl = GeoCodingEnum.GEOCODING_URL.getValue();
+
+    /**
+     * Reverse geocoding endpoint.
+     */
+    private String reverseGeocodingUrl = GeoCodingEnum.REVERSE_GEOCODING_URL.getValue();
+
+    /**
+     * Access key sent with every request.
+     */
+    private String apiKey = GeoCodingEnum.API_KEY.getValue();
+
+    /**
+     * Maximum time to establish a connection.
+     */
+    private Duration connectTimeout = Duration.ofSeconds(2);
+
+    /**
+     * Maximum time to wait for a complete response.
+     */
+    private Duration requestTimeout = Duration.ofSeconds(5);
+
+    /**
+     * Whether to negotiate HTTP/2 with the upstream.
+     */
+    private boolean http2 = true;
+
+    /**
+     * Number of threads handling responses. Requests themselves never block a thread.
+     */
+    private int executorThreads = 4;
+
+    /**
+     * Geocoding API endpoints, tried in order when a call is hedged. When empty, the single endpoint
+     * given by the settings above is used.
+     */
+    private List<Provider> providers = new ArrayList<>();
+
+    public String getGeocodingUrl() {
+        return geocodingUrl;
+    }
+
+    public void setGeocodingUrl(String geocodingUrl) {
+        this.geocodingUrl = geocodingUrl;
+    }
+
+    public String getReverseGeocodingUrl() {
+        return reverseGeocodingUrl;
+    }
+
+    public void setReverseGeocodingUrl(String reverseGeocodingUrl) {
+        this.reverseGeocodingUrl = reverseGeocodingUrl;
+    }
+
+    public String getApiKey() {
+        return apiKey;
+    }
+
+    public void setApiKey(String apiKey) {
+        this.apiKey = apiKey;
+    }
+
+    public Duration getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    public void setConnectTimeout(Duration connectTimeout) {
+        this.connectTimeout = connectTimeout;
+    }
+
+    public Duration getRequestTimeout() {
+        return requestTimeout;
+    }
+
+    public void setRequestTimeout(Duration requestTimeout) {
+        this.requestTimeout = requestTimeout;
+    }
+
+    public boolean isHttp2() {
+        return http2;
+    }
+
+    public void setHttp2(boolean http2) {
+        this.http2 = http2;
+    }
+
+    public int getExecutorThreads() {
+        return executorThreads;
+    }
+
+    public void setExecutorThreads(int executorThreads) {
+        this.executorThreads = executorThreads;
+    }
+
+    public List<Provider> getProviders() {
+        return providers;
+    }
+
+    public void setProviders(List<Provider> providers) {
+        this.providers = providers;
+    }
+
+    /**
+     * A PositionStack-compatible endpoint, bound from {@code geocoding.upstream.providers[n].*}.
+     * Settings left unset are taken from the top-level upstream settings.
+     */
+    public static class Provider {
+
+        /**
+         * Name of the provider in metrics and logs.
+         */
+        private String name;
+
+        /**
+         * Forward geocoding endpoint.
+         */
+        private String geocodingUrl;
+
+        /**
+         * Reverse geocoding endpoint.
+         */
+        private String reverseGeocodingUrl;
+
+        /**
+         * Access key sent with every request.
+         */
+        private String apiKey;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public String getGeocodingUrl() {
+            return geocodingUrl;
+        }
+
+        public void setGeocodingUrl(String geocodingUrl) {
+            this.geocodingUrl = geocodingUrl;
+        }
+
+        public String getReverseGeocodingUrl() {
+            return reverseGeocodingUrl;
+        }
+
+        public void setReverseGeocodingUrl(String reverseGeocodingUrl) {
+            this.reverseGeocodingUrl = reverseGeocodingUrl;
+        }
+
+        public String getApiKey() {
+            return apiKey;
+        }
+
+        public void setApiKey(String apiKey) {
+            this.apiKey = apiKey;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.caching.configuration;
+
+import com.caching.controller.ExecutionMode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcRegistrations;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import java.lang.reflect.Method;
+
+/**
+ * Selects how the geocoding endpoints are executed.
+ * With {@code geocoding.web.async=false} (the default) a request holds its Tomcat worker thread until the
+ * result is ready. With {@code geocoding.web.async=true} the endpoints return a {@code CompletableFuture}:
+ * a cache hit completes before the handler returns and is written without a thread hand-off, while a miss
+ * releases the worker thread and is written once the upstream call completes.
+ */
+@Configuration
+public class WebConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(WebConfig.class);
+
+    /**
+     * Replaces Spring MVC's request mapping with one that maps only the endpoint variants of the configured
+     * execution mode.
+     *
+     * @param async Whether the asynchronous endpoint variants are mapped.
+     * @return The MVC registrations.
+     */
+    @Bean
+    public WebMvcRegistrations executionModeMvcRegistrations(@Value("${geocoding.web.async:false}") boolean async) {
+        logger.info("Geocoding endpoints run in {} mode", async ? "asynchronous" : "blocking");
+        return new WebMvcRegistrations() {
+            @Override
+            public RequestMappingHandlerMapping getRequestMappingHandlerMapping() {
+                return new ExecutionModeHandlerMapping(async);
+            }
+        };
+    }
+
+    private static final class ExecutionModeHandlerMapping extends RequestMappingHandlerMapping {
+
+        private final boolean async;
+
+        private ExecutionModeHandlerMapping(boolean async) {
+            this.async = async;
+        }
+
+        @Override
+        protected RequestMappingInfo getMappingForMethod(Method method, Class<?> handlerType) {
+            ExecutionMode mode = AnnotatedElementUtils.findMergedAnnotation(method, ExecutionMode.class);
+            if (mode != null && mode.async() != async) {
+                return null;
+            }
+            return super.getMappingForMethod(method, handlerType);
+        }
+    }
+}
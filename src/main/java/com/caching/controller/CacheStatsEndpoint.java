@@ -0,0 +1,183 @@
+package com.caching.controller;
+
+import com.caching.cache.CoalescingCaffeineCache;
+import com.caching.cache.EntryWeigher;
+import com.caching.cache.MappedDiskCache;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.github.benmanes.caffeine.cache.Policy;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * Actuator endpoint ({@code /actuator/cachestats}) reporting, for every cache, its hit ratio and an estimate
+ * of the heap its entries retain, to tune the {@code geocoding.cache.*} sizes with data.
+ * Footprints come from the cache's own weight when it is bounded by weight, and otherwise from weighing
+ * every entry, so a report on a large count-bounded cache costs one pass over its entries.
+ */
+@Component
+@Endpoint(id = "cachestats")
+public class CacheStatsEndpoint {
+
+    private final CacheManager cacheManager;
+    private final EntryWeigher weigher = new EntryWeigher();
+
+    public CacheStatsEndpoint(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    /**
+     * Reports on all caches.
+     *
+     * @return The total estimated heap footprint and a report per cache.
+     */
+    @ReadOperation
+    public CachesReport caches() {
+        Map<String, CacheReport> caches = new TreeMap<>();
+        for (String name : cacheManager.getCacheNames()) {
+            CacheReport report = report(cacheManager.getCache(name));
+            if (report != null) {
+                caches.put(name, report);
+            }
+        }
+        return new CachesReport(caches);
+    }
+
+    /**
+     * Reports on one cache.
+     *
+     * @param name The cache name.
+     * @return The report, or {@code null} (404) if there is no such cache or it keeps no statistics.
+     */
+    @ReadOperation
+    public CacheReport cache(@Selector String name) {
+        return report(cacheManager.getCache(name));
+    }
+
+    private CacheReport report(Cache cache) {
+        if (cache instanceof CoalescingCaffeineCache) {
+            return report(((CoalescingCaffeineCache) cache).getNativeCache().synchronous());
+        }
+        if (cache instanceof CaffeineCache) {
+            return report(((CaffeineCache) cache).getNativeCache());
+        }
+        if (cache instanceof MappedDiskCache) {
+            MappedDiskCache disk = (MappedDiskCache) cache;
+            CacheReport report = new CacheReport(disk.getEntryCount(), disk.getHitCount(), disk.getMissCount());
+            report.diskBytes = disk.getUsedBytes();
+            return report;
+        }
+        return null;
+    }
+
+    private CacheReport report(com.github.benmanes.caffeine.cache.Cache<Object, Object> cache) {
+        CacheStats stats = cache.stats();
+        CacheReport report = new CacheReport(cache.estimatedSize(), stats.hitCount(), stats.missCount());
+        report.evictions = stats.evictionCount();
+        Optional<Policy.Eviction<Object, Object>> eviction = cache.policy().eviction();
+        if (eviction.isPresent() && eviction.get().isWeighted()) {
+            report.estimatedBytes = eviction.get().weightedSize().orElse(0);
+            report.maximumBytes = eviction.get().getMaximum();
+        } else {
+            report.estimatedBytes = cache.asMap().entrySet().stream()
+                    .mapToLong(entry -> weigher.weigh(entry.getKey(), entry.getValue()))
+                    .sum();
+            report.maximumEntries = eviction.map(Policy.Eviction::getMaximum).orElse(null);
+        }
+        return report;
+    }
+
+    /**
+     * Report on all caches.
+     */
+    public static final class CachesReport {
+        private final long totalEstimatedBytes;
+        private final Map<String, CacheReport> caches;
+
+        private CachesReport(Map<String, CacheReport> caches) {
+            this.caches = caches;
+            this.totalEstimatedBytes = caches.values().stream()
+                    .mapToLong(report -> report.estimatedBytes == null ? 0 : report.estimatedBytes)
+                    .sum();
+        }
+
+        public long getTotalEstimatedBytes() {
+            return totalEstimatedBytes;
+        }
+
+        public Map<String, CacheReport> getCaches() {
+            return caches;
+        }
+    }
+
+    /**
+     * Report on one cache. Only the fields that apply to the cache are present.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static final class CacheReport {
+        private final long entries;
+        private final long hits;
+        private final long misses;
+        private Long evictions;
+        private Long estimatedBytes;
+        private Long maximumEntries;
+        private Long maximumBytes;
+        private Long diskBytes;
+
+        private CacheReport(long entries, long hits, long misses) {
+            this.entries = entries;
+            this.hits = hits;
+            this.misses = misses;
+        }
+
+        public long getEntries() {
+            return entries;
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        public long getMisses() {
+            return misses;
+        }
+
+        public double getHitRatio() {
+            long requests = hits + misses;
+            return requests == 0 ? 0 : (double) hits / requests;
+        }
+
+        public Long getEvictions() {
+            return evictions;
+        }
+
+        public Long getEstimatedBytes() {
+            return estimatedBytes;
+        }
+
+        public Long getAverageEntryBytes() {
+            return estimatedBytes == null || entries == 0 ? null : estimatedBytes / entries;
+        }
+
+        public Long getMaximumEntries() {
+            return maximumEntries;
+        }
+
+        public Long getMaximumBytes() {
+            return maximumBytes;
+        }
+
+        public Long getDiskBytes() {
+            return diskBytes;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.caching.controller;
+
+import com.caching.cluster.CacheReplicator;
+import com.caching.cluster.CacheSyncMessage;
+import com.caching.cluster.CacheSyncReceiver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Receives batches of cache changes from the other instances of a cluster
+ * ({@code geocoding.cache.cluster.enabled=true}). Answers 404 when cluster mode is off and 403 when the
+ * batch does not carry the configured token. Every answer names this instance, so that an instance listed
+ * among its own peers recognizes itself.
+ */
+@RestController
+public class CacheSyncController {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheSyncController.class);
+
+    private final CacheReplicator replicator;
+    private final CacheSyncReceiver receiver;
+
+    /**
+     * Constructs the controller.
+     *
+     * @param replicator The replicator, holding the cluster settings and this instance's identifier.
+     * @param receiver   Applies received changes to the caches.
+     */
+    public CacheSyncController(CacheReplicator replicator, CacheSyncReceiver receiver) {
+        this.replicator = replicator;
+        this.receiver = receiver;
+    }
+
+    /**
+     * Applies a batch of cache changes sent by another instance.
+     *
+     * @param message The batch.
+     * @param token   The shared secret sent with the batch, if any.
+     * @return 204 once the changes are applied.
+     */
+    @PostMapping(CacheReplicator.SYNC_PATH)
+    public ResponseEntity<Void> sync(
+            @RequestBody CacheSyncMessage message,
+            @RequestHeader(value = CacheReplicator.TOKEN_HEADER, required = false) String token) {
+        if (!replicator.isEnabled()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (!tokenMatches(token)) {
+            logger.warn("Rejected cache sync batch from node {}: missing or wrong token", message.getNode());
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        if (!replicator.getNodeId().equals(message.getNode())) {
+            logger.debug("Applying {} cache changes from node {}", message.getChanges().size(), message.getNode());
+            receiver.apply(message);
+        }
+        return ResponseEntity.noContent().header(CacheReplicator.NODE_HEADER, replicator.getNodeId()).build();
+    }
+
+    private boolean tokenMatches(String token) {
+        String expected = replicator.getToken();
+        if (expected == null || expected.isEmpty()) {
+            return false;
+        }
+        // Constant-time comparison, so the token cannot be guessed from response times.
+        return token != null && MessageDigest.isEqual(expected.getBytes(StandardCharsets.UTF_8),
+                token.getBytes(StandardCharsets.UTF_8));
+    }
+}
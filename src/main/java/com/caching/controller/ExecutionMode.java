@@ -0,0 +1,23 @@
+package com.caching.controller;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a handler method as the blocking or the asynchronous variant of an endpoint.
+ * Only the variant matching {@code geocoding.web.async} is mapped; handler methods without this
+ * annotation are always mapped.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface ExecutionMode {
+
+    /**
+     * Whether this is the asynchronous variant.
+     */
+    boolean async();
+}
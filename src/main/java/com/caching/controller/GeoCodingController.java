@@ -1,16 +1,32 @@
 package com.caching.controller;
 
+import com.caching.logging.LogValues;
+import com.caching.model.CoordinatesRequest;
+import com.caching.model.GeoAddress;
+import com.caching.model.GeoCoordinates;
+import com.caching.service.GeoCodingBatchService;
 import com.caching.service.GeoCodingService;
+import io.micrometer.core.annotation.Timed;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.Map;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * GeoCodingController is responsible for handling HTTP requests related to geocoding and reverse geocoding.
@@ -22,32 +38,78 @@ import java.util.Map;
 public class GeoCodingController {
 
     private static final Logger logger = LoggerFactory.getLogger(GeoCodingController.class);
+    private static final String NDJSON = "application/x-ndjson";
+    private static final String ENDPOINT_TIMER = "geocoding.endpoint";
+
     private final GeoCodingService geoCodingService;
+    private final GeoCodingBatchService geoCodingBatchService;
+    private final SerializedResponses serializedResponses;
+    private final long asyncTimeoutNanos;
 
     /**
-     * Constructs a GeoCodingController with the provided GeoCodingService.
+     * Constructs a GeoCodingController with the provided services.
      *
-     * @param geoCodingService Service used to perform geocoding operations.
+     * @param geoCodingService      Service used to perform geocoding operations.
+     * @param geoCodingBatchService Service used to resolve batches of geocoding queries.
+     * @param serializedResponses   Writes results with their serialized bodies and caching headers.
+     * @param asyncTimeout          How long an asynchronous lookup may take before it is answered with 503.
      */
     @Autowired
-    public GeoCodingController(GeoCodingService geoCodingService) {
+    public GeoCodingController(GeoCodingService geoCodingService, GeoCodingBatchService geoCodingBatchService,
+                               SerializedResponses serializedResponses,
+                               @Value("${geocoding.web.async-timeout:10s}") Duration asyncTimeout) {
         this.geoCodingService = geoCodingService;
+        this.geoCodingBatchService = geoCodingBatchService;
+        this.serializedResponses = serializedResponses;
+        this.asyncTimeoutNanos = asyncTimeout.toNanos();
     }
 
     /**
      * Endpoint to get geocode (latitude and longitude) for a given address.
+     * Blocks the request thread until the result is ready; mapped unless {@code geocoding.web.async} is set.
+     * The response carries an ETag and a max-age of the cached result's remaining lifetime, and is answered
+     * with 304 when the ETag matches {@code If-None-Match}.
      *
-     * @param address The address to be geocoded.
+     * @param address     The address to be geocoded.
+     * @param ifNoneMatch The ETags the client already holds, if any.
      * @return A ResponseEntity containing the latitude and longitude of the address.
      */
     @GetMapping("/geocode")
-    public ResponseEntity<Map<String, Double>> getGeocode(@RequestParam String address) {
-        logger.info("Received geocoding request for address: {}", address);
-
-        Map<String, Double> geocode = geoCodingService.getGeocode(address);
+    @ExecutionMode(async = false)
+    @Timed(value = ENDPOINT_TIMER, percentiles = {0.5, 0.95, 0.99}, histogram = true)
+    public ResponseEntity<?> getGeocode(
+            @RequestParam String address,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        logger.info("event=geocode_request address={}", LogValues.quoted(address));
+
+        GeoCoordinates geocode = geoCodingService.getGeocode(address);
+
+        logger.info("event=geocode_result address={} latitude={} longitude={}", LogValues.quoted(address),
+                geocode.getLatitude(), geocode.getLongitude());
+        return serializedResponses.json(geocode, geoCodingService.getGeocodeTimeToLive(address), ifNoneMatch);
+    }
 
-        logger.info("Longitude and Latitude result for address {}: {}", address, geocode);
-        return ResponseEntity.ok(geocode);
+    /**
+     * Asynchronous variant of {@link #getGeocode(String, String)}, mapped when {@code geocoding.web.async} is set.
+     * The request thread is released while the upstream API is called, for at most {@code geocoding.web.async-timeout}.
+     *
+     * @param address     The address to be geocoded.
+     * @param ifNoneMatch The ETags the client already holds, if any.
+     * @return The latitude and longitude of the address, once resolved.
+     */
+    @GetMapping("/geocode")
+    @ExecutionMode(async = true)
+    @Timed(value = ENDPOINT_TIMER, percentiles = {0.5, 0.95, 0.99}, histogram = true)
+    public CompletableFuture<ResponseEntity<?>> getGeocodeAsync(
+            @RequestParam String address,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        logger.info("event=geocode_request address={}", LogValues.quoted(address));
+
+        return geoCodingService.getGeocodeAsync(address).<ResponseEntity<?>>thenApply(geocode -> {
+            logger.info("event=geocode_result address={} latitude={} longitude={}", LogValues.quoted(address),
+                    geocode.getLatitude(), geocode.getLongitude());
+            return serializedResponses.json(geocode, geoCodingService.getGeocodeTimeToLive(address), ifNoneMatch);
+        }).orTimeout(asyncTimeoutNanos, TimeUnit.NANOSECONDS);
     }
 
     @GetMapping("/digvijay")
@@ -71,21 +133,118 @@ public class GeoCodingController {
 
     /**
      * Endpoint to get reverse geocode (address) for a given latitude and longitude.
+     * Cached like {@link #getGeocode(String, String)} by clients that send {@code If-None-Match}.
      *
-     * @param latitude  The latitude of the location to reverse geocode.
-     * @param longitude The longitude of the location to reverse geocode.
+     * @param latitude    The latitude of the location to reverse geocode.
+     * @param longitude   The longitude of the location to reverse geocode.
+     * @param ifNoneMatch The ETags the client already holds, if any.
      * @return A ResponseEntity containing the formatted response with the address and number.
      */
     @GetMapping("/reverse-geocoding")
-    public ResponseEntity<String> getReverseGeocode(@RequestParam String latitude, @RequestParam String longitude) {
-        logger.info("Received reverse geocoding request for coordinates: {} , {}", latitude, longitude);
+    @ExecutionMode(async = false)
+    @Timed(value = ENDPOINT_TIMER, percentiles = {0.5, 0.95, 0.99}, histogram = true)
+    public ResponseEntity<?> getReverseGeocode(
+            @RequestParam String latitude,
+            @RequestParam String longitude,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        logger.info("event=reverse_geocode_request latitude={} longitude={}", LogValues.quoted(latitude),
+                LogValues.quoted(longitude));
+
+        GeoAddress response = geoCodingService.getReverseGeocode(latitude, longitude);
+
+        String address = response.getAddress();
+
+        logger.info("event=reverse_geocode_result latitude={} longitude={} address={}", LogValues.quoted(latitude),
+                LogValues.quoted(longitude), LogValues.quoted(address));
+        return serializedResponses.text(response, address,
+                geoCodingService.getReverseGeocodeTimeToLive(latitude, longitude), ifNoneMatch);
+    }
+
+    /**
+     * Asynchronous variant of {@link #getReverseGeocode(String, String, String)}, mapped when
+     * {@code geocoding.web.async} is set. The request thread is released while the upstream API is called, for at
+     * most {@code geocoding.web.async-timeout}.
+     *
+     * @param latitude    The latitude of the location to reverse geocode.
+     * @param longitude   The longitude of the location to reverse geocode.
+     * @param ifNoneMatch The ETags the client already holds, if any.
+     * @return The address at the coordinates, once resolved.
+     */
+    @GetMapping("/reverse-geocoding")
+    @ExecutionMode(async = true)
+    @Timed(value = ENDPOINT_TIMER, percentiles = {0.5, 0.95, 0.99}, histogram = true)
+    public CompletableFuture<ResponseEntity<?>> getReverseGeocodeAsync(
+            @RequestParam String latitude,
+            @RequestParam String longitude,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        logger.info("event=reverse_geocode_request latitude={} longitude={}", LogValues.quoted(latitude),
+                LogValues.quoted(longitude));
+
+        return geoCodingService.getReverseGeocodeAsync(latitude, longitude).<ResponseEntity<?>>thenApply(response -> {
+            String address = response.getAddress();
+            logger.info("event=reverse_geocode_result latitude={} longitude={} address={}", LogValues.quoted(latitude),
+                    LogValues.quoted(longitude), LogValues.quoted(address));
+            return serializedResponses.text(response, address,
+                    geoCodingService.getReverseGeocodeTimeToLive(latitude, longitude), ifNoneMatch);
+        }).orTimeout(asyncTimeoutNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Endpoint to geocode a batch of addresses in one request.
+     * Results are streamed back as newline-delimited JSON, one line per address, in completion order.
+     * Failures are reported per item and do not fail the whole batch.
+     *
+     * @param addresses The addresses to be geocoded.
+     * @return A ResponseEntity streaming one result line per address.
+     */
+    @PostMapping(value = "/geocode/batch", produces = NDJSON)
+    @Timed(value = ENDPOINT_TIMER, percentiles = {0.5, 0.95, 0.99}, histogram = true)
+    public ResponseEntity<StreamingResponseBody> getGeocodeBatch(@RequestBody List<String> addresses) {
+        return ResponseEntity.ok(geoCodingBatchService.streamGeocodes(addresses));
+    }
 
-        Map<String, String> response = geoCodingService.getReverseGeocode(latitude, longitude);
+    /**
+     * Endpoint to reverse geocode a batch of coordinates in one request.
+     * Results are streamed back as newline-delimited JSON, one line per coordinate pair, in completion order.
+     * Failures are reported per item and do not fail the whole batch.
+     *
+     * @param coordinates The coordinates to reverse geocode.
+     * @return A ResponseEntity streaming one result line per coordinate pair.
+     */
+    @PostMapping(value = "/reverse-geocoding/batch", produces = NDJSON)
+    @Timed(value = ENDPOINT_TIMER, percentiles = {0.5, 0.95, 0.99}, histogram = true)
+    public ResponseEntity<StreamingResponseBody> getReverseGeocodeBatch(@RequestBody List<CoordinatesRequest> coordinates) {
+        return ResponseEntity.ok(geoCodingBatchService.streamReverseGeocodes(coordinates));
+    }
 
-        String address = response.get("address");
+    /**
+     * Endpoint to forget a recorded "no results" or invalid request failure for an address,
+     * so that the next geocoding request for it calls the API again.
+     *
+     * @param address The address whose failure should be forgotten.
+     * @return 204 if a failure was forgotten, 404 if none was recorded.
+     */
+    @DeleteMapping("/geocode/not-found")
+    public ResponseEntity<Void> evictGeocodeFailure(@RequestParam String address) {
+        boolean evicted = geoCodingService.evictGeocodeFailure(address);
+        logger.info("event=negative_cache_evict address={} evicted={}", LogValues.quoted(address), evicted);
+        return evicted ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
+    }
 
-        logger.info("Address for coordinates {} , {}: {}", latitude, longitude, address);
-        return ResponseEntity.ok(address);
+    /**
+     * Endpoint to forget a recorded "no results" or invalid request failure for a coordinate pair,
+     * so that the next reverse geocoding request for it calls the API again.
+     *
+     * @param latitude  The latitude as sent in the original request.
+     * @param longitude The longitude as sent in the original request.
+     * @return 204 if a failure was forgotten, 404 if none was recorded.
+     */
+    @DeleteMapping("/reverse-geocoding/not-found")
+    public ResponseEntity<Void> evictReverseGeocodeFailure(@RequestParam String latitude, @RequestParam String longitude) {
+        boolean evicted = geoCodingService.evictReverseGeocodeFailure(latitude, longitude);
+        logger.info("event=negative_cache_evict latitude={} longitude={} evicted={}", LogValues.quoted(latitude),
+                LogValues.quoted(longitude), evicted);
+        return evicted ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
     }
 
 }
@@ -0,0 +1,138 @@
+package com.caching.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Writes geocoding results as HTTP responses that clients and proxies can cache.
+ * With {@code geocoding.web.serialized-responses=true} (the default) the body of a cached value is serialized
+ * once and kept next to the value for as long as the value itself is held, so a cache hit writes ready-made
+ * bytes. Responses carry an {@code ETag} derived from the body and a {@code Cache-Control} max-age equal to the
+ * entry's remaining lifetime, and a request whose {@code If-None-Match} matches is answered with 304 and no body.
+ * With the setting off, values are returned for Spring MVC to serialize on every request, as before.
+ */
+@Component
+public class SerializedResponses {
+
+    private static final MediaType TEXT_UTF8 = new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8);
+
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    // Keyed by value identity and weakly held, so an entry lives exactly as long as some cache holds the value.
+    private final Cache<Object, Body> bodies = Caffeine.newBuilder().weakKeys().build();
+
+    /**
+     * Creates the response writer.
+     *
+     * @param objectMapper Mapper used to serialize JSON bodies.
+     * @param enabled      Whether bodies are kept serialized and responses carry caching headers.
+     */
+    public SerializedResponses(ObjectMapper objectMapper,
+                               @Value("${geocoding.web.serialized-responses:true}") boolean enabled) {
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Builds a JSON response for the value.
+     *
+     * @param value       The result, as held by the cache.
+     * @param timeToLive  Remaining lifetime of the cache entry, or {@code null} if the value is not cached.
+     * @param ifNoneMatch The request's {@code If-None-Match} header, if any.
+     * @return The response.
+     */
+    public ResponseEntity<?> json(Object value, Duration timeToLive, String ifNoneMatch) {
+        if (!enabled) {
+            return ResponseEntity.ok(value);
+        }
+        Body body = body(value, timeToLive, () -> {
+            try {
+                return objectMapper.writeValueAsBytes(value);
+            } catch (JsonProcessingException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+        return respond(body, MediaType.APPLICATION_JSON, timeToLive, ifNoneMatch);
+    }
+
+    /**
+     * Builds a plain text response for the value.
+     *
+     * @param value       The result, as held by the cache.
+     * @param text        The text written for it.
+     * @param timeToLive  Remaining lifetime of the cache entry, or {@code null} if the value is not cached.
+     * @param ifNoneMatch The request's {@code If-None-Match} header, if any.
+     * @return The response.
+     */
+    public ResponseEntity<?> text(Object value, String text, Duration timeToLive, String ifNoneMatch) {
+        if (!enabled) {
+            return ResponseEntity.ok(text);
+        }
+        Body body = body(value, timeToLive, () -> text.getBytes(StandardCharsets.UTF_8));
+        return respond(body, TEXT_UTF8, timeToLive, ifNoneMatch);
+    }
+
+    /**
+     * Returns the serialized body of the value, kept for later requests only if the value is cached.
+     */
+    private Body body(Object value, Duration timeToLive, Supplier<byte[]> serializer) {
+        if (timeToLive == null) {
+            return new Body(serializer.get());
+        }
+        return bodies.get(value, key -> new Body(serializer.get()));
+    }
+
+    private static ResponseEntity<?> respond(Body body, MediaType contentType, Duration timeToLive,
+                                             String ifNoneMatch) {
+        CacheControl cacheControl = timeToLive == null
+                ? CacheControl.noCache()
+                : CacheControl.maxAge(timeToLive).cachePublic();
+        if (matches(ifNoneMatch, body.etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(body.etag).cacheControl(cacheControl).build();
+        }
+        return ResponseEntity.ok().contentType(contentType).eTag(body.etag).cacheControl(cacheControl).body(body.bytes);
+    }
+
+    /**
+     * Tells whether an {@code If-None-Match} header lists the entity tag, comparing weakly as RFC 7232 requires.
+     */
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static final class Body {
+        private final byte[] bytes;
+        private final String etag;
+
+        private Body(byte[] bytes) {
+            this.bytes = bytes;
+            this.etag = "\"" + DigestUtils.md5DigestAsHex(bytes) + "\"";
+        }
+    }
+}
@@ -3,11 +3,15 @@ package com.caching.exception;
 import com.caching.exception.custom.GeoCodingException;
 import com.caching.exception.custom.GeoCodingResultNotFoundException;
 import com.caching.exception.custom.InvalidGeoCodingRequestException;
+import com.caching.exception.custom.UpstreamUnavailableException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 
+import java.util.concurrent.TimeoutException;
+
 /**
  * GlobalExceptionHandler is responsible for handling exceptions thrown by the application.
  * It provides centralized exception handling and returns appropriate HTTP responses with error messages.
@@ -37,6 +41,35 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ex.getMessage());
     }
 
+    /**
+     * Handles UpstreamUnavailableException by returning a SERVICE_UNAVAILABLE (503) response with the exception message
+     * and a Retry-After header telling the client when the API may be called again.
+     *
+     * @param ex The UpstreamUnavailableException thrown.
+     * @return A ResponseEntity containing the exception message with a SERVICE_UNAVAILABLE status.
+     */
+    @ExceptionHandler(UpstreamUnavailableException.class)
+    public ResponseEntity<String> handleUpstreamUnavailableException(UpstreamUnavailableException ex) {
+        long retryAfterSeconds = Math.max(1, (ex.getRetryAfter().toMillis() + 999) / 1000);
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .body(ex.getMessage());
+    }
+
+    /**
+     * Handles TimeoutException, raised when an asynchronous lookup outlives {@code geocoding.web.async-timeout},
+     * by returning a SERVICE_UNAVAILABLE (503) response. The lookup itself carries on and caches its result.
+     *
+     * @param ex The TimeoutException thrown.
+     * @return A ResponseEntity containing an error message with a SERVICE_UNAVAILABLE status.
+     */
+    @ExceptionHandler(TimeoutException.class)
+    public ResponseEntity<String> handleTimeoutException(TimeoutException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body("Geocoding request timed out");
+    }
+
     /**
      * Handles GeoCodingException by returning an INTERNAL_SERVER_ERROR (500) response with the exception message.
      *
@@ -10,6 +10,10 @@ public class GeoCodingException extends RuntimeException {
         super(message);
     }
 
+    public GeoCodingException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
 
 }
 
@@ -0,0 +1,22 @@
+package com.caching.exception.custom;
+
+import java.time.Duration;
+
+/**
+ * Exception thrown when a call to the external geocoding API is not attempted because the API is
+ * considered unhealthy, the request quota is used up, or too many calls are already in flight.
+ * It carries a hint for how long the caller should wait before retrying.
+ */
+public class UpstreamUnavailableException extends GeoCodingException {
+
+    private final Duration retryAfter;
+
+    public UpstreamUnavailableException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,161 @@
+package com.caching.gazetteer;
+
+import com.caching.configuration.GazetteerProperties.MatchMode;
+import com.caching.model.GeoCoordinates;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Local gazetteer of known places, consulted for forward geocoding before the upstream API.
+ * Until a file has been loaded, or when disabled, every lookup misses without being counted.
+ * An exact match is as good as an API answer; a fuzzy match is only a guess at the place that was meant, so callers
+ * keep it for {@link #getFuzzyTtl()} and to themselves.
+ */
+public class Gazetteer {
+
+    private static final Logger logger = LoggerFactory.getLogger(Gazetteer.class);
+
+    private final boolean enabled;
+    private final MatchMode matchMode;
+    private final double minSimilarity;
+    private final Duration fuzzyTtl;
+    private volatile GazetteerIndex index;
+
+    private final LongAdder exactHits = new LongAdder();
+    private final LongAdder fuzzyHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder lookupNanos = new LongAdder();
+
+    /**
+     * Creates an empty gazetteer.
+     *
+     * @param enabled       Whether lookups are performed at all.
+     * @param matchMode     How addresses are matched.
+     * @param minSimilarity Minimum trigram similarity for a fuzzy match, between 0 and 1.
+     * @param fuzzyTtl      How long a fuzzy match may be cached.
+     */
+    public Gazetteer(boolean enabled, MatchMode matchMode, double minSimilarity, Duration fuzzyTtl) {
+        this.enabled = enabled;
+        this.matchMode = matchMode;
+        this.minSimilarity = minSimilarity;
+        this.fuzzyTtl = fuzzyTtl;
+    }
+
+    /**
+     * Loads the places in the file, replacing any previously loaded ones.
+     *
+     * @param file    The gazetteer file.
+     * @param threads Number of threads parsing the file.
+     * @throws IOException If the file cannot be read.
+     */
+    public void load(Path file, int threads) throws IOException {
+        long start = System.nanoTime();
+        GazetteerIndex loaded = GazetteerLoader.load(file, threads);
+        index = loaded;
+        logger.info("Loaded {} places from gazetteer {} in {} ms",
+                loaded.size(), file, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Finds the coordinates of a known place matching the address.
+     *
+     * @param address The address as received in the request.
+     * @return The matching place, or {@code null} if no known place matches.
+     */
+    public Match find(String address) {
+        GazetteerIndex current = index;
+        if (!enabled || current == null) {
+            return null;
+        }
+        long start = System.nanoTime();
+        String name = GazetteerIndex.normalize(address);
+        Match result = null;
+        GeoCoordinates coordinates = current.findExact(name);
+        if (coordinates != null) {
+            exactHits.increment();
+            result = new Match(coordinates, false);
+        } else if (matchMode == MatchMode.FUZZY
+                && (coordinates = current.findMostSimilar(name, minSimilarity)) != null) {
+            fuzzyHits.increment();
+            result = new Match(coordinates, true);
+        } else {
+            misses.increment();
+        }
+        lookupNanos.add(System.nanoTime() - start);
+        return result;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Duration getFuzzyTtl() {
+        return fuzzyTtl;
+    }
+
+    public int getPlaceCount() {
+        GazetteerIndex current = index;
+        return current == null ? 0 : current.size();
+    }
+
+    public long getExactHitCount() {
+        return exactHits.sum();
+    }
+
+    public long getFuzzyHitCount() {
+        return fuzzyHits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getLookupCount() {
+        return exactHits.sum() + fuzzyHits.sum() + misses.sum();
+    }
+
+    public long getTotalLookupNanos() {
+        return lookupNanos.sum();
+    }
+
+    /**
+     * Returns the share of lookups answered by the gazetteer.
+     *
+     * @return A value between 0 and 1, or 0 before the first lookup.
+     */
+    public double getCoverage() {
+        long lookups = getLookupCount();
+        return lookups == 0 ? 0 : (double) (exactHits.sum() + fuzzyHits.sum()) / lookups;
+    }
+
+    /**
+     * A known place matching an address.
+     */
+    public static final class Match {
+        private final GeoCoordinates coordinates;
+        private final boolean fuzzy;
+
+        private Match(GeoCoordinates coordinates, boolean fuzzy) {
+            this.coordinates = coordinates;
+            this.fuzzy = fuzzy;
+        }
+
+        public GeoCoordinates getCoordinates() {
+            return coordinates;
+        }
+
+        /**
+         * Tells whether the place was matched by similarity rather than by its exact name.
+         *
+         * @return {@code true} for a fuzzy match.
+         */
+        public boolean isFuzzy() {
+            return fuzzy;
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package com.caching.gazetteer;
+
+import com.caching.cache.CacheKeyCanonicalizer;
+import com.caching.model.GeoCoordinates;
+
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable in-memory index of gazetteer places by normalized name.
+ * Exact lookups use a hash map. Fuzzy lookups score names by the trigrams they share with the query
+ * (Dice coefficient). Candidates are collected only from the query's rarest trigrams, as many as a name must
+ * share to reach the minimum similarity, and then checked against the common ones by binary search, so
+ * trigrams shared by most names ("road", "street") do not make a lookup scan the whole gazetteer.
+ */
+public final class GazetteerIndex {
+
+    private static final int[] EMPTY = new int[0];
+
+    private final String[] names;
+    private final GeoCoordinates[] coordinates;
+    private final int[] trigramCounts;
+    private final Map<String, Integer> exact;
+    private final Map<Long, int[]> postings;
+
+    private GazetteerIndex(String[] names, GeoCoordinates[] coordinates, int[] trigramCounts,
+                           Map<String, Integer> exact, Map<Long, int[]> postings) {
+        this.names = names;
+        this.coordinates = coordinates;
+        this.trigramCounts = trigramCounts;
+        this.exact = exact;
+        this.postings = postings;
+    }
+
+    /**
+     * Builds the index. When several places share a normalized name, the first one is kept.
+     *
+     * @param places The places, in file order.
+     * @return The index.
+     */
+    public static GazetteerIndex build(List<Place> places) {
+        Map<String, Integer> exact = new HashMap<>(places.size() * 4 / 3 + 1);
+        String[] names = new String[places.size()];
+        GeoCoordinates[] coordinates = new GeoCoordinates[places.size()];
+        int size = 0;
+        for (Place place : places) {
+            if (!place.name.isEmpty() && exact.putIfAbsent(place.name, size) == null) {
+                names[size] = place.name;
+                coordinates[size] = place.coordinates;
+                size++;
+            }
+        }
+        names = Arrays.copyOf(names, size);
+        coordinates = Arrays.copyOf(coordinates, size);
+
+        int[] trigramCounts = new int[size];
+        Map<Long, PostingList> building = new HashMap<>();
+        for (int id = 0; id < size; id++) {
+            long[] trigrams = trigrams(names[id]);
+            trigramCounts[id] = trigrams.length;
+            for (long trigram : trigrams) {
+                building.computeIfAbsent(trigram, key -> new PostingList()).add(id);
+            }
+        }
+        Map<Long, int[]> postings = new HashMap<>(building.size() * 4 / 3 + 1);
+        building.forEach((trigram, list) -> postings.put(trigram, list.toArray()));
+        return new GazetteerIndex(names, coordinates, trigramCounts, exact, postings);
+    }
+
+    /**
+     * Normalizes a place name for matching: folded like cache keys (see {@link CacheKeyCanonicalizer#fold}), then
+     * with accents removed and every run of characters other than letters and digits turned into a single space.
+     *
+     * @param name The name as written.
+     * @return The normalized name, possibly empty.
+     */
+    public static String normalize(String name) {
+        String decomposed = Normalizer.normalize(CacheKeyCanonicalizer.fold(name), Normalizer.Form.NFD);
+        StringBuilder normalized = new StringBuilder(decomposed.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            if (Character.isLetterOrDigit(c)) {
+                if (pendingSpace && normalized.length() > 0) {
+                    normalized.append(' ');
+                }
+                pendingSpace = false;
+                normalized.append(c);
+            } else {
+                pendingSpace = true;
+            }
+        }
+        return normalized.toString();
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * Finds the place with exactly the given normalized name.
+     *
+     * @param normalizedName A name returned by {@link #normalize(String)}.
+     * @return The place's coordinates, or {@code null} if there is none.
+     */
+    public GeoCoordinates findExact(String normalizedName) {
+        Integer id = exact.get(normalizedName);
+        return id == null ? null : coordinates[id];
+    }
+
+    /**
+     * Finds the place whose name is most similar to the given normalized name.
+     *
+     * @param normalizedName A name returned by {@link #normalize(String)}.
+     * @param minSimilarity  Minimum Dice coefficient over trigrams, between 0 and 1.
+     * @return The most similar place's coordinates, or {@code null} if none is similar enough.
+     */
+    public GeoCoordinates findMostSimilar(String normalizedName, double minSimilarity) {
+        long[] trigrams = trigrams(normalizedName);
+        int queryCount = trigrams.length;
+        if (queryCount == 0) {
+            return null;
+        }
+        int[][] lists = new int[queryCount][];
+        for (int i = 0; i < queryCount; i++) {
+            lists[i] = postings.getOrDefault(trigrams[i], EMPTY);
+        }
+        Arrays.sort(lists, Comparator.comparingInt(list -> list.length));
+
+        // A name sharing c trigrams has a similarity of at most 2c / (q + c), so it needs at least
+        // s * q / (2 - s) shared trigrams, and must then appear in one of the q - required + 1 shortest lists.
+        int required = Math.max(1, (int) Math.ceil(minSimilarity * queryCount / (2 - minSimilarity) - 1e-9));
+        int candidateLists = queryCount - required + 1;
+        if (candidateLists <= 0) {
+            return null;
+        }
+        int best = -1;
+        double bestSimilarity = minSimilarity;
+        int[] positions = new int[candidateLists];
+        while (true) {
+            // Merge the sorted candidate lists: the smallest current id, and how many lists contain it.
+            int id = Integer.MAX_VALUE;
+            for (int i = 0; i < candidateLists; i++) {
+                if (positions[i] < lists[i].length && lists[i][positions[i]] < id) {
+                    id = lists[i][positions[i]];
+                }
+            }
+            if (id == Integer.MAX_VALUE) {
+                break;
+            }
+            int count = 0;
+            for (int i = 0; i < candidateLists; i++) {
+                if (positions[i] < lists[i].length && lists[i][positions[i]] == id) {
+                    positions[i]++;
+                    count++;
+                }
+            }
+            // A name of t trigrams needs s * (q + t) / 2 shared ones; skip it as soon as the lists left cannot
+            // make up the difference.
+            int trigramCount = trigramCounts[id];
+            int needed = (int) Math.ceil(minSimilarity * (queryCount + trigramCount) / 2 - 1e-9);
+            for (int i = candidateLists; i < queryCount && count + queryCount - i >= needed; i++) {
+                if (Arrays.binarySearch(lists[i], id) >= 0) {
+                    count++;
+                }
+            }
+            if (count < needed) {
+                continue;
+            }
+            double similarity = 2.0 * count / (queryCount + trigramCount);
+            if (similarity > bestSimilarity || (similarity == bestSimilarity && best < 0)) {
+                best = id;
+                bestSimilarity = similarity;
+            }
+        }
+        return best < 0 ? null : coordinates[best];
+    }
+
+    /**
+     * Returns the distinct trigrams of the name padded with spaces, each packed into a long, in ascending order.
+     */
+    private static long[] trigrams(String name) {
+        if (name.isEmpty()) {
+            return new long[0];
+        }
+        String padded = "  " + name + " ";
+        long[] trigrams = new long[padded.length() - 2];
+        for (int i = 0; i < trigrams.length; i++) {
+            trigrams[i] = ((long) padded.charAt(i) << 32) | ((long) padded.charAt(i + 1) << 16) | padded.charAt(i + 2);
+        }
+        Arrays.sort(trigrams);
+        int distinct = 0;
+        for (int i = 0; i < trigrams.length; i++) {
+            if (i == 0 || trigrams[i] != trigrams[i - 1]) {
+                trigrams[distinct++] = trigrams[i];
+            }
+        }
+        return Arrays.copyOf(trigrams, distinct);
+    }
+
+    /**
+     * A place read from the gazetteer file.
+     */
+    public static final class Place {
+        private final String name;
+        private final GeoCoordinates coordinates;
+
+        /**
+         * Creates a place.
+         *
+         * @param name        The normalized name.
+         * @param coordinates The place's coordinates.
+         */
+        public Place(String name, GeoCoordinates coordinates) {
+            this.name = name;
+            this.coordinates = coordinates;
+        }
+    }
+
+    private static final class PostingList {
+        private int[] ids = new int[4];
+        private int size;
+
+        private void add(int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+
+        private int[] toArray() {
+            return Arrays.copyOf(ids, size);
+        }
+    }
+}
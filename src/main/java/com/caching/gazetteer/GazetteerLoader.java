@@ -0,0 +1,220 @@
+package com.caching.gazetteer;
+
+import com.caching.model.GeoCoordinates;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Loads a gazetteer file into a {@link GazetteerIndex}.
+ * The file is split at line boundaries into chunks that are memory-mapped and parsed in parallel;
+ * lines that cannot be parsed are skipped and counted.
+ */
+public final class GazetteerLoader {
+
+    private static final Logger logger = LoggerFactory.getLogger(GazetteerLoader.class);
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final long MIN_CHUNK_BYTES = 1 << 20;
+    private static final long MAX_CHUNK_BYTES = 1 << 28;
+
+    private GazetteerLoader() {
+    }
+
+    /**
+     * Loads and indexes the places in the file.
+     *
+     * @param file    A CSV file ({@code address,latitude,longitude}, name ending in {@code .csv}) or a file of
+     *                newline-delimited JSON objects with {@code address}, {@code latitude} and {@code longitude}.
+     * @param threads Number of threads parsing the file.
+     * @return The index.
+     * @throws IOException If the file cannot be read.
+     */
+    public static GazetteerIndex load(Path file, int threads) throws IOException {
+        boolean csv = file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".csv");
+        LongAdder skipped = new LongAdder();
+        List<GazetteerIndex.Place> places = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long[] boundaries = chunkBoundaries(channel, threads);
+            AtomicInteger threadCount = new AtomicInteger();
+            ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+                Thread thread = new Thread(runnable, "geocoding-gazetteer-load-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            try {
+                List<Future<List<GazetteerIndex.Place>>> chunks = new ArrayList<>();
+                for (int i = 0; i + 1 < boundaries.length; i++) {
+                    MappedByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY,
+                            boundaries[i], boundaries[i + 1] - boundaries[i]);
+                    boolean mayHaveHeader = csv && i == 0;
+                    chunks.add(executor.submit(() -> parseChunk(chunk, csv, mayHaveHeader, skipped)));
+                }
+                for (Future<List<GazetteerIndex.Place>> chunk : chunks) {
+                    places.addAll(chunk.get());
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while loading " + file, ex);
+            } catch (ExecutionException ex) {
+                throw new IOException("Could not parse " + file, ex.getCause());
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+        if (skipped.sum() > 0) {
+            logger.warn("Skipped {} unreadable lines in gazetteer {}", skipped.sum(), file);
+        }
+        return GazetteerIndex.build(places);
+    }
+
+    /**
+     * Splits the file into roughly equal chunks, moving each boundary to just after a line break.
+     */
+    private static long[] chunkBoundaries(FileChannel channel, int threads) throws IOException {
+        long size = channel.size();
+        long chunkBytes = Math.min(MAX_CHUNK_BYTES, Math.max(MIN_CHUNK_BYTES, size / (Math.max(1, threads) * 4L) + 1));
+        List<Long> boundaries = new ArrayList<>();
+        boundaries.add(0L);
+        ByteBuffer window = ByteBuffer.allocate(8192);
+        long position = chunkBytes;
+        while (position < size) {
+            long lineEnd = -1;
+            long scan = position;
+            while (lineEnd < 0 && scan < size) {
+                window.clear();
+                int read = channel.read(window, scan);
+                if (read <= 0) {
+                    break;
+                }
+                for (int i = 0; i < read; i++) {
+                    if (window.get(i) == '\n') {
+                        lineEnd = scan + i + 1;
+                        break;
+                    }
+                }
+                scan += read;
+            }
+            if (lineEnd < 0 || lineEnd >= size) {
+                break;
+            }
+            boundaries.add(lineEnd);
+            position = lineEnd + chunkBytes;
+        }
+        boundaries.add(size);
+        return boundaries.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private static List<GazetteerIndex.Place> parseChunk(ByteBuffer chunk, boolean csv, boolean mayHaveHeader,
+                                                         LongAdder skipped) {
+        List<GazetteerIndex.Place> places = new ArrayList<>();
+        byte[] line = new byte[256];
+        boolean firstLine = true;
+        while (chunk.hasRemaining()) {
+            int length = 0;
+            while (chunk.hasRemaining()) {
+                byte b = chunk.get();
+                if (b == '\n') {
+                    break;
+                }
+                if (length == line.length) {
+                    line = Arrays.copyOf(line, length * 2);
+                }
+                line[length++] = b;
+            }
+            if (length > 0 && line[length - 1] == '\r') {
+                length--;
+            }
+            if (length == 0) {
+                continue;
+            }
+            GazetteerIndex.Place place = csv ? parseCsvLine(line, length) : parseJsonLine(line, length);
+            boolean header = mayHaveHeader && firstLine;
+            firstLine = false;
+            if (place == null && !header) {
+                skipped.increment();
+            } else if (place != null) {
+                places.add(place);
+            }
+        }
+        return places;
+    }
+
+    /**
+     * Parses {@code address,latitude,longitude}. The coordinates are taken from the last two fields, so the
+     * address may contain commas whether or not it is quoted. A header line fails to parse and is ignored.
+     */
+    private static GazetteerIndex.Place parseCsvLine(byte[] line, int length) {
+        String text = new String(line, 0, length, StandardCharsets.UTF_8);
+        int lastComma = text.lastIndexOf(',');
+        int secondLastComma = lastComma < 0 ? -1 : text.lastIndexOf(',', lastComma - 1);
+        if (secondLastComma < 0) {
+            return null;
+        }
+        try {
+            double latitude = Double.parseDouble(text.substring(secondLastComma + 1, lastComma).trim());
+            double longitude = Double.parseDouble(text.substring(lastComma + 1).trim());
+            String address = text.substring(0, secondLastComma).trim();
+            if (address.length() >= 2 && address.charAt(0) == '"' && address.charAt(address.length() - 1) == '"') {
+                address = address.substring(1, address.length() - 1).replace("\"\"", "\"");
+            }
+            return place(address, latitude, longitude);
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+
+    private static GazetteerIndex.Place parseJsonLine(byte[] line, int length) {
+        String address = null;
+        double latitude = Double.NaN;
+        double longitude = Double.NaN;
+        try (JsonParser parser = JSON_FACTORY.createParser(line, 0, length)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if ("address".equals(field) || "name".equals(field)) {
+                    address = parser.getValueAsString();
+                } else if (("latitude".equals(field) || "lat".equals(field)) && value.isNumeric()) {
+                    latitude = parser.getDoubleValue();
+                } else if (("longitude".equals(field) || "lon".equals(field) || "lng".equals(field)) && value.isNumeric()) {
+                    longitude = parser.getDoubleValue();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        } catch (IOException ex) {
+            return null;
+        }
+        return address == null || Double.isNaN(latitude) || Double.isNaN(longitude)
+                ? null : place(address, latitude, longitude);
+    }
+
+    private static GazetteerIndex.Place place(String address, double latitude, double longitude) {
+        if (Math.abs(latitude) > 90 || Math.abs(longitude) > 180) {
+            return null;
+        }
+        return new GazetteerIndex.Place(GazetteerIndex.normalize(address), new GeoCoordinates(latitude, longitude));
+    }
+}
@@ -0,0 +1,45 @@
+package com.caching.logging;
+
+/**
+ * Helpers for the {@code key=value} log lines written on the request path.
+ */
+public final class LogValues {
+
+    private LogValues() {
+    }
+
+    /**
+     * Wraps a free-text value, such as an address, so that it is logged in double quotes with quotes and
+     * backslashes escaped, keeping the line parseable. The escaping only happens if the line is written.
+     *
+     * @param value The value, may be {@code null}.
+     * @return An object whose {@code toString()} is the quoted value.
+     */
+    public static Object quoted(String value) {
+        return new Quoted(value);
+    }
+
+    private static final class Quoted {
+        private final String value;
+
+        private Quoted(String value) {
+            this.value = value;
+        }
+
+        @Override
+        public String toString() {
+            if (value == null) {
+                return "\"\"";
+            }
+            StringBuilder quoted = new StringBuilder(value.length() + 2).append('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"' || c == '\\') {
+                    quoted.append('\\');
+                }
+                quoted.append(c == '\n' || c == '\r' ? ' ' : c);
+            }
+            return quoted.append('"').toString();
+        }
+    }
+}
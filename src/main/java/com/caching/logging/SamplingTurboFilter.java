@@ -0,0 +1,79 @@
+package com.caching.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Logback turbo filter that passes on only a random share of the INFO and lower events of one logger and
+ * its children, so that per-request lines cost little under load. The events left out are dropped before
+ * their message is formatted. WARN and ERROR events are never sampled.
+ *
+ * <p>Configured in {@code logback-spring.xml}, one filter per logger:
+ * <pre>
+ * &lt;turboFilter class="com.caching.logging.SamplingTurboFilter"&gt;
+ *     &lt;logger&gt;com.caching.controller.GeoCodingController&lt;/logger&gt;
+ *     &lt;rate&gt;0.01&lt;/rate&gt;
+ * &lt;/turboFilter&gt;
+ * </pre>
+ */
+public class SamplingTurboFilter extends TurboFilter {
+
+    private String loggerName;
+    private double rate = 1.0;
+
+    /**
+     * Sets the logger whose events are sampled, together with its children.
+     *
+     * @param loggerName The logger name.
+     */
+    public void setLogger(String loggerName) {
+        this.loggerName = loggerName;
+    }
+
+    /**
+     * Sets the share of events passed on.
+     *
+     * @param rate A value between 0 (drop all) and 1 (keep all).
+     */
+    public void setRate(double rate) {
+        this.rate = rate;
+    }
+
+    @Override
+    public void start() {
+        if (loggerName == null || loggerName.isEmpty()) {
+            addError("No logger set for " + getClass().getSimpleName());
+            return;
+        }
+        if (rate < 0 || rate > 1) {
+            addError("Sampling rate " + rate + " of logger " + loggerName + " is not between 0 and 1");
+            return;
+        }
+        super.start();
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params,
+                              Throwable t) {
+        if (!isStarted() || rate >= 1 || level == null || level.isGreaterOrEqual(Level.WARN)
+                || !matches(logger.getName())) {
+            return FilterReply.NEUTRAL;
+        }
+        // Leave disabled levels to the level check, and draw only for events that would be logged.
+        // Not isEnabledFor(), which would ask the turbo filters again.
+        if (!level.isGreaterOrEqual(logger.getEffectiveLevel())) {
+            return FilterReply.NEUTRAL;
+        }
+        return ThreadLocalRandom.current().nextDouble() < rate ? FilterReply.NEUTRAL : FilterReply.DENY;
+    }
+
+    private boolean matches(String name) {
+        return name.startsWith(loggerName)
+                && (name.length() == loggerName.length() || name.charAt(loggerName.length()) == '.');
+    }
+}
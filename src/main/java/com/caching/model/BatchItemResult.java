@@ -0,0 +1,70 @@
+package com.caching.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Result of one item in a batch geocoding request. Each item carries either a result or an error,
+ * together with the HTTP status the single-item endpoint would have returned for it.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchItemResult {
+
+    private final int index;
+    private final String query;
+    private final int status;
+    private final Object result;
+    private final String error;
+
+    private BatchItemResult(int index, String query, int status, Object result, String error) {
+        this.index = index;
+        this.query = query;
+        this.status = status;
+        this.result = result;
+        this.error = error;
+    }
+
+    /**
+     * Creates a successful item result.
+     *
+     * @param index  Position of the item in the request.
+     * @param query  The query as submitted.
+     * @param result The resolved value.
+     * @return A result with status 200.
+     */
+    public static BatchItemResult success(int index, String query, Object result) {
+        return new BatchItemResult(index, query, 200, result, null);
+    }
+
+    /**
+     * Creates a failed item result.
+     *
+     * @param index  Position of the item in the request.
+     * @param query  The query as submitted.
+     * @param status The HTTP status describing the failure.
+     * @param error  The error message.
+     * @return A result carrying the error.
+     */
+    public static BatchItemResult failure(int index, String query, int status, String error) {
+        return new BatchItemResult(index, query, status, null, error);
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public String getQuery() {
+        return query;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public Object getResult() {
+        return result;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
@@ -0,0 +1,34 @@
+package com.caching.model;
+
+/**
+ * A single latitude/longitude pair submitted to the batch reverse geocoding endpoint.
+ */
+public class CoordinatesRequest {
+
+    private String latitude;
+    private String longitude;
+
+    public CoordinatesRequest() {
+    }
+
+    public CoordinatesRequest(String latitude, String longitude) {
+        this.latitude = latitude;
+        this.longitude = longitude;
+    }
+
+    public String getLatitude() {
+        return latitude;
+    }
+
+    public void setLatitude(String latitude) {
+        this.latitude = latitude;
+    }
+
+    public String getLongitude() {
+        return longitude;
+    }
+
+    public void setLongitude(String longitude) {
+        this.longitude = longitude;
+    }
+}
@@ -0,0 +1,39 @@
+package com.caching.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.Objects;
+
+/**
+ * Immutable address label returned by reverse geocoding.
+ * Serializes as {@code {"address": ...}}.
+ */
+public final class GeoAddress {
+
+    private final String address;
+
+    @JsonCreator
+    public GeoAddress(@JsonProperty("address") String address) {
+        this.address = Objects.requireNonNull(address, "address");
+    }
+
+    public String getAddress() {
+        return address;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return this == other || other instanceof GeoAddress && address.equals(((GeoAddress) other).address);
+    }
+
+    @Override
+    public int hashCode() {
+        return address.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "{address=" + address + "}";
+    }
+}
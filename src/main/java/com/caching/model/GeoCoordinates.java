@@ -0,0 +1,50 @@
+package com.caching.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Immutable latitude/longitude pair returned by forward geocoding.
+ * Serializes as {@code {"latitude": ..., "longitude": ...}}.
+ */
+public final class GeoCoordinates {
+
+    private final double latitude;
+    private final double longitude;
+
+    @JsonCreator
+    public GeoCoordinates(@JsonProperty("latitude") double latitude, @JsonProperty("longitude") double longitude) {
+        this.latitude = latitude;
+        this.longitude = longitude;
+    }
+
+    public double getLatitude() {
+        return latitude;
+    }
+
+    public double getLongitude() {
+        return longitude;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof GeoCoordinates)) {
+            return false;
+        }
+        GeoCoordinates that = (GeoCoordinates) other;
+        return Double.compare(latitude, that.latitude) == 0 && Double.compare(longitude, that.longitude) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Double.hashCode(latitude) + Double.hashCode(longitude);
+    }
+
+    @Override
+    public String toString() {
+        return "{latitude=" + latitude + ", longitude=" + longitude + "}";
+    }
+}
@@ -0,0 +1,47 @@
+package com.caching.provider;
+
+import com.caching.exception.custom.GeoCodingException;
+import com.caching.exception.custom.GeoCodingResultNotFoundException;
+import com.caching.exception.custom.InvalidGeoCodingRequestException;
+import com.caching.model.GeoAddress;
+import com.caching.model.GeoCoordinates;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A geocoding API the repository can send lookups to. Several providers may be configured; the first one
+ * receives every call and the others receive hedged and failed-over calls.
+ * Any bean implementing this interface is added after the providers configured under
+ * {@code geocoding.upstream.providers}.
+ *
+ * <p>Implementations must not block the calling thread. Futures complete exceptionally with
+ * {@link GeoCodingResultNotFoundException} when the API has no result, with
+ * {@link InvalidGeoCodingRequestException} when it rejects the request and with another
+ * {@link GeoCodingException} when the call itself failed.
+ */
+public interface GeoCodingProvider {
+
+    /**
+     * Returns the name identifying the provider in metrics.
+     *
+     * @return The provider name.
+     */
+    String getName();
+
+    /**
+     * Looks up the coordinates of an address.
+     *
+     * @param address The address to be geocoded.
+     * @return A future completing with the latitude and longitude.
+     */
+    CompletableFuture<GeoCoordinates> geocode(String address);
+
+    /**
+     * Looks up the address at a location.
+     *
+     * @param latitude  The latitude of the location.
+     * @param longitude The longitude of the location.
+     * @return A future completing with the address.
+     */
+    CompletableFuture<GeoAddress> reverseGeocode(String latitude, String longitude);
+}
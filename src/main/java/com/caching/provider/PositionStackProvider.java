@@ -0,0 +1,127 @@
+package com.caching.provider;
+
+import com.caching.exception.custom.GeoCodingException;
+import com.caching.exception.custom.InvalidGeoCodingRequestException;
+import com.caching.model.GeoAddress;
+import com.caching.model.GeoCoordinates;
+import com.caching.utility.GeoCodingUtils;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+/**
+ * Provider calling a PositionStack-compatible API over the shared, pooled {@link HttpClient}.
+ */
+public class PositionStackProvider implements GeoCodingProvider {
+
+    private final String name;
+    private final String geocodingUrl;
+    private final String reverseGeocodingUrl;
+    private final String apiKey;
+    private final HttpClient httpClient;
+    private final Duration requestTimeout;
+
+    /**
+     * Creates the provider.
+     *
+     * @param name                Name of the provider in metrics.
+     * @param geocodingUrl        Forward geocoding endpoint.
+     * @param reverseGeocodingUrl Reverse geocoding endpoint.
+     * @param apiKey              Access key sent with every request.
+     * @param httpClient          The shared HTTP client.
+     * @param requestTimeout      Maximum time to wait for a complete response.
+     */
+    public PositionStackProvider(String name, String geocodingUrl, String reverseGeocodingUrl, String apiKey,
+                                 HttpClient httpClient, Duration requestTimeout) {
+        this.name = name;
+        this.geocodingUrl = geocodingUrl;
+        this.reverseGeocodingUrl = reverseGeocodingUrl;
+        this.apiKey = apiKey;
+        this.httpClient = httpClient;
+        this.requestTimeout = requestTimeout;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public CompletableFuture<GeoCoordinates> geocode(String address) {
+        String url = GeoCodingUtils.buildApiUrl(geocodingUrl, apiKey, Map.of("query", address));
+        return send(url, "geocoding", GeoCodingUtils::parseGeoResponse);
+    }
+
+    @Override
+    public CompletableFuture<GeoAddress> reverseGeocode(String latitude, String longitude) {
+        String url = GeoCodingUtils.buildApiUrl(reverseGeocodingUrl, apiKey,
+                Map.of("query", latitude + "," + longitude));
+        return send(url, "reverse geocoding", GeoCodingUtils::parseReverseGeoResponse);
+    }
+
+    private <T> CompletableFuture<T> send(String url, String operation, Function<byte[], T> parser) {
+        HttpRequest request;
+        try {
+            request = HttpRequest.newBuilder(URI.create(url))
+                    .timeout(requestTimeout)
+                    .header("Accept", "application/json")
+                    .GET()
+                    .build();
+        } catch (IllegalArgumentException ex) {
+            return CompletableFuture.failedFuture(
+                    new InvalidGeoCodingRequestException("Invalid " + operation + " request: " + ex.getMessage()));
+        }
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                .handle((response, error) -> {
+                    if (error != null) {
+                        throw translate(operation, error instanceof CompletionException && error.getCause() != null
+                                ? error.getCause() : error);
+                    }
+                    return parser.apply(readBody(operation, response));
+                });
+    }
+
+    private static byte[] readBody(String operation, HttpResponse<byte[]> response) {
+        int status = response.statusCode();
+        if (status == 400 || status == 422) {
+            // Only these say the query itself is wrong, so only these are the caller's fault and cached as such.
+            throw new InvalidGeoCodingRequestException("Invalid " + operation + " request: " + status + " "
+                    + new String(response.body(), StandardCharsets.UTF_8));
+        }
+        if (status == 429) {
+            // Our quota is used up; the request itself is fine and may be retried later.
+            throw new GeoCodingException("Upstream " + operation + " rate limit exceeded: " + status);
+        }
+        if (status == 401 || status == 403) {
+            // Our access key is missing, wrong or over its plan; says nothing about the query.
+            throw new GeoCodingException("Upstream " + operation + " request not authorized: " + status);
+        }
+        if (status >= 400 && status < 500) {
+            // Wrong endpoint, method or the like: a problem on our side or theirs, so retried and failed over.
+            throw new GeoCodingException("Upstream " + operation + " request failed: " + status);
+        }
+        if (status >= 500) {
+            throw new GeoCodingException("Upstream " + operation + " service error: " + status);
+        }
+        return response.body();
+    }
+
+    private static GeoCodingException translate(String operation, Throwable error) {
+        if (error instanceof GeoCodingException) {
+            return (GeoCodingException) error;
+        }
+        if (error instanceof HttpTimeoutException) {
+            return new GeoCodingException("Upstream " + operation + " request timed out", error);
+        }
+        return new GeoCodingException("Upstream " + operation + " request failed: " + error.getMessage(), error);
+    }
+}
@@ -1,68 +1,187 @@
 package com.caching.repository;
 
-import com.caching.utility.constant.GeoCodingEnum;
+import com.caching.exception.custom.GeoCodingException;
 import com.caching.exception.custom.GeoCodingResultNotFoundException;
 import com.caching.exception.custom.InvalidGeoCodingRequestException;
-import com.caching.utility.GeoCodingUtils;
-import org.springframework.stereotype.Repository;
-import org.springframework.web.client.HttpClientErrorException;
-import org.springframework.web.client.RestTemplate;
+import com.caching.model.GeoAddress;
+import com.caching.model.GeoCoordinates;
+import com.caching.provider.GeoCodingProvider;
+import com.caching.resilience.RequestHedger;
+import com.caching.resilience.UpstreamGuard;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 
+import java.net.http.HttpTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 /**
- * Repository for handling communication with the PositionStack API.
+ * Repository for handling communication with the geocoding API.
  * It provides methods for geocoding and reverse geocoding operations.
+ * Lookups are sent to the configured {@link GeoCodingProvider}s and complete asynchronously,
+ * so no thread is held while waiting for the upstream. Every call is timed and failures are counted by type.
+ * Calls to each provider pass through that provider's {@link UpstreamGuard}, which rejects them up front while
+ * the provider is unhealthy, its request quota is used up or too many calls are in flight, and a
+ * {@link RequestHedger}, which repeats slow, failed or rejected calls against the next provider when there is
+ * more than one.
  */
-@Repository
 public class GeoCodingRepository {
 
-    private final RestTemplate restTemplate = new RestTemplate();
+    private final List<GeoCodingProvider> providers;
+    private final List<UpstreamGuard> guards;
+    private final RequestHedger hedger;
+    private final MeterRegistry meterRegistry;
 
     /**
-     * Fetches geocoding data (latitude and longitude) for a given address from the PositionStack API.
+     * Constructs the repository.
+     *
+     * @param providers     The geocoding APIs, the one receiving every call first.
+     * @param guards        Rate limiter, bulkhead and circuit breaker in front of each API, by provider name.
+     * @param hedger        Hedging of slow and failed calls.
+     * @param meterRegistry Registry receiving upstream latency and error metrics.
+     */
+    public GeoCodingRepository(List<GeoCodingProvider> providers, Map<String, UpstreamGuard> guards,
+                               RequestHedger hedger, MeterRegistry meterRegistry) {
+        if (providers.isEmpty()) {
+            throw new IllegalArgumentException("At least one geocoding provider is required");
+        }
+        List<UpstreamGuard> providerGuards = new ArrayList<>();
+        for (GeoCodingProvider provider : providers) {
+            UpstreamGuard guard = guards.get(provider.getName());
+            if (guard == null) {
+                throw new IllegalArgumentException("No upstream guard for geocoding provider " + provider.getName());
+            }
+            providerGuards.add(guard);
+        }
+        this.providers = List.copyOf(providers);
+        this.guards = List.copyOf(providerGuards);
+        this.hedger = hedger;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Fetches geocoding data (latitude and longitude) for a given address from the geocoding API.
      *
      * @param address The address to be geocoded.
-     * @return A map containing the latitude and longitude.
+     * @return The latitude and longitude.
      * @throws InvalidGeoCodingRequestException If the request to the API is invalid.
      * @throws GeoCodingResultNotFoundException If no geocoding results are found.
      */
-    public Map<String, Double> fetchGeocode(String address) {
-        String url = GeoCodingUtils.buildApiUrl(
-                GeoCodingEnum.GEOCODING_URL.getValue(),
-                GeoCodingEnum.API_KEY.getValue(),
-                Map.of("query", address)
-        );
-
-        try {
-            Map<String, Object> response = restTemplate.getForObject(url, Map.class);
-            return GeoCodingUtils.parseGeoResponse(response);
-        } catch (HttpClientErrorException ex) {
-            throw new InvalidGeoCodingRequestException("Invalid geocoding request: " + ex.getMessage());
-        }
+    public GeoCoordinates fetchGeocode(String address) {
+        return await(fetchGeocodeAsync(address));
     }
 
     /**
-     * Fetches reverse geocoding data (address) for given latitude and longitude from the PositionStack API.
+     * Fetches reverse geocoding data (address) for given latitude and longitude from the geocoding API.
      *
      * @param latitude  The latitude of the location.
      * @param longitude The longitude of the location.
-     * @return A map containing the address.
+     * @return The address.
      * @throws InvalidGeoCodingRequestException If the request to the API is invalid.
      * @throws GeoCodingResultNotFoundException If no reverse geocoding results are found.
      */
-    public Map<String, String> fetchReverseGeocode(String latitude, String longitude) {
-        String url = GeoCodingUtils.buildApiUrl(
-                GeoCodingEnum.REVERSE_GEOCODING_URL.getValue(),
-                GeoCodingEnum.API_KEY.getValue(),
-                Map.of("query", latitude + "," + longitude)
-        );
+    public GeoAddress fetchReverseGeocode(String latitude, String longitude) {
+        return await(fetchReverseGeocodeAsync(latitude, longitude));
+    }
+
+    /**
+     * Asynchronously fetches geocoding data (latitude and longitude) for a given address.
+     *
+     * @param address The address to be geocoded.
+     * @return A future completing with the latitude and longitude, or exceptionally with a {@link GeoCodingException}.
+     */
+    public CompletableFuture<GeoCoordinates> fetchGeocodeAsync(String address) {
+        return send("forward", provider -> provider.geocode(address));
+    }
 
+    /**
+     * Asynchronously fetches reverse geocoding data (address) for given latitude and longitude.
+     *
+     * @param latitude  The latitude of the location.
+     * @param longitude The longitude of the location.
+     * @return A future completing with the address, or exceptionally with a {@link GeoCodingException}.
+     */
+    public CompletableFuture<GeoAddress> fetchReverseGeocodeAsync(String latitude, String longitude) {
+        return send("reverse", provider -> provider.reverseGeocode(latitude, longitude));
+    }
+
+    /**
+     * Returns the guard in front of the given provider.
+     *
+     * @param provider The provider name.
+     * @return The provider's guard, or null if there is no such provider.
+     */
+    public UpstreamGuard getGuard(String provider) {
+        for (UpstreamGuard guard : guards) {
+            if (guard.getProvider().equals(provider)) {
+                return guard;
+            }
+        }
+        return null;
+    }
+
+    private <T> CompletableFuture<T> send(String operation, Function<GeoCodingProvider, CompletableFuture<T>> call) {
+        return hedger.execute(operation, providers.size(), attempt -> {
+            GeoCodingProvider provider = providers.get(attempt);
+            return guards.get(attempt).execute(operation, () -> {
+                long start = System.nanoTime();
+                return call.apply(provider).whenComplete((result, error) ->
+                        record(operation, provider.getName(), System.nanoTime() - start, error));
+            });
+        });
+    }
+
+    private void record(String operation, String provider, long nanos, Throwable error) {
+        Throwable cause = error == null ? null : unwrap(error);
+        Timer.builder("geocoding.upstream.requests")
+                .description("Latency of calls to the geocoding API")
+                .tag("operation", operation)
+                .tag("provider", provider)
+                .tag("outcome", outcome(cause))
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        if (cause != null) {
+            Throwable root = cause.getCause() != null ? cause.getCause() : cause;
+            meterRegistry.counter("geocoding.upstream.errors", "operation", operation, "provider", provider,
+                    "type", root.getClass().getSimpleName()).increment();
+        }
+    }
+
+    private static String outcome(Throwable cause) {
+        if (cause == null) {
+            return "success";
+        }
+        if (cause instanceof GeoCodingResultNotFoundException) {
+            return "not_found";
+        }
+        if (cause instanceof InvalidGeoCodingRequestException) {
+            return "invalid_request";
+        }
+        if (cause.getCause() instanceof HttpTimeoutException) {
+            return "timeout";
+        }
+        return "error";
+    }
+
+    private static <T> T await(CompletableFuture<T> future) {
         try {
-            Map<String, Object> response = restTemplate.getForObject(url, Map.class);
-            return GeoCodingUtils.parseReverseGeoResponse(response);
-        } catch (HttpClientErrorException ex) {
-            throw new InvalidGeoCodingRequestException("Invalid reverse geocoding request: " + ex.getMessage());
+            return future.join();
+        } catch (CompletionException ex) {
+            Throwable cause = unwrap(ex);
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new GeoCodingException(cause.getMessage(), cause);
         }
     }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
 }
@@ -0,0 +1,178 @@
+package com.caching.resilience;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Count-based circuit breaker over the outcomes of the most recent upstream calls.
+ * <ul>
+ *     <li>CLOSED: calls pass. Once at least {@code minimumCalls} outcomes are recorded and the failure
+ *     rate over the last {@code windowSize} calls reaches the threshold, the breaker opens.</li>
+ *     <li>OPEN: calls are rejected without being attempted until {@code openDuration} has passed.</li>
+ *     <li>HALF_OPEN: up to {@code halfOpenCalls} trial calls pass. If all succeed the breaker closes,
+ *     a single failure opens it again.</li>
+ * </ul>
+ */
+public class CircuitBreaker {
+
+    /**
+     * Breaker state, ordered by severity.
+     */
+    public enum State {
+        CLOSED, HALF_OPEN, OPEN
+    }
+
+    private final double failureRateThreshold;
+    private final int minimumCalls;
+    private final long openNanos;
+    private final int halfOpenCalls;
+    private final LongSupplier nanoTime;
+
+    private final boolean[] window;
+    private int windowIndex;
+    private int recordedCalls;
+    private int failedCalls;
+
+    private State state = State.CLOSED;
+    private long openedAtNanos;
+    private int halfOpenPermits;
+    private int halfOpenSuccesses;
+
+    /**
+     * Creates a closed circuit breaker.
+     *
+     * @param failureRateThreshold Failure rate between 0 and 1 at which the breaker opens.
+     * @param windowSize           Number of most recent calls the failure rate is computed over.
+     * @param minimumCalls         Number of recorded calls required before the failure rate is evaluated.
+     * @param openDuration         How long the breaker stays open before trial calls are allowed.
+     * @param halfOpenCalls        Number of trial calls allowed while half open.
+     */
+    public CircuitBreaker(double failureRateThreshold, int windowSize, int minimumCalls,
+                          Duration openDuration, int halfOpenCalls) {
+        this(failureRateThreshold, windowSize, minimumCalls, openDuration, halfOpenCalls, System::nanoTime);
+    }
+
+    /**
+     * Creates a closed circuit breaker that reads the time from the given source, for tests.
+     */
+    CircuitBreaker(double failureRateThreshold, int windowSize, int minimumCalls,
+                   Duration openDuration, int halfOpenCalls, LongSupplier nanoTime) {
+        if (failureRateThreshold <= 0 || failureRateThreshold > 1) {
+            throw new IllegalArgumentException("Failure rate threshold must be in (0, 1]: " + failureRateThreshold);
+        }
+        if (windowSize < 1 || halfOpenCalls < 1) {
+            throw new IllegalArgumentException("Window size and half-open calls must be positive");
+        }
+        this.failureRateThreshold = failureRateThreshold;
+        this.minimumCalls = Math.max(1, Math.min(minimumCalls, windowSize));
+        this.openNanos = openDuration.toNanos();
+        this.halfOpenCalls = halfOpenCalls;
+        this.window = new boolean[windowSize];
+        this.nanoTime = nanoTime;
+    }
+
+    /**
+     * Asks for permission to make a call. Every granted permission must be followed by exactly one
+     * of {@link #onSuccess()}, {@link #onFailure()} or {@link #release()}.
+     *
+     * @return Whether the call may be made.
+     */
+    public synchronized boolean tryAcquirePermission() {
+        if (state == State.OPEN) {
+            if (nanoTime.getAsLong() - openedAtNanos < openNanos) {
+                return false;
+            }
+            transitionTo(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (halfOpenPermits >= halfOpenCalls) {
+                return false;
+            }
+            halfOpenPermits++;
+        }
+        return true;
+    }
+
+    /**
+     * Gives back a permission whose call was not made.
+     */
+    public synchronized void release() {
+        if (state == State.HALF_OPEN && halfOpenPermits > 0) {
+            halfOpenPermits--;
+        }
+    }
+
+    /**
+     * Records a call that reached the upstream and got a usable answer.
+     */
+    public synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            if (++halfOpenSuccesses >= halfOpenCalls) {
+                transitionTo(State.CLOSED);
+            }
+        } else if (state == State.CLOSED) {
+            record(false);
+        }
+    }
+
+    /**
+     * Records a call that failed because the upstream was unavailable, slow or erroring.
+     */
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            transitionTo(State.OPEN);
+        } else if (state == State.CLOSED) {
+            record(true);
+            if (recordedCalls >= minimumCalls && (double) failedCalls / recordedCalls >= failureRateThreshold) {
+                transitionTo(State.OPEN);
+            }
+        }
+    }
+
+    public synchronized State getState() {
+        if (state == State.OPEN && nanoTime.getAsLong() - openedAtNanos >= openNanos) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    /**
+     * Returns how long the breaker will keep rejecting calls.
+     *
+     * @return The remaining open time, zero unless the breaker is open.
+     */
+    public synchronized Duration getRemainingOpenTime() {
+        if (state != State.OPEN) {
+            return Duration.ZERO;
+        }
+        return Duration.ofNanos(Math.max(0, openNanos - (nanoTime.getAsLong() - openedAtNanos)));
+    }
+
+    private void record(boolean failed) {
+        if (recordedCalls == window.length) {
+            if (window[windowIndex]) {
+                failedCalls--;
+            }
+        } else {
+            recordedCalls++;
+        }
+        window[windowIndex] = failed;
+        if (failed) {
+            failedCalls++;
+        }
+        windowIndex = (windowIndex + 1) % window.length;
+    }
+
+    private void transitionTo(State next) {
+        state = next;
+        halfOpenPermits = 0;
+        halfOpenSuccesses = 0;
+        if (next == State.OPEN) {
+            openedAtNanos = nanoTime.getAsLong();
+        } else if (next == State.CLOSED) {
+            windowIndex = 0;
+            recordedCalls = 0;
+            failedCalls = 0;
+        }
+    }
+}
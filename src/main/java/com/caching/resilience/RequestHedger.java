@@ -0,0 +1,260 @@
+package com.caching.resilience;
+
+import com.caching.configuration.ResilienceProperties;
+import com.caching.exception.custom.GeoCodingResultNotFoundException;
+import com.caching.exception.custom.InvalidGeoCodingRequestException;
+import com.caching.exception.custom.UpstreamUnavailableException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.IntFunction;
+
+/**
+ * Hedges upstream calls to cut tail latency. When a call has not been answered after the hedge delay,
+ * a second attempt is started and whichever answers first is used; when the first attempt fails before
+ * that, the second one is started at once. The delay is either fixed or follows a percentile of recent
+ * upstream latencies, and hedges are paid for from a budget refilled by every call, so that they add at
+ * most the configured share of extra upstream load.
+ *
+ * <p>Every attempt of a call goes to a different provider, so hedging and failover apply only when at least
+ * two providers are configured; with a single provider, calls are made once, as a second attempt would only
+ * load the same endpoint again. "No results" and invalid request answers are final and are never hedged.
+ * An attempt rejected by its provider's {@link UpstreamGuard}, for instance while that provider's circuit is
+ * open, is failed over to the next provider at once without drawing on the budget, as the rejected provider
+ * was never called. The losing attempt is left to finish, since abandoning an HTTP exchange does not save the
+ * upstream any work.
+ */
+public class RequestHedger implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(RequestHedger.class);
+
+    private static final int MAX_ATTEMPTS = 2;
+    private static final int SAMPLE_SIZE = 1024;
+    private static final int SAMPLES_PER_UPDATE = 128;
+    private static final long TOKEN = 1000;
+    private static final long MAX_TOKENS = 10 * TOKEN;
+
+    private final boolean enabled;
+    private final long fixedDelayNanos;
+    private final double percentile;
+    private final long minDelayNanos;
+    private final long tokensPerCall;
+    private final MeterRegistry meterRegistry;
+    private final ScheduledThreadPoolExecutor timer;
+
+    // Hedge budget in thousandths of a hedge.
+    private final AtomicLong tokens = new AtomicLong();
+    private final AtomicLongArray latencies = new AtomicLongArray(SAMPLE_SIZE);
+    private final AtomicLong latencyCount = new AtomicLong();
+    private volatile long adaptiveDelayNanos = -1;
+
+    /**
+     * Creates the hedger from the given settings and registers its delay gauge.
+     *
+     * @param properties    The hedging settings.
+     * @param meterRegistry Registry receiving hedge counts and the current delay.
+     */
+    public RequestHedger(ResilienceProperties.Hedging properties, MeterRegistry meterRegistry) {
+        this.enabled = properties.isEnabled();
+        this.fixedDelayNanos = properties.getDelay() == null ? -1 : properties.getDelay().toNanos();
+        this.percentile = properties.getPercentile();
+        this.minDelayNanos = properties.getMinDelay().toNanos();
+        this.tokensPerCall = Math.round(properties.getBudget() * TOKEN);
+        this.meterRegistry = meterRegistry;
+        if (enabled) {
+            timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+                Thread thread = new Thread(runnable, "geocoding-hedge-timer");
+                thread.setDaemon(true);
+                return thread;
+            });
+            timer.setRemoveOnCancelPolicy(true);
+            TimeGauge.builder("geocoding.upstream.hedge.delay", this, TimeUnit.NANOSECONDS,
+                            hedger -> Math.max(hedger.getDelayNanos(), 0))
+                    .description("Current delay before an upstream call is hedged")
+                    .register(meterRegistry);
+        } else {
+            timer = null;
+        }
+    }
+
+    /**
+     * Runs the call, hedging it if it is slow or fails and another provider is available.
+     *
+     * @param operation Operation name used in metrics.
+     * @param providers Number of distinct providers the attempts are spread over; below 2, the call is not hedged.
+     * @param attempt   Starts the attempt with the given number, 0 for the original call, each on its own provider.
+     * @param <T>       The result type.
+     * @return A future completing with the first answer, or with the last failure if every attempt failed.
+     */
+    public <T> CompletableFuture<T> execute(String operation, int providers,
+                                            IntFunction<CompletableFuture<T>> attempt) {
+        if (!enabled || providers < 2) {
+            return attempt.apply(0);
+        }
+        meterRegistry.counter("geocoding.upstream.hedge.calls", "operation", operation).increment();
+        tokens.updateAndGet(current -> Math.min(MAX_TOKENS, current + tokensPerCall));
+
+        HedgedCall<T> call = new HedgedCall<>(operation, attempt);
+        call.launch();
+        long delay = getDelayNanos();
+        if (delay >= 0 && !call.result.isDone()) {
+            ScheduledFuture<?> hedge = timer.schedule(() -> call.hedge("delay", true), delay, TimeUnit.NANOSECONDS);
+            call.result.whenComplete((value, error) -> hedge.cancel(false));
+        }
+        return call.result;
+    }
+
+    /**
+     * Returns the current hedge delay.
+     *
+     * @return The delay in nanoseconds, or -1 while too few latencies are known to derive it.
+     */
+    public long getDelayNanos() {
+        return fixedDelayNanos >= 0 ? fixedDelayNanos : adaptiveDelayNanos;
+    }
+
+    @Override
+    public void close() {
+        if (timer != null) {
+            timer.shutdownNow();
+        }
+    }
+
+    private boolean tryWithdraw() {
+        long current;
+        do {
+            current = tokens.get();
+            if (current < TOKEN) {
+                return false;
+            }
+        } while (!tokens.compareAndSet(current, current - TOKEN));
+        return true;
+    }
+
+    private void recordLatency(long nanos) {
+        long count = latencyCount.getAndIncrement();
+        latencies.set((int) (count % SAMPLE_SIZE), nanos);
+        if (fixedDelayNanos < 0 && (count + 1) % SAMPLES_PER_UPDATE == 0) {
+            int size = (int) Math.min(count + 1, SAMPLE_SIZE);
+            long[] sorted = new long[size];
+            for (int i = 0; i < size; i++) {
+                sorted[i] = latencies.get(i);
+            }
+            Arrays.sort(sorted);
+            int index = (int) Math.min(size - 1, Math.max(0, Math.ceil(percentile * size) - 1));
+            adaptiveDelayNanos = Math.max(minDelayNanos, sorted[index]);
+        }
+    }
+
+    private static boolean isFinal(Throwable error) {
+        return error instanceof GeoCodingResultNotFoundException || error instanceof InvalidGeoCodingRequestException;
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    /**
+     * The attempts made for one call.
+     */
+    private final class HedgedCall<T> {
+
+        private final String operation;
+        private final IntFunction<CompletableFuture<T>> attempt;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private int started;
+        private int failed;
+
+        private HedgedCall(String operation, IntFunction<CompletableFuture<T>> attempt) {
+            this.operation = operation;
+            this.attempt = attempt;
+        }
+
+        /**
+         * Starts another attempt if the hedge budget allows it.
+         *
+         * @param trigger  Why the attempt is started, used in metrics.
+         * @param budgeted Whether the attempt is paid for from the hedge budget.
+         * @return Whether an attempt was started.
+         */
+        private boolean hedge(String trigger, boolean budgeted) {
+            synchronized (this) {
+                if (result.isDone() || started == MAX_ATTEMPTS) {
+                    return false;
+                }
+            }
+            if (budgeted && !tryWithdraw()) {
+                meterRegistry.counter("geocoding.upstream.hedge.skipped", "operation", operation).increment();
+                return false;
+            }
+            if (!launch()) {
+                if (budgeted) {
+                    // Answered or hedged in the meantime; give the token back.
+                    tokens.addAndGet(TOKEN);
+                }
+                return false;
+            }
+            logger.debug("Hedged {} call ({})", operation, trigger);
+            meterRegistry.counter("geocoding.upstream.hedge.fired", "operation", operation, "trigger", trigger)
+                    .increment();
+            return true;
+        }
+
+        private boolean launch() {
+            int index;
+            synchronized (this) {
+                if (result.isDone() || started == MAX_ATTEMPTS) {
+                    return false;
+                }
+                index = started++;
+            }
+            long start = System.nanoTime();
+            CompletableFuture<T> future;
+            try {
+                future = attempt.apply(index);
+            } catch (RuntimeException ex) {
+                future = CompletableFuture.failedFuture(ex);
+            }
+            future.whenComplete((value, error) -> onComplete(index, System.nanoTime() - start, value, error));
+            return true;
+        }
+
+        private void onComplete(int index, long nanos, T value, Throwable error) {
+            Throwable cause = error == null ? null : unwrap(error);
+            if (cause == null || isFinal(cause)) {
+                recordLatency(nanos);
+                boolean answered = cause == null ? result.complete(value) : result.completeExceptionally(cause);
+                if (answered && index > 0) {
+                    meterRegistry.counter("geocoding.upstream.hedge.wins", "operation", operation).increment();
+                }
+                return;
+            }
+            boolean otherPending;
+            synchronized (this) {
+                failed++;
+                otherPending = failed < started;
+            }
+            // Fail over at once rather than waiting for the hedge delay; fail only when no attempt is left.
+            // A rejected attempt put no load on its provider, so failing it over costs no budget.
+            boolean rejected = cause instanceof UpstreamUnavailableException;
+            if (!otherPending && !hedge(rejected ? "rejected" : "failover", !rejected)) {
+                synchronized (this) {
+                    otherPending = failed < started;
+                }
+                if (!otherPending) {
+                    result.completeExceptionally(cause);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.caching.resilience;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket limiting the rate of upstream calls. The bucket refills continuously at the configured
+ * rate up to its capacity, so short bursts are allowed while the average rate stays within the quota.
+ * A caller may reserve a token that only becomes available shortly, in which case it is told how long
+ * to wait; later callers queue behind it.
+ */
+public class TokenBucketRateLimiter {
+
+    private final double capacity;
+    private final double tokensPerNano;
+    private final LongSupplier nanoTime;
+    private double tokens;
+    private long lastRefillNanos;
+
+    /**
+     * Creates a full bucket.
+     *
+     * @param permitsPerSecond Sustained rate at which tokens are added.
+     * @param burst            Maximum number of tokens the bucket holds.
+     */
+    public TokenBucketRateLimiter(double permitsPerSecond, int burst) {
+        this(permitsPerSecond, burst, System::nanoTime);
+    }
+
+    /**
+     * Creates a full bucket that reads the time from the given source, for tests.
+     */
+    TokenBucketRateLimiter(double permitsPerSecond, int burst, LongSupplier nanoTime) {
+        if (permitsPerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Rate and burst must be positive: " + permitsPerSecond + ", " + burst);
+        }
+        this.capacity = burst;
+        this.tokensPerNano = permitsPerSecond / 1e9;
+        this.tokens = burst;
+        this.nanoTime = nanoTime;
+        this.lastRefillNanos = nanoTime.getAsLong();
+    }
+
+    /**
+     * Takes a token if one is available now or within the given time.
+     *
+     * @param maxWait Longest acceptable wait for a token.
+     * @return The time to wait before using the token, zero if it can be used now,
+     * or a negative value if no token is available within {@code maxWait} (nothing is taken then).
+     */
+    public synchronized long reserveNanos(Duration maxWait) {
+        refill();
+        if (tokens >= 1) {
+            tokens -= 1;
+            return 0;
+        }
+        long waitNanos = (long) Math.ceil((1 - tokens) / tokensPerNano);
+        if (waitNanos > maxWait.toNanos()) {
+            return -1;
+        }
+        tokens -= 1;
+        return waitNanos;
+    }
+
+    /**
+     * Returns how long until a token becomes available.
+     *
+     * @return The time until the next token, zero if one is available now.
+     */
+    public synchronized Duration timeUntilAvailable() {
+        refill();
+        return tokens >= 1 ? Duration.ZERO : Duration.ofNanos((long) Math.ceil((1 - tokens) / tokensPerNano));
+    }
+
+    /**
+     * Returns the number of whole tokens currently available.
+     *
+     * @return The available tokens; negative while reserved tokens are still owed.
+     */
+    public synchronized double getAvailableTokens() {
+        refill();
+        return Math.floor(tokens);
+    }
+
+    private void refill() {
+        long now = nanoTime.getAsLong();
+        tokens = Math.min(capacity, tokens + (now - lastRefillNanos) * tokensPerNano);
+        lastRefillNanos = now;
+    }
+}
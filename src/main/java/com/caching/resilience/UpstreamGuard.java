@@ -0,0 +1,158 @@
+package com.caching.resilience;
+
+import com.caching.configuration.ResilienceProperties;
+import com.caching.exception.custom.GeoCodingResultNotFoundException;
+import com.caching.exception.custom.InvalidGeoCodingRequestException;
+import com.caching.exception.custom.UpstreamUnavailableException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Guards every call to one geocoding provider with, in order, a circuit breaker, a bulkhead capping
+ * calls in flight and a token bucket rate limiter. A call that is not allowed through fails immediately
+ * with {@link UpstreamUnavailableException} instead of tying up a connection or a thread.
+ * "No results" and invalid request answers count as healthy responses; timeouts, connection errors
+ * and 5xx/429 answers count as failures. Each provider has its own guard, so an outage of one provider
+ * does not stop calls to the others.
+ */
+public class UpstreamGuard {
+
+    private static final Logger logger = LoggerFactory.getLogger(UpstreamGuard.class);
+
+    private final String provider;
+    private final CircuitBreaker circuitBreaker;
+    private final TokenBucketRateLimiter rateLimiter;
+    private final Duration maxRateLimitWait;
+    private final Semaphore bulkhead;
+    private final int maxConcurrentCalls;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Creates the guard from the given settings and registers its meters.
+     *
+     * @param provider      Name of the guarded provider, used in metrics.
+     * @param properties    The resilience settings.
+     * @param meterRegistry Registry receiving rejection counts, breaker state and calls in flight.
+     */
+    public UpstreamGuard(String provider, ResilienceProperties properties, MeterRegistry meterRegistry) {
+        this(provider, properties, meterRegistry, System::nanoTime);
+    }
+
+    /**
+     * Creates the guard with a breaker and rate limiter that read the time from the given source, for tests.
+     */
+    UpstreamGuard(String provider, ResilienceProperties properties, MeterRegistry meterRegistry,
+                  LongSupplier nanoTime) {
+        this.provider = provider;
+        ResilienceProperties.CircuitBreaker breaker = properties.getCircuitBreaker();
+        this.circuitBreaker = breaker.isEnabled()
+                ? new CircuitBreaker(breaker.getFailureRateThreshold(), breaker.getSlidingWindowSize(),
+                breaker.getMinimumCalls(), breaker.getWaitInOpenState(), breaker.getPermittedCallsInHalfOpenState(),
+                nanoTime)
+                : null;
+        ResilienceProperties.RateLimit rateLimit = properties.getRateLimit();
+        this.rateLimiter = rateLimit.isEnabled()
+                ? new TokenBucketRateLimiter(rateLimit.getPermitsPerSecond(), rateLimit.getBurst(), nanoTime)
+                : null;
+        this.maxRateLimitWait = rateLimit.getMaxWait();
+        this.maxConcurrentCalls = properties.getBulkhead().getMaxConcurrentCalls();
+        this.bulkhead = new Semaphore(maxConcurrentCalls);
+        this.meterRegistry = meterRegistry;
+
+        Gauge.builder("geocoding.upstream.inflight", this, UpstreamGuard::getCallsInFlight)
+                .description("Upstream calls currently in flight")
+                .tag("provider", provider)
+                .register(meterRegistry);
+        Gauge.builder("geocoding.upstream.circuit.state", this, guard -> guard.getCircuitState().ordinal())
+                .description("Circuit breaker state: 0 closed, 1 half open, 2 open")
+                .tag("provider", provider)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs the call if the upstream is considered healthy, a call slot is free and the rate limit allows it.
+     *
+     * @param operation Operation name used in metrics.
+     * @param call      Starts the upstream call.
+     * @param <T>       The result type.
+     * @return The call's future, or a future failed with {@link UpstreamUnavailableException} if it was rejected.
+     */
+    public <T> CompletableFuture<T> execute(String operation, Supplier<CompletableFuture<T>> call) {
+        if (circuitBreaker != null && !circuitBreaker.tryAcquirePermission()) {
+            return reject(operation, "circuit_open",
+                    "Geocoding API is temporarily unavailable", circuitBreaker.getRemainingOpenTime());
+        }
+        if (!bulkhead.tryAcquire()) {
+            releaseBreakerPermission();
+            return reject(operation, "bulkhead_full",
+                    "Too many geocoding API requests in flight", Duration.ofSeconds(1));
+        }
+        long waitNanos = rateLimiter == null ? 0 : rateLimiter.reserveNanos(maxRateLimitWait);
+        if (waitNanos < 0) {
+            bulkhead.release();
+            releaseBreakerPermission();
+            return reject(operation, "rate_limited",
+                    "Geocoding API request quota exceeded", rateLimiter.timeUntilAvailable());
+        }
+
+        CompletableFuture<T> result;
+        try {
+            result = waitNanos == 0
+                    ? call.get()
+                    : CompletableFuture.runAsync(() -> { }, CompletableFuture.delayedExecutor(waitNanos, TimeUnit.NANOSECONDS))
+                    .thenCompose(ignored -> call.get());
+        } catch (RuntimeException ex) {
+            result = CompletableFuture.failedFuture(ex);
+        }
+        return result.whenComplete((value, error) -> {
+            bulkhead.release();
+            if (circuitBreaker != null) {
+                if (error == null || isHealthyResponse(error)) {
+                    circuitBreaker.onSuccess();
+                } else {
+                    circuitBreaker.onFailure();
+                }
+            }
+        });
+    }
+
+    public String getProvider() {
+        return provider;
+    }
+
+    public CircuitBreaker.State getCircuitState() {
+        return circuitBreaker == null ? CircuitBreaker.State.CLOSED : circuitBreaker.getState();
+    }
+
+    public int getCallsInFlight() {
+        return maxConcurrentCalls - bulkhead.availablePermits();
+    }
+
+    private <T> CompletableFuture<T> reject(String operation, String reason, String message, Duration retryAfter) {
+        logger.debug("Rejected {} call to {}: {}", operation, provider, reason);
+        meterRegistry.counter("geocoding.upstream.rejections", "operation", operation, "provider", provider,
+                "reason", reason).increment();
+        return CompletableFuture.failedFuture(new UpstreamUnavailableException(message, retryAfter));
+    }
+
+    private void releaseBreakerPermission() {
+        if (circuitBreaker != null) {
+            circuitBreaker.release();
+        }
+    }
+
+    private static boolean isHealthyResponse(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        return cause instanceof GeoCodingResultNotFoundException || cause instanceof InvalidGeoCodingRequestException;
+    }
+}
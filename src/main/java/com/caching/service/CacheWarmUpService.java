@@ -0,0 +1,119 @@
+package com.caching.service;
+
+import com.caching.cache.CoalescingCaffeineCache;
+import com.caching.cache.MappedDiskCache;
+import com.caching.cache.SpatialReverseIndex;
+import com.caching.configuration.GeoCodingCacheProperties;
+import com.caching.model.GeoAddress;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Loads the hottest entries of the on-disk caches back into the in-memory caches after a restart,
+ * and records which entries were hottest when the application stops.
+ * Warm-up runs on a background thread once the application is ready, so it never delays readiness;
+ * requests arriving before it finishes are answered from the on-disk caches instead. Warmed-up entries expire
+ * when they would have had they stayed in memory since they were fetched; older ones are skipped.
+ */
+@Service
+public class CacheWarmUpService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheWarmUpService.class);
+
+    private final CacheManager cacheManager;
+    private final SpatialReverseIndex<GeoAddress> spatialIndex;
+    private final int warmUpEntries;
+
+    /**
+     * Constructor for dependency injection.
+     *
+     * @param cacheManager    The cache manager holding the in-memory and on-disk caches.
+     * @param cacheProperties The cache settings, providing how many entries to warm up.
+     * @param spatialIndex    Index answering reverse lookups, filled with the warmed-up reverse entries.
+     */
+    public CacheWarmUpService(CacheManager cacheManager, GeoCodingCacheProperties cacheProperties,
+                              SpatialReverseIndex<GeoAddress> spatialIndex) {
+        this.cacheManager = cacheManager;
+        this.spatialIndex = spatialIndex;
+        this.warmUpEntries = cacheProperties.getDisk().getWarmUpEntries();
+    }
+
+    /**
+     * Starts loading the on-disk entries into memory on a daemon thread.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (warmUpEntries <= 0) {
+            return;
+        }
+        Thread thread = new Thread(() -> {
+            warmUp("geocoding", "geocoding-disk");
+            warmUp("reverse-geocoding", "reverse-geocoding-disk");
+        }, "geocoding-cache-warm-up");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Saves the keys of the hottest in-memory entries, so that they are the first warmed up on the next start.
+     */
+    @PreDestroy
+    public void saveHotKeys() {
+        saveHotKeys("geocoding", "geocoding-disk");
+        saveHotKeys("reverse-geocoding", "reverse-geocoding-disk");
+    }
+
+    private void warmUp(String memoryCacheName, String diskCacheName) {
+        Cache memory = cacheManager.getCache(memoryCacheName);
+        Cache disk = cacheManager.getCache(diskCacheName);
+        if (!(memory instanceof CoalescingCaffeineCache) || !(disk instanceof MappedDiskCache)) {
+            return;
+        }
+        CoalescingCaffeineCache cache = (CoalescingCaffeineCache) memory;
+        long start = System.nanoTime();
+        int loaded = 0;
+        try {
+            for (Object key : ((MappedDiskCache) disk).warmUpKeys(warmUpEntries)) {
+                MappedDiskCache.Entry entry = ((MappedDiskCache) disk).getEntry(key);
+                if (entry == null || !cache.expireAsIfLoadedAt(key, entry.getValue(), entry.getWrittenAt())) {
+                    continue;
+                }
+                cache.putIfAbsent(key, entry.getValue());
+                if (entry.getValue() instanceof GeoAddress) {
+                    List<?> coordinates = (List<?>) key;
+                    spatialIndex.add((String) coordinates.get(0), (String) coordinates.get(1),
+                            (GeoAddress) entry.getValue());
+                }
+                loaded++;
+            }
+        } catch (RuntimeException ex) {
+            logger.warn("Warm-up of cache {} stopped after {} entries: {}", memoryCacheName, loaded, ex.getMessage());
+            return;
+        }
+        logger.info("Warmed up cache {} with {} entries from disk in {} ms",
+                memoryCacheName, loaded, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void saveHotKeys(String memoryCacheName, String diskCacheName) {
+        Cache memory = cacheManager.getCache(memoryCacheName);
+        Cache disk = cacheManager.getCache(diskCacheName);
+        if (!(memory instanceof CoalescingCaffeineCache) || !(disk instanceof MappedDiskCache)) {
+            return;
+        }
+        Map<Object, Object> hottest = ((CoalescingCaffeineCache) memory).getNativeCache().synchronous().policy()
+                .eviction()
+                .map(eviction -> eviction.hottest(warmUpEntries))
+                .orElse(Collections.emptyMap());
+        ((MappedDiskCache) disk).saveHotKeys(hottest.keySet());
+    }
+}
@@ -0,0 +1,252 @@
+package com.caching.service;
+
+import com.caching.cache.CacheKeyCanonicalizer;
+import com.caching.exception.custom.GeoCodingResultNotFoundException;
+import com.caching.exception.custom.InvalidGeoCodingRequestException;
+import com.caching.exception.custom.UpstreamUnavailableException;
+import com.caching.logging.LogValues;
+import com.caching.model.BatchItemResult;
+import com.caching.model.CoordinatesRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Service resolving batches of forward and reverse geocoding queries.
+ * Duplicate queries, including different spellings of the same canonical cache key, are resolved once, through
+ * the asynchronous lookups of {@link GeoCodingService} with a bounded number in flight per batch. Cached results
+ * complete straight away, so each distinct query is looked up in the cache exactly once.
+ * Results are streamed back as newline-delimited JSON, one line per submitted item. Items still unresolved when
+ * the batch timeout runs out are answered with an error, so that each item gets its line before the servlet
+ * container's async request timeout cuts the response off.
+ */
+@Service
+public class GeoCodingBatchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(GeoCodingBatchService.class);
+    private static final byte NEWLINE = '\n';
+
+    private final GeoCodingService geoCodingService;
+    private final CacheKeyCanonicalizer cacheKeys;
+    private final ObjectMapper objectMapper;
+    private final int concurrency;
+    private final Duration timeout;
+    private final int maxItems;
+
+    /**
+     * Constructs the batch service.
+     *
+     * @param geoCodingService The (proxied) service resolving each query, from its caches when possible.
+     * @param cacheKeys        Turns queries into canonical cache keys.
+     * @param objectMapper     Mapper used to write result lines.
+     * @param maxItems         Maximum number of items accepted in one batch.
+     * @param concurrency      Maximum number of lookups in flight per batch.
+     * @param timeout          How long a batch waits for its lookups before failing the items left.
+     */
+    public GeoCodingBatchService(GeoCodingService geoCodingService,
+                                 CacheKeyCanonicalizer cacheKeys,
+                                 ObjectMapper objectMapper,
+                                 @Value("${geocoding.batch.max-items:100}") int maxItems,
+                                 @Value("${geocoding.batch.concurrency:8}") int concurrency,
+                                 @Value("${geocoding.batch.timeout:60s}") Duration timeout) {
+        this.geoCodingService = geoCodingService;
+        this.cacheKeys = cacheKeys;
+        this.objectMapper = objectMapper;
+        this.maxItems = maxItems;
+        this.concurrency = concurrency;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Resolves a batch of addresses to coordinates.
+     *
+     * @param addresses The addresses to geocode.
+     * @return A body streaming one JSON line per address.
+     * @throws InvalidGeoCodingRequestException If the batch is empty or too large.
+     */
+    public StreamingResponseBody streamGeocodes(List<String> addresses) {
+        validateSize(addresses);
+        List<BatchItemResult> rejected = new ArrayList<>();
+        Map<String, List<Integer>> positions = new LinkedHashMap<>();
+        for (int i = 0; i < addresses.size(); i++) {
+            String address = addresses.get(i);
+            if (address == null || address.isBlank()) {
+                rejected.add(BatchItemResult.failure(i, address, HttpStatus.BAD_REQUEST.value(), "Address is required"));
+            } else {
+                positions.computeIfAbsent(cacheKeys.address(address), key -> new ArrayList<>()).add(i);
+            }
+        }
+
+        logger.info("event=batch_request kind=geocode items={} distinct={}", addresses.size(), positions.size());
+        return out -> resolve(out, rejected, positions, addresses, geoCodingService::getGeocodeAsync);
+    }
+
+    /**
+     * Resolves a batch of coordinates to addresses.
+     *
+     * @param coordinates The coordinates to reverse geocode.
+     * @return A body streaming one JSON line per coordinate pair.
+     * @throws InvalidGeoCodingRequestException If the batch is empty or too large.
+     */
+    public StreamingResponseBody streamReverseGeocodes(List<CoordinatesRequest> coordinates) {
+        validateSize(coordinates);
+        List<BatchItemResult> rejected = new ArrayList<>();
+        Map<List<String>, List<Integer>> positions = new LinkedHashMap<>();
+        List<String> queries = new ArrayList<>(coordinates.size());
+        for (int i = 0; i < coordinates.size(); i++) {
+            CoordinatesRequest request = coordinates.get(i);
+            queries.add(request == null ? null : request.getLatitude() + "," + request.getLongitude());
+            if (request == null || isBlank(request.getLatitude()) || isBlank(request.getLongitude())) {
+                rejected.add(BatchItemResult.failure(i, null, HttpStatus.BAD_REQUEST.value(), "Latitude and longitude are required"));
+            } else {
+                List<String> key = cacheKeys.coordinates(request.getLatitude(), request.getLongitude());
+                positions.computeIfAbsent(key, k -> new ArrayList<>()).add(i);
+            }
+        }
+
+        logger.info("event=batch_request kind=reverse_geocode items={} distinct={}", coordinates.size(), positions.size());
+        return out -> resolve(out, rejected, positions, queries,
+                key -> geoCodingService.getReverseGeocodeAsync(key.get(0), key.get(1)));
+    }
+
+    private <K> void resolve(OutputStream out,
+                             List<BatchItemResult> rejected,
+                             Map<K, List<Integer>> positions,
+                             List<String> queries,
+                             Function<K, CompletableFuture<?>> loader) throws IOException {
+        for (BatchItemResult result : rejected) {
+            write(out, result);
+        }
+
+        // Keep at most 'concurrency' lookups in flight and write each result as soon as it completes.
+        BlockingQueue<Outcome<K>> completed = new LinkedBlockingQueue<>();
+        Iterator<K> remaining = positions.keySet().iterator();
+        Set<K> unwritten = new LinkedHashSet<>(positions.keySet());
+        long deadline = System.nanoTime() + timeout.toNanos();
+        int inFlight = 0;
+        try {
+            while (!unwritten.isEmpty()) {
+                while (inFlight < concurrency && remaining.hasNext()) {
+                    K key = remaining.next();
+                    inFlight++;
+                    loader.apply(key).whenComplete((value, error) -> completed.add(new Outcome<>(key, value, error)));
+                }
+                Outcome<K> outcome = completed.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                if (outcome == null) {
+                    writeUnfinished(out, completed, unwritten, positions, queries,
+                            "Batch timed out before the item was resolved");
+                    return;
+                }
+                inFlight--;
+                unwritten.remove(outcome.key);
+                writeAll(out, positions.get(outcome.key), queries, outcome.value, outcome.error);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            writeUnfinished(out, completed, unwritten, positions, queries,
+                    "Batch was interrupted before the item was resolved");
+        }
+    }
+
+    /**
+     * Gives every item not written yet its line when the batch stops waiting: the lookups that have completed
+     * by now, and an error for the rest.
+     */
+    private <K> void writeUnfinished(OutputStream out,
+                                     BlockingQueue<Outcome<K>> completed,
+                                     Set<K> unwritten,
+                                     Map<K, List<Integer>> positions,
+                                     List<String> queries,
+                                     String message) throws IOException {
+        List<Outcome<K>> done = new ArrayList<>();
+        completed.drainTo(done);
+        for (Outcome<K> outcome : done) {
+            unwritten.remove(outcome.key);
+            writeAll(out, positions.get(outcome.key), queries, outcome.value, outcome.error);
+        }
+        logger.warn("event=batch_unfinished items={} reason={}", unwritten.size(), LogValues.quoted(message));
+        for (K key : unwritten) {
+            for (int index : positions.get(key)) {
+                write(out, BatchItemResult.failure(index, queries.get(index),
+                        HttpStatus.SERVICE_UNAVAILABLE.value(), message));
+            }
+        }
+    }
+
+    private void writeAll(OutputStream out, List<Integer> indexes, List<String> queries, Object value,
+                          Throwable error) throws IOException {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        for (int index : indexes) {
+            // Echo each item as it was submitted, not the canonical key its duplicates were resolved under.
+            String query = queries.get(index);
+            write(out, cause == null
+                    ? BatchItemResult.success(index, query, value)
+                    : BatchItemResult.failure(index, query, statusOf(cause).value(), cause.getMessage()));
+        }
+    }
+
+    private void write(OutputStream out, BatchItemResult result) throws IOException {
+        out.write(objectMapper.writeValueAsBytes(result));
+        out.write(NEWLINE);
+        out.flush();
+    }
+
+    private void validateSize(List<?> items) {
+        if (items == null || items.isEmpty()) {
+            throw new InvalidGeoCodingRequestException("Batch must contain at least one item");
+        }
+        if (items.size() > maxItems) {
+            throw new InvalidGeoCodingRequestException("Batch must not contain more than " + maxItems + " items");
+        }
+    }
+
+    private static final class Outcome<K> {
+        private final K key;
+        private final Object value;
+        private final Throwable error;
+
+        private Outcome(K key, Object value, Throwable error) {
+            this.key = key;
+            this.value = value;
+            this.error = error;
+        }
+    }
+
+    private static HttpStatus statusOf(Throwable error) {
+        if (error instanceof InvalidGeoCodingRequestException) {
+            return HttpStatus.BAD_REQUEST;
+        }
+        if (error instanceof GeoCodingResultNotFoundException) {
+            return HttpStatus.NOT_FOUND;
+        }
+        if (error instanceof UpstreamUnavailableException) {
+            return HttpStatus.SERVICE_UNAVAILABLE;
+        }
+        return HttpStatus.INTERNAL_SERVER_ERROR;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
@@ -1,14 +1,34 @@
 package com.caching.service;
 
+import com.caching.cache.CacheKeyCanonicalizer;
+import com.caching.cache.CoalescingCaffeineCache;
+import com.caching.cache.MappedDiskCache;
+import com.caching.cache.NegativeResultCache;
+import com.caching.cache.SpatialReverseIndex;
+import com.caching.cache.StaleValueCache;
+import com.caching.cache.ValueOrigin;
+import com.caching.exception.custom.GeoCodingException;
+import com.caching.exception.custom.GeoCodingResultNotFoundException;
+import com.caching.exception.custom.InvalidGeoCodingRequestException;
+import com.caching.gazetteer.Gazetteer;
+import com.caching.logging.LogValues;
+import com.caching.model.GeoAddress;
+import com.caching.model.GeoCoordinates;
 import com.caching.repository.GeoCodingRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.stereotype.Service;
 
-import java.util.Map;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Service responsible for managing geocoding and reverse geocoding operations.
@@ -18,62 +38,341 @@ import java.util.Map;
 public class GeoCodingService {
 
     private static final Logger logger = LoggerFactory.getLogger(GeoCodingService.class);
+
     private final GeoCodingRepository geoCodingRepository;
+    private final CoalescingCaffeineCache geocodingCache;
+    private final CoalescingCaffeineCache reverseGeocodingCache;
+    private final NegativeResultCache geocodingFailures;
+    private final NegativeResultCache reverseGeocodingFailures;
+    private final StaleValueCache geocodingStale;
+    private final StaleValueCache reverseGeocodingStale;
+    private final Cache geocodingDisk;
+    private final Cache reverseGeocodingDisk;
+    private final SpatialReverseIndex<GeoAddress> spatialIndex;
+    private final Gazetteer gazetteer;
+    private final CacheKeyCanonicalizer cacheKeys;
+    // Disk appends and spatial index updates run here rather than on the HTTP client's completion threads,
+    // which a segment roll forcing its file to disk would otherwise hold up.
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "geocoding-cache-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     /**
-     * Constructor for dependency injection of the GeoCodingUtils and CacheManager.
+     * Constructor for dependency injection of the GeoCodingRepository and CacheManager.
      *
      * @param geoCodingRepository The repository handling API interactions.
+     * @param cacheManager        The cache manager holding the geocoding caches.
+     * @param spatialIndex        Index answering reverse lookups from nearby resolved coordinates.
+     * @param gazetteer           Local gazetteer answering forward lookups for known places.
+     * @param cacheKeys           Turns requests into canonical cache keys.
      */
-    public GeoCodingService(GeoCodingRepository geoCodingRepository) {
+    public GeoCodingService(GeoCodingRepository geoCodingRepository, CacheManager cacheManager,
+                            SpatialReverseIndex<GeoAddress> spatialIndex, Gazetteer gazetteer,
+                            CacheKeyCanonicalizer cacheKeys) {
         this.geoCodingRepository = geoCodingRepository;
+        this.spatialIndex = spatialIndex;
+        this.gazetteer = gazetteer;
+        this.cacheKeys = cacheKeys;
+        this.geocodingCache = (CoalescingCaffeineCache) cacheManager.getCache("geocoding");
+        this.reverseGeocodingCache = (CoalescingCaffeineCache) cacheManager.getCache("reverse-geocoding");
+        this.geocodingFailures = new NegativeResultCache(cacheManager.getCache("geocoding-not-found"));
+        this.reverseGeocodingFailures = new NegativeResultCache(cacheManager.getCache("reverse-geocoding-not-found"));
+        this.geocodingStale = (StaleValueCache) cacheManager.getCache("geocoding-stale");
+        this.reverseGeocodingStale = (StaleValueCache) cacheManager.getCache("reverse-geocoding-stale");
+        this.geocodingDisk = cacheManager.getCache("geocoding-disk");
+        this.reverseGeocodingDisk = cacheManager.getCache("reverse-geocoding-disk");
     }
 
     /**
      * Retrieves geocoding data (latitude and longitude) for the given address.
-     * Results are cached to avoid redundant API calls for the same address.
+     * Results are cached under the address's canonical key to avoid redundant API calls for the same address,
+     * however it is spelled, and the API is queried with that key; addresses configured as non-cacheable always
+     * go to the API. Concurrent misses for the same address share a single upstream call, loaded as described in
+     * {@link #loadGeocode(String, boolean)}.
+     *
+     * @param address The address to geocode.
+     * @return The latitude and longitude.
+     */
+    public GeoCoordinates getGeocode(String address) {
+        String key = cacheKeys.address(address);
+        if (!cacheKeys.isCacheable(key)) {
+            logger.info("event=upstream_fetch address={}", LogValues.quoted(key));
+            return geoCodingRepository.fetchGeocode(key);
+        }
+        return join(geocodingCache.getAsync(key, () -> loadGeocode(key, false)));
+    }
+
+    /**
+     * Asynchronous variant of {@link #getGeocode(String)} sharing the same cache and in-flight loads.
+     * Cache hits complete immediately on the calling thread; results fetched from the API on the cache writer thread.
      *
      * @param address The address to geocode.
-     * @return A map containing latitude and longitude values.
+     * @return A future completing with the latitude and longitude.
+     */
+    public CompletableFuture<GeoCoordinates> getGeocodeAsync(String address) {
+        String key = cacheKeys.address(address);
+        if (!cacheKeys.isCacheable(key)) {
+            logger.info("event=upstream_fetch address={}", LogValues.quoted(key));
+            return geoCodingRepository.fetchGeocodeAsync(key);
+        }
+        return geocodingCache.getAsync(key, () -> loadGeocode(key, false));
+    }
+
+    /**
+     * Loads the coordinates of a canonical address into the geocoding cache, on a miss or to refresh an entry.
+     * The address is answered from the local gazetteer or the on-disk cache when possible; fuzzy gazetteer matches
+     * are only cached for the gazetteer's fuzzy TTL, and results read back from disk only until they would have
+     * expired had they stayed in memory since they were fetched. Addresses the API recently found no results for
+     * are answered with the same error without calling it again. Results from the API are written to the on-disk
+     * cache, on the cache writer thread rather than the upstream client's, and while the API is unavailable the
+     * last known result is served even if it has expired.
+     * A refresh skips the on-disk cache, whose copy is at least as old as the entry being refreshed, and fails
+     * instead of serving a stale value, so that the cache keeps its entry.
+     *
+     * @param key     The canonical address.
+     * @param refresh Whether the cache still holds an entry for the address and is refreshing it.
+     * @return A future completing with the latitude and longitude.
      */
-    @Cacheable(value = "geocoding", key = "#address", unless = "#address.equalsIgnoreCase('goa')")
-    public Map<String, Double> getGeocode(String address) {
-        logger.info("Fetching geocoding data for address: {}", address);
-        return geoCodingRepository.fetchGeocode(address);
+    public CompletableFuture<GeoCoordinates> loadGeocode(String key, boolean refresh) {
+        Gazetteer.Match known = gazetteer.find(key);
+        if (known != null) {
+            return CompletableFuture.completedFuture(known(key, known));
+        }
+        if (!refresh) {
+            GeoCoordinates persisted = readDisk(geocodingDisk, geocodingCache, key, GeoCoordinates.class);
+            if (persisted != null) {
+                return CompletableFuture.completedFuture(persisted);
+            }
+        }
+        GeoCodingException recorded = recordedFailure(geocodingFailures, key);
+        if (recorded != null) {
+            return CompletableFuture.failedFuture(recorded);
+        }
+        logger.info("event=upstream_fetch address={}", LogValues.quoted(key));
+        CompletableFuture<GeoCoordinates> lookup = geoCodingRepository.fetchGeocodeAsync(key);
+        CompletableFuture<GeoCoordinates> fetched = geocodingFailures.putOnFailure(key, lookup)
+                .thenApplyAsync(result -> {
+                    geocodingDisk.put(key, result);
+                    return loaded(geocodingCache, key, result, ValueOrigin.UPSTREAM);
+                }, writer);
+        return refresh ? fetched : fetched.handle(
+                (result, error) -> error == null ? result : staleOrThrow(geocodingStale, key, error));
     }
 
     /**
      * Retrieves reverse geocoding data (address) for the given latitude and longitude.
-     * Results are cached to avoid redundant API calls for the same coordinates.
+     * The coordinates are rounded to the configured precision, and results are cached under the rounded pair
+     * to avoid redundant API calls for the same coordinates. Concurrent misses for the same coordinates share
+     * a single upstream call, loaded as described in {@link #loadReverseGeocode(List, boolean)}.
      *
      * @param latitude  The latitude of the location.
      * @param longitude The longitude of the location.
-     * @return A map containing the address.
+     * @return The address.
      */
-    @Cacheable(value = "reverse-geocoding", key = "{#latitude, #longitude}")
-    public Map<String, String> getReverseGeocode(String latitude, String longitude) {
-        logger.info("Fetching reverse geocoding data for coordinates: {}, {}", latitude, longitude);
-        return geoCodingRepository.fetchReverseGeocode(latitude, longitude);
+    public GeoAddress getReverseGeocode(String latitude, String longitude) {
+        List<String> key = cacheKeys.coordinates(latitude, longitude);
+        return join(reverseGeocodingCache.getAsync(key, () -> loadReverseGeocode(key, false)));
     }
 
+    /**
+     * Asynchronous variant of {@link #getReverseGeocode(String, String)} sharing the same cache and in-flight loads.
+     * Cache hits complete immediately on the calling thread; results fetched from the API on the cache writer thread.
+     *
+     * @param latitude  The latitude of the location.
+     * @param longitude The longitude of the location.
+     * @return A future completing with the address.
+     */
+    public CompletableFuture<GeoAddress> getReverseGeocodeAsync(String latitude, String longitude) {
+        List<String> key = cacheKeys.coordinates(latitude, longitude);
+        return reverseGeocodingCache.getAsync(key, () -> loadReverseGeocode(key, false));
+    }
 
     /**
-     * Evicts all entries in the geocoding cache at a fixed interval of 6 hours.
-     * This ensures that cached data remains fresh.
+     * Loads the address of a canonical coordinate pair into the reverse geocoding cache, on a miss or to refresh an
+     * entry. The on-disk cache and then an already resolved point within the configured radius answer the lookup
+     * when possible. Coordinates the API recently found no results for are answered with the same error without
+     * calling it again. Results from the API are written to the on-disk cache and the spatial index, on the cache
+     * writer thread rather than the upstream client's, and while the API is unavailable the last known result is
+     * served even if it has expired.
+     * A refresh skips the on-disk cache and the spatial index, whose copies are at least as old as the entry being
+     * refreshed, and fails instead of serving a stale value, so that the cache keeps its entry.
+     *
+     * @param key     The canonical coordinates, latitude first.
+     * @param refresh Whether the cache still holds an entry for the coordinates and is refreshing it.
+     * @return A future completing with the address.
      */
-    @CacheEvict(value = "geocoding", allEntries = true)
-    @Scheduled(fixedRate = 21600000) // 6 hours
-    public void evictAllGeoCaches() {
-        logger.info("Evicting all geocoding cache entries.");
+    public CompletableFuture<GeoAddress> loadReverseGeocode(List<String> key, boolean refresh) {
+        String latitude = key.get(0);
+        String longitude = key.get(1);
+        if (!refresh) {
+            GeoAddress persisted = readDisk(reverseGeocodingDisk, reverseGeocodingCache, key, GeoAddress.class);
+            if (persisted != null) {
+                spatialIndex.add(latitude, longitude, persisted);
+                return CompletableFuture.completedFuture(persisted);
+            }
+            GeoAddress nearby = spatialIndex.findNearest(latitude, longitude);
+            if (nearby != null) {
+                return CompletableFuture.completedFuture(
+                        loaded(reverseGeocodingCache, key, nearby, ValueOrigin.NEARBY));
+            }
+        }
+        GeoCodingException recorded = recordedFailure(reverseGeocodingFailures, key);
+        if (recorded != null) {
+            return CompletableFuture.failedFuture(recorded);
+        }
+        logger.info("event=upstream_fetch latitude={} longitude={}", LogValues.quoted(latitude),
+                LogValues.quoted(longitude));
+        CompletableFuture<GeoAddress> lookup = geoCodingRepository.fetchReverseGeocodeAsync(latitude, longitude);
+        CompletableFuture<GeoAddress> fetched = reverseGeocodingFailures.putOnFailure(key, lookup)
+                .thenApplyAsync(result -> {
+                    reverseGeocodingDisk.put(key, result);
+                    spatialIndex.add(latitude, longitude, result);
+                    return loaded(reverseGeocodingCache, key, result, ValueOrigin.UPSTREAM);
+                }, writer);
+        return refresh ? fetched : fetched.handle(
+                (result, error) -> error == null ? result : staleOrThrow(reverseGeocodingStale, key, error));
     }
 
     /**
-     * Evicts all entries in the reverse geocoding cache at a fixed interval of 6 hours.
-     * This ensures that cached data remains fresh.
+     * Returns how long the cached result for the address has left before it expires.
+     *
+     * @param address The address as received.
+     * @return The remaining lifetime, or {@code null} if no result is cached for the address.
      */
-    @CacheEvict(value = "reverse-geocoding", allEntries = true)
-    @Scheduled(fixedRate = 21600000) // 6 hours
-    public void evictAllReverseGeoCaches() {
-        logger.info("Evicting all reverse geocoding cache entries.");
+    public Duration getGeocodeTimeToLive(String address) {
+        String key = cacheKeys.address(address);
+        return cacheKeys.isCacheable(key) ? geocodingCache.getTimeToLive(key) : null;
+    }
+
+    /**
+     * Returns how long the cached result for the coordinates has left before it expires.
+     *
+     * @param latitude  The latitude as received.
+     * @param longitude The longitude as received.
+     * @return The remaining lifetime, or {@code null} if no result is cached for the coordinates.
+     */
+    public Duration getReverseGeocodeTimeToLive(String latitude, String longitude) {
+        return reverseGeocodingCache.getTimeToLive(cacheKeys.coordinates(latitude, longitude));
+    }
+
+    /**
+     * Forgets a recorded "no results" or invalid request failure for the address,
+     * so that the next lookup calls the API again.
+     *
+     * @param address The address.
+     * @return Whether a failure was recorded for the address.
+     */
+    public boolean evictGeocodeFailure(String address) {
+        return geocodingFailures.evict(cacheKeys.address(address));
+    }
+
+    /**
+     * Forgets a recorded "no results" or invalid request failure for the coordinates,
+     * so that the next lookup calls the API again.
+     *
+     * @param latitude  The latitude as sent in the original request.
+     * @param longitude The longitude as sent in the original request.
+     * @return Whether a failure was recorded for the coordinates.
+     */
+    public boolean evictReverseGeocodeFailure(String latitude, String longitude) {
+        return reverseGeocodingFailures.evict(cacheKeys.coordinates(latitude, longitude));
+    }
+
+    /**
+     * Lets the writes already queued for the on-disk caches finish before they are closed.
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        writer.shutdown();
+        if (!writer.awaitTermination(5, TimeUnit.SECONDS)) {
+            logger.warn("event=cache_writer_shutdown_timeout pending={}", writer.shutdownNow().size());
+        }
+    }
+
+    /**
+     * Waits for the lookup and rethrows its failure as is.
+     */
+    private static <T> T join(CompletableFuture<T> lookup) {
+        try {
+            return lookup.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * Returns the value stored on disk for the key, to be loaded into the cache with what is left of the lifetime
+     * it started when it was fetched, or {@code null} if none is stored or none of that lifetime is left.
+     * Such values are not reported to the other instances, which would give them a full lifetime.
+     */
+    private static <T> T readDisk(Cache disk, CoalescingCaffeineCache cache, Object key, Class<T> type) {
+        if (!(disk instanceof MappedDiskCache)) {
+            return null;
+        }
+        MappedDiskCache.Entry entry = ((MappedDiskCache) disk).getEntry(key);
+        if (entry == null || !cache.expireAsIfLoadedAt(key, entry.getValue(), entry.getWrittenAt())) {
+            return null;
+        }
+        return type.cast(entry.getValue());
+    }
+
+    /**
+     * Returns the coordinates of a gazetteer match. An exact match is reported like an API answer; a fuzzy one may not
+     * be the place that was meant, so it is cached only briefly and not reported to the other instances, which would
+     * keep it for a full lifetime.
+     */
+    private GeoCoordinates known(String key, Gazetteer.Match match) {
+        GeoCoordinates coordinates = match.getCoordinates();
+        if (match.isFuzzy()) {
+            geocodingCache.expireAfter(key, coordinates, gazetteer.getFuzzyTtl());
+            return coordinates;
+        }
+        return loaded(geocodingCache, key, coordinates, ValueOrigin.GAZETTEER);
+    }
+
+    /**
+     * Reports a value loaded into the cache with its origin, so that in cluster mode it reaches the other instances.
+     */
+    private static <T> T loaded(CoalescingCaffeineCache cache, Object key, T value, ValueOrigin origin) {
+        cache.loaded(key, value, origin);
+        return value;
+    }
+
+    /**
+     * Returns the last known value for the key if the lookup failed because the API is unavailable,
+     * otherwise rethrows the failure.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T staleOrThrow(StaleValueCache staleValues, Object key, Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        boolean upstreamUnavailable = cause instanceof GeoCodingException
+                && !(cause instanceof GeoCodingResultNotFoundException)
+                && !(cause instanceof InvalidGeoCodingRequestException);
+        if (upstreamUnavailable) {
+            Cache.ValueWrapper stale = staleValues.get(key);
+            if (stale != null) {
+                logger.warn("event=stale_value_served key={} reason={}", LogValues.quoted(String.valueOf(key)),
+                        LogValues.quoted(cause.getMessage()));
+                return (T) stale.get();
+            }
+        }
+        if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        }
+        throw new CompletionException(cause);
+    }
+
+    private static GeoCodingException recordedFailure(NegativeResultCache failures, Object key) {
+        GeoCodingException recorded = failures.getIfPresent(key);
+        if (recorded != null) {
+            logger.debug("event=negative_cache_hit key={} reason={}", LogValues.quoted(String.valueOf(key)),
+                    LogValues.quoted(recorded.getMessage()));
+        }
+        return recorded;
     }
 }
@@ -1,23 +1,35 @@
 package com.caching.utility;
 
+import com.caching.exception.custom.GeoCodingException;
 import com.caching.exception.custom.GeoCodingResultNotFoundException;
-import com.caching.exception.custom.InvalidGeoCodingRequestException;
+import com.caching.model.GeoAddress;
+import com.caching.model.GeoCoordinates;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 
-import java.util.List;
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
-import java.util.Optional;
 
 /**
  * Utility class for geocoding-related tasks, such as building API URLs and parsing API responses.
+ * Responses are parsed as a token stream: only the fields of the first result are read and the rest
+ * of the payload is never materialized. A response that cannot be parsed is an upstream error, not a
+ * problem with the request, so it is reported as a plain {@link GeoCodingException}.
  */
 public class GeoCodingUtils {
 
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
     private GeoCodingUtils() {
         // Private constructor to prevent instantiation
     }
 
     /**
      * Builds the API URL with the given base URL, API key, and query parameters.
+     * Parameter values are URL-encoded.
      *
      * @param baseUrl The base URL of the API.
      * @param apiKey  The API key for authentication.
@@ -26,69 +38,111 @@ public class GeoCodingUtils {
      */
     public static String buildApiUrl(String baseUrl, String apiKey, Map<String, String> params) {
         StringBuilder urlBuilder = new StringBuilder(baseUrl).append("?access_key=").append(apiKey);
-        params.forEach((key, value) -> urlBuilder.append("&").append(key).append("=").append(value));
+        params.forEach((key, value) -> urlBuilder.append("&").append(key).append("=")
+                .append(URLEncoder.encode(value, StandardCharsets.UTF_8)));
         return urlBuilder.toString();
     }
 
     /**
      * Parses the response from the geocoding API to extract latitude and longitude.
      *
-     * @param response The API response.
-     * @return A map containing the latitude and longitude.
-     * @throws InvalidGeoCodingRequestException If the response structure is invalid.
+     * @param response The raw API response body.
+     * @return The latitude and longitude of the first result.
+     * @throws GeoCodingException              If the response structure is invalid.
      * @throws GeoCodingResultNotFoundException If no results are found in the response.
      */
-    public static Map<String, Double> parseGeoResponse(Map<String, Object> response) {
-        if (response == null || !response.containsKey("data")) {
-            throw new InvalidGeoCodingRequestException("Invalid response from geocoding API");
-        }
-
-        List<Map<String, Object>> data = (List<Map<String, Object>>) response.get("data");
-        if (data == null || data.isEmpty()) {
-            throw new GeoCodingResultNotFoundException("No geocoding results found");
-        }
+    public static GeoCoordinates parseGeoResponse(byte[] response) {
+        try (JsonParser parser = JSON_FACTORY.createParser(response)) {
+            moveToFirstResult(parser, "geocoding");
 
-        Map<String, Object> result = data.get(0);
-        Double latitude = Optional.ofNullable(result.get("latitude"))
-                .filter(Number.class::isInstance)
-                .map(Number.class::cast)
-                .map(Number::doubleValue)
-                .orElseThrow(() -> new InvalidGeoCodingRequestException("Latitude is missing or invalid"));
+            double latitude = Double.NaN;
+            double longitude = Double.NaN;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("latitude".equals(field) && value.isNumeric()) {
+                    latitude = parser.getDoubleValue();
+                } else if ("longitude".equals(field) && value.isNumeric()) {
+                    longitude = parser.getDoubleValue();
+                } else {
+                    parser.skipChildren();
+                }
+            }
 
-        Double longitude = Optional.ofNullable(result.get("longitude"))
-                .filter(Number.class::isInstance)
-                .map(Number.class::cast)
-                .map(Number::doubleValue)
-                .orElseThrow(() -> new InvalidGeoCodingRequestException("Longitude is missing or invalid"));
-
-        return Map.of("latitude", latitude, "longitude", longitude);
+            if (Double.isNaN(latitude)) {
+                throw new GeoCodingException("Latitude is missing or invalid");
+            }
+            if (Double.isNaN(longitude)) {
+                throw new GeoCodingException("Longitude is missing or invalid");
+            }
+            return new GeoCoordinates(latitude, longitude);
+        } catch (IOException ex) {
+            throw new GeoCodingException("Invalid response from geocoding API", ex);
+        }
     }
 
     /**
      * Parses the response from the reverse geocoding API to extract the address.
      *
-     * @param response The API response.
-     * @return A map containing the address.
-     * @throws InvalidGeoCodingRequestException If the response structure is invalid.
+     * @param response The raw API response body.
+     * @return The address label of the first result.
+     * @throws GeoCodingException              If the response structure is invalid.
      * @throws GeoCodingResultNotFoundException If no results are found in the response.
      */
-    public static Map<String, String> parseReverseGeoResponse(Map<String, Object> response) {
-        if (response == null || !response.containsKey("data")) {
-            throw new InvalidGeoCodingRequestException("Invalid response from reverse geocoding API");
-        }
+    public static GeoAddress parseReverseGeoResponse(byte[] response) {
+        try (JsonParser parser = JSON_FACTORY.createParser(response)) {
+            moveToFirstResult(parser, "reverse geocoding");
 
-        List<Map<String, Object>> data = (List<Map<String, Object>>) response.get("data");
-        if (data == null || data.isEmpty()) {
-            throw new GeoCodingResultNotFoundException("No reverse geocoding results found");
-        }
-
-        Map<String, Object> result = data.get(0);
-        String address = (String) result.get("label");
+            String address = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("label".equals(field) && value == JsonToken.VALUE_STRING) {
+                    address = parser.getText();
+                } else {
+                    parser.skipChildren();
+                }
+            }
 
-        if (address == null || address.isEmpty()) {
-            throw new InvalidGeoCodingRequestException("Address label is missing or invalid");
+            if (address == null || address.isEmpty()) {
+                throw new GeoCodingException("Address label is missing or invalid");
+            }
+            return new GeoAddress(address);
+        } catch (IOException ex) {
+            throw new GeoCodingException("Invalid response from reverse geocoding API", ex);
         }
+    }
 
-        return Map.of("address", address);
+    /**
+     * Advances the parser to the start of the first object in the top-level "data" array,
+     * skipping every other top-level field.
+     */
+    private static void moveToFirstResult(JsonParser parser, String api) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new GeoCodingException("Invalid response from " + api + " API");
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (!"data".equals(field)) {
+                parser.skipChildren();
+                continue;
+            }
+            if (value == JsonToken.VALUE_NULL) {
+                throw new GeoCodingResultNotFoundException("No " + api + " results found");
+            }
+            if (value != JsonToken.START_ARRAY) {
+                throw new GeoCodingException("Invalid response from " + api + " API");
+            }
+            JsonToken first = parser.nextToken();
+            if (first == JsonToken.END_ARRAY) {
+                throw new GeoCodingResultNotFoundException("No " + api + " results found");
+            }
+            if (first != JsonToken.START_OBJECT) {
+                throw new GeoCodingException("Invalid response from " + api + " API");
+            }
+            return;
+        }
+        throw new GeoCodingException("Invalid response from " + api + " API");
     }
 }
@@ -0,0 +1,127 @@
+package com.caching.perf;
+
+import com.caching.Application;
+import org.springframework.boot.Banner;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * Runs several instances of the application on localhost against one {@link StubPositionStackServer}, once
+ * without and once with cache cluster mode ({@code geocoding.cache.cluster.*}), and reports how many upstream
+ * calls it takes for every instance to answer every address, and how many after the cache was cleared on one
+ * instance. Every instance is given the same peer list, itself included.
+ *
+ * <p>Arguments: {@code [instances] [addresses] [latencyMillis]}, defaulting to {@code 3 200 20}.
+ */
+public final class ClusterSimulation {
+
+    private static final HttpClient HTTP = HttpClient.newHttpClient();
+
+    private ClusterSimulation() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int instances = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        int addresses = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        long latencyMillis = args.length > 2 ? Long.parseLong(args[2]) : 20;
+
+        try (StubPositionStackServer stub = StubPositionStackServer.start(0)) {
+            stub.setLatency(latencyMillis, latencyMillis / 5);
+            System.out.printf("%d instances, %d addresses, stub latency %d ms%n%n",
+                    instances, addresses, latencyMillis);
+            System.out.printf("%-10s %14s %14s %16s %16s%n",
+                    "cluster", "first lookups", "all instances", "upstream/address", "after clear");
+            for (boolean cluster : new boolean[]{false, true}) {
+                run(stub, cluster, instances, addresses);
+            }
+        }
+    }
+
+    private static void run(StubPositionStackServer stub, boolean cluster, int instances, int addresses)
+            throws Exception {
+        int[] ports = new int[instances];
+        StringJoiner peers = new StringJoiner(",");
+        for (int i = 0; i < instances; i++) {
+            ports[i] = freePort();
+            peers.add("http://127.0.0.1:" + ports[i]);
+        }
+        List<ConfigurableApplicationContext> contexts = new ArrayList<>();
+        try {
+            for (int port : ports) {
+                contexts.add(new SpringApplicationBuilder(Application.class)
+                        .bannerMode(Banner.Mode.OFF)
+                        // Command-line arguments, so that they take precedence over application.properties.
+                        .run("--server.port=" + port,
+                                "--logging.level.root=WARN",
+                                "--logging.level.com.caching=ERROR",
+                                "--logging.level.com.github.benmanes.caffeine=ERROR",
+                                "--geocoding.upstream.geocoding-url=" + stub.forwardUrl(),
+                                "--geocoding.upstream.reverse-geocoding-url=" + stub.reverseUrl(),
+                                "--geocoding.upstream.http2=false",
+                                "--geocoding.cache.disk.enabled=false",
+                                "--geocoding.resilience.rate-limit.enabled=false",
+                                "--geocoding.cache.cluster.enabled=" + cluster,
+                                "--geocoding.cache.cluster.peers=" + peers,
+                                "--geocoding.cache.cluster.token=simulation"));
+            }
+            stub.resetCounters();
+
+            // Each address is first looked up on one instance, then on all the others.
+            for (int i = 0; i < addresses; i++) {
+                geocode(ports[i % instances], "address " + i);
+            }
+            long firstLookups = stub.getForwardCalls();
+            Thread.sleep(500); // Let the last batch arrive
+            for (int i = 0; i < addresses; i++) {
+                for (int port : ports) {
+                    geocode(port, "address " + i);
+                }
+            }
+            long allInstances = stub.getForwardCalls();
+
+            // Clear the cache on the first instance, as DELETE /actuator/caches/geocoding does, then look
+            // everything up on the last one.
+            contexts.get(0).getBean(CacheManager.class).getCache("geocoding").clear();
+            Thread.sleep(500);
+            stub.resetCounters();
+            for (int i = 0; i < addresses; i++) {
+                geocode(ports[instances - 1], "address " + i);
+            }
+            System.out.printf("%-10s %14d %14d %16.2f %16d%n", cluster ? "on" : "off", firstLookups, allInstances,
+                    (double) allInstances / addresses, stub.getForwardCalls());
+        } finally {
+            contexts.forEach(ConfigurableApplicationContext::close);
+        }
+    }
+
+    private static void geocode(int port, String address) throws IOException, InterruptedException {
+        send(HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + "/geocode?address="
+                + URLEncoder.encode(address, StandardCharsets.UTF_8))).build());
+    }
+
+    private static void send(HttpRequest request) throws IOException, InterruptedException {
+        HttpResponse<Void> response = HTTP.send(request, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() >= 300) {
+            throw new IllegalStateException(request.uri() + " answered " + response.statusCode());
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
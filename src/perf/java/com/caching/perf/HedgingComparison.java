@@ -0,0 +1,130 @@
+package com.caching.perf;
+
+import com.caching.configuration.ResilienceProperties;
+import com.caching.configuration.UpstreamClientConfig;
+import com.caching.configuration.UpstreamProperties;
+import com.caching.provider.GeoCodingProvider;
+import com.caching.repository.GeoCodingRepository;
+import com.caching.resilience.RequestHedger;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how hedging shortens the latency tail. Two {@link StubPositionStackServer}s stand in for two
+ * providers, each answering a small share of calls very slowly, and {@link GeoCodingRepository} calls them
+ * without hedging, with a fixed hedge delay and with the adaptive delay. Reports latency percentiles,
+ * the share of calls hedged, the share of hedges that answered first and the upstream calls per lookup.
+ *
+ * <p>Arguments: {@code [requests] [concurrency] [latencyMillis] [slowRate] [slowMillis] [fixedDelayMillis]},
+ * defaulting to {@code 5000 32 20 0.02 500 150}.
+ */
+public final class HedgingComparison {
+
+    private HedgingComparison() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int requests = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 32;
+        long latencyMillis = args.length > 2 ? Long.parseLong(args[2]) : 20;
+        double slowRate = args.length > 3 ? Double.parseDouble(args[3]) : 0.02;
+        long slowMillis = args.length > 4 ? Long.parseLong(args[4]) : 500;
+        long fixedDelayMillis = args.length > 5 ? Long.parseLong(args[5]) : 150;
+
+        try (StubPositionStackServer primary = StubPositionStackServer.start(0);
+             StubPositionStackServer secondary = StubPositionStackServer.start(0)) {
+            for (StubPositionStackServer stub : List.of(primary, secondary)) {
+                stub.setLatency(latencyMillis, latencyMillis / 2);
+                stub.setSlowCalls(slowRate, slowMillis);
+            }
+            UpstreamProperties properties = new UpstreamProperties();
+            properties.setHttp2(false);
+            properties.setProviders(List.of(provider("primary", primary), provider("secondary", secondary)));
+
+            System.out.printf("%d requests, concurrency %d, stub latency %d ms, %.1f%% of calls %d ms slower%n%n",
+                    requests, concurrency, latencyMillis, slowRate * 100, slowMillis);
+            System.out.printf("%-22s %9s %9s %10s %9s %9s %14s%n",
+                    "hedging", "p50 ms", "p99 ms", "p99.9 ms", "hedged", "won", "upstream/call");
+
+            run("off", null, properties, primary, secondary, requests, concurrency);
+            run("fixed " + fixedDelayMillis + " ms", Duration.ofMillis(fixedDelayMillis), properties,
+                    primary, secondary, requests, concurrency);
+            run("adaptive p95", null, properties, primary, secondary, requests, concurrency);
+        }
+    }
+
+    private static UpstreamProperties.Provider provider(String name, StubPositionStackServer stub) {
+        UpstreamProperties.Provider provider = new UpstreamProperties.Provider();
+        provider.setName(name);
+        provider.setGeocodingUrl(stub.forwardUrl());
+        provider.setReverseGeocodingUrl(stub.reverseUrl());
+        return provider;
+    }
+
+    private static void run(String name, Duration delay, UpstreamProperties properties,
+                            StubPositionStackServer primary, StubPositionStackServer secondary,
+                            int requests, int concurrency) throws InterruptedException {
+        // Measure hedging alone: no rate limit, breaker or bulkhead in the way.
+        ResilienceProperties resilience = new ResilienceProperties();
+        resilience.getRateLimit().setEnabled(false);
+        resilience.getCircuitBreaker().setEnabled(false);
+        resilience.getBulkhead().setMaxConcurrentCalls(Integer.MAX_VALUE);
+        resilience.getHedging().setEnabled(!name.equals("off"));
+        resilience.getHedging().setDelay(delay);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        UpstreamClientConfig clientConfig = new UpstreamClientConfig();
+        RequestHedger hedger = clientConfig.requestHedger(resilience, registry);
+        List<GeoCodingProvider> providers =
+                UpstreamClientConfig.configuredProviders(clientConfig.upstreamHttpClient(properties), properties);
+        GeoCodingRepository repository = new GeoCodingRepository(providers,
+                UpstreamClientConfig.upstreamGuards(providers, resilience, registry), hedger, registry);
+
+        // Warm up connections, the JIT and, for the adaptive delay, the latency samples.
+        lookups(repository, Math.min(requests, 1000), concurrency, "warm-up ");
+        double callsBefore = count(registry, "geocoding.upstream.hedge.calls");
+        double firedBefore = count(registry, "geocoding.upstream.hedge.fired");
+        double winsBefore = count(registry, "geocoding.upstream.hedge.wins");
+        primary.resetCounters();
+        secondary.resetCounters();
+
+        LatencyRecorder recorder = lookups(repository, requests, concurrency, "address ");
+        double calls = count(registry, "geocoding.upstream.hedge.calls") - callsBefore;
+        double fired = count(registry, "geocoding.upstream.hedge.fired") - firedBefore;
+        double wins = count(registry, "geocoding.upstream.hedge.wins") - winsBefore;
+        long upstreamCalls = primary.getForwardCalls() + secondary.getForwardCalls();
+        System.out.printf("%-22s %9.1f %9.1f %10.1f %8.1f%% %8.1f%% %14.3f%n", name,
+                recorder.percentileMillis(50), recorder.percentileMillis(99), recorder.percentileMillis(99.9),
+                calls == 0 ? 0 : fired * 100 / calls, fired == 0 ? 0 : wins * 100 / fired,
+                (double) upstreamCalls / requests);
+        hedger.close();
+        clientConfig.shutdown();
+    }
+
+    private static LatencyRecorder lookups(GeoCodingRepository repository, int requests, int concurrency,
+                                           String prefix) throws InterruptedException {
+        LatencyRecorder recorder = new LatencyRecorder(requests);
+        Semaphore inFlight = new Semaphore(concurrency);
+        CountDownLatch done = new CountDownLatch(requests);
+        for (int i = 0; i < requests; i++) {
+            inFlight.acquire();
+            long start = System.nanoTime();
+            repository.fetchGeocodeAsync(prefix + i).whenComplete((result, error) -> {
+                recorder.record(System.nanoTime() - start);
+                inFlight.release();
+                done.countDown();
+            });
+        }
+        done.await(10, TimeUnit.MINUTES);
+        return recorder;
+    }
+
+    private static double count(SimpleMeterRegistry registry, String name) {
+        return registry.find(name).counters().stream().mapToDouble(Counter::count).sum();
+    }
+}
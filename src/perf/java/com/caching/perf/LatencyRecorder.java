@@ -0,0 +1,46 @@
+package com.caching.perf;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fixed-capacity, thread-safe recorder of latency samples in nanoseconds.
+ * Samples beyond the capacity are dropped.
+ */
+public class LatencyRecorder {
+
+    private final long[] samples;
+    private final AtomicInteger count = new AtomicInteger();
+
+    public LatencyRecorder(int capacity) {
+        this.samples = new long[capacity];
+    }
+
+    public void record(long nanos) {
+        int index = count.getAndIncrement();
+        if (index < samples.length) {
+            samples[index] = nanos;
+        }
+    }
+
+    public int count() {
+        return Math.min(count.get(), samples.length);
+    }
+
+    /**
+     * Returns the given percentile of the recorded samples in milliseconds.
+     *
+     * @param percentile A value between 0 and 100.
+     * @return The latency at that percentile, or 0 when nothing was recorded.
+     */
+    public double percentileMillis(double percentile) {
+        int size = count();
+        if (size == 0) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(samples, size);
+        Arrays.sort(sorted);
+        int index = (int) Math.min(size - 1, Math.ceil(percentile / 100.0 * size) - 1);
+        return sorted[Math.max(index, 0)] / 1_000_000.0;
+    }
+}
@@ -0,0 +1,282 @@
+package com.caching.perf;
+
+import com.caching.Application;
+import com.caching.cache.CoalescingCaffeineCache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.boot.Banner;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.cache.CacheManager;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * End-to-end load test: runs the application with an embedded Tomcat against a {@link StubPositionStackServer}
+ * and replays forward and reverse lookups over HTTP at a fixed rate, drawing keys from a Zipfian or uniform
+ * distribution with a share of non-cacheable ("goa") addresses. Reports throughput, latency percentiles,
+ * the geocoding cache hit ratio and the upstream calls made, so that runs before and after a change can be
+ * compared.
+ *
+ * <p>Requests are sent on schedule whether or not earlier ones were answered, and latency is measured from
+ * the scheduled send time, so a stalled server shows up in the percentiles instead of lowering the rate.
+ *
+ * <p>Arguments: {@code [distribution] [requestsPerSecond] [seconds] [keys] [reverseShare] [nonCacheableShare]
+ * [latencyMillis] [errorRate]}, defaulting to {@code zipf 200 30 10000 0.2 0.01 20 0}. The distribution is
+ * {@code uniform}, {@code zipf} or {@code zipf:<exponent>} ({@code zipf} is {@code zipf:1.0}). Any further
+ * {@code --name=value} arguments are passed to the application, e.g. {@code --geocoding.web.async=true}.
+ */
+public final class LoadTest {
+
+    private static final int WARM_UP_SECONDS = 5;
+    private static final int WARM_UP_KEYS = 100;
+    private static final int MAX_IN_FLIGHT = 4096;
+    private static final String[] NON_CACHEABLE = {"goa", "Goa", " GOA "};
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> positional = new ArrayList<>();
+        Map<String, String> overrides = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--")) {
+                int separator = arg.indexOf('=');
+                overrides.put(separator < 0 ? arg : arg.substring(0, separator),
+                        separator < 0 ? "" : arg.substring(separator + 1));
+            } else {
+                positional.add(arg);
+            }
+        }
+        String distribution = positional.size() > 0 ? positional.get(0) : "zipf";
+        int requestsPerSecond = positional.size() > 1 ? Integer.parseInt(positional.get(1)) : 200;
+        int seconds = positional.size() > 2 ? Integer.parseInt(positional.get(2)) : 30;
+        int keys = positional.size() > 3 ? Integer.parseInt(positional.get(3)) : 10_000;
+        double reverseShare = positional.size() > 4 ? Double.parseDouble(positional.get(4)) : 0.2;
+        double nonCacheableShare = positional.size() > 5 ? Double.parseDouble(positional.get(5)) : 0.01;
+        long latencyMillis = positional.size() > 6 ? Long.parseLong(positional.get(6)) : 20;
+        double errorRate = positional.size() > 7 ? Double.parseDouble(positional.get(7)) : 0;
+
+        KeyDistribution keyDistribution = KeyDistribution.parse(distribution, keys);
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        try (StubPositionStackServer stub = StubPositionStackServer.start(0);
+             ServletWebServerApplicationContext context = (ServletWebServerApplicationContext)
+                     new SpringApplicationBuilder(Application.class)
+                             .bannerMode(Banner.Mode.OFF)
+                             .run(applicationArguments(stub, overrides))) {
+            stub.setLatency(latencyMillis, latencyMillis / 5);
+            String baseUrl = "http://localhost:" + context.getWebServer().getPort();
+            CacheManager cacheManager = context.getBean(CacheManager.class);
+
+            System.out.printf("%s over %d keys, %d req/s for %d s, %.0f%% reverse, %.1f%% non-cacheable, "
+                            + "stub latency %d ms, stub error rate %.2f%s%n%n",
+                    distribution, keys, requestsPerSecond, seconds, reverseShare * 100, nonCacheableShare * 100,
+                    latencyMillis, errorRate, overrides.isEmpty() ? "" : ", " + overrides);
+
+            // Warm up the JIT and connection pools on keys the measured run does not use. Errors are off,
+            // so that the circuit breaker starts closed.
+            drive(client, baseUrl, new Workload("Warm-up", -40.0, KeyDistribution.uniform(WARM_UP_KEYS), 0.5, 0),
+                    requestsPerSecond, WARM_UP_SECONDS);
+            stub.setErrorRate(errorRate);
+            stub.resetCounters();
+            CacheStats before = stats(cacheManager);
+
+            Workload workload = new Workload("Address", 10.0, keyDistribution, reverseShare, nonCacheableShare);
+            Result result = drive(client, baseUrl, workload, requestsPerSecond, seconds);
+            CacheStats stats = stats(cacheManager).minus(before);
+            long upstreamCalls = stub.getForwardCalls() + stub.getReverseCalls();
+
+            System.out.printf("%10s %10s %9s %9s %10s %9s %10s %10s %10s %13s%n", "requests", "req/s",
+                    "p50 ms", "p99 ms", "p99.9 ms", "max ms", "hit ratio", "forward", "reverse", "upstream/req");
+            System.out.printf("%10d %10.0f %9.1f %9.1f %10.1f %9.1f %9.1f%% %10d %10d %13.3f%n",
+                    result.latencies.count(), result.latencies.count() / result.seconds,
+                    result.latencies.percentileMillis(50), result.latencies.percentileMillis(99),
+                    result.latencies.percentileMillis(99.9), result.latencies.percentileMillis(100),
+                    stats.hitRate() * 100, stub.getForwardCalls(), stub.getReverseCalls(),
+                    (double) upstreamCalls / Math.max(1, result.latencies.count()));
+            System.out.printf("%nresponses by status: %s%n", result.statusView());
+        }
+    }
+
+    private static String[] applicationArguments(StubPositionStackServer stub, Map<String, String> overrides) {
+        // Command-line arguments, so that they take precedence over application.properties.
+        Map<String, String> arguments = new LinkedHashMap<>();
+        arguments.put("--server.port", "0");
+        arguments.put("--logging.level.root", "WARN");
+        arguments.put("--logging.level.com.caching", "ERROR");
+        arguments.put("--logging.level.com.github.benmanes.caffeine", "ERROR");
+        arguments.put("--geocoding.upstream.geocoding-url", stub.forwardUrl());
+        arguments.put("--geocoding.upstream.reverse-geocoding-url", stub.reverseUrl());
+        arguments.put("--geocoding.upstream.http2", "false");
+        // Every run starts from empty caches, and misses reach the stub rather than the upstream quota.
+        arguments.put("--geocoding.cache.disk.enabled", "false");
+        arguments.put("--geocoding.resilience.rate-limit.enabled", "false");
+        arguments.putAll(overrides);
+        return arguments.entrySet().stream()
+                .map(argument -> argument.getKey() + "=" + argument.getValue())
+                .toArray(String[]::new);
+    }
+
+    private static Result drive(HttpClient client, String baseUrl, Workload workload, int requestsPerSecond,
+                                int seconds) throws InterruptedException {
+        int requests = requestsPerSecond * seconds;
+        Result result = new Result(requests);
+        SplittableRandom random = new SplittableRandom(42);
+        Semaphore inFlight = new Semaphore(MAX_IN_FLIGHT);
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / requestsPerSecond;
+        long start = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            long scheduled = start + i * intervalNanos;
+            long sleep = scheduled - System.nanoTime();
+            if (sleep > 0) {
+                TimeUnit.NANOSECONDS.sleep(sleep);
+            }
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + workload.next(random))).build();
+            inFlight.acquire();
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+                result.latencies.record(System.nanoTime() - scheduled);
+                result.statuses.computeIfAbsent(error == null ? String.valueOf(response.statusCode())
+                        : error.getClass().getSimpleName(), status -> new LongAdder()).increment();
+                inFlight.release();
+            });
+        }
+        inFlight.acquire(MAX_IN_FLIGHT);
+        result.seconds = (System.nanoTime() - start) / 1e9;
+        return result;
+    }
+
+    private static CacheStats stats(CacheManager cacheManager) {
+        CacheStats stats = CacheStats.empty();
+        for (String name : new String[]{"geocoding", "reverse-geocoding"}) {
+            CoalescingCaffeineCache cache = (CoalescingCaffeineCache) cacheManager.getCache(name);
+            stats = stats.plus(cache.getNativeCache().synchronous().stats());
+        }
+        return stats;
+    }
+
+    /**
+     * The requests of a run: a mix of forward lookups, reverse lookups and non-cacheable forward lookups,
+     * with keys drawn from the given distribution.
+     */
+    private static final class Workload {
+        private final String prefix;
+        private final double latitudeOrigin;
+        private final KeyDistribution keys;
+        private final double reverseShare;
+        private final double nonCacheableShare;
+
+        private Workload(String prefix, double latitudeOrigin, KeyDistribution keys, double reverseShare,
+                         double nonCacheableShare) {
+            this.prefix = prefix;
+            this.latitudeOrigin = latitudeOrigin;
+            this.keys = keys;
+            this.reverseShare = reverseShare;
+            this.nonCacheableShare = nonCacheableShare;
+        }
+
+        private String next(SplittableRandom random) {
+            double kind = random.nextDouble();
+            if (kind < nonCacheableShare) {
+                return "/geocode?address=" + encode(NON_CACHEABLE[random.nextInt(NON_CACHEABLE.length)]);
+            }
+            int key = keys.next(random);
+            if (kind < nonCacheableShare + reverseShare) {
+                // One key per point of a 0.01 degree grid, far enough apart not to be answered from each other
+                // by the spatial index.
+                return String.format(Locale.ROOT, "/reverse-geocoding?latitude=%.2f&longitude=%.2f",
+                        latitudeOrigin + (key / 1000) * 0.01, 70.0 + (key % 1000) * 0.01);
+            }
+            return "/geocode?address=" + encode(prefix + " " + key);
+        }
+
+        private static String encode(String value) {
+            return URLEncoder.encode(value, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Draws key numbers between 0 and the key count, either uniformly or by a Zipf law where the key ranked
+     * {@code k} is drawn with a probability proportional to {@code 1 / k^exponent}.
+     */
+    private static final class KeyDistribution {
+        private final int keys;
+        private final double[] cumulative;
+
+        private KeyDistribution(int keys, double[] cumulative) {
+            this.keys = keys;
+            this.cumulative = cumulative;
+        }
+
+        private static KeyDistribution uniform(int keys) {
+            return new KeyDistribution(keys, null);
+        }
+
+        private static KeyDistribution zipf(int keys, double exponent) {
+            double[] cumulative = new double[keys];
+            double sum = 0;
+            for (int rank = 1; rank <= keys; rank++) {
+                sum += 1 / Math.pow(rank, exponent);
+                cumulative[rank - 1] = sum;
+            }
+            for (int i = 0; i < keys; i++) {
+                cumulative[i] /= sum;
+            }
+            return new KeyDistribution(keys, cumulative);
+        }
+
+        private static KeyDistribution parse(String name, int keys) {
+            if (name.equals("uniform")) {
+                return uniform(keys);
+            }
+            if (name.equals("zipf")) {
+                return zipf(keys, 1.0);
+            }
+            if (name.startsWith("zipf:")) {
+                return zipf(keys, Double.parseDouble(name.substring("zipf:".length())));
+            }
+            throw new IllegalArgumentException("Unknown distribution " + name
+                    + ", expected uniform, zipf or zipf:<exponent>");
+        }
+
+        private int next(SplittableRandom random) {
+            if (cumulative == null) {
+                return random.nextInt(keys);
+            }
+            int index = Arrays.binarySearch(cumulative, random.nextDouble());
+            return Math.min(keys - 1, index < 0 ? -index - 1 : index);
+        }
+    }
+
+    private static final class Result {
+        private final LatencyRecorder latencies;
+        private final ConcurrentMap<String, LongAdder> statuses = new ConcurrentHashMap<>();
+        private double seconds;
+
+        private Result(int requests) {
+            this.latencies = new LatencyRecorder(requests);
+        }
+
+        private Map<String, Long> statusView() {
+            Map<String, Long> view = new TreeMap<>();
+            statuses.forEach((status, adder) -> view.put(status, adder.sum()));
+            return view;
+        }
+    }
+}
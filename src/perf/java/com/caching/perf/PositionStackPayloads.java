@@ -0,0 +1,75 @@
+package com.caching.perf;
+
+/**
+ * Builds PositionStack-shaped JSON payloads for stubs and benchmarks.
+ * Coordinates are derived from the query so repeated calls return the same result.
+ */
+public final class PositionStackPayloads {
+
+    private PositionStackPayloads() {
+        // Private constructor to prevent instantiation
+    }
+
+    /**
+     * Builds a forward geocoding response with several candidates, like the real API returns.
+     *
+     * @param query The address that was queried.
+     * @return The response body.
+     */
+    public static String forward(String query) {
+        int hash = query.hashCode();
+        double latitude = 8 + Math.floorMod(hash, 2800) / 100.0;
+        double longitude = 68 + Math.floorMod(hash >>> 8, 2900) / 100.0;
+        StringBuilder json = new StringBuilder(2048).append("{\"data\":[");
+        for (int i = 0; i < 3; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            appendResult(json, latitude + i * 0.01, longitude - i * 0.01, query, 1.0 - i * 0.2);
+        }
+        return json.append("]}").toString();
+    }
+
+    /**
+     * Builds a reverse geocoding response for the given coordinates.
+     *
+     * @param latitude  The queried latitude.
+     * @param longitude The queried longitude.
+     * @return The response body.
+     */
+    public static String reverse(double latitude, double longitude) {
+        StringBuilder json = new StringBuilder(2048).append("{\"data\":[");
+        appendResult(json, latitude, longitude, "Street " + Math.round(Math.abs(latitude * 1000)), 1.0);
+        json.append(',');
+        appendResult(json, latitude + 0.001, longitude + 0.001, "Locality " + Math.round(Math.abs(longitude * 100)), 0.8);
+        return json.append("]}").toString();
+    }
+
+    /**
+     * Builds a response without results, as returned for unknown addresses.
+     *
+     * @return The response body.
+     */
+    public static String empty() {
+        return "{\"data\":[]}";
+    }
+
+    private static void appendResult(StringBuilder json, double latitude, double longitude, String name, double confidence) {
+        json.append("{\"latitude\":").append(latitude)
+                .append(",\"longitude\":").append(longitude)
+                .append(",\"type\":\"locality\",\"distance\":0.1")
+                .append(",\"name\":\"").append(escape(name)).append('"')
+                .append(",\"number\":null,\"postal_code\":\"560001\",\"street\":null")
+                .append(",\"confidence\":").append(confidence)
+                .append(",\"region\":\"Karnataka\",\"region_code\":\"KA\",\"county\":\"Bangalore Urban\"")
+                .append(",\"locality\":\"").append(escape(name)).append('"')
+                .append(",\"administrative_area\":null,\"neighbourhood\":\"Central\"")
+                .append(",\"country\":\"India\",\"country_code\":\"IND\",\"continent\":\"Asia\"")
+                .append(",\"label\":\"").append(escape(name)).append(", KA, India\"")
+                .append(",\"map_url\":\"http://map.positionstack.com/").append(latitude).append(',').append(longitude).append("\"}");
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+}
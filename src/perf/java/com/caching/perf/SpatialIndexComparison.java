@@ -0,0 +1,77 @@
+package com.caching.perf;
+
+import com.caching.cache.SpatialReverseIndex;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Replays clustered reverse geocoding lookups against an exact-key map and against
+ * {@link SpatialReverseIndex}, and reports the hit ratio and lookup latency of each.
+ * Lookups are scattered a few metres around a set of hotspots and formatted with varying precision,
+ * as they arrive from real clients.
+ *
+ * <p>Arguments: {@code [lookups] [hotspots] [scatterMeters] [radiusMeters]}, defaulting to {@code 200000 500 10 25}.
+ */
+public final class SpatialIndexComparison {
+
+    private static final double METERS_PER_DEGREE = 111_320.0;
+
+    private SpatialIndexComparison() {
+    }
+
+    public static void main(String[] args) {
+        int lookups = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int hotspots = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        double scatterMeters = args.length > 2 ? Double.parseDouble(args[2]) : 10;
+        double radiusMeters = args.length > 3 ? Double.parseDouble(args[3]) : 25;
+
+        Random random = new Random(42);
+        double[][] centres = new double[hotspots][2];
+        for (double[] centre : centres) {
+            centre[0] = 8 + random.nextDouble() * 28;
+            centre[1] = 68 + random.nextDouble() * 29;
+        }
+        String[][] queries = new String[lookups][2];
+        for (String[] query : queries) {
+            double[] centre = centres[random.nextInt(hotspots)];
+            double latitude = centre[0] + random.nextGaussian() * scatterMeters / METERS_PER_DEGREE;
+            double longitude = centre[1] + random.nextGaussian() * scatterMeters / METERS_PER_DEGREE;
+            String format = "%." + (3 + random.nextInt(4)) + "f";
+            query[0] = String.format(Locale.ROOT, format, latitude);
+            query[1] = String.format(Locale.ROOT, format, longitude);
+        }
+
+        ConcurrentMap<List<String>, String> exact = new ConcurrentHashMap<>();
+        long exactHits = 0;
+        long start = System.nanoTime();
+        for (String[] query : queries) {
+            List<String> key = List.of(query[0], query[1]);
+            if (exact.get(key) != null) {
+                exactHits++;
+            } else {
+                exact.put(key, "resolved");
+            }
+        }
+        long exactNanos = System.nanoTime() - start;
+
+        SpatialReverseIndex<String> index = new SpatialReverseIndex<>(true, radiusMeters, 1_000_000, Duration.ofHours(1));
+        for (String[] query : queries) {
+            if (index.findNearest(query[0], query[1]) == null) {
+                index.add(query[0], query[1], "resolved");
+            }
+        }
+
+        System.out.printf("%d lookups around %d hotspots, scatter %.0f m, radius %.0f m%n%n",
+                lookups, hotspots, scatterMeters, radiusMeters);
+        System.out.printf("%-16s %10s %16s %18s%n", "strategy", "hit ratio", "upstream calls", "avg lookup (ns)");
+        System.out.printf("%-16s %10.3f %16d %18.0f%n", "exact key", (double) exactHits / lookups,
+                lookups - exactHits, (double) exactNanos / lookups);
+        System.out.printf("%-16s %10.3f %16d %18.0f%n", "spatial index", index.getHitRatio(),
+                index.getMissCount(), (double) index.getTotalLookupNanos() / lookups);
+    }
+}
@@ -0,0 +1,181 @@
+package com.caching.perf;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Local stand-in for the PositionStack {@code /v1/forward} and {@code /v1/reverse} endpoints.
+ * Latency, slow call tail and error rate can be changed while the server is running. Queries containing
+ * {@value #NOT_FOUND_MARKER} return an empty result set.
+ */
+public class StubPositionStackServer implements AutoCloseable {
+
+    public static final String NOT_FOUND_MARKER = "nowhere";
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final LongAdder forwardCalls = new LongAdder();
+    private final LongAdder reverseCalls = new LongAdder();
+    private volatile long latencyMillis;
+    private volatile long latencyJitterMillis;
+    private volatile double errorRate;
+    private volatile double slowCallRate;
+    private volatile long slowCallMillis;
+
+    private StubPositionStackServer(HttpServer server, ExecutorService executor) {
+        this.server = server;
+        this.executor = executor;
+    }
+
+    /**
+     * Starts a stub server on the given port.
+     *
+     * @param port The port to listen on, or 0 for an ephemeral port.
+     * @return The running server.
+     * @throws IOException If the port cannot be bound.
+     */
+    public static StubPositionStackServer start(int port) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 1024);
+        ExecutorService executor = Executors.newCachedThreadPool();
+        StubPositionStackServer stub = new StubPositionStackServer(server, executor);
+        server.createContext("/v1/forward", stub::handleForward);
+        server.createContext("/v1/reverse", stub::handleReverse);
+        server.setExecutor(executor);
+        server.start();
+        return stub;
+    }
+
+    public String forwardUrl() {
+        return baseUrl() + "/v1/forward";
+    }
+
+    public String reverseUrl() {
+        return baseUrl() + "/v1/reverse";
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Sets the simulated upstream latency.
+     *
+     * @param baseMillis   Latency applied to every call.
+     * @param jitterMillis Additional random latency between 0 and this value.
+     */
+    public void setLatency(long baseMillis, long jitterMillis) {
+        this.latencyMillis = baseMillis;
+        this.latencyJitterMillis = jitterMillis;
+    }
+
+    /**
+     * Sets a latency tail: a fraction of calls is delayed by a further fixed amount.
+     *
+     * @param rate   Fraction of slow calls, between 0 and 1.
+     * @param millis Additional latency of a slow call.
+     */
+    public void setSlowCalls(double rate, long millis) {
+        this.slowCallRate = rate;
+        this.slowCallMillis = millis;
+    }
+
+    /**
+     * Sets the fraction of calls answered with HTTP 500.
+     *
+     * @param errorRate A value between 0 and 1.
+     */
+    public void setErrorRate(double errorRate) {
+        this.errorRate = errorRate;
+    }
+
+    public long getForwardCalls() {
+        return forwardCalls.sum();
+    }
+
+    public long getReverseCalls() {
+        return reverseCalls.sum();
+    }
+
+    public void resetCounters() {
+        forwardCalls.reset();
+        reverseCalls.reset();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handleForward(HttpExchange exchange) throws IOException {
+        forwardCalls.increment();
+        String query = queryParameter(exchange);
+        respond(exchange, query.contains(NOT_FOUND_MARKER) ? PositionStackPayloads.empty() : PositionStackPayloads.forward(query));
+    }
+
+    private void handleReverse(HttpExchange exchange) throws IOException {
+        reverseCalls.increment();
+        String[] coordinates = queryParameter(exchange).split(",");
+        try {
+            double latitude = Double.parseDouble(coordinates[0]);
+            double longitude = Double.parseDouble(coordinates[1]);
+            respond(exchange, PositionStackPayloads.reverse(latitude, longitude));
+        } catch (RuntimeException ex) {
+            send(exchange, 422, "{\"error\":{\"code\":\"validation_error\"}}");
+        }
+    }
+
+    private void respond(HttpExchange exchange, String body) throws IOException {
+        long delay = latencyMillis + (latencyJitterMillis > 0 ? ThreadLocalRandom.current().nextLong(latencyJitterMillis + 1) : 0);
+        if (slowCallRate > 0 && ThreadLocalRandom.current().nextDouble() < slowCallRate) {
+            delay += slowCallMillis;
+        }
+        if (delay > 0) {
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+            send(exchange, 500, "{\"error\":{\"code\":\"internal_error\"}}");
+        } else {
+            send(exchange, 200, body);
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static String queryParameter(HttpExchange exchange) {
+        String rawQuery = exchange.getRequestURI().getRawQuery();
+        if (rawQuery != null) {
+            for (String parameter : rawQuery.split("&")) {
+                if (parameter.startsWith("query=")) {
+                    return URLDecoder.decode(parameter.substring("query=".length()), StandardCharsets.UTF_8);
+                }
+            }
+        }
+        return "";
+    }
+
+    private String baseUrl() {
+        return "http://127.0.0.1:" + getPort();
+    }
+}
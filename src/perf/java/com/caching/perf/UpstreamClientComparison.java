@@ -0,0 +1,123 @@
+package com.caching.perf;
+
+import com.caching.configuration.ResilienceProperties;
+import com.caching.configuration.UpstreamClientConfig;
+import com.caching.configuration.UpstreamProperties;
+import com.caching.provider.GeoCodingProvider;
+import com.caching.repository.GeoCodingRepository;
+import com.caching.utility.GeoCodingUtils;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.web.client.RestTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the original blocking RestTemplate client with the pooled asynchronous client used by
+ * {@link GeoCodingRepository}, both calling a local {@link StubPositionStackServer}.
+ *
+ * <p>Arguments: {@code [requests] [concurrency] [latencyMillis]}, defaulting to {@code 2000 64 50}.
+ */
+public final class UpstreamClientComparison {
+
+    private UpstreamClientComparison() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int requests = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        long latencyMillis = args.length > 2 ? Long.parseLong(args[2]) : 50;
+
+        try (StubPositionStackServer stub = StubPositionStackServer.start(0)) {
+            stub.setLatency(latencyMillis, latencyMillis / 5);
+
+            UpstreamProperties properties = new UpstreamProperties();
+            properties.setGeocodingUrl(stub.forwardUrl());
+            properties.setReverseGeocodingUrl(stub.reverseUrl());
+            properties.setHttp2(false);
+            // Measure the clients alone: no rate limit, breaker or bulkhead in the way.
+            ResilienceProperties resilience = new ResilienceProperties();
+            resilience.getRateLimit().setEnabled(false);
+            resilience.getCircuitBreaker().setEnabled(false);
+            resilience.getBulkhead().setMaxConcurrentCalls(Integer.MAX_VALUE);
+            SimpleMeterRegistry registry = new SimpleMeterRegistry();
+            UpstreamClientConfig clientConfig = new UpstreamClientConfig();
+            List<GeoCodingProvider> providers =
+                    UpstreamClientConfig.configuredProviders(clientConfig.upstreamHttpClient(properties), properties);
+            GeoCodingRepository repository = new GeoCodingRepository(providers,
+                    UpstreamClientConfig.upstreamGuards(providers, resilience, registry),
+                    clientConfig.requestHedger(resilience, registry), registry);
+
+            System.out.printf("%d requests, concurrency %d, stub latency %d ms%n%n", requests, concurrency, latencyMillis);
+            System.out.printf("%-28s %12s %10s %10s %10s %12s%n", "client", "req/s", "p50 ms", "p99 ms", "max ms", "peak threads");
+
+            // Warm up both paths so connection setup and JIT do not skew the first run.
+            runBlocking(stub, Math.min(requests, 200), concurrency);
+            runAsync(repository, Math.min(requests, 200), concurrency);
+
+            report("RestTemplate (blocking)", () -> runBlocking(stub, requests, concurrency));
+            report("HttpClient (async, pooled)", () -> runAsync(repository, requests, concurrency));
+            clientConfig.shutdown();
+        }
+    }
+
+    private static LatencyRecorder runBlocking(StubPositionStackServer stub, int requests, int concurrency)
+            throws InterruptedException {
+        RestTemplate restTemplate = new RestTemplate();
+        LatencyRecorder recorder = new LatencyRecorder(requests);
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        for (int i = 0; i < requests; i++) {
+            String url = GeoCodingUtils.buildApiUrl(stub.forwardUrl(), "stub", Map.of("query", "address " + i));
+            workers.execute(() -> {
+                long start = System.nanoTime();
+                byte[] response = restTemplate.getForObject(url, byte[].class);
+                GeoCodingUtils.parseGeoResponse(response);
+                recorder.record(System.nanoTime() - start);
+            });
+        }
+        workers.shutdown();
+        workers.awaitTermination(10, TimeUnit.MINUTES);
+        return recorder;
+    }
+
+    private static LatencyRecorder runAsync(GeoCodingRepository repository, int requests, int concurrency)
+            throws InterruptedException {
+        LatencyRecorder recorder = new LatencyRecorder(requests);
+        Semaphore inFlight = new Semaphore(concurrency);
+        CountDownLatch done = new CountDownLatch(requests);
+        for (int i = 0; i < requests; i++) {
+            inFlight.acquire();
+            long start = System.nanoTime();
+            repository.fetchGeocodeAsync("address " + i).whenComplete((result, error) -> {
+                recorder.record(System.nanoTime() - start);
+                inFlight.release();
+                done.countDown();
+            });
+        }
+        done.await(10, TimeUnit.MINUTES);
+        return recorder;
+    }
+
+    private static void report(String name, Run run) throws Exception {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        threads.resetPeakThreadCount();
+        long start = System.nanoTime();
+        LatencyRecorder recorder = run.execute();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%-28s %12.0f %10.1f %10.1f %10.1f %12d%n", name, recorder.count() / seconds,
+                recorder.percentileMillis(50), recorder.percentileMillis(99), recorder.percentileMillis(100),
+                threads.getPeakThreadCount());
+    }
+
+    @FunctionalInterface
+    private interface Run {
+        LatencyRecorder execute() throws Exception;
+    }
+}
@@ -0,0 +1,158 @@
+package com.caching.perf;
+
+import com.caching.Application;
+import com.caching.cache.StaleValueCache;
+import com.caching.repository.GeoCodingRepository;
+import com.caching.resilience.UpstreamGuard;
+import com.caching.service.GeoCodingService;
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Drives the application's geocoding service through a healthy period, an upstream outage, a slow
+ * upstream and a recovery, using {@link StubPositionStackServer}, and reports per phase how requests
+ * were answered, how many reached the upstream, and the circuit breaker state at the end of the phase.
+ *
+ * <p>Arguments: {@code [requestsPerSecond] [addresses] [phaseSeconds]}, defaulting to {@code 200 300 8}.
+ */
+public final class UpstreamOutageSimulation {
+
+    private UpstreamOutageSimulation() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int requestsPerSecond = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int addresses = args.length > 1 ? Integer.parseInt(args[1]) : 300;
+        int phaseSeconds = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+
+        try (StubPositionStackServer stub = StubPositionStackServer.start(0);
+             ConfigurableApplicationContext context = new SpringApplicationBuilder(Application.class)
+                     .web(WebApplicationType.NONE)
+                     .bannerMode(Banner.Mode.OFF)
+                     // Command-line arguments, so that they take precedence over application.properties.
+                     .run("--logging.level.root=WARN",
+                             "--logging.level.com.caching=ERROR",
+                             "--logging.level.com.github.benmanes.caffeine=ERROR",
+                             "--geocoding.upstream.geocoding-url=" + stub.forwardUrl(),
+                             "--geocoding.upstream.reverse-geocoding-url=" + stub.reverseUrl(),
+                             "--geocoding.upstream.http2=false",
+                             "--geocoding.upstream.request-timeout=500ms",
+                             "--geocoding.cache.disk.enabled=false",
+                             // Short lifetimes so entries expire, and become stale values, within a phase.
+                             "--geocoding.cache.ttl=3s",
+                             "--geocoding.cache.refresh-after=2s",
+                             "--geocoding.cache.stale.served-ttl=2s",
+                             // Enough upstream quota for the healthy load, so that rejections come from the breaker.
+                             "--geocoding.resilience.rate-limit.permits-per-second=500",
+                             "--geocoding.resilience.rate-limit.burst=500",
+                             "--geocoding.resilience.circuit-breaker.wait-in-open-state=3s")) {
+            GeoCodingService service = context.getBean(GeoCodingService.class);
+            UpstreamGuard guard = context.getBean(GeoCodingRepository.class).getGuard("positionstack");
+            StaleValueCache stale = (StaleValueCache) context.getBean(CacheManager.class).getCache("geocoding-stale");
+
+            System.out.printf("%d req/s over %d addresses, %d s per phase%n%n", requestsPerSecond, addresses, phaseSeconds);
+            System.out.printf("%-10s %9s %9s %9s %9s %9s %10s  %s%n",
+                    "phase", "requests", "ok", "stale", "503", "other", "upstream", "breaker / failures");
+
+            Phase[] phases = {
+                    new Phase("healthy", 0, 0),
+                    new Phase("outage", 1.0, 0),
+                    new Phase("slow", 0, 2_000),
+                    new Phase("recovered", 0, 0)
+            };
+            for (Phase phase : phases) {
+                stub.setErrorRate(phase.errorRate);
+                stub.setLatency(phase.latencyMillis, 0);
+                stub.resetCounters();
+                long staleBefore = stale.getNativeCache().stats().hitCount();
+
+                Outcomes outcomes = drive(service, requestsPerSecond, addresses, phaseSeconds);
+
+                System.out.printf("%-10s %9d %9d %9d %9d %9d %10d  %s %s%n", phase.name,
+                        outcomes.requests.sum(), outcomes.ok.sum(),
+                        stale.getNativeCache().stats().hitCount() - staleBefore,
+                        outcomes.count("UpstreamUnavailableException"), outcomes.other(),
+                        stub.getForwardCalls(), guard.getCircuitState(), outcomes.failuresView());
+            }
+        }
+    }
+
+    private static Outcomes drive(GeoCodingService service, int requestsPerSecond, int addresses, int seconds)
+            throws InterruptedException {
+        Outcomes outcomes = new Outcomes();
+        Semaphore inFlight = new Semaphore(256);
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / requestsPerSecond;
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(seconds);
+        long next = start;
+        while (next < end) {
+            long sleep = next - System.nanoTime();
+            if (sleep > 0) {
+                TimeUnit.NANOSECONDS.sleep(sleep);
+            }
+            next += intervalNanos;
+            inFlight.acquire();
+            outcomes.requests.increment();
+            String address = "Address " + ThreadLocalRandom.current().nextInt(addresses);
+            service.getGeocodeAsync(address).whenComplete((result, error) -> {
+                if (error == null) {
+                    outcomes.ok.increment();
+                } else {
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null
+                            ? error.getCause() : error;
+                    outcomes.failures.computeIfAbsent(cause.getClass().getSimpleName(), name -> new LongAdder())
+                            .increment();
+                }
+                inFlight.release();
+            });
+        }
+        inFlight.acquire(256);
+        return outcomes;
+    }
+
+    private static final class Phase {
+        private final String name;
+        private final double errorRate;
+        private final long latencyMillis;
+
+        private Phase(String name, double errorRate, long latencyMillis) {
+            this.name = name;
+            this.errorRate = errorRate;
+            this.latencyMillis = latencyMillis;
+        }
+    }
+
+    private static final class Outcomes {
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder ok = new LongAdder();
+        private final ConcurrentMap<String, LongAdder> failures = new ConcurrentHashMap<>();
+
+        private long count(String type) {
+            LongAdder adder = failures.get(type);
+            return adder == null ? 0 : adder.sum();
+        }
+
+        private long other() {
+            return failures.values().stream().mapToLong(LongAdder::sum).sum() - count("UpstreamUnavailableException");
+        }
+
+        private Map<String, Long> failuresView() {
+            Map<String, Long> view = new TreeMap<>();
+            failures.forEach((type, adder) -> view.put(type, adder.sum()));
+            return view;
+        }
+    }
+}
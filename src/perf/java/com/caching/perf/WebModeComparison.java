@@ -0,0 +1,139 @@
+package com.caching.perf;
+
+import com.caching.Application;
+import org.springframework.boot.Banner;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compares the blocking and the asynchronous ({@code geocoding.web.async}) endpoint modes over real HTTP.
+ * Each mode runs the application with an embedded Tomcat against a slow {@link StubPositionStackServer}
+ * and sends a mix of cache hits and misses, so that misses could occupy the Tomcat worker pool.
+ * Hit and miss latencies are reported separately.
+ *
+ * <p>Arguments: {@code [requests] [concurrency] [hitRatio] [latencyMillis] [tomcatThreads]},
+ * defaulting to {@code 20000 400 0.9 200 200}.
+ */
+public final class WebModeComparison {
+
+    private static final int HOT_ADDRESSES = 100;
+
+    private WebModeComparison() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int requests = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 400;
+        double hitRatio = args.length > 2 ? Double.parseDouble(args[2]) : 0.9;
+        long latencyMillis = args.length > 3 ? Long.parseLong(args[3]) : 200;
+        int tomcatThreads = args.length > 4 ? Integer.parseInt(args[4]) : 200;
+
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        try (StubPositionStackServer stub = StubPositionStackServer.start(0)) {
+            stub.setLatency(latencyMillis, latencyMillis / 5);
+
+            System.out.printf("%d requests, concurrency %d, hit ratio %.2f, upstream latency %d ms, %d Tomcat threads%n%n",
+                    requests, concurrency, hitRatio, latencyMillis, tomcatThreads);
+            System.out.printf("%-10s %10s %11s %11s %12s %12s %13s%n",
+                    "mode", "req/s", "hit p50 ms", "hit p99 ms", "miss p50 ms", "miss p99 ms", "peak threads");
+            for (boolean async : new boolean[]{false, true}) {
+                run(client, stub, async, requests, concurrency, hitRatio, tomcatThreads);
+            }
+        }
+    }
+
+    private static void run(HttpClient client, StubPositionStackServer stub, boolean async, int requests,
+                            int concurrency, double hitRatio, int tomcatThreads) throws Exception {
+        try (ServletWebServerApplicationContext context = (ServletWebServerApplicationContext)
+                new SpringApplicationBuilder(Application.class)
+                        .bannerMode(Banner.Mode.OFF)
+                        // Command-line arguments, so that they take precedence over application.properties.
+                        .run("--server.port=0",
+                                "--server.tomcat.threads.max=" + tomcatThreads,
+                                "--logging.level.root=WARN",
+                                "--logging.level.com.caching=ERROR",
+                                "--geocoding.web.async=" + async,
+                                "--geocoding.upstream.geocoding-url=" + stub.forwardUrl(),
+                                "--geocoding.upstream.reverse-geocoding-url=" + stub.reverseUrl(),
+                                "--geocoding.upstream.http2=false",
+                                "--geocoding.cache.disk.enabled=false",
+                                // Measure the web tier: every miss reaches the stub.
+                                "--geocoding.resilience.rate-limit.enabled=false",
+                                "--geocoding.resilience.circuit-breaker.enabled=false",
+                                "--geocoding.resilience.bulkhead.max-concurrent-calls=" + Integer.MAX_VALUE)) {
+            String baseUrl = "http://localhost:" + context.getWebServer().getPort() + "/geocode?address=";
+            for (int i = 0; i < HOT_ADDRESSES; i++) {
+                client.send(request(baseUrl, "Hot " + i), HttpResponse.BodyHandlers.discarding());
+            }
+            // Warm up the JIT and connection pools with the same mix before measuring.
+            drive(client, baseUrl, "warm-up-" + async, Math.min(requests, 2_000), concurrency, hitRatio);
+
+            ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            threads.resetPeakThreadCount();
+            long start = System.nanoTime();
+            Result result = drive(client, baseUrl, "cold-" + async, requests, concurrency, hitRatio);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("%-10s %10.0f %11.1f %11.1f %12.1f %12.1f %13d%s%n", async ? "async" : "blocking",
+                    requests / seconds, result.hits.percentileMillis(50), result.hits.percentileMillis(99),
+                    result.misses.percentileMillis(50), result.misses.percentileMillis(99),
+                    threads.getPeakThreadCount(),
+                    result.errors.get() > 0 ? "  (" + result.errors.get() + " errors)" : "");
+        }
+    }
+
+    private static Result drive(HttpClient client, String baseUrl, String coldPrefix, int requests, int concurrency,
+                                double hitRatio) throws InterruptedException {
+        Result result = new Result(requests);
+        Semaphore inFlight = new Semaphore(concurrency);
+        CountDownLatch done = new CountDownLatch(requests);
+        for (int i = 0; i < requests; i++) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            boolean hit = random.nextDouble() < hitRatio;
+            String address = hit ? "Hot " + random.nextInt(HOT_ADDRESSES) : coldPrefix + " " + i;
+            LatencyRecorder recorder = hit ? result.hits : result.misses;
+            inFlight.acquire();
+            long start = System.nanoTime();
+            client.sendAsync(request(baseUrl, address), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        if (error != null || response.statusCode() != 200) {
+                            result.errors.incrementAndGet();
+                        } else {
+                            recorder.record(System.nanoTime() - start);
+                        }
+                        inFlight.release();
+                        done.countDown();
+                    });
+        }
+        done.await(10, TimeUnit.MINUTES);
+        return result;
+    }
+
+    private static HttpRequest request(String baseUrl, String address) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + URLEncoder.encode(address, StandardCharsets.UTF_8))).build();
+    }
+
+    private static final class Result {
+        private final LatencyRecorder hits;
+        private final LatencyRecorder misses;
+        private final AtomicInteger errors = new AtomicInteger();
+
+        private Result(int requests) {
+            this.hits = new LatencyRecorder(requests);
+            this.misses = new LatencyRecorder(requests);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.caching.perf.bench;
+
+import com.caching.model.GeoAddress;
+import com.caching.model.GeoCoordinates;
+import com.caching.service.GeoCodingService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks cache hits through the Spring cache proxy on {@link GeoCodingService}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class CacheLookupBenchmark {
+
+    private ConfigurableApplicationContext context;
+    private GeoCodingService geoCodingService;
+
+    @Setup
+    public void setUp() {
+        context = StubbedApplication.start();
+        geoCodingService = context.getBean(GeoCodingService.class);
+        geoCodingService.getGeocode("Bangalore");
+        geoCodingService.getReverseGeocode("12.9716", "77.5946");
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public GeoCoordinates geocodeHit() {
+        return geoCodingService.getGeocode("Bangalore");
+    }
+
+    @Benchmark
+    public GeoAddress reverseGeocodeHit() {
+        return geoCodingService.getReverseGeocode("12.9716", "77.5946");
+    }
+
+    @Benchmark
+    public GeoCoordinates geocodeAsyncHit() {
+        return geoCodingService.getGeocodeAsync("Bangalore").join();
+    }
+}
@@ -0,0 +1,61 @@
+package com.caching.perf.bench;
+
+import com.caching.controller.GeoCodingController;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks a full controller-to-service call with a stubbed repository, for cached and
+ * non-cacheable ("goa") lookups.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ControllerBenchmark {
+
+    private ConfigurableApplicationContext context;
+    private GeoCodingController controller;
+
+    @Setup
+    public void setUp() {
+        context = StubbedApplication.start();
+        controller = context.getBean(GeoCodingController.class);
+        controller.getGeocode("Bangalore", null);
+        controller.getReverseGeocode("12.9716", "77.5946", null);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object geocodeHit() {
+        return controller.getGeocode("Bangalore", null);
+    }
+
+    @Benchmark
+    public Object geocodeNonCacheable() {
+        return controller.getGeocode("goa", null);
+    }
+
+    @Benchmark
+    public Object reverseGeocodeHit() {
+        return controller.getReverseGeocode("12.9716", "77.5946", null);
+    }
+}
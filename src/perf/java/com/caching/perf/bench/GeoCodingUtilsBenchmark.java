@@ -0,0 +1,83 @@
+package com.caching.perf.bench;
+
+import com.caching.model.GeoAddress;
+import com.caching.model.GeoCoordinates;
+import com.caching.perf.PositionStackPayloads;
+import com.caching.utility.GeoCodingUtils;
+import com.caching.utility.constant.GeoCodingEnum;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks URL building and response parsing on realistic PositionStack payloads.
+ * The {@code mapBaseline} benchmarks deserialize the whole body into a map, as the repository did
+ * before responses were parsed as a token stream, and are kept for comparison.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class GeoCodingUtilsBenchmark {
+
+    private static final TypeReference<Map<String, Object>> RESPONSE_TYPE = new TypeReference<>() {
+    };
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, String> query = Map.of("query", "1600 MG Road, Bangalore, Karnataka");
+    private byte[] forwardBody;
+    private byte[] reverseBody;
+
+    @Setup
+    public void setUp() {
+        forwardBody = PositionStackPayloads.forward("1600 MG Road, Bangalore, Karnataka").getBytes(StandardCharsets.UTF_8);
+        reverseBody = PositionStackPayloads.reverse(12.9716, 77.5946).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public String buildApiUrl() {
+        return GeoCodingUtils.buildApiUrl(GeoCodingEnum.GEOCODING_URL.getValue(), GeoCodingEnum.API_KEY.getValue(), query);
+    }
+
+    @Benchmark
+    public GeoCoordinates parseGeoResponse() {
+        return GeoCodingUtils.parseGeoResponse(forwardBody);
+    }
+
+    @Benchmark
+    public GeoAddress parseReverseGeoResponse() {
+        return GeoCodingUtils.parseReverseGeoResponse(reverseBody);
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public double mapBaselineGeoResponse() throws IOException {
+        Map<String, Object> response = objectMapper.readValue(forwardBody, RESPONSE_TYPE);
+        Map<String, Object> first = ((List<Map<String, Object>>) response.get("data")).get(0);
+        return ((Number) first.get("latitude")).doubleValue() + ((Number) first.get("longitude")).doubleValue();
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public String mapBaselineReverseGeoResponse() throws IOException {
+        Map<String, Object> response = objectMapper.readValue(reverseBody, RESPONSE_TYPE);
+        return (String) ((List<Map<String, Object>>) response.get("data")).get(0).get("label");
+    }
+}
@@ -0,0 +1,46 @@
+package com.caching.perf.bench;
+
+import com.caching.configuration.ResilienceProperties;
+import com.caching.configuration.UpstreamClientConfig;
+import com.caching.configuration.UpstreamProperties;
+import com.caching.model.GeoAddress;
+import com.caching.model.GeoCoordinates;
+import com.caching.provider.GeoCodingProvider;
+import com.caching.repository.GeoCodingRepository;
+import com.caching.resilience.RequestHedger;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.net.http.HttpClient;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Repository answering every lookup immediately with a fixed result, so benchmarks measure
+ * the application's own overhead rather than the network.
+ */
+public class StubGeoCodingRepository extends GeoCodingRepository {
+
+    private static final GeoCoordinates COORDINATES = new GeoCoordinates(12.9716, 77.5946);
+    private static final GeoAddress ADDRESS = new GeoAddress("Bangalore, KA, India");
+
+    public StubGeoCodingRepository() {
+        this(UpstreamClientConfig.configuredProviders(HttpClient.newHttpClient(), new UpstreamProperties()));
+    }
+
+    private StubGeoCodingRepository(List<GeoCodingProvider> providers) {
+        super(providers, UpstreamClientConfig.upstreamGuards(providers, new ResilienceProperties(),
+                        new SimpleMeterRegistry()),
+                new RequestHedger(new ResilienceProperties().getHedging(), new SimpleMeterRegistry()),
+                new SimpleMeterRegistry());
+    }
+
+    @Override
+    public CompletableFuture<GeoCoordinates> fetchGeocodeAsync(String address) {
+        return CompletableFuture.completedFuture(COORDINATES);
+    }
+
+    @Override
+    public CompletableFuture<GeoAddress> fetchReverseGeocodeAsync(String latitude, String longitude) {
+        return CompletableFuture.completedFuture(ADDRESS);
+    }
+}
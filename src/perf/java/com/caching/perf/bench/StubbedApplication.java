@@ -0,0 +1,31 @@
+package com.caching.perf.bench;
+
+import com.caching.Application;
+import com.caching.repository.GeoCodingRepository;
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.support.GenericApplicationContext;
+
+/**
+ * Starts the full application context without a web server, with {@link StubGeoCodingRepository}
+ * registered as the primary repository.
+ */
+final class StubbedApplication {
+
+    private StubbedApplication() {
+    }
+
+    static ConfigurableApplicationContext start() {
+        return new SpringApplicationBuilder(Application.class)
+                .web(WebApplicationType.NONE)
+                .bannerMode(Banner.Mode.OFF)
+                // Keep per-request log lines out of the measurement and out of logs/application.log.
+                .properties("logging.level.root=WARN", "logging.level.com.caching=WARN")
+                .initializers(context -> ((GenericApplicationContext) context).registerBean(
+                        "stubGeoCodingRepository", GeoCodingRepository.class, StubGeoCodingRepository::new,
+                        definition -> definition.setPrimary(true)))
+                .run();
+    }
+}
@@ -0,0 +1,91 @@
+package com.caching.cache;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CacheKeyCanonicalizerTest {
+
+    private final CacheKeyCanonicalizer cacheKeys =
+            new CacheKeyCanonicalizer(5, List.of("India", "Karnataka"), List.of("Goa"));
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+            // Compatibility forms, composed and decomposed accents, and case
+            "\uFF22\uFF41\uFF4E\uFF47\uFF41\uFF4C\uFF4F\uFF52\uFF45 | bangalore",
+            "\uFB01eld Road | field road",
+            "Stra\u00DFe | strasse",
+            "STRASSE | strasse",
+            "Cafe\u0301 Coffee Day | caf\u00E9 coffee day",
+            "CAF\u00C9 COFFEE DAY | caf\u00E9 coffee day",
+            // Whitespace, including no-break spaces, and commas
+            "'  MG   Road\t,\u00A0Bangalore ' | mg road, bangalore",
+            "MG Road,,Bangalore | mg road, bangalore",
+            "', MG Road , , Bangalore ,' | mg road, bangalore",
+            "MG Road ,Bangalore | mg road, bangalore",
+    })
+    void foldsCaseFormsAndSeparators(String address, String expected) {
+        assertEquals(expected, cacheKeys.address(address));
+    }
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+            "Bangalore, India | bangalore",
+            "Bangalore, Karnataka, INDIA | bangalore",
+            "Bangalore, India, Karnataka | bangalore",
+            "'Bangalore ,  india ' | bangalore",
+            // Only whole trailing parts, and never the whole address
+            "Bangalore, South India | bangalore, south india",
+            "Bangalore India | bangalore india",
+            "India, Bangalore | india, bangalore",
+            "Karnataka, India | karnataka",
+            "India | india",
+    })
+    void dropsIgnoredTrailingParts(String address, String expected) {
+        assertEquals(expected, cacheKeys.address(address));
+    }
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+            // Half-way values round away from zero
+            "12.345675 | 12.34568",
+            "12.345665 | 12.34567",
+            "-12.345675 | -12.34568",
+            "0.000005 | 0.00001",
+            "-0.000005 | -0.00001",
+            // Just below half-way rounds down
+            "12.3456749999 | 12.34567",
+            "-0.000004 | 0",
+            // Trailing zeros and whitespace go
+            "12.50000 | 12.5",
+            "' 77.0 ' | 77",
+            "77 | 77",
+            "-0.0 | 0",
+            // Anything that is not a plain decimal is kept as sent
+            "1e5 | 1e5",
+            "1E999999999 | 1E999999999",
+            "north | north",
+    })
+    void roundsCoordinatesHalfUp(String value, String expected) {
+        assertEquals(List.of(expected, expected), cacheKeys.coordinates(value, value));
+    }
+
+    @Test
+    void spellingsShareOneInternedKey() {
+        assertSame(cacheKeys.address("MG Road, Bangalore, India"), cacheKeys.address(" mg road ,BANGALORE"));
+        assertSame(cacheKeys.coordinates("12.970000", "77.59"), cacheKeys.coordinates("12.97", "77.590001"));
+    }
+
+    @Test
+    void nonCacheableAddressesMatchInAnySpelling() {
+        assertFalse(cacheKeys.isCacheable(cacheKeys.address("  GOA, India")));
+        assertTrue(cacheKeys.isCacheable(cacheKeys.address("Goa Velha")));
+    }
+}
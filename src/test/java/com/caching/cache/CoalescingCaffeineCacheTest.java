@@ -0,0 +1,148 @@
+package com.caching.cache;
+
+import com.caching.exception.custom.GeoCodingException;
+import com.caching.model.GeoCoordinates;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CoalescingCaffeineCacheTest {
+
+    private final CoalescingCaffeineCache cache =
+            new CoalescingCaffeineCache("geocoding", Caffeine.newBuilder().buildAsync());
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void concurrentMissesShareOneLoad() {
+        CompletableFuture<GeoCoordinates> upstream = new CompletableFuture<>();
+
+        CompletableFuture<GeoCoordinates> first = cache.getAsync("bangalore", () -> load(upstream));
+        CompletableFuture<GeoCoordinates> second = cache.getAsync("bangalore", () -> load(upstream));
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.getCoalescedCount());
+        assertFalse(second.isDone());
+
+        GeoCoordinates value = new GeoCoordinates(12.97, 77.59);
+        upstream.complete(value);
+        assertSame(value, first.join());
+        assertSame(value, second.join());
+        assertSame(value, cache.get("bangalore", GeoCoordinates.class));
+    }
+
+    @Test
+    void concurrentMissesShareOneFailureAndTheNextRequestRetries() {
+        CompletableFuture<GeoCoordinates> upstream = new CompletableFuture<>();
+        CompletableFuture<GeoCoordinates> first = cache.getAsync("bangalore", () -> load(upstream));
+        CompletableFuture<GeoCoordinates> second = cache.getAsync("bangalore", () -> load(upstream));
+
+        GeoCodingException failure = new GeoCodingException("Upstream unavailable");
+        upstream.completeExceptionally(failure);
+        assertSame(failure, assertThrows(CompletionException.class, first::join).getCause());
+        assertSame(failure, assertThrows(CompletionException.class, second::join).getCause());
+        assertEquals(1, loads.get());
+
+        assertNull(cache.get("bangalore"));
+        GeoCoordinates value = new GeoCoordinates(12.97, 77.59);
+        assertSame(value, cache.getAsync("bangalore", () -> load(CompletableFuture.completedFuture(value))).join());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void blockingCallersShareOneLoadAndItsFailure() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        GeoCodingException failure = new GeoCodingException("Upstream unavailable");
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Throwable> first = executor.submit(() -> failureOf(() -> cache.get("bangalore", () -> {
+                loads.incrementAndGet();
+                loading.countDown();
+                release.await();
+                throw failure;
+            })));
+            assertTrue(loading.await(10, TimeUnit.SECONDS));
+            Future<Throwable> second = executor.submit(() -> failureOf(() -> cache.get("bangalore", () -> {
+                loads.incrementAndGet();
+                return new GeoCoordinates(12.97, 77.59);
+            })));
+            while (cache.getCoalescedCount() == 0) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+
+            assertSame(failure, first.get(10, TimeUnit.SECONDS));
+            assertSame(failure, second.get(10, TimeUnit.SECONDS));
+            assertEquals(1, loads.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void putIfAbsentDoesNotWaitForALoadInFlight() {
+        CompletableFuture<GeoCoordinates> upstream = new CompletableFuture<>();
+        cache.getAsync("bangalore", () -> load(upstream));
+
+        assertNull(cache.putIfAbsent("bangalore", new GeoCoordinates(1, 1)));
+
+        GeoCoordinates value = new GeoCoordinates(12.97, 77.59);
+        upstream.complete(value);
+        assertSame(value, cache.get("bangalore", GeoCoordinates.class));
+        assertSame(value, cache.putIfAbsent("bangalore", new GeoCoordinates(1, 1)).get());
+        assertNull(cache.putIfAbsent("mumbai", new GeoCoordinates(19.07, 72.87)));
+        assertEquals(new GeoCoordinates(19.07, 72.87), cache.get("mumbai", GeoCoordinates.class));
+    }
+
+    @Test
+    void evictAndClearReachTheCopies() {
+        ConcurrentMapCache disk = new ConcurrentMapCache("geocoding-disk");
+        ConcurrentMapCache stale = new ConcurrentMapCache("geocoding-stale");
+        CoalescingCaffeineCache tiered = new CoalescingCaffeineCache("geocoding", Caffeine.newBuilder().buildAsync(),
+                CacheChangeListener.NONE, null, List.of(disk, stale));
+        GeoCoordinates value = new GeoCoordinates(12.97, 77.59);
+        for (Cache cache : List.of(tiered, disk, stale)) {
+            cache.put("bangalore", value);
+            cache.put("mumbai", value);
+        }
+
+        tiered.evict("bangalore");
+        for (Cache cache : List.of(tiered, disk, stale)) {
+            assertNull(cache.get("bangalore"), cache.getName());
+            assertNotNull(cache.get("mumbai"), cache.getName());
+        }
+
+        tiered.clear();
+        for (Cache cache : List.of(tiered, disk, stale)) {
+            assertNull(cache.get("mumbai"), cache.getName());
+        }
+    }
+
+    private <T> CompletableFuture<T> load(CompletableFuture<T> result) {
+        loads.incrementAndGet();
+        return result;
+    }
+
+    private static Throwable failureOf(Runnable call) {
+        Cache.ValueRetrievalException ex = assertThrows(Cache.ValueRetrievalException.class, call::run);
+        return ex.getCause();
+    }
+}
@@ -0,0 +1,81 @@
+package com.caching.cache;
+
+import com.caching.model.GeoAddress;
+import com.caching.model.GeoCoordinates;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EntryWeigherTest {
+
+    private final EntryWeigher weigher = new EntryWeigher();
+
+    @Test
+    void weightGrowsWithTheAddress() {
+        int previous = 0;
+        for (int length = 0; length <= 512; length++) {
+            int weight = weigher.weigh("a".repeat(length), new GeoCoordinates(12.97, 77.59));
+            assertTrue(weight >= previous, length + " characters weigh " + weight + " after " + previous);
+            previous = weight;
+        }
+        assertTrue(previous - weigher.weigh("", new GeoCoordinates(12.97, 77.59)) >= 512);
+    }
+
+    @Test
+    void weightGrowsWithTheReverseGeocodedAddress() {
+        List<String> key = List.of("12.97160", "77.59460");
+        int previous = 0;
+        for (int length = 0; length <= 512; length++) {
+            int weight = weigher.weigh(key, new GeoAddress("a".repeat(length)));
+            assertTrue(weight >= previous, length + " characters weigh " + weight + " after " + previous);
+            previous = weight;
+        }
+    }
+
+    @Test
+    void charactersOutsideLatin1TakeTwoBytes() {
+        String latin1 = "Bengal\u00fbru";
+        String wide = "\u0cac\u0cc6\u0c82\u0c97\u0cb3\u0cc2\u0cb0\u0cc1";
+
+        assertTrue(EntryWeigher.sizeOf(wide) > EntryWeigher.sizeOf("a".repeat(wide.length())));
+        assertEquals(EntryWeigher.sizeOf("a".repeat(latin1.length())), EntryWeigher.sizeOf(latin1));
+        assertEquals(EntryWeigher.sizeOf("a".repeat(2 * 100)), EntryWeigher.sizeOf("\u0cac".repeat(100)));
+    }
+
+    @Test
+    void everyEntryCarriesTheCacheOverhead() {
+        assertEquals(EntryWeigher.ENTRY_OVERHEAD, weigher.weigh(null, null));
+        assertEquals(EntryWeigher.ENTRY_OVERHEAD + EntryWeigher.sizeOf("bangalore")
+                        + EntryWeigher.sizeOf(new GeoCoordinates(12.97, 77.59)),
+                weigher.weigh("bangalore", new GeoCoordinates(12.97, 77.59)));
+        // Sizes are whole 8-byte heap words
+        assertEquals(0, EntryWeigher.sizeOf("bangalore") % 8);
+        assertEquals(0, EntryWeigher.sizeOf(List.of("12.97160", "77.59460")) % 8);
+    }
+
+    @Test
+    void weightBoundCachesEvictByPayloadSize() {
+        Cache<Object, Object> cache = Caffeine.newBuilder()
+                .maximumWeight(100 * weigher.weigh("address 00", new GeoCoordinates(12.97, 77.59)))
+                .weigher(weigher)
+                .executor(Runnable::run)
+                .build();
+
+        for (int i = 0; i < 100; i++) {
+            cache.put(String.format("address %02d", i), new GeoCoordinates(12.97, 77.59));
+        }
+        cache.cleanUp();
+        assertEquals(100, cache.estimatedSize());
+
+        cache.put("a".repeat(1000), new GeoCoordinates(12.97, 77.59));
+        cache.cleanUp();
+        assertTrue(cache.estimatedSize() < 100, String.valueOf(cache.estimatedSize()));
+        assertTrue(cache.policy().eviction().orElseThrow().weightedSize().orElseThrow()
+                <= cache.policy().eviction().orElseThrow().getMaximum());
+    }
+}
@@ -0,0 +1,88 @@
+package com.caching.cache;
+
+import com.caching.model.GeoCoordinates;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JitteredExpiryTest {
+
+    private static final Duration TTL = Duration.ofHours(6);
+    private static final int SAMPLES = 10_000;
+
+    @ParameterizedTest
+    @CsvSource({"0.1", "0.25", "0.5", "0.9"})
+    void lifetimesStayWithinTheJitterAndSpreadAcrossIt(double jitter) {
+        JitteredExpiry expiry = new JitteredExpiry(TTL, jitter);
+        long low = (long) (TTL.toNanos() * (1 - jitter));
+        long high = (long) (TTL.toNanos() * (1 + jitter));
+
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (int i = 0; i < SAMPLES; i++) {
+            long created = expiry.expireAfterCreate("bangalore", "value", 0);
+            long updated = expiry.expireAfterUpdate("bangalore", "value", 0, TTL.toNanos());
+            assertTrue(created >= low && created <= high, low + " <= " + created + " <= " + high);
+            assertTrue(updated >= low && updated <= high, low + " <= " + updated + " <= " + high);
+            min = Math.min(min, created);
+            max = Math.max(max, created);
+        }
+        // Spread over the whole range rather than bunched around the base
+        long quarter = (high - low) / 4;
+        assertTrue(min < low + quarter, "Lowest lifetime " + min);
+        assertTrue(max > high - quarter, "Highest lifetime " + max);
+    }
+
+    @Test
+    void noJitterGivesTheBaseLifetime() {
+        JitteredExpiry expiry = new JitteredExpiry(TTL, 0);
+
+        assertEquals(TTL.toNanos(), expiry.expireAfterCreate("bangalore", "value", 0));
+        assertEquals(TTL.toNanos(), expiry.expireAfterUpdate("bangalore", "value", 0, 1));
+    }
+
+    @Test
+    void readsExtendTheLifetimeOnlyWhenExpiringAfterAccess() {
+        long remaining = Duration.ofMinutes(5).toNanos();
+
+        assertEquals(remaining, new JitteredExpiry(TTL, 0.1).expireAfterRead("bangalore", "value", 0, remaining));
+        long extended = new JitteredExpiry(TTL, 0.1, true).expireAfterRead("bangalore", "value", 0, remaining);
+        assertTrue(extended >= TTL.toNanos() * 0.9 && extended <= TTL.toNanos() * 1.1, String.valueOf(extended));
+    }
+
+    @ParameterizedTest
+    @CsvSource({"-0.1", "1", "1.5"})
+    void jitterOutsideTheUnitIntervalIsRejected(double jitter) {
+        assertThrows(IllegalArgumentException.class, () -> new JitteredExpiry(TTL, jitter));
+    }
+
+    @Test
+    void entriesLoadedTogetherExpireAtDifferentTimes() {
+        double jitter = 0.1;
+        ValueLifetimes lifetimes = new ValueLifetimes(new JitteredExpiry(TTL, jitter), TTL);
+        CoalescingCaffeineCache cache = new CoalescingCaffeineCache("geocoding",
+                Caffeine.newBuilder().expireAfter(lifetimes).buildAsync(), CacheChangeListener.NONE, lifetimes);
+
+        Duration shortest = null;
+        Duration longest = null;
+        for (int i = 0; i < 200; i++) {
+            String key = "address " + i;
+            cache.getAsync(key, () -> CompletableFuture.completedFuture(new GeoCoordinates(12.97, 77.59))).join();
+            Duration ttl = cache.getTimeToLive(key);
+            assertTrue(ttl.compareTo(TTL.multipliedBy(9).dividedBy(10).minusSeconds(1)) >= 0, ttl.toString());
+            assertTrue(ttl.compareTo(TTL.multipliedBy(11).dividedBy(10)) <= 0, ttl.toString());
+            shortest = shortest == null || ttl.compareTo(shortest) < 0 ? ttl : shortest;
+            longest = longest == null || ttl.compareTo(longest) > 0 ? ttl : longest;
+        }
+        assertTrue(longest.minus(shortest).compareTo(TTL.multipliedBy((long) (jitter * 100)).dividedBy(100)) > 0,
+                shortest + " to " + longest);
+    }
+}
@@ -0,0 +1,268 @@
+package com.caching.cache;
+
+import com.caching.model.GeoCoordinates;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MappedDiskCacheTest {
+
+    private static final int SEGMENT_BYTES = 64 * 1024;
+    private static final Duration TTL = Duration.ofHours(24);
+
+    @TempDir
+    Path directory;
+
+    private final MutableClock clock = new MutableClock();
+    private final List<MappedDiskCache> opened = new ArrayList<>();
+
+    @AfterEach
+    void closeCaches() {
+        opened.forEach(MappedDiskCache::close);
+    }
+
+    @Test
+    void roundTripsValuesAcrossReopen() throws IOException {
+        MappedDiskCache cache = open(4);
+        cache.put("bangalore", coordinates(1));
+        cache.put("mumbai", coordinates(2));
+
+        assertEquals(coordinates(1), cache.get("bangalore", GeoCoordinates.class));
+        assertNull(cache.get("delhi"));
+        cache.close();
+
+        MappedDiskCache reopened = open(4);
+        assertEquals(coordinates(1), reopened.get("bangalore", GeoCoordinates.class));
+        assertEquals(coordinates(2), reopened.get("mumbai", GeoCoordinates.class));
+        assertEquals(2, reopened.getEntryCount());
+    }
+
+    @Test
+    void laterWriteReplacesEarlierOne() throws IOException {
+        MappedDiskCache cache = open(4);
+        cache.put("bangalore", coordinates(1));
+        cache.put("bangalore", coordinates(2));
+        cache.close();
+
+        assertEquals(coordinates(2), open(4).get("bangalore", GeoCoordinates.class));
+    }
+
+    @Test
+    void tombstoneHidesEarlierWriteAcrossReopen() throws IOException {
+        MappedDiskCache cache = open(4);
+        cache.put("bangalore", coordinates(1));
+        cache.put("mumbai", coordinates(2));
+        cache.evict("bangalore");
+
+        assertNull(cache.get("bangalore"));
+        cache.close();
+
+        MappedDiskCache reopened = open(4);
+        assertNull(reopened.get("bangalore"));
+        assertEquals(coordinates(2), reopened.get("mumbai", GeoCoordinates.class));
+        assertEquals(1, reopened.getEntryCount());
+    }
+
+    @Test
+    void entriesExpireAfterTtl() throws IOException {
+        MappedDiskCache cache = open(4);
+        cache.put("bangalore", coordinates(1));
+        clock.advance(Duration.ofHours(12));
+        cache.put("mumbai", coordinates(2));
+
+        clock.advance(TTL.minusHours(12));
+        assertEquals(coordinates(1), cache.get("bangalore", GeoCoordinates.class));
+
+        clock.advance(Duration.ofMillis(1));
+        assertNull(cache.get("bangalore"));
+        assertEquals(coordinates(2), cache.get("mumbai", GeoCoordinates.class));
+        cache.close();
+
+        // The age comes from the record, so a restart does not make an entry young again.
+        assertNull(open(4).get("bangalore"));
+    }
+
+    @Test
+    void reopenStopsAtCorruptLastRecord() throws IOException {
+        MappedDiskCache cache = open(4);
+        cache.put("bangalore", coordinates(1));
+        cache.put("mumbai", coordinates(2));
+        long lastRecord = cache.getUsedBytes();
+        cache.put("delhi", coordinates(3));
+        cache.close();
+
+        // Flip a byte of the last record's value, as a crash in the middle of the write would leave it.
+        try (FileChannel channel = FileChannel.open(segment(1), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer value = ByteBuffer.allocate(1);
+            long position = lastRecord + 30;
+            channel.read(value, position);
+            value.put(0, (byte) ~value.get(0)).rewind();
+            channel.write(value, position);
+        }
+
+        MappedDiskCache reopened = open(4);
+        assertEquals(coordinates(1), reopened.get("bangalore", GeoCoordinates.class));
+        assertEquals(coordinates(2), reopened.get("mumbai", GeoCoordinates.class));
+        assertNull(reopened.get("delhi"));
+
+        // New writes replace the corrupt record and are read back after the next restart.
+        reopened.put("chennai", coordinates(4));
+        reopened.close();
+        MappedDiskCache again = open(4);
+        assertEquals(coordinates(4), again.get("chennai", GeoCoordinates.class));
+        assertEquals(coordinates(2), again.get("mumbai", GeoCoordinates.class));
+    }
+
+    @Test
+    void reopenStopsAtTruncatedLastRecord() throws IOException {
+        MappedDiskCache cache = open(4);
+        cache.put("bangalore", coordinates(1));
+        long lastRecord = cache.getUsedBytes();
+        cache.put("mumbai", coordinates(2));
+        cache.close();
+
+        try (FileChannel channel = FileChannel.open(segment(1), StandardOpenOption.WRITE)) {
+            channel.truncate(lastRecord + 10);
+        }
+
+        MappedDiskCache reopened = open(4);
+        assertEquals(coordinates(1), reopened.get("bangalore", GeoCoordinates.class));
+        assertNull(reopened.get("mumbai"));
+
+        reopened.put("chennai", coordinates(4));
+        assertEquals(coordinates(4), reopened.get("chennai", GeoCoordinates.class));
+        reopened.close();
+        assertEquals(coordinates(4), open(4).get("chennai", GeoCoordinates.class));
+    }
+
+    @Test
+    void oldestSegmentIsDroppedWhenFull() throws IOException {
+        MappedDiskCache cache = open(2);
+        int entries = 3 * SEGMENT_BYTES / 40;
+        for (int i = 0; i < entries; i++) {
+            cache.put("address " + i, coordinates(i));
+        }
+
+        assertNull(cache.get("address 0"));
+        assertEquals(coordinates(entries - 1), cache.get("address " + (entries - 1), GeoCoordinates.class));
+        assertTrue(cache.getUsedBytes() <= 2L * SEGMENT_BYTES);
+    }
+
+    @Test
+    void readsWhileAnotherThreadAppends() throws Exception {
+        MappedDiskCache cache = open(3);
+        int keys = 200;
+        AtomicInteger written = new AtomicInteger();
+        AtomicBoolean done = new AtomicBoolean();
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            Future<?> writer = executor.submit(() -> {
+                // Several rounds over the same keys, rolling and dropping segments on the way.
+                for (int round = 0; round < 50; round++) {
+                    for (int i = 0; i < keys; i++) {
+                        cache.put("address " + i, new GeoCoordinates(i, round));
+                        written.accumulateAndGet(i + 1, Math::max);
+                    }
+                }
+                done.set(true);
+            });
+            List<Future<Integer>> readers = new ArrayList<>();
+            for (int r = 0; r < 2; r++) {
+                readers.add(executor.submit(() -> {
+                    int found = 0;
+                    while (!done.get()) {
+                        int bound = written.get();
+                        if (bound == 0) {
+                            continue;
+                        }
+                        int i = ThreadLocalRandom.current().nextInt(bound);
+                        GeoCoordinates value = cache.get("address " + i, GeoCoordinates.class);
+                        if (value != null) {
+                            // Any round's value is fine, but never another key's or a torn one.
+                            assertEquals(i, value.getLatitude(), 0);
+                            assertTrue(value.getLongitude() >= 0 && value.getLongitude() < 50);
+                            found++;
+                        }
+                    }
+                    return found;
+                }));
+            }
+            writer.get(30, TimeUnit.SECONDS);
+            for (Future<Integer> reader : readers) {
+                assertTrue(reader.get(30, TimeUnit.SECONDS) > 0);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        for (int i = 0; i < keys; i++) {
+            assertEquals(new GeoCoordinates(i, 49), cache.get("address " + i, GeoCoordinates.class));
+        }
+    }
+
+    private MappedDiskCache open(int maxSegments) throws IOException {
+        MappedDiskCache cache = MappedDiskCache.open("test", directory, GeoCodingDiskCodecs.FORWARD, SEGMENT_BYTES,
+                maxSegments, TTL, clock);
+        opened.add(cache);
+        return cache;
+    }
+
+    private Path segment(int id) {
+        return directory.resolve("test-" + id + ".seg");
+    }
+
+    private static GeoCoordinates coordinates(int i) {
+        return new GeoCoordinates(10 + i, 70 + i);
+    }
+
+    private static final class MutableClock extends Clock {
+        private volatile long millis = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+
+        private void advance(Duration duration) {
+            millis += duration.toMillis();
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.caching.cache;
+
+import com.caching.exception.custom.GeoCodingException;
+import com.caching.exception.custom.GeoCodingResultNotFoundException;
+import com.caching.exception.custom.InvalidGeoCodingRequestException;
+import com.caching.exception.custom.UpstreamUnavailableException;
+import com.caching.model.GeoCoordinates;
+import com.caching.provider.PositionStackProvider;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NegativeResultCacheTest {
+
+    private final NegativeResultCache failures = new NegativeResultCache(new ConcurrentMapCache("geocoding-not-found"));
+    private final AtomicInteger status = new AtomicInteger();
+    private final AtomicReference<String> body = new AtomicReference<>("");
+    private HttpServer upstream;
+    private PositionStackProvider provider;
+
+    @BeforeEach
+    void startUpstream() throws IOException {
+        upstream = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        upstream.createContext("/", exchange -> {
+            byte[] bytes = body.get().getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(status.get(), bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        });
+        upstream.start();
+        String url = "http://localhost:" + upstream.getAddress().getPort() + "/v1/forward";
+        provider = new PositionStackProvider("stub", url, url, "key", HttpClient.newHttpClient(),
+                Duration.ofSeconds(5));
+    }
+
+    @AfterEach
+    void stopUpstream() {
+        upstream.stop(0);
+    }
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+            "200 | {\"data\": []}                  | true",
+            "200 | {\"data\": null}                | true",
+            "400 | {\"error\": \"bad query\"}      | true",
+            "422 | {\"error\": \"query too long\"} | true",
+            "200 | {\"data\": [{}]}                | false",
+            "200 | not json                        | false",
+            "401 | ''                              | false",
+            "403 | ''                              | false",
+            "404 | ''                              | false",
+            "429 | ''                              | false",
+            "500 | ''                              | false",
+            "502 | <html>Bad Gateway</html>        | false",
+            "503 | ''                              | false",
+            "504 | ''                              | false",
+    })
+    void onlyNoResultsAndInvalidQueriesAreRecorded(int upstreamStatus, String upstreamBody, boolean recorded) {
+        status.set(upstreamStatus);
+        body.set(upstreamBody);
+
+        CompletableFuture<GeoCoordinates> lookup = failures.putOnFailure("atlantis", provider.geocode("atlantis"));
+
+        CompletionException ex = assertThrows(CompletionException.class, lookup::join);
+        GeoCodingException recordedFailure = failures.getIfPresent("atlantis");
+        if (recorded) {
+            assertEquals(ex.getCause().getClass(), recordedFailure.getClass());
+            assertEquals(ex.getCause().getMessage(), recordedFailure.getMessage());
+        } else {
+            assertEquals(GeoCodingException.class, ex.getCause().getClass());
+            assertNull(recordedFailure);
+        }
+    }
+
+    @Test
+    void successfulLookupsAreNotRecorded() {
+        status.set(200);
+        body.set("{\"data\": [{\"latitude\": 12.97, \"longitude\": 77.59}]}");
+
+        failures.putOnFailure("bangalore", provider.geocode("bangalore")).join();
+
+        assertNull(failures.getIfPresent("bangalore"));
+    }
+
+    @Test
+    void rejectionsAndUnexpectedErrorsAreNotRecorded() {
+        failures.put("a", new UpstreamUnavailableException("Circuit open", Duration.ofSeconds(1)));
+        failures.put("b", new CompletionException(new GeoCodingException("Upstream request timed out")));
+        failures.put("c", new IllegalStateException("Unexpected"));
+        failures.put("d", new CompletionException(null));
+
+        assertNull(failures.getIfPresent("a"));
+        assertNull(failures.getIfPresent("b"));
+        assertNull(failures.getIfPresent("c"));
+        assertNull(failures.getIfPresent("d"));
+    }
+
+    @Test
+    void recordedFailuresAreReplayedAsFreshExceptions() {
+        failures.put("atlantis", new CompletionException(new GeoCodingResultNotFoundException("No results")));
+        failures.put("?", new InvalidGeoCodingRequestException("Bad query"));
+
+        GeoCodingException first = failures.getIfPresent("atlantis");
+        GeoCodingException second = failures.getIfPresent("atlantis");
+        assertEquals(GeoCodingResultNotFoundException.class, first.getClass());
+        assertEquals("No results", first.getMessage());
+        assertNotSame(first, second);
+        assertEquals(InvalidGeoCodingRequestException.class, failures.getIfPresent("?").getClass());
+        assertEquals("Bad query", failures.getIfPresent("?").getMessage());
+    }
+
+    @Test
+    void evictedFailuresAreForgotten() {
+        failures.put("atlantis", new GeoCodingResultNotFoundException("No results"));
+
+        assertTrue(failures.evict("atlantis"));
+        assertNull(failures.getIfPresent("atlantis"));
+        assertFalse(failures.evict("atlantis"));
+    }
+}
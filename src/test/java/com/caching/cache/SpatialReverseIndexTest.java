@@ -0,0 +1,146 @@
+package com.caching.cache;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class SpatialReverseIndexTest {
+
+    private static final double RADIUS_METERS = 100;
+    // Length of a degree of latitude on the sphere distances are measured on
+    private static final double METERS_PER_DEGREE = 6_371_008.8 * Math.PI / 180;
+    // Width of a grid cell, as the index sizes it for the radius
+    private static final double CELL_DEGREES = RADIUS_METERS / 111_320.0;
+
+    private final SpatialReverseIndex<String> index =
+            new SpatialReverseIndex<>(true, RADIUS_METERS, 10_000, Duration.ofHours(1));
+
+    @Test
+    void answersFromTheClosestPointWithinTheRadius() {
+        index.add("12.9716", "77.5946", "south");
+        index.add("12.9720", "77.5946", "north");
+
+        assertEquals("north", index.findNearest("12.9719", "77.5946"));
+        assertEquals("south", index.findNearest("12.9717", "77.5946"));
+        assertEquals("south", index.findNearest("12.97160", "77.59460"));
+        assertNull(index.findNearest("12.9740", "77.5946"));
+        assertEquals(3, index.getHitCount());
+        assertEquals(1, index.getMissCount());
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "0, 0, 0, 1",
+            "45, 90, 1, 0",
+            "-33.8688, 151.2093, -1, -1",
+            "12.97, 77.59, 1, 1",
+    })
+    void radiusIsTheLimitInEveryDirection(double latitude, double longitude, int northward, int eastward) {
+        index.add(String.valueOf(latitude), String.valueOf(longitude), "origin");
+
+        assertEquals("origin", findAt(latitude, longitude, 95, northward, eastward));
+        assertNull(findAt(latitude, longitude, 105, northward, eastward));
+    }
+
+    @Test
+    void neighbouringCellsAreSearched() {
+        // A point just south-west of a cell corner, looked up from just north-east of it
+        double cornerLatitude = 1000 * CELL_DEGREES - 90;
+        double cornerLongitude = 2000 * CELL_DEGREES - 180;
+        double offset = 30 / METERS_PER_DEGREE;
+        index.add(String.valueOf(cornerLatitude - offset), String.valueOf(cornerLongitude - offset), "corner");
+
+        assertEquals("corner", index.findNearest(String.valueOf(cornerLatitude + offset),
+                String.valueOf(cornerLongitude + offset)));
+        assertEquals("corner", index.findNearest(String.valueOf(cornerLatitude + offset),
+                String.valueOf(cornerLongitude - offset)));
+        assertEquals("corner", index.findNearest(String.valueOf(cornerLatitude - offset),
+                String.valueOf(cornerLongitude + offset)));
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "10, 179.9997, -179.9997",
+            "10, -179.9997, 179.9997",
+            "-45, 180, -179.9995",
+            "0, -180, 180",
+    })
+    void antimeridianIsCrossed(double latitude, double added, double lookedUp) {
+        index.add(String.valueOf(latitude), String.valueOf(added), "dateline");
+
+        assertEquals("dateline", index.findNearest(String.valueOf(latitude), String.valueOf(lookedUp)));
+    }
+
+    @Test
+    void pointsFarApartAcrossTheAntimeridianAreNotConfused() {
+        index.add("10", "179.99", "east");
+
+        assertNull(index.findNearest("10", "-179.99"));
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            // Longitudes far apart in degrees but metres apart on the ground
+            "90, 0, 90, 135",
+            "-90, -45, -90, 180",
+            "89.9995, 0, 89.9995, 10",
+            "-89.9995, 170, -89.9995, -170",
+            // Still within the radius where the scanned longitude cells are the widest allowed
+            "82.9, 0, 82.9, 0.006",
+            "82.7, 0, 82.7, 0.006",
+    })
+    void polesAreCovered(double addedLatitude, double addedLongitude, double latitude, double longitude) {
+        index.add(String.valueOf(addedLatitude), String.valueOf(addedLongitude), "pole");
+
+        assertEquals("pole", index.findNearest(String.valueOf(latitude), String.valueOf(longitude)));
+    }
+
+    @Test
+    void pointsAcrossThePoleBeyondTheRadiusAreNotAnswers() {
+        index.add("89.9", "0", "one side");
+
+        assertNull(index.findNearest("89.9", "180"));
+        assertNull(index.findNearest("89.9", "0.6"));
+    }
+
+    @Test
+    void invalidCoordinatesAreIgnored() {
+        index.add("91", "0", "invalid");
+        index.add("north", "0", "invalid");
+        index.add(null, "0", "invalid");
+
+        assertNull(index.findNearest("91", "0"));
+        assertNull(index.findNearest("90", "0"));
+        assertNull(index.findNearest("abc", "0"));
+        assertNull(index.findNearest(null, null));
+        assertEquals(0, index.getCellCount());
+    }
+
+    @Test
+    void disabledIndexNeverAnswers() {
+        SpatialReverseIndex<String> disabled =
+                new SpatialReverseIndex<>(false, RADIUS_METERS, 100, Duration.ofHours(1));
+        disabled.add("12.97", "77.59", "value");
+
+        assertFalse(disabled.isEnabled());
+        assertNull(disabled.findNearest("12.97", "77.59"));
+        assertEquals(0, disabled.getHitCount() + disabled.getMissCount());
+    }
+
+    /**
+     * Looks up the point the given distance away from the origin, in the given direction.
+     */
+    private String findAt(double latitude, double longitude, double meters, int northward, int eastward) {
+        double steps = Math.sqrt(northward * northward + eastward * eastward);
+        double degrees = meters / METERS_PER_DEGREE / steps;
+        double lookedUpLatitude = latitude + northward * degrees;
+        double lookedUpLongitude = longitude + eastward * degrees / Math.cos(Math.toRadians(latitude));
+        return index.findNearest(String.valueOf(lookedUpLatitude), String.valueOf(lookedUpLongitude));
+    }
+}
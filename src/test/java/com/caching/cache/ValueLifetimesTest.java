@@ -0,0 +1,78 @@
+package com.caching.cache;
+
+import com.caching.model.GeoCoordinates;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ValueLifetimesTest {
+
+    private static final Duration TTL = Duration.ofHours(6);
+
+    private CoalescingCaffeineCache cache;
+
+    @BeforeEach
+    void setUp() {
+        ValueLifetimes lifetimes = new ValueLifetimes(new JitteredExpiry(TTL, 0), TTL);
+        cache = new CoalescingCaffeineCache("geocoding", Caffeine.newBuilder().expireAfter(lifetimes).buildAsync(),
+                CacheChangeListener.NONE, lifetimes);
+    }
+
+    @Test
+    void valueReadBackKeepsItsAge() {
+        GeoCoordinates persisted = new GeoCoordinates(12.97, 77.59);
+        assertTrue(cache.expireAsIfLoadedAt("bangalore", persisted, Instant.now().minus(Duration.ofHours(5))));
+
+        cache.get("bangalore", () -> persisted);
+
+        assertBetween(Duration.ofMinutes(59), Duration.ofHours(1), cache.getTimeToLive("bangalore"));
+    }
+
+    @Test
+    void valueOlderThanTtlIsRefused() {
+        GeoCoordinates persisted = new GeoCoordinates(12.97, 77.59);
+
+        assertFalse(cache.expireAsIfLoadedAt("bangalore", persisted, Instant.now().minus(Duration.ofHours(7))));
+    }
+
+    @Test
+    void adjustmentAppliesOnlyToTheValueItWasMadeFor() {
+        GeoCoordinates persisted = new GeoCoordinates(12.97, 77.59);
+        cache.expireAsIfLoadedAt("bangalore", persisted, Instant.now().minus(Duration.ofHours(5)));
+
+        cache.getAsync("bangalore", () -> CompletableFuture.completedFuture(new GeoCoordinates(12.97, 77.59))).join();
+
+        assertBetween(TTL.minusMinutes(1), TTL, cache.getTimeToLive("bangalore"));
+    }
+
+    @Test
+    void valueCanBeKeptBriefly() {
+        GeoCoordinates guess = new GeoCoordinates(12.97, 77.59);
+        cache.expireAfter("bangalore", guess, Duration.ofMinutes(10));
+
+        cache.get("bangalore", () -> guess);
+
+        assertBetween(Duration.ofMinutes(9), Duration.ofMinutes(10), cache.getTimeToLive("bangalore"));
+    }
+
+    @Test
+    void briefLifetimeNeverExceedsTtl() {
+        GeoCoordinates guess = new GeoCoordinates(12.97, 77.59);
+        cache.expireAfter("bangalore", guess, TTL.multipliedBy(2));
+
+        cache.get("bangalore", () -> guess);
+
+        assertBetween(TTL.minusMinutes(1), TTL, cache.getTimeToLive("bangalore"));
+    }
+
+    private static void assertBetween(Duration low, Duration high, Duration actual) {
+        assertTrue(actual.compareTo(low) >= 0 && actual.compareTo(high) <= 0, low + " <= " + actual + " <= " + high);
+    }
+}
@@ -0,0 +1,143 @@
+package com.caching.cluster;
+
+import com.caching.cache.CacheChangeListener;
+import com.caching.cache.CacheKeyCanonicalizer;
+import com.caching.cache.CoalescingCaffeineCache;
+import com.caching.cache.SpatialReverseIndex;
+import com.caching.cache.ValueOrigin;
+import com.caching.model.GeoAddress;
+import com.caching.model.GeoCoordinates;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.support.SimpleCacheManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class CacheSyncReceiverTest {
+
+    private CoalescingCaffeineCache geocodingCache;
+    private CoalescingCaffeineCache reverseGeocodingCache;
+    private ConcurrentMapCache geocodingDisk;
+    private ConcurrentMapCache reverseGeocodingDisk;
+    private ConcurrentMapCache geocodingStale;
+    private ConcurrentMapCache reverseGeocodingStale;
+    private final List<String> reported = new ArrayList<>();
+    private SpatialReverseIndex<GeoAddress> spatialIndex;
+    private CacheSyncReceiver receiver;
+
+    @BeforeEach
+    void setUp() {
+        geocodingDisk = new ConcurrentMapCache("geocoding-disk");
+        reverseGeocodingDisk = new ConcurrentMapCache("reverse-geocoding-disk");
+        geocodingStale = new ConcurrentMapCache("geocoding-stale");
+        reverseGeocodingStale = new ConcurrentMapCache("reverse-geocoding-stale");
+        CacheChangeListener listener = new CacheChangeListener() {
+            @Override
+            public void loaded(String cacheName, Object key, Object value, ValueOrigin origin) {
+                reported.add("loaded " + cacheName);
+            }
+
+            @Override
+            public void evicted(String cacheName, Object key) {
+                reported.add("evicted " + cacheName);
+            }
+
+            @Override
+            public void cleared(String cacheName) {
+                reported.add("cleared " + cacheName);
+            }
+        };
+        geocodingCache = new CoalescingCaffeineCache("geocoding", Caffeine.newBuilder().buildAsync(), listener,
+                null, List.of(geocodingDisk, geocodingStale));
+        reverseGeocodingCache = new CoalescingCaffeineCache("reverse-geocoding", Caffeine.newBuilder().buildAsync(),
+                listener, null, List.of(reverseGeocodingDisk, reverseGeocodingStale));
+        SimpleCacheManager cacheManager = new SimpleCacheManager();
+        cacheManager.setCaches(List.of(geocodingCache, reverseGeocodingCache, geocodingDisk, reverseGeocodingDisk));
+        cacheManager.initializeCaches();
+        spatialIndex = new SpatialReverseIndex<>(true, 25, 1000, Duration.ofHours(1));
+        receiver = new CacheSyncReceiver(cacheManager, spatialIndex,
+                new CacheKeyCanonicalizer(5, List.of(), List.of()), new ObjectMapper());
+    }
+
+    @Test
+    void persistsUpstreamValues() {
+        receiver.apply(batch(ValueOrigin.UPSTREAM));
+
+        assertNotNull(geocodingCache.get("bangalore"));
+        assertNotNull(geocodingDisk.get("bangalore"));
+        assertNotNull(reverseGeocodingCache.get(List.of("12.97", "77.59")));
+        assertNotNull(reverseGeocodingDisk.get(List.of("12.97", "77.59")));
+        assertNotNull(spatialIndex.findNearest("12.97", "77.59"));
+    }
+
+    @Test
+    void keepsOtherValuesInMemoryOnly() {
+        ValueOrigin[] origins = {ValueOrigin.GAZETTEER, ValueOrigin.NEARBY, null};
+        for (ValueOrigin origin : origins) {
+            receiver.apply(batch(origin));
+
+            assertNotNull(geocodingCache.get("bangalore"));
+            assertNull(geocodingDisk.get("bangalore"));
+            assertNotNull(reverseGeocodingCache.get(List.of("12.97", "77.59")));
+            assertNull(reverseGeocodingDisk.get(List.of("12.97", "77.59")));
+            assertNull(spatialIndex.findNearest("12.97", "77.59"));
+        }
+    }
+
+    @Test
+    void evictionsReachTheDiskAndStaleCopies() {
+        receiver.apply(batch(ValueOrigin.UPSTREAM));
+        geocodingStale.put("bangalore", new GeoCoordinates(12.97, 77.59));
+        reverseGeocodingStale.put(List.of("12.97", "77.59"), new GeoAddress("MG Road, Bangalore"));
+
+        receiver.apply(new CacheSyncMessage("other-node", List.of(
+                new CacheSyncMessage.Change(CacheSyncMessage.Type.EVICT, "geocoding", " BANGALORE", null, null),
+                new CacheSyncMessage.Change(CacheSyncMessage.Type.EVICT, "reverse-geocoding",
+                        List.of("12.970", "77.590"), null, null))));
+
+        for (Cache cache : List.of(geocodingCache, geocodingDisk, geocodingStale)) {
+            assertNull(cache.get("bangalore"), cache.getName());
+        }
+        for (Cache cache : List.of(reverseGeocodingCache, reverseGeocodingDisk, reverseGeocodingStale)) {
+            assertNull(cache.get(List.of("12.97", "77.59")), cache.getName());
+        }
+        assertEquals(List.of(), reported);
+    }
+
+    @Test
+    void clearsReachTheDiskAndStaleCopies() {
+        receiver.apply(batch(ValueOrigin.UPSTREAM));
+        geocodingStale.put("bangalore", new GeoCoordinates(12.97, 77.59));
+        reverseGeocodingStale.put(List.of("12.97", "77.59"), new GeoAddress("MG Road, Bangalore"));
+
+        receiver.apply(new CacheSyncMessage("other-node", List.of(
+                new CacheSyncMessage.Change(CacheSyncMessage.Type.CLEAR, "geocoding", null, null, null),
+                new CacheSyncMessage.Change(CacheSyncMessage.Type.CLEAR, "reverse-geocoding", null, null, null))));
+
+        for (Cache cache : List.of(geocodingCache, geocodingDisk, geocodingStale)) {
+            assertNull(cache.get("bangalore"), cache.getName());
+        }
+        for (Cache cache : List.of(reverseGeocodingCache, reverseGeocodingDisk, reverseGeocodingStale)) {
+            assertNull(cache.get(List.of("12.97", "77.59")), cache.getName());
+        }
+        assertEquals(List.of(), reported);
+    }
+
+    private static CacheSyncMessage batch(ValueOrigin origin) {
+        return new CacheSyncMessage("other-node", List.of(
+                new CacheSyncMessage.Change(CacheSyncMessage.Type.PUT, "geocoding", "Bangalore",
+                        new GeoCoordinates(12.97, 77.59), origin),
+                new CacheSyncMessage.Change(CacheSyncMessage.Type.PUT, "reverse-geocoding", List.of("12.97", "77.59"),
+                        new GeoAddress("MG Road, Bangalore"), origin)));
+    }
+}
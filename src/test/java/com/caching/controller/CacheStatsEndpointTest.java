@@ -0,0 +1,164 @@
+package com.caching.controller;
+
+import com.caching.cache.CoalescingCaffeineCache;
+import com.caching.cache.EntryWeigher;
+import com.caching.cache.GeoCodingDiskCodecs;
+import com.caching.cache.MappedDiskCache;
+import com.caching.controller.CacheStatsEndpoint.CacheReport;
+import com.caching.controller.CacheStatsEndpoint.CachesReport;
+import com.caching.model.GeoCoordinates;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.support.SimpleCacheManager;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CacheStatsEndpointTest {
+
+    private static final GeoCoordinates BANGALORE = new GeoCoordinates(12.97, 77.59);
+
+    @TempDir
+    Path directory;
+
+    private final EntryWeigher weigher = new EntryWeigher();
+    private CoalescingCaffeineCache weighted;
+    private CoalescingCaffeineCache counted;
+    private CaffeineCache stale;
+    private MappedDiskCache disk;
+    private CacheStatsEndpoint endpoint;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        weighted = new CoalescingCaffeineCache("geocoding", Caffeine.newBuilder()
+                .maximumWeight(1_000_000)
+                .weigher(weigher)
+                .executor(Runnable::run)
+                .recordStats()
+                .buildAsync());
+        counted = new CoalescingCaffeineCache("reverse-geocoding", Caffeine.newBuilder()
+                .maximumSize(500)
+                .executor(Runnable::run)
+                .recordStats()
+                .buildAsync());
+        stale = new CaffeineCache("geocoding-stale", Caffeine.newBuilder().recordStats().build());
+        disk = MappedDiskCache.open("geocoding-disk", directory, GeoCodingDiskCodecs.FORWARD, 64 * 1024, 2,
+                Duration.ofHours(1));
+        SimpleCacheManager cacheManager = new SimpleCacheManager();
+        cacheManager.setCaches(List.of(weighted, counted, stale, disk,
+                new ConcurrentMapCache("geocoding-not-found")));
+        cacheManager.initializeCaches();
+        endpoint = new CacheStatsEndpoint(cacheManager);
+    }
+
+    @AfterEach
+    void closeDisk() {
+        disk.close();
+    }
+
+    @Test
+    void weightBoundCacheReportsItsWeightAndBound() {
+        load(weighted, "bangalore");
+        load(weighted, "mumbai");
+        load(weighted, "bangalore");
+
+        CacheReport report = endpoint.cache("geocoding");
+
+        assertEquals(2, report.getEntries());
+        assertEquals(1, report.getHits());
+        assertEquals(2, report.getMisses());
+        assertEquals(1.0 / 3, report.getHitRatio(), 1e-9);
+        assertEquals(0, report.getEvictions());
+        long expected = weigher.weigh("bangalore", BANGALORE) + weigher.weigh("mumbai", BANGALORE);
+        assertEquals(expected, report.getEstimatedBytes());
+        assertEquals(expected / 2, report.getAverageEntryBytes());
+        assertEquals(1_000_000, report.getMaximumBytes());
+        assertNull(report.getMaximumEntries());
+        assertNull(report.getDiskBytes());
+    }
+
+    @Test
+    void countBoundCacheIsWeighedEntryByEntry() {
+        List<String> key = List.of("12.97160", "77.59460");
+        load(counted, key);
+
+        CacheReport report = endpoint.cache("reverse-geocoding");
+
+        assertEquals(1, report.getEntries());
+        assertEquals(weigher.weigh(key, BANGALORE), report.getEstimatedBytes());
+        assertEquals(500, report.getMaximumEntries());
+        assertNull(report.getMaximumBytes());
+    }
+
+    @Test
+    void diskCacheReportsItsCountsAndFileUsage() {
+        disk.put("bangalore", BANGALORE);
+        disk.get("bangalore");
+        disk.get("mumbai");
+
+        CacheReport report = endpoint.cache("geocoding-disk");
+
+        assertEquals(1, report.getEntries());
+        assertEquals(1, report.getHits());
+        assertEquals(1, report.getMisses());
+        assertEquals(disk.getUsedBytes(), report.getDiskBytes());
+        assertTrue(report.getDiskBytes() > 0);
+        assertNull(report.getEstimatedBytes());
+        assertNull(report.getEvictions());
+    }
+
+    @Test
+    void allCachesAreReportedWithTheirTotal() {
+        load(weighted, "bangalore");
+        load(counted, List.of("12.97160", "77.59460"));
+        stale.put("bangalore", BANGALORE);
+
+        CachesReport report = endpoint.caches();
+
+        assertEquals(List.of("geocoding", "geocoding-disk", "geocoding-stale", "reverse-geocoding"),
+                List.copyOf(report.getCaches().keySet()));
+        long total = report.getCaches().get("geocoding").getEstimatedBytes()
+                + report.getCaches().get("reverse-geocoding").getEstimatedBytes()
+                + report.getCaches().get("geocoding-stale").getEstimatedBytes();
+        assertEquals(total, report.getTotalEstimatedBytes());
+        assertEquals(weigher.weigh("bangalore", BANGALORE),
+                report.getCaches().get("geocoding-stale").getEstimatedBytes());
+    }
+
+    @Test
+    void cachesWithoutStatisticsAreNotFound() {
+        assertNull(endpoint.cache("geocoding-not-found"));
+        assertNull(endpoint.cache("missing"));
+    }
+
+    @Test
+    void absentFieldsAreLeftOutOfTheJson() {
+        JsonNode json = new ObjectMapper().valueToTree(endpoint.cache("geocoding-disk"));
+
+        assertEquals(0, json.get("entries").asLong());
+        assertEquals(0.0, json.get("hitRatio").asDouble(), 0);
+        assertTrue(json.has("diskBytes"));
+        assertFalse(json.has("estimatedBytes"));
+        assertFalse(json.has("averageEntryBytes"));
+        assertFalse(json.has("maximumBytes"));
+    }
+
+    private static void load(CoalescingCaffeineCache cache, Object key) {
+        cache.getAsync(key, () -> CompletableFuture.completedFuture(BANGALORE)).join();
+    }
+}
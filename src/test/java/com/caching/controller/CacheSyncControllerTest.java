@@ -0,0 +1,105 @@
+package com.caching.controller;
+
+import com.caching.cache.CacheKeyCanonicalizer;
+import com.caching.cache.CoalescingCaffeineCache;
+import com.caching.cache.SpatialReverseIndex;
+import com.caching.cache.ValueOrigin;
+import com.caching.cluster.CacheReplicator;
+import com.caching.cluster.CacheSyncMessage;
+import com.caching.cluster.CacheSyncReceiver;
+import com.caching.configuration.GeoCodingCacheProperties;
+import com.caching.model.GeoAddress;
+import com.caching.model.GeoCoordinates;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.support.NoOpCache;
+import org.springframework.cache.support.SimpleCacheManager;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CacheSyncControllerTest {
+
+    private static final String TOKEN = "secret";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private CoalescingCaffeineCache geocodingCache;
+    private CacheReplicator replicator;
+    private CacheSyncReceiver receiver;
+    private CacheSyncController controller;
+
+    @BeforeEach
+    void setUp() {
+        geocodingCache = new CoalescingCaffeineCache("geocoding", Caffeine.newBuilder().buildAsync());
+        SimpleCacheManager cacheManager = new SimpleCacheManager();
+        cacheManager.setCaches(List.of(geocodingCache,
+                new CoalescingCaffeineCache("reverse-geocoding", Caffeine.newBuilder().buildAsync()),
+                new NoOpCache("geocoding-disk"), new NoOpCache("reverse-geocoding-disk")));
+        cacheManager.initializeCaches();
+        receiver = new CacheSyncReceiver(cacheManager, new SpatialReverseIndex<GeoAddress>(false, 0, 0, Duration.ZERO),
+                new CacheKeyCanonicalizer(5, List.of(), List.of()), objectMapper);
+        replicator = new CacheReplicator(cluster(TOKEN), objectMapper);
+        controller = new CacheSyncController(replicator, receiver);
+    }
+
+    @AfterEach
+    void tearDown() {
+        replicator.close();
+    }
+
+    @Test
+    void rejectsBatchWithoutToken() {
+        ResponseEntity<Void> response = controller.sync(batch(), null);
+
+        assertEquals(HttpStatus.FORBIDDEN, response.getStatusCode());
+        assertNull(geocodingCache.get("bangalore"));
+        assertEquals(0, receiver.getAppliedCount());
+    }
+
+    @Test
+    void rejectsBatchWithWrongToken() {
+        ResponseEntity<Void> response = controller.sync(batch(), "not-the-secret");
+
+        assertEquals(HttpStatus.FORBIDDEN, response.getStatusCode());
+        assertNull(geocodingCache.get("bangalore"));
+        assertEquals(0, receiver.getAppliedCount());
+    }
+
+    @Test
+    void appliesBatchWithToken() {
+        ResponseEntity<Void> response = controller.sync(batch(), TOKEN);
+
+        assertEquals(HttpStatus.NO_CONTENT, response.getStatusCode());
+        assertNotNull(geocodingCache.get("bangalore"));
+        assertEquals(1, receiver.getAppliedCount());
+    }
+
+    @Test
+    void refusesToStartClusterModeWithoutToken() {
+        assertThrows(IllegalStateException.class, () -> new CacheReplicator(cluster(null), objectMapper));
+        assertThrows(IllegalStateException.class, () -> new CacheReplicator(cluster(""), objectMapper));
+    }
+
+    private static GeoCodingCacheProperties.Cluster cluster(String token) {
+        GeoCodingCacheProperties.Cluster cluster = new GeoCodingCacheProperties.Cluster();
+        cluster.setEnabled(true);
+        cluster.setToken(token);
+        return cluster;
+    }
+
+    private static CacheSyncMessage batch() {
+        CacheSyncMessage.Change change = new CacheSyncMessage.Change(CacheSyncMessage.Type.PUT, "geocoding",
+                "Bangalore", new GeoCoordinates(12.97, 77.59), ValueOrigin.UPSTREAM);
+        return new CacheSyncMessage("other-node", List.of(change));
+    }
+}
@@ -0,0 +1,253 @@
+package com.caching.controller;
+
+import com.caching.cache.CacheKeyCanonicalizer;
+import com.caching.cache.CoalescingCaffeineCache;
+import com.caching.cache.JitteredExpiry;
+import com.caching.cache.SpatialReverseIndex;
+import com.caching.cache.StaleValueCache;
+import com.caching.configuration.GazetteerProperties.MatchMode;
+import com.caching.configuration.ResilienceProperties;
+import com.caching.configuration.UpstreamClientConfig;
+import com.caching.gazetteer.Gazetteer;
+import com.caching.model.GeoAddress;
+import com.caching.model.GeoCoordinates;
+import com.caching.provider.GeoCodingProvider;
+import com.caching.repository.GeoCodingRepository;
+import com.caching.resilience.RequestHedger;
+import com.caching.service.GeoCodingBatchService;
+import com.caching.service.GeoCodingService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.support.NoOpCache;
+import org.springframework.cache.support.SimpleCacheManager;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GeoCodingControllerTest {
+
+    private static final Duration TTL = Duration.ofHours(1);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger upstreamCalls = new AtomicInteger();
+    private RequestHedger hedger;
+    private GeoCodingService service;
+    private GeoCodingController controller;
+
+    @BeforeEach
+    void setUp() {
+        SimpleCacheManager cacheManager = new SimpleCacheManager();
+        cacheManager.setCaches(List.of(
+                new CoalescingCaffeineCache("geocoding",
+                        Caffeine.newBuilder().expireAfter(new JitteredExpiry(TTL, 0)).buildAsync()),
+                new CoalescingCaffeineCache("reverse-geocoding",
+                        Caffeine.newBuilder().expireAfter(new JitteredExpiry(TTL, 0)).buildAsync()),
+                new ConcurrentMapCache("geocoding-not-found"), new ConcurrentMapCache("reverse-geocoding-not-found"),
+                new StaleValueCache("geocoding-stale", Caffeine.newBuilder().build(), Duration.ofMinutes(1)),
+                new StaleValueCache("reverse-geocoding-stale", Caffeine.newBuilder().build(), Duration.ofMinutes(1)),
+                new NoOpCache("geocoding-disk"), new NoOpCache("reverse-geocoding-disk")));
+        cacheManager.initializeCaches();
+
+        List<GeoCodingProvider> providers = List.of(new GeoCodingProvider() {
+            @Override
+            public String getName() {
+                return "stub";
+            }
+
+            @Override
+            public CompletableFuture<GeoCoordinates> geocode(String address) {
+                upstreamCalls.incrementAndGet();
+                return CompletableFuture.completedFuture(new GeoCoordinates(12.97, 77.59));
+            }
+
+            @Override
+            public CompletableFuture<GeoAddress> reverseGeocode(String latitude, String longitude) {
+                upstreamCalls.incrementAndGet();
+                return CompletableFuture.completedFuture(new GeoAddress("MG Road, Bangalore"));
+            }
+        });
+        ResilienceProperties resilience = new ResilienceProperties();
+        hedger = new RequestHedger(resilience.getHedging(), meterRegistry);
+        GeoCodingRepository repository = new GeoCodingRepository(providers,
+                UpstreamClientConfig.upstreamGuards(providers, resilience, meterRegistry), hedger, meterRegistry);
+        CacheKeyCanonicalizer cacheKeys = new CacheKeyCanonicalizer(5, List.of(), List.of("Current Location"));
+        service = new GeoCodingService(repository, cacheManager,
+                new SpatialReverseIndex<GeoAddress>(false, 0, 0, Duration.ZERO),
+                new Gazetteer(false, MatchMode.EXACT, 0.8, Duration.ofMinutes(10)), cacheKeys);
+        SerializedResponses responses = new SerializedResponses(objectMapper, true);
+        controller = new GeoCodingController(service,
+                new GeoCodingBatchService(service, cacheKeys, objectMapper, 100, 8, Duration.ofMinutes(1)),
+                responses, Duration.ofSeconds(10));
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        service.shutdown();
+        hedger.close();
+    }
+
+    @Test
+    void cachedResultCarriesETagAndRemainingLifetime() throws Exception {
+        ResponseEntity<?> response = geocodeCached("Bangalore");
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(MediaType.APPLICATION_JSON, response.getHeaders().getContentType());
+        assertNotNull(response.getHeaders().getETag());
+        assertArrayEquals(objectMapper.writeValueAsBytes(new GeoCoordinates(12.97, 77.59)),
+                (byte[]) response.getBody());
+        long maxAge = maxAge(response);
+        assertTrue(maxAge > TTL.toSeconds() - 60 && maxAge <= TTL.toSeconds(), String.valueOf(maxAge));
+        String cacheControl = response.getHeaders().getCacheControl();
+        assertTrue(cacheControl.contains("public"), cacheControl);
+    }
+
+    @Test
+    void maxAgeFollowsTheEntrysRemainingLifetime() {
+        geocodeCached("Bangalore");
+        Duration remaining = service.getGeocodeTimeToLive("Bangalore");
+
+        ResponseEntity<?> response = controller.getGeocode("bangalore ", null);
+
+        assertEquals(1, upstreamCalls.get());
+        assertTrue(maxAge(response) <= remaining.toSeconds(), maxAge(response) + " > " + remaining);
+        assertTrue(maxAge(response) >= remaining.toSeconds() - 1, maxAge(response) + " < " + remaining);
+    }
+
+    @Test
+    void matchingETagIsAnsweredWith304() {
+        String etag = geocodeCached("Bangalore").getHeaders().getETag();
+
+        ResponseEntity<?> response = controller.getGeocode("Bangalore", etag);
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertNull(response.getBody());
+        assertEquals(etag, response.getHeaders().getETag());
+        assertTrue(maxAge(response) > 0);
+    }
+
+    @Test
+    void ifNoneMatchComparesWeaklyAndAcceptsAnyOfSeveralTags() {
+        String etag = geocodeCached("Bangalore").getHeaders().getETag();
+
+        assertEquals(HttpStatus.NOT_MODIFIED, controller.getGeocode("Bangalore", "W/" + etag).getStatusCode());
+        assertEquals(HttpStatus.NOT_MODIFIED,
+                controller.getGeocode("Bangalore", "\"other\", W/\"another\",  " + etag).getStatusCode());
+        assertEquals(HttpStatus.NOT_MODIFIED, controller.getGeocode("Bangalore", "*").getStatusCode());
+        assertEquals(HttpStatus.OK, controller.getGeocode("Bangalore", "\"other\"").getStatusCode());
+        assertEquals(HttpStatus.OK,
+                controller.getGeocode("Bangalore", etag.substring(0, etag.length() - 1)).getStatusCode());
+    }
+
+    @Test
+    void uncachedResultIsNotCacheable() {
+        ResponseEntity<?> first = controller.getGeocode("Current Location", null);
+        ResponseEntity<?> second = controller.getGeocode("Current Location", null);
+
+        assertEquals(HttpStatus.OK, first.getStatusCode());
+        assertEquals("no-cache", first.getHeaders().getCacheControl());
+        assertNotNull(first.getHeaders().getETag());
+        assertEquals(first.getHeaders().getETag(), second.getHeaders().getETag());
+        assertEquals(2, upstreamCalls.get());
+        // Nothing is kept for values no cache holds
+        assertNotSame(first.getBody(), second.getBody());
+    }
+
+    @Test
+    void reverseGeocodingIsPlainTextWithTheSameHeaders() {
+        controller.getReverseGeocode("12.97", "77.59", null);
+        awaitLifetime(() -> service.getReverseGeocodeTimeToLive("12.97", "77.59"));
+        ResponseEntity<?> response = controller.getReverseGeocode("12.97", "77.59", null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8),
+                response.getHeaders().getContentType());
+        assertEquals("MG Road, Bangalore", new String((byte[]) response.getBody(), StandardCharsets.UTF_8));
+        assertTrue(maxAge(response) > 0);
+        assertEquals(HttpStatus.NOT_MODIFIED, controller.getReverseGeocode("12.970", "77.590",
+                response.getHeaders().getETag()).getStatusCode());
+    }
+
+    @Test
+    void bodiesAreKeptPerCachedValueInstance() {
+        SerializedResponses responses = new SerializedResponses(objectMapper, true);
+        GeoCoordinates value = new GeoCoordinates(12.97, 77.59);
+        GeoCoordinates equalValue = new GeoCoordinates(12.97, 77.59);
+
+        ResponseEntity<?> first = responses.json(value, TTL, null);
+        ResponseEntity<?> again = responses.json(value, TTL, null);
+        ResponseEntity<?> other = responses.json(equalValue, TTL, null);
+
+        // The same instance reuses its bytes; an equal but distinct one, as after a refresh, gets its own.
+        assertSame(first.getBody(), again.getBody());
+        assertNotSame(first.getBody(), other.getBody());
+        assertArrayEquals((byte[]) first.getBody(), (byte[]) other.getBody());
+        assertEquals(first.getHeaders().getETag(), other.getHeaders().getETag());
+    }
+
+    @Test
+    void disabledResponsesAreLeftToSpring() {
+        SerializedResponses responses = new SerializedResponses(objectMapper, false);
+        GeoCoordinates value = new GeoCoordinates(12.97, 77.59);
+
+        ResponseEntity<?> response = responses.json(value, TTL, "*");
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertSame(value, response.getBody());
+        assertNull(response.getHeaders().getETag());
+        assertNull(response.getHeaders().getCacheControl());
+    }
+
+    /**
+     * Geocodes the address once the result is cached and its lifetime recorded.
+     */
+    private ResponseEntity<?> geocodeCached(String address) {
+        controller.getGeocode(address, null);
+        awaitLifetime(() -> service.getGeocodeTimeToLive(address));
+        return controller.getGeocode(address, null);
+    }
+
+    /**
+     * Waits for Caffeine to give a just loaded entry its lifetime, which it does only after the callers waiting on
+     * the load have run; until then the entry is answered as not cached.
+     */
+    private static void awaitLifetime(Supplier<Duration> timeToLive) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (timeToLive.get() == null) {
+            assertTrue(System.nanoTime() < deadline, "No lifetime recorded");
+            Thread.onSpinWait();
+        }
+    }
+
+    private static long maxAge(ResponseEntity<?> response) {
+        String cacheControl = response.getHeaders().getFirst(HttpHeaders.CACHE_CONTROL);
+        for (String directive : cacheControl.split(",")) {
+            if (directive.trim().startsWith("max-age=")) {
+                return Long.parseLong(directive.trim().substring("max-age=".length()));
+            }
+        }
+        throw new AssertionError("No max-age in " + cacheControl);
+    }
+}
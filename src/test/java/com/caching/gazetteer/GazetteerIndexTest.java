@@ -0,0 +1,27 @@
+package com.caching.gazetteer;
+
+import com.caching.cache.CacheKeyCanonicalizer;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class GazetteerIndexTest {
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+            "MG Road, Bangalore | mg road bangalore",
+            "'  MG-Road;  Bangalore. ' | mg road bangalore",
+            "\uFF22\uFF41\uFF4E\uFF47\uFF41\uFF4C\uFF4F\uFF52\uFF45 | bangalore",
+            "Stra\u00DFe | strasse",
+            "CAF\u00C9 Coffee Day | cafe coffee day",
+            "Cafe\u0301 Coffee Day | cafe coffee day",
+            "\u0130stanbul | istanbul",
+            "'--' | ",
+    })
+    void normalizesLikeCacheKeysWithoutAccentsOrPunctuation(String name, String expected) {
+        assertEquals(expected == null ? "" : expected, GazetteerIndex.normalize(name));
+        // Spellings sharing a cache key always share a gazetteer name.
+        assertEquals(GazetteerIndex.normalize(name), GazetteerIndex.normalize(CacheKeyCanonicalizer.fold(name)));
+    }
+}
@@ -0,0 +1,64 @@
+package com.caching.gazetteer;
+
+import com.caching.configuration.GazetteerProperties.MatchMode;
+import com.caching.model.GeoCoordinates;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GazetteerTest {
+
+    @TempDir
+    Path directory;
+
+    private Path file;
+
+    @BeforeEach
+    void writeFile() throws IOException {
+        file = directory.resolve("places.csv");
+        Files.write(file, List.of("address,latitude,longitude",
+                "MG Road Bangalore,12.9756,77.6066",
+                "Marine Drive Mumbai,18.9440,72.8230"));
+    }
+
+    @Test
+    void exactModeAnswersOnlyExactNames() throws IOException {
+        Gazetteer gazetteer = load(MatchMode.EXACT);
+
+        Gazetteer.Match match = gazetteer.find("mg road, bangalore");
+        assertEquals(new GeoCoordinates(12.9756, 77.6066), match.getCoordinates());
+        assertFalse(match.isFuzzy());
+        assertNull(gazetteer.find("MG Road Bangalor"));
+        assertEquals(1, gazetteer.getExactHitCount());
+        assertEquals(1, gazetteer.getMissCount());
+    }
+
+    @Test
+    void fuzzyModeFlagsSimilarNames() throws IOException {
+        Gazetteer gazetteer = load(MatchMode.FUZZY);
+
+        assertFalse(gazetteer.find("MG Road Bangalore").isFuzzy());
+        Gazetteer.Match match = gazetteer.find("MG Road Bangalor");
+        assertEquals(new GeoCoordinates(12.9756, 77.6066), match.getCoordinates());
+        assertTrue(match.isFuzzy());
+        assertNull(gazetteer.find("Connaught Place Delhi"));
+        assertEquals(1, gazetteer.getFuzzyHitCount());
+    }
+
+    private Gazetteer load(MatchMode matchMode) throws IOException {
+        Gazetteer gazetteer = new Gazetteer(true, matchMode, 0.8, Duration.ofMinutes(10));
+        gazetteer.load(file, 1);
+        return gazetteer;
+    }
+}
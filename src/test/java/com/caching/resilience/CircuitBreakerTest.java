@@ -0,0 +1,108 @@
+package com.caching.resilience;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CircuitBreakerTest {
+
+    private static final Duration OPEN_DURATION = Duration.ofSeconds(10);
+
+    private final AtomicLong now = new AtomicLong();
+    private final CircuitBreaker breaker = new CircuitBreaker(0.5, 4, 4, OPEN_DURATION, 2, now::get);
+
+    @Test
+    void opensOnceFailureRateReachesThreshold() {
+        record(true, true, false);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+        record(false);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquirePermission());
+        assertEquals(OPEN_DURATION, breaker.getRemainingOpenTime());
+    }
+
+    @Test
+    void oldOutcomesLeaveTheWindow() {
+        record(false, true, true, true);
+        record(false);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+        record(false);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    void halfOpensAfterOpenDurationAndClosesWhenProbesSucceed() {
+        open();
+        now.addAndGet(OPEN_DURATION.toNanos() - 1);
+        assertFalse(breaker.tryAcquirePermission());
+        assertEquals(Duration.ofNanos(1), breaker.getRemainingOpenTime());
+
+        now.addAndGet(1);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertTrue(breaker.tryAcquirePermission());
+        assertTrue(breaker.tryAcquirePermission());
+        assertFalse(breaker.tryAcquirePermission());
+
+        breaker.onSuccess();
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        breaker.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+        // Closing starts a fresh window, so a single failure does not reopen it.
+        record(false);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void failedProbeReopensForAnotherFullDuration() {
+        open();
+        now.addAndGet(OPEN_DURATION.toNanos());
+        assertTrue(breaker.tryAcquirePermission());
+
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals(OPEN_DURATION, breaker.getRemainingOpenTime());
+        assertFalse(breaker.tryAcquirePermission());
+
+        now.addAndGet(OPEN_DURATION.toNanos());
+        assertTrue(breaker.tryAcquirePermission());
+    }
+
+    @Test
+    void releasedProbePermissionCanBeTakenAgain() {
+        open();
+        now.addAndGet(OPEN_DURATION.toNanos());
+        assertTrue(breaker.tryAcquirePermission());
+        assertTrue(breaker.tryAcquirePermission());
+
+        breaker.release();
+        assertTrue(breaker.tryAcquirePermission());
+        assertFalse(breaker.tryAcquirePermission());
+    }
+
+    private void open() {
+        record(false, false, false, false);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    /**
+     * Records one call per outcome, {@code true} for a success.
+     */
+    private void record(boolean... successes) {
+        for (boolean success : successes) {
+            assertTrue(breaker.tryAcquirePermission());
+            if (success) {
+                breaker.onSuccess();
+            } else {
+                breaker.onFailure();
+            }
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.caching.resilience;
+
+import com.caching.configuration.ResilienceProperties;
+import com.caching.exception.custom.GeoCodingException;
+import com.caching.exception.custom.GeoCodingResultNotFoundException;
+import com.caching.exception.custom.UpstreamUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RequestHedgerTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ResilienceProperties properties = new ResilienceProperties();
+    private final AtomicIntegerArray calls = new AtomicIntegerArray(2);
+    private List<UpstreamGuard> guards;
+    private RequestHedger hedger;
+
+    @BeforeEach
+    void setUp() {
+        properties.getRateLimit().setEnabled(false);
+        properties.getCircuitBreaker().setSlidingWindowSize(4);
+        properties.getCircuitBreaker().setMinimumCalls(4);
+        properties.getCircuitBreaker().setWaitInOpenState(Duration.ofSeconds(30));
+        // Hedge only on failures, and with no budget, so that any extra attempt is a free failover.
+        properties.getHedging().setEnabled(true);
+        properties.getHedging().setDelay(Duration.ofHours(1));
+        properties.getHedging().setBudget(0);
+        guards = List.of(new UpstreamGuard("primary", properties, meterRegistry, now::get),
+                new UpstreamGuard("secondary", properties, meterRegistry, now::get));
+        hedger = new RequestHedger(properties.getHedging(), meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        hedger.close();
+    }
+
+    @Test
+    void secondaryAnswersWhilePrimaryCircuitIsOpen() {
+        for (int i = 0; i < 4; i++) {
+            guards.get(0).execute("forward", () -> CompletableFuture.failedFuture(new GeoCodingException("HTTP 503")));
+        }
+        assertEquals(CircuitBreaker.State.OPEN, guards.get(0).getCircuitState());
+        assertEquals(CircuitBreaker.State.CLOSED, guards.get(1).getCircuitState());
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals("secondary", execute(attempt -> CompletableFuture.completedFuture("secondary")).join());
+        }
+        assertEquals(0, calls.get(0));
+        assertEquals(10, calls.get(1));
+        assertEquals(10, fired("rejected"), 0);
+        assertEquals(0, meterRegistry.counter("geocoding.upstream.hedge.skipped", "operation", "forward").count(), 0);
+    }
+
+    @Test
+    void failsWhenEveryProviderRejects() {
+        for (UpstreamGuard guard : guards) {
+            for (int i = 0; i < 4; i++) {
+                guard.execute("forward", () -> CompletableFuture.failedFuture(new GeoCodingException("HTTP 503")));
+            }
+        }
+
+        CompletableFuture<String> result = execute(attempt -> CompletableFuture.completedFuture("unreachable"));
+        CompletionException ex = assertThrows(CompletionException.class, result::join);
+        assertTrue(ex.getCause() instanceof UpstreamUnavailableException, String.valueOf(ex.getCause()));
+        assertEquals(0, calls.get(0) + calls.get(1));
+    }
+
+    @Test
+    void failedCallsFailOverOnlyWithinTheBudget() {
+        CompletableFuture<String> result = execute(attempt -> attempt == 0
+                ? CompletableFuture.failedFuture(new GeoCodingException("HTTP 503"))
+                : CompletableFuture.completedFuture("secondary"));
+
+        CompletionException ex = assertThrows(CompletionException.class, result::join);
+        assertEquals(GeoCodingException.class, ex.getCause().getClass());
+        assertEquals(0, calls.get(1));
+        assertEquals(1, meterRegistry.counter("geocoding.upstream.hedge.skipped", "operation", "forward").count(), 0);
+    }
+
+    @Test
+    void noResultsAnswerIsFinal() {
+        CompletableFuture<String> result = execute(attempt -> attempt == 0
+                ? CompletableFuture.failedFuture(new GeoCodingResultNotFoundException("No results"))
+                : CompletableFuture.completedFuture("secondary"));
+
+        CompletionException ex = assertThrows(CompletionException.class, result::join);
+        assertTrue(ex.getCause() instanceof GeoCodingResultNotFoundException, String.valueOf(ex.getCause()));
+        assertEquals(1, calls.get(0));
+        assertEquals(0, calls.get(1));
+    }
+
+    /**
+     * Runs a hedged call over both providers, each attempt passing its provider's guard.
+     */
+    private CompletableFuture<String> execute(IntFunction<CompletableFuture<String>> answer) {
+        return hedger.execute("forward", guards.size(), attempt -> guards.get(attempt).execute("forward", () -> {
+            calls.incrementAndGet(attempt);
+            return answer.apply(attempt);
+        }));
+    }
+
+    private double fired(String trigger) {
+        return meterRegistry.counter("geocoding.upstream.hedge.fired", "operation", "forward", "trigger", trigger)
+                .count();
+    }
+}
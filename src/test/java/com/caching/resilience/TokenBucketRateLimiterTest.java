@@ -0,0 +1,71 @@
+package com.caching.resilience;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TokenBucketRateLimiterTest {
+
+    private static final int BURST = 5;
+    private static final long NANOS_PER_TOKEN = Duration.ofMillis(100).toNanos();
+
+    private final AtomicLong now = new AtomicLong();
+    private final TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(10, BURST, now::get);
+
+    @Test
+    void startsFullAndAllowsABurst() {
+        assertEquals(BURST, limiter.getAvailableTokens(), 0);
+        drain();
+
+        assertEquals(-1, limiter.reserveNanos(Duration.ZERO));
+        assertEquals(0, limiter.getAvailableTokens(), 0);
+    }
+
+    @Test
+    void refillsAtTheConfiguredRate() {
+        drain();
+
+        now.addAndGet(NANOS_PER_TOKEN / 2);
+        assertEquals(NANOS_PER_TOKEN / 2, limiter.timeUntilAvailable().toNanos(), 2);
+        assertEquals(-1, limiter.reserveNanos(Duration.ZERO));
+
+        now.addAndGet(NANOS_PER_TOKEN / 2 + 1);
+        assertEquals(Duration.ZERO, limiter.timeUntilAvailable());
+        assertEquals(0, limiter.reserveNanos(Duration.ZERO));
+        assertEquals(-1, limiter.reserveNanos(Duration.ZERO));
+    }
+
+    @Test
+    void refillStopsAtTheBurstSize() {
+        drain();
+
+        now.addAndGet(Duration.ofHours(1).toNanos());
+        assertEquals(BURST, limiter.getAvailableTokens(), 0);
+        drain();
+        assertEquals(-1, limiter.reserveNanos(Duration.ZERO));
+    }
+
+    @Test
+    void reservesTokensThatArriveWithinMaxWait() {
+        drain();
+        Duration maxWait = Duration.ofMillis(250);
+
+        assertEquals(NANOS_PER_TOKEN, limiter.reserveNanos(maxWait), 2);
+        assertEquals(2 * NANOS_PER_TOKEN, limiter.reserveNanos(maxWait), 2);
+        // The next token is owed to the two callers above, so a third would wait 300ms.
+        assertEquals(-1, limiter.reserveNanos(maxWait));
+        assertEquals(-2, limiter.getAvailableTokens(), 0);
+
+        now.addAndGet(3 * NANOS_PER_TOKEN + 1);
+        assertEquals(0, limiter.reserveNanos(Duration.ZERO));
+    }
+
+    private void drain() {
+        for (int i = 0; i < BURST; i++) {
+            assertEquals(0, limiter.reserveNanos(Duration.ZERO));
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.caching.resilience;
+
+import com.caching.configuration.ResilienceProperties;
+import com.caching.exception.custom.GeoCodingException;
+import com.caching.exception.custom.GeoCodingResultNotFoundException;
+import com.caching.exception.custom.UpstreamUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UpstreamGuardTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ResilienceProperties properties = new ResilienceProperties();
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @Test
+    void waitsForATokenAndThenGivesUp() {
+        properties.getCircuitBreaker().setEnabled(false);
+        properties.getRateLimit().setPermitsPerSecond(10);
+        properties.getRateLimit().setBurst(1);
+        properties.getRateLimit().setMaxWait(Duration.ofMillis(150));
+        UpstreamGuard guard = guard();
+
+        assertEquals("first", guard.execute("geocode", () -> call("first")).join());
+
+        // The next token is 100ms away, within the allowed wait: the call is started once it arrives.
+        CompletableFuture<String> delayed = guard.execute("geocode", () -> call("second"));
+        assertFalse(delayed.isDone());
+        assertEquals(1, calls.get());
+        assertEquals(1, guard.getCallsInFlight());
+        assertEquals("second", delayed.join());
+
+        // The token after that is owed for another 200ms, longer than the allowed wait.
+        UpstreamUnavailableException rejected = rejection(guard.execute("geocode", () -> call("third")));
+        assertEquals(Duration.ofMillis(200).toNanos(), rejected.getRetryAfter().toNanos(), 2);
+        assertEquals(2, calls.get());
+        assertEquals(0, guard.getCallsInFlight());
+        assertEquals(1, rejections("rate_limited"), 0);
+
+        now.addAndGet(Duration.ofMillis(300).toNanos());
+        assertEquals("fourth", guard.execute("geocode", () -> call("fourth")).join());
+    }
+
+    @Test
+    void opensCircuitOnFailuresAndClosesAfterProbe() {
+        properties.getRateLimit().setEnabled(false);
+        ResilienceProperties.CircuitBreaker breaker = properties.getCircuitBreaker();
+        breaker.setSlidingWindowSize(4);
+        breaker.setMinimumCalls(4);
+        breaker.setPermittedCallsInHalfOpenState(1);
+        breaker.setWaitInOpenState(Duration.ofSeconds(30));
+        UpstreamGuard guard = guard();
+
+        for (int i = 0; i < 4; i++) {
+            guard.execute("geocode", () -> CompletableFuture.failedFuture(new GeoCodingException("HTTP 503")));
+        }
+        assertEquals(CircuitBreaker.State.OPEN, guard.getCircuitState());
+        UpstreamUnavailableException rejected = rejection(guard.execute("geocode", () -> call("skipped")));
+        assertEquals(Duration.ofSeconds(30), rejected.getRetryAfter());
+        assertEquals(0, calls.get());
+        assertEquals(1, rejections("circuit_open"), 0);
+
+        now.addAndGet(Duration.ofSeconds(30).toNanos());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, guard.getCircuitState());
+        assertEquals("probe", guard.execute("geocode", () -> call("probe")).join());
+        assertEquals(CircuitBreaker.State.CLOSED, guard.getCircuitState());
+    }
+
+    @Test
+    void noResultsAnswersKeepCircuitClosed() {
+        properties.getRateLimit().setEnabled(false);
+        properties.getCircuitBreaker().setMinimumCalls(1);
+        UpstreamGuard guard = guard();
+
+        for (int i = 0; i < 20; i++) {
+            guard.execute("geocode",
+                    () -> CompletableFuture.failedFuture(new GeoCodingResultNotFoundException("No results")));
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, guard.getCircuitState());
+    }
+
+    private UpstreamGuard guard() {
+        return new UpstreamGuard("primary", properties, meterRegistry, now::get);
+    }
+
+    private CompletableFuture<String> call(String value) {
+        calls.incrementAndGet();
+        return CompletableFuture.completedFuture(value);
+    }
+
+    private double rejections(String reason) {
+        return meterRegistry.counter("geocoding.upstream.rejections", "operation", "geocode", "provider", "primary",
+                "reason", reason).count();
+    }
+
+    private static UpstreamUnavailableException rejection(CompletableFuture<?> future) {
+        CompletionException ex = assertThrows(CompletionException.class, future::join);
+        assertTrue(ex.getCause() instanceof UpstreamUnavailableException, String.valueOf(ex.getCause()));
+        return (UpstreamUnavailableException) ex.getCause();
+    }
+}
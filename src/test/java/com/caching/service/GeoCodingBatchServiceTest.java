@@ -0,0 +1,317 @@
+package com.caching.service;
+
+import com.caching.cache.CacheKeyCanonicalizer;
+import com.caching.cache.CoalescingCaffeineCache;
+import com.caching.cache.SpatialReverseIndex;
+import com.caching.cache.StaleValueCache;
+import com.caching.configuration.GazetteerProperties.MatchMode;
+import com.caching.configuration.ResilienceProperties;
+import com.caching.configuration.UpstreamClientConfig;
+import com.caching.exception.custom.GeoCodingResultNotFoundException;
+import com.caching.exception.custom.InvalidGeoCodingRequestException;
+import com.caching.exception.custom.UpstreamUnavailableException;
+import com.caching.gazetteer.Gazetteer;
+import com.caching.model.CoordinatesRequest;
+import com.caching.model.GeoAddress;
+import com.caching.model.GeoCoordinates;
+import com.caching.provider.GeoCodingProvider;
+import com.caching.repository.GeoCodingRepository;
+import com.caching.resilience.RequestHedger;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.support.NoOpCache;
+import org.springframework.cache.support.SimpleCacheManager;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GeoCodingBatchServiceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CacheKeyCanonicalizer cacheKeys = new CacheKeyCanonicalizer(5, List.of(), List.of());
+    private final Map<Object, AtomicInteger> upstreamCalls = new ConcurrentHashMap<>();
+    // Lookups of addresses starting with "slow", in the order they were sent upstream
+    private final BlockingQueue<CompletableFuture<GeoCoordinates>> pending = new LinkedBlockingQueue<>();
+    private RequestHedger hedger;
+    private GeoCodingService service;
+
+    @BeforeEach
+    void setUp() {
+        SimpleCacheManager cacheManager = new SimpleCacheManager();
+        cacheManager.setCaches(List.of(
+                new CoalescingCaffeineCache("geocoding", Caffeine.newBuilder().buildAsync()),
+                new CoalescingCaffeineCache("reverse-geocoding", Caffeine.newBuilder().buildAsync()),
+                new ConcurrentMapCache("geocoding-not-found"), new ConcurrentMapCache("reverse-geocoding-not-found"),
+                new StaleValueCache("geocoding-stale", Caffeine.newBuilder().build(), Duration.ofMinutes(1)),
+                new StaleValueCache("reverse-geocoding-stale", Caffeine.newBuilder().build(), Duration.ofMinutes(1)),
+                new NoOpCache("geocoding-disk"), new NoOpCache("reverse-geocoding-disk")));
+        cacheManager.initializeCaches();
+
+        List<GeoCodingProvider> providers = List.of(new GeoCodingProvider() {
+            @Override
+            public String getName() {
+                return "stub";
+            }
+
+            @Override
+            public CompletableFuture<GeoCoordinates> geocode(String address) {
+                upstreamCalls.computeIfAbsent(address, key -> new AtomicInteger()).incrementAndGet();
+                if (address.startsWith("slow")) {
+                    CompletableFuture<GeoCoordinates> lookup = new CompletableFuture<>();
+                    pending.add(lookup);
+                    return lookup;
+                }
+                switch (address) {
+                    case "atlantis":
+                        return CompletableFuture.failedFuture(new GeoCodingResultNotFoundException("No results"));
+                    case "?":
+                        return CompletableFuture.failedFuture(new InvalidGeoCodingRequestException("Bad query"));
+                    case "down":
+                        return CompletableFuture.failedFuture(
+                                new UpstreamUnavailableException("Circuit open", Duration.ofSeconds(1)));
+                    default:
+                        return CompletableFuture.completedFuture(new GeoCoordinates(12.97, 77.59));
+                }
+            }
+
+            @Override
+            public CompletableFuture<GeoAddress> reverseGeocode(String latitude, String longitude) {
+                upstreamCalls.computeIfAbsent(List.of(latitude, longitude), key -> new AtomicInteger())
+                        .incrementAndGet();
+                return CompletableFuture.completedFuture(new GeoAddress("MG Road, Bangalore"));
+            }
+        });
+        ResilienceProperties resilience = new ResilienceProperties();
+        resilience.getRateLimit().setEnabled(false);
+        hedger = new RequestHedger(resilience.getHedging(), meterRegistry);
+        GeoCodingRepository repository = new GeoCodingRepository(providers,
+                UpstreamClientConfig.upstreamGuards(providers, resilience, meterRegistry), hedger, meterRegistry);
+        service = new GeoCodingService(repository, cacheManager,
+                new SpatialReverseIndex<GeoAddress>(false, 0, 0, Duration.ZERO),
+                new Gazetteer(false, MatchMode.EXACT, 0.8, Duration.ofMinutes(10)), cacheKeys);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        pending.forEach(lookup -> lookup.complete(new GeoCoordinates(0, 0)));
+        service.shutdown();
+        hedger.close();
+    }
+
+    @Test
+    void duplicateSpellingsAreResolvedOnce() throws IOException {
+        Map<Integer, JsonNode> lines = geocode(batchService(8, Duration.ofMinutes(1)),
+                List.of("Bangalore", " bangalore ", "BANGALORE", "Mumbai", "Bangalore"));
+
+        assertEquals(5, lines.size());
+        for (int i = 0; i < 5; i++) {
+            assertEquals(200, lines.get(i).get("status").asInt());
+            assertEquals(12.97, lines.get(i).get("result").get("latitude").asDouble(), 0);
+        }
+        // Each item echoes its own spelling
+        assertEquals(" bangalore ", lines.get(1).get("query").asText());
+        assertEquals("BANGALORE", lines.get(2).get("query").asText());
+        assertEquals(Map.of("bangalore", 1, "mumbai", 1), calls());
+    }
+
+    @Test
+    void failuresAreReportedPerItem() throws IOException {
+        Map<Integer, JsonNode> lines = geocode(batchService(8, Duration.ofMinutes(1)),
+                Arrays.asList("Bangalore", "  ", null, "Atlantis", "?", "Down", "atlantis"));
+
+        assertEquals(7, lines.size());
+        assertStatus(lines.get(0), 200, null);
+        assertStatus(lines.get(1), 400, "Address is required");
+        assertStatus(lines.get(2), 400, "Address is required");
+        assertStatus(lines.get(3), 404, "No results");
+        assertStatus(lines.get(4), 400, "Bad query");
+        assertStatus(lines.get(5), 503, "Circuit open");
+        assertStatus(lines.get(6), 404, "No results");
+        assertEquals("  ", lines.get(1).get("query").asText());
+        assertNull(lines.get(2).get("query"));
+        // Blank items never reach the upstream
+        assertEquals(Map.of("bangalore", 1, "atlantis", 1, "?", 1, "down", 1), calls());
+    }
+
+    @Test
+    void reverseBatchRejectsIncompleteItemsAndMergesRoundedDuplicates() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        batchService(8, Duration.ofMinutes(1)).streamReverseGeocodes(Arrays.asList(
+                new CoordinatesRequest("12.97", "77.59"), new CoordinatesRequest("12.970001", "77.590004"),
+                new CoordinatesRequest(" ", "77.59"), new CoordinatesRequest("12.97", null), null)).writeTo(out);
+        Map<Integer, JsonNode> lines = lines(out);
+
+        assertEquals(5, lines.size());
+        assertStatus(lines.get(0), 200, null);
+        assertEquals("MG Road, Bangalore", lines.get(1).get("result").get("address").asText());
+        assertEquals("12.970001,77.590004", lines.get(1).get("query").asText());
+        for (int i = 2; i < 5; i++) {
+            assertStatus(lines.get(i), 400, "Latitude and longitude are required");
+        }
+        assertEquals(Map.of(List.of("12.97", "77.59"), 1), calls());
+    }
+
+    @Test
+    void emptyAndOversizedBatchesAreRejected() {
+        GeoCodingBatchService batchService = batchService(8, Duration.ofMinutes(1));
+
+        assertThrows(InvalidGeoCodingRequestException.class, () -> batchService.streamGeocodes(List.of()));
+        assertThrows(InvalidGeoCodingRequestException.class, () -> batchService.streamGeocodes(null));
+        assertThrows(InvalidGeoCodingRequestException.class,
+                () -> batchService.streamGeocodes(Collections.nCopies(101, "Bangalore")));
+        assertThrows(InvalidGeoCodingRequestException.class,
+                () -> batchService.streamReverseGeocodes(Collections.nCopies(101, null)));
+        assertNotNull(batchService.streamGeocodes(Collections.nCopies(100, "Bangalore")));
+        assertTrue(calls().isEmpty());
+    }
+
+    @Test
+    void keepsAtMostTheConfiguredNumberOfLookupsInFlight() throws Exception {
+        StreamedBatch batch = start(batchService(2, Duration.ofMinutes(1)),
+                List.of("slow 1", "slow 2", "slow 3", "slow 4", "slow 5"));
+
+        List<CompletableFuture<GeoCoordinates>> inFlight = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            CompletableFuture<GeoCoordinates> lookup = pending.poll(5, TimeUnit.SECONDS);
+            assertNotNull(lookup, "Lookup " + i + " was not sent");
+            inFlight.add(lookup);
+            if (inFlight.size() == 2 || i == 5) {
+                // Nothing more starts until one of the lookups in flight completes
+                assertNull(pending.poll(50, TimeUnit.MILLISECONDS));
+                assertEquals(i, calls().size());
+                CompletableFuture<GeoCoordinates> first = inFlight.remove(0);
+                first.complete(new GeoCoordinates(i - inFlight.size(), 0));
+            }
+        }
+        inFlight.get(0).complete(new GeoCoordinates(5, 0));
+        Map<Integer, JsonNode> lines = batch.await();
+
+        assertEquals(5, lines.size());
+        for (int i = 0; i < 5; i++) {
+            assertStatus(lines.get(i), 200, null);
+            assertEquals(i + 1, lines.get(i).get("result").get("latitude").asDouble(), 0);
+        }
+    }
+
+    @Test
+    void itemsLeftWhenTheBatchTimesOutAreAnsweredWith503() throws Exception {
+        Map<Integer, JsonNode> lines = geocode(batchService(8, Duration.ofMillis(200)),
+                List.of("slow", "Bangalore", "SLOW"));
+
+        assertEquals(3, lines.size());
+        assertStatus(lines.get(0), 503, "Batch timed out before the item was resolved");
+        assertStatus(lines.get(1), 200, null);
+        assertStatus(lines.get(2), 503, "Batch timed out before the item was resolved");
+    }
+
+    @Test
+    void itemsLeftWhenTheBatchIsInterruptedAreAnsweredWith503() throws Exception {
+        StreamedBatch batch = start(batchService(1, Duration.ofMinutes(1)), List.of("slow 1", "slow 2", "Bangalore"));
+        pending.poll(5, TimeUnit.SECONDS).complete(new GeoCoordinates(1, 1));
+        assertNotNull(pending.poll(5, TimeUnit.SECONDS));
+
+        batch.thread.interrupt();
+        Map<Integer, JsonNode> lines = batch.await();
+
+        assertEquals(3, lines.size());
+        assertStatus(lines.get(0), 200, null);
+        assertStatus(lines.get(1), 503, "Batch was interrupted before the item was resolved");
+        assertStatus(lines.get(2), 503, "Batch was interrupted before the item was resolved");
+        assertFalse(calls().containsKey("bangalore"));
+        assertTrue(batch.interrupted.get(), "Interrupt status was not restored");
+    }
+
+    private GeoCodingBatchService batchService(int concurrency, Duration timeout) {
+        return new GeoCodingBatchService(service, cacheKeys, objectMapper, 100, concurrency, timeout);
+    }
+
+    private Map<Integer, JsonNode> geocode(GeoCodingBatchService batchService, List<String> addresses)
+            throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        batchService.streamGeocodes(addresses).writeTo(out);
+        return lines(out);
+    }
+
+    /**
+     * Streams a forward batch on a thread of its own, as the servlet container would.
+     */
+    private StreamedBatch start(GeoCodingBatchService batchService, List<String> addresses) {
+        StreamedBatch batch = new StreamedBatch();
+        OutputStream body = batch.out;
+        batch.thread = new Thread(() -> {
+            try {
+                batchService.streamGeocodes(addresses).writeTo(body);
+            } catch (IOException ex) {
+                throw new IllegalStateException(ex);
+            } finally {
+                batch.interrupted.set(Thread.currentThread().isInterrupted());
+                batch.done.countDown();
+            }
+        });
+        batch.thread.start();
+        return batch;
+    }
+
+    private Map<Integer, JsonNode> lines(ByteArrayOutputStream out) throws IOException {
+        Map<Integer, JsonNode> lines = new TreeMap<>();
+        for (String line : out.toString(StandardCharsets.UTF_8).split("\n")) {
+            JsonNode node = objectMapper.readTree(line);
+            assertNull(lines.put(node.get("index").asInt(), node), "Index written twice: " + line);
+        }
+        return lines;
+    }
+
+    private Map<Object, Integer> calls() {
+        Map<Object, Integer> calls = new TreeMap<>((a, b) -> a.toString().compareTo(b.toString()));
+        upstreamCalls.forEach((key, count) -> calls.put(key, count.get()));
+        return calls;
+    }
+
+    private static void assertStatus(JsonNode line, int status, String error) {
+        assertEquals(status, line.get("status").asInt(), line.toString());
+        assertEquals(error, line.has("error") ? line.get("error").asText() : null, line.toString());
+    }
+
+    private final class StreamedBatch {
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        private final CountDownLatch done = new CountDownLatch(1);
+        private final AtomicReference<Boolean> interrupted = new AtomicReference<>(false);
+        private Thread thread;
+
+        private Map<Integer, JsonNode> await() throws Exception {
+            assertTrue(done.await(5, TimeUnit.SECONDS), "Batch did not finish");
+            return lines(out);
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.caching.service;
+
+import com.caching.cache.CacheChangeListener;
+import com.caching.cache.CacheKeyCanonicalizer;
+import com.caching.cache.CoalescingCaffeineCache;
+import com.caching.cache.JitteredExpiry;
+import com.caching.cache.NegativeResultCache;
+import com.caching.cache.SpatialReverseIndex;
+import com.caching.cache.StaleValueCache;
+import com.caching.cache.ValueLifetimes;
+import com.caching.cache.ValueOrigin;
+import com.caching.configuration.GazetteerProperties.MatchMode;
+import com.caching.configuration.ResilienceProperties;
+import com.caching.configuration.UpstreamClientConfig;
+import com.caching.exception.custom.GeoCodingException;
+import com.caching.exception.custom.GeoCodingResultNotFoundException;
+import com.caching.gazetteer.Gazetteer;
+import com.caching.model.GeoAddress;
+import com.caching.model.GeoCoordinates;
+import com.caching.provider.GeoCodingProvider;
+import com.caching.repository.GeoCodingRepository;
+import com.caching.resilience.RequestHedger;
+import com.github.benmanes.caffeine.cache.AsyncCacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.support.NoOpCache;
+import org.springframework.cache.support.SimpleCacheManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GeoCodingServiceTest {
+
+    private static final Duration TTL = Duration.ofHours(1);
+    private static final Duration REFRESH_AFTER = Duration.ofMinutes(30);
+    private static final GeoCodingException UNAVAILABLE = new GeoCodingException("Upstream service error: 503");
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicLong ticker = new AtomicLong();
+    private final AtomicInteger upstreamCalls = new AtomicInteger();
+    // Answers for the upstream calls to come, in order; a GeoCodingException fails the call
+    private final Queue<Object> answers = new ConcurrentLinkedQueue<>();
+    private final Queue<ValueOrigin> reported = new ConcurrentLinkedQueue<>();
+    private final ConcurrentMapCache disk = new ConcurrentMapCache("geocoding-disk");
+    private final ConcurrentMapCache notFound = new ConcurrentMapCache("geocoding-not-found");
+    private final StaleValueCache stale =
+            new StaleValueCache("geocoding-stale", Caffeine.newBuilder().build(), Duration.ofMinutes(1));
+    private RequestHedger hedger;
+    private GeoCodingService service;
+
+    @BeforeEach
+    void setUp() {
+        ValueLifetimes lifetimes = new ValueLifetimes(new JitteredExpiry(TTL, 0.1), TTL);
+        // Refreshes go through the service like in CacheConfig, here run on the reading thread
+        AsyncCacheLoader<Object, Object> loader = (key, executor) -> service.loadGeocode((String) key, true);
+        CacheChangeListener listener = new CacheChangeListener() {
+            @Override
+            public void loaded(String cacheName, Object key, Object value, ValueOrigin origin) {
+                reported.add(origin);
+            }
+
+            @Override
+            public void evicted(String cacheName, Object key) {
+            }
+
+            @Override
+            public void cleared(String cacheName) {
+            }
+        };
+        SimpleCacheManager cacheManager = new SimpleCacheManager();
+        cacheManager.setCaches(List.of(
+                new CoalescingCaffeineCache("geocoding", Caffeine.newBuilder()
+                        .ticker(ticker::get)
+                        .executor(Runnable::run)
+                        .expireAfter(lifetimes)
+                        .refreshAfterWrite(REFRESH_AFTER)
+                        .buildAsync(loader), listener, lifetimes),
+                new CoalescingCaffeineCache("reverse-geocoding", Caffeine.newBuilder().buildAsync()),
+                notFound, new ConcurrentMapCache("reverse-geocoding-not-found"),
+                stale,
+                new StaleValueCache("reverse-geocoding-stale", Caffeine.newBuilder().build(), Duration.ofMinutes(1)),
+                disk, new NoOpCache("reverse-geocoding-disk")));
+        cacheManager.initializeCaches();
+
+        List<GeoCodingProvider> providers = List.of(new GeoCodingProvider() {
+            @Override
+            public String getName() {
+                return "stub";
+            }
+
+            @Override
+            public CompletableFuture<GeoCoordinates> geocode(String address) {
+                upstreamCalls.incrementAndGet();
+                Object answer = answers.remove();
+                return answer instanceof GeoCodingException
+                        ? CompletableFuture.failedFuture((GeoCodingException) answer)
+                        : CompletableFuture.completedFuture((GeoCoordinates) answer);
+            }
+
+            @Override
+            public CompletableFuture<GeoAddress> reverseGeocode(String latitude, String longitude) {
+                throw new UnsupportedOperationException();
+            }
+        });
+        ResilienceProperties resilience = new ResilienceProperties();
+        resilience.getRateLimit().setEnabled(false);
+        hedger = new RequestHedger(resilience.getHedging(), meterRegistry);
+        GeoCodingRepository repository = new GeoCodingRepository(providers,
+                UpstreamClientConfig.upstreamGuards(providers, resilience, meterRegistry), hedger, meterRegistry);
+        service = new GeoCodingService(repository, cacheManager,
+                new SpatialReverseIndex<GeoAddress>(false, 0, 0, Duration.ZERO),
+                new Gazetteer(false, MatchMode.EXACT, 0.8, Duration.ofMinutes(10)),
+                new CacheKeyCanonicalizer(5, List.of(), List.of()));
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        service.shutdown();
+        hedger.close();
+    }
+
+    @Test
+    void missIsLoadedWithAJitteredLifetime() {
+        answers.add(new GeoCoordinates(12.97, 77.59));
+
+        assertEquals(new GeoCoordinates(12.97, 77.59), service.getGeocode("Bangalore"));
+
+        await(() -> service.getGeocodeTimeToLive("Bangalore") != null);
+        Duration ttl = service.getGeocodeTimeToLive("Bangalore");
+        assertTrue(ttl.compareTo(TTL.multipliedBy(9).dividedBy(10)) >= 0, ttl.toString());
+        assertTrue(ttl.compareTo(TTL.multipliedBy(11).dividedBy(10)) <= 0, ttl.toString());
+        assertEquals(new GeoCoordinates(12.97, 77.59), disk.get("bangalore").get());
+        assertEquals(List.of(ValueOrigin.UPSTREAM), List.copyOf(reported));
+    }
+
+    @Test
+    void refreshReloadsThroughTheSameChainAsAMiss() {
+        loadBangalore();
+        answers.add(new GeoCoordinates(12.98, 77.60));
+
+        ticker.addAndGet(REFRESH_AFTER.plusMinutes(1).toNanos());
+        service.getGeocode("Bangalore");
+
+        await(() -> new GeoCoordinates(12.98, 77.60).equals(service.getGeocode("Bangalore")));
+        assertEquals(2, upstreamCalls.get());
+        await(() -> new GeoCoordinates(12.98, 77.60).equals(disk.get("bangalore").get()));
+        assertEquals(List.of(ValueOrigin.UPSTREAM, ValueOrigin.UPSTREAM), List.copyOf(reported));
+    }
+
+    @Test
+    void failedRefreshKeepsTheEntryInsteadOfServingAStaleValue() {
+        loadBangalore();
+        stale.put("bangalore", new GeoCoordinates(0, 0));
+        answers.add(UNAVAILABLE);
+
+        ticker.addAndGet(REFRESH_AFTER.plusMinutes(1).toNanos());
+        service.getGeocode("Bangalore");
+
+        await(() -> upstreamCalls.get() == 2);
+        assertEquals(new GeoCoordinates(12.97, 77.59), service.getGeocode("Bangalore"));
+        assertEquals(new GeoCoordinates(12.97, 77.59), disk.get("bangalore").get());
+        assertEquals(List.of(ValueOrigin.UPSTREAM), List.copyOf(reported));
+    }
+
+    @Test
+    void refreshOfALookupRecordedAsNotFoundIsAnsweredFromTheNegativeCache() {
+        loadBangalore();
+        new NegativeResultCache(notFound).put("bangalore", new GeoCodingResultNotFoundException("No results"));
+
+        ticker.addAndGet(REFRESH_AFTER.plusMinutes(1).toNanos());
+        service.getGeocode("Bangalore");
+
+        assertEquals(1, upstreamCalls.get());
+        assertEquals(new GeoCoordinates(12.97, 77.59), service.getGeocode("Bangalore"));
+    }
+
+    private void loadBangalore() {
+        answers.add(new GeoCoordinates(12.97, 77.59));
+        assertEquals(new GeoCoordinates(12.97, 77.59), service.getGeocode("Bangalore"));
+        await(() -> service.getGeocodeTimeToLive("Bangalore") != null);
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Condition not met in time");
+            Thread.onSpinWait();
+        }
+    }
+}
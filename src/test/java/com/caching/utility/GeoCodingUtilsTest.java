@@ -0,0 +1,132 @@
+package com.caching.utility;
+
+import com.caching.exception.custom.GeoCodingException;
+import com.caching.exception.custom.GeoCodingResultNotFoundException;
+import com.caching.model.GeoAddress;
+import com.caching.model.GeoCoordinates;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class GeoCodingUtilsTest {
+
+    @Test
+    void readsTheFirstResultPastOtherFields() {
+        GeoCoordinates coordinates = GeoCodingUtils.parseGeoResponse(bytes("{\"pagination\": {\"limit\": 10,"
+                + " \"links\": [{\"next\": null}]}, \"meta\": [1, [2, {\"data\": []}]], \"data\": [{\"label\": \"x\","
+                + " \"region\": {\"data\": [null]}, \"latitude\": 12.97, \"longitude\": 77.59},"
+                + " {\"latitude\": 0, \"longitude\": 0}], \"trailer\": {}}"));
+
+        assertEquals(12.97, coordinates.getLatitude(), 0);
+        assertEquals(77.59, coordinates.getLongitude(), 0);
+    }
+
+    @Test
+    void readsTheFirstLabelPastOtherFields() {
+        GeoAddress address = GeoCodingUtils.parseReverseGeoResponse(bytes("{\"error\": null, \"extra\":"
+                + " {\"label\": \"nested\", \"data\": [{\"label\": \"nested\"}]}, \"data\": [{\"distance\": 0.1,"
+                + " \"context\": {\"label\": \"nested\"}, \"label\": \"MG Road, Bangalore\"},"
+                + " {\"label\": \"second\"}]}"));
+
+        assertEquals("MG Road, Bangalore", address.getAddress());
+    }
+
+    @Test
+    void nothingPastTheFirstResultIsRead() {
+        // Cut short after the first result: what was used arrived whole, and the rest is never parsed.
+        GeoCoordinates coordinates = GeoCodingUtils.parseGeoResponse(
+                bytes("{\"data\": [{\"latitude\": 12.97, \"longitude\": 77.59}, {\"latit"));
+        GeoAddress address = GeoCodingUtils.parseReverseGeoResponse(bytes("{\"data\": [{\"label\": \"MG Road\"}"));
+
+        assertEquals(12.97, coordinates.getLatitude(), 0);
+        assertEquals("MG Road", address.getAddress());
+    }
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+            "{\"data\": null}",
+            "{\"data\": []}",
+            "{\"meta\": {\"data\": [{}]}, \"data\": []}",
+    })
+    void noResultsIsNotFound(String json) {
+        assertThrows(GeoCodingResultNotFoundException.class, () -> GeoCodingUtils.parseGeoResponse(bytes(json)));
+        assertThrows(GeoCodingResultNotFoundException.class,
+                () -> GeoCodingUtils.parseReverseGeoResponse(bytes(json)));
+    }
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+            // Missing, null or non-numeric coordinates
+            "{\"data\": [{}]}",
+            "{\"data\": [{\"latitude\": 12.97}]}",
+            "{\"data\": [{\"longitude\": 77.59}]}",
+            "{\"data\": [{\"latitude\": null, \"longitude\": 77.59}]}",
+            "{\"data\": [{\"latitude\": 12.97, \"longitude\": null}]}",
+            "{\"data\": [{\"latitude\": \"12.97\", \"longitude\": \"77.59\"}]}",
+            "{\"data\": [{\"latitude\": [12.97], \"longitude\": {\"value\": 77.59}}]}",
+            "{\"data\": [{\"latitude\": true, \"longitude\": 77.59}]}",
+            // Wrong shapes
+            "{}",
+            "[]",
+            "null",
+            "12.97",
+            "{\"data\": {}}",
+            "{\"data\": \"none\"}",
+            "{\"data\": [null]}",
+            "{\"data\": [[12.97, 77.59]]}",
+            "{\"data\": [\"Bangalore\"]}",
+            "{\"result\": [{\"latitude\": 12.97, \"longitude\": 77.59}]}",
+            // Truncated or malformed
+            "''",
+            "{",
+            "{\"data\"",
+            "{\"data\": [",
+            "{\"data\": [{\"latitude\": 12.97, \"longitude\": 77.5",
+            "{\"data\": [{\"latitude\": 12.97, \"longitude\": 77.59",
+            "{\"meta\": {\"count\": 1, \"data\": [",
+            "{\"data\": [{\"latitude\": 12.97 \"longitude\": 77.59}]}",
+            "<html>502 Bad Gateway</html>",
+    })
+    void invalidGeocodingResponseIsUpstreamError(String json) {
+        GeoCodingException ex = assertThrows(GeoCodingException.class,
+                () -> GeoCodingUtils.parseGeoResponse(bytes(json)));
+        assertEquals(GeoCodingException.class, ex.getClass());
+    }
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+            // Missing, null, empty or non-string labels
+            "{\"data\": [{}]}",
+            "{\"data\": [{\"name\": \"MG Road\"}]}",
+            "{\"data\": [{\"label\": null}]}",
+            "{\"data\": [{\"label\": \"\"}]}",
+            "{\"data\": [{\"label\": 42}]}",
+            "{\"data\": [{\"label\": [\"MG Road\"]}]}",
+            "{\"data\": [{\"label\": {\"text\": \"MG Road\"}}]}",
+            // Wrong shapes
+            "{}",
+            "[]",
+            "{\"data\": {}}",
+            "{\"data\": [null]}",
+            "{\"data\": [\"MG Road\"]}",
+            // Truncated or malformed
+            "''",
+            "{\"data\": [{\"label\": \"MG Ro",
+            "{\"data\": [{\"label\": \"MG Road\"",
+            "{\"data\": [{\"label\" \"MG Road\"}]}",
+    })
+    void invalidReverseGeocodingResponseIsUpstreamError(String json) {
+        GeoCodingException ex = assertThrows(GeoCodingException.class,
+                () -> GeoCodingUtils.parseReverseGeoResponse(bytes(json)));
+        assertEquals(GeoCodingException.class, ex.getClass());
+    }
+
+    private static byte[] bytes(String json) {
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+}